@@ -1,8 +1,15 @@
 package co.edu.uniquindio.sameday.controllers;
 
 import co.edu.uniquindio.sameday.models.*;
+import co.edu.uniquindio.sameday.models.behavioral.chainofresponsibility.ResultadoValidacion;
+import co.edu.uniquindio.sameday.models.behavioral.chainofresponsibility.ValidadorRepartidorChain;
 import co.edu.uniquindio.sameday.models.behavioral.strategy.*;
+import co.edu.uniquindio.sameday.models.concurrency.VersionEnvios;
 import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
+import co.edu.uniquindio.sameday.models.query.EnvioQuery;
+import co.edu.uniquindio.sameday.models.rutas.TiemposViaje;
+import co.edu.uniquindio.sameday.models.structural.facade.EnvioFacade;
+import co.edu.uniquindio.sameday.models.structural.facade.ResultadoOperacion;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -11,13 +18,20 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class AsignacionEnvioController {
 
+    // Un solo pool para todas las vistas de asignación
+    private static final AsignadorParaleloPorCiudad ASIGNADOR_PARALELO = new AsignadorParaleloPorCiudad();
+
     private SameDay sameDay = SameDay.getInstance();
+    private EnvioFacade envioFacade = new EnvioFacade();
     private Envio envioSeleccionado = null;
+    private long versionSeleccionada; // Versión del envío al seleccionarlo (control optimista)
     private ObservableList<Envio> enviosObservableList;
     private ObservableList<Dealer> repartidoresObservableList;
 
@@ -100,35 +114,54 @@ public class AsignacionEnvioController {
     private void configurarEstrategias() {
         cmbEstrategia.setItems(FXCollections.observableArrayList(
                 "Por Ciudad",
-                "Por Menor Carga"
+                "Por Menor Carga",
+                "Óptima por Ciudad",
+                "Por Cercanía"
         ));
         cmbEstrategia.setValue("Por Ciudad");
+        // La zona aceptada depende de la estrategia: se vuelve a filtrar al cambiarla
+        cmbEstrategia.valueProperty().addListener((observable, oldValue, newValue) -> {
+            if (envioSeleccionado != null) {
+                filtrarRepartidoresPorZona(envioSeleccionado);
+            }
+        });
+    }
+
+    /**
+     * Solo "Por Cercanía" acepta repartidores de otras ciudades dentro del radio;
+     * las demás estrategias exigen la ciudad de destino, como ValidadorZonaCobertura
+     */
+    private boolean zonaPorCercania() {
+        return "Por Cercanía".equals(cmbEstrategia.getValue());
+    }
+
+    private ValidadorRepartidorChain cadenaValidacion() {
+        return zonaPorCercania()
+                ? new ValidadorRepartidorChain(TiemposViaje.radioConfigurado())
+                : new ValidadorRepartidorChain();
     }
 
     // NUEVO: Asignación automática usando Strategy
     @FXML
     void onAsignarAutomatico(ActionEvent event) {
-        // Seleccionar estrategia según ComboBox
-        EstrategiaAsignacion estrategia;
+        // Seleccionar estrategia según ComboBox (una instancia por ciudad)
+        Supplier<EstrategiaAsignacion> estrategia;
         if ("Por Menor Carga".equals(cmbEstrategia.getValue())) {
-            estrategia = new AsignacionPorMenorCarga();
+            estrategia = AsignacionPorMenorCarga::new;
+        } else if ("Óptima por Ciudad".equals(cmbEstrategia.getValue())) {
+            estrategia = AsignacionOptimaPorCiudad::new;
+        } else if ("Por Cercanía".equals(cmbEstrategia.getValue())) {
+            estrategia = AsignacionPorCercania::new;
         } else {
-            estrategia = new AsignacionPorCiudad();
+            estrategia = AsignacionPorCiudad::new;
         }
 
-        AsignadorEnvios asignador = new AsignadorEnvios(estrategia);
-
-        // Obtener todos los repartidores
-        List<Dealer> todosRepartidores = sameDay.getListPersons().stream()
-                .filter(person -> person instanceof Dealer)
-                .map(person -> (Dealer) person)
-                .collect(Collectors.toList());
-
-        // Obtener envíos pagados SIN asignar
-        List<Envio> enviosSinAsignar = sameDay.getListEnvios().stream()
-                .filter(envio -> "PAGADO".equals(envio.getEstado()))
-                .filter(envio -> envio.getRepartidorAsignado() == null)
-                .collect(Collectors.toList());
+        // Obtener envíos pagados SIN asignar, del más antiguo al más reciente
+        List<Envio> enviosSinAsignar = sameDay.consultarEnvios()
+                .pagados(true)
+                .conRepartidor(false)
+                .ordenarPor(EnvioQuery.Orden.FECHA_ASC)
+                .ejecutar();
 
         if (enviosSinAsignar.isEmpty()) {
             mostrarAlerta("Sin envíos pendientes",
@@ -147,24 +180,19 @@ public class AsignacionEnvioController {
         );
 
         if (confirmacion.showAndWait().get() == ButtonType.OK) {
-            int asignados = 0;
-            int noAsignados = 0;
-
-            // Asignar TODOS los envíos pendientes
-            for (Envio envio : enviosSinAsignar) {
-                Dealer repartidor = asignador.asignar(envio, todosRepartidores);
-
-                if (repartidor != null) {
-                    envio.setRepartidorAsignado(repartidor);
-                    envio.setEstadoEntrega(EstadoEntrega.ASIGNADO);
-                    sameDay.updateEnvio(envio);
-                    asignados++;
-                } else {
-                    noAsignados++;
-                }
+            // Asignar TODOS los envíos pendientes: cada ciudad en paralelo, guardado en un solo lote
+            AsignadorParaleloPorCiudad.Resultado resultado = ASIGNADOR_PARALELO.asignarPendientes(sameDay, estrategia);
+            if (!resultado.isGuardado()) {
+                mostrarAlerta("Asignación no guardada",
+                        "Otro usuario está asignando los mismos envíos. Intente de nuevo.",
+                        Alert.AlertType.WARNING);
+                cargarEnviosPagados();
+                return;
             }
+            int asignados = resultado.getAsignaciones().size();
+            int noAsignados = resultado.getSinAsignar();
 
-            String mensaje = "Envíos asignados: " + asignados;
+            String mensaje = "Envíos asignados: " + asignados + " de " + resultado.getConsiderados();
             if (noAsignados > 0) {
                 mensaje += "\nEnvíos sin repartidor disponible: " + noAsignados;
             }
@@ -306,6 +334,7 @@ public class AsignacionEnvioController {
                 (observable, oldValue, newValue) -> {
                     if (newValue != null) {
                         envioSeleccionado = newValue;
+                        versionSeleccionada = newValue.getVersion();
                         filtrarRepartidoresPorZona(newValue);
                         btnAsignar.setDisable(newValue.getRepartidorAsignado() != null);
                         btnDesasignar.setDisable(newValue.getRepartidorAsignado() == null);
@@ -321,12 +350,17 @@ public class AsignacionEnvioController {
         }
 
         City ciudadDestino = envio.getDestino().getCity();
-
-        List<Dealer> repartidoresFiltrados = sameDay.getListPersons().stream()
-                .filter(person -> person instanceof Dealer)
-                .map(person -> (Dealer) person)
-                .filter(dealer -> dealer.getCity() == ciudadDestino)
+        boolean porCercania = zonaPorCercania();
+        int radio = TiemposViaje.radioConfigurado();
+
+        // Los de la ciudad de destino primero, luego (solo por cercanía) los de ciudades cercanas
+        List<Dealer> repartidoresFiltrados = sameDay.getListDealers().stream()
+                .filter(dealer -> dealer.getCity() != null
+                        && (porCercania
+                        ? TiemposViaje.dentroDelRadio(dealer.getCity(), ciudadDestino, radio)
+                        : dealer.getCity() == ciudadDestino))
                 .filter(Dealer::isDisponible)
+                .sorted(Comparator.comparingInt(dealer -> TiemposViaje.minutos(dealer.getCity(), ciudadDestino)))
                 .collect(Collectors.toList());
 
         repartidoresObservableList.clear();
@@ -365,10 +399,11 @@ public class AsignacionEnvioController {
             return;
         }
 
-        if (envioSeleccionado.getDestino() != null
-                && repartidorSeleccionado.getCity() != envioSeleccionado.getDestino().getCity()) {
-            mostrarAlerta("Zona incorrecta",
-                    "El repartidor debe estar en la misma ciudad que el destino del envío",
+        // Misma regla de zona y carga que la asignación automática de la estrategia elegida
+        ResultadoValidacion validacion = cadenaValidacion().validar(repartidorSeleccionado, envioSeleccionado);
+        if (!validacion.isValido()) {
+            mostrarAlerta("Repartidor no válido",
+                    validacion.getMensaje(),
                     Alert.AlertType.WARNING);
             return;
         }
@@ -383,9 +418,14 @@ public class AsignacionEnvioController {
         );
 
         if (confirmacion.showAndWait().get() == ButtonType.OK) {
-            envioSeleccionado.setRepartidorAsignado(repartidorSeleccionado);
-            envioSeleccionado.setEstadoEntrega(EstadoEntrega.ASIGNADO);
-            sameDay.updateEnvio(envioSeleccionado);
+            // Solo se asigna si nadie cambió el envío desde que se seleccionó (ni durante el diálogo)
+            ResultadoOperacion resultado = envioFacade.asignarRepartidor(
+                    envioSeleccionado.getId(), versionSeleccionada, repartidorSeleccionado);
+
+            if (!resultado.isExitoso()) {
+                mostrarResultadoFallido(resultado);
+                return;
+            }
 
             mostrarAlerta("Asignación Exitosa",
                     "El envío ha sido asignado correctamente al repartidor",
@@ -427,9 +467,13 @@ public class AsignacionEnvioController {
         );
 
         if (confirmacion.showAndWait().get() == ButtonType.OK) {
-            envioSeleccionado.setRepartidorAsignado(null);
-            envioSeleccionado.setEstadoEntrega(null);
-            sameDay.updateEnvio(envioSeleccionado);
+            ResultadoOperacion resultado = envioFacade.desasignarRepartidor(
+                    envioSeleccionado.getId(), versionSeleccionada);
+
+            if (!resultado.isExitoso()) {
+                mostrarResultadoFallido(resultado);
+                return;
+            }
 
             mostrarAlerta("Desasignación Exitosa",
                     "El repartidor ha sido liberado correctamente",
@@ -455,9 +499,7 @@ public class AsignacionEnvioController {
             return;
         }
 
-        List<Dealer> repartidoresFiltrados = sameDay.getListPersons().stream()
-                .filter(person -> person instanceof Dealer)
-                .map(person -> (Dealer) person)
+        List<Dealer> repartidoresFiltrados = sameDay.getListDealers().stream()
                 .filter(dealer -> dealer.getCity() == ciudadSeleccionada)
                 .collect(Collectors.toList());
 
@@ -473,7 +515,7 @@ public class AsignacionEnvioController {
 
     private void cargarEnviosPagados() {
         List<Envio> enviosPagados = sameDay.getListEnvios().stream()
-                .filter(envio -> "PAGADO".equals(envio.getEstado()))
+                .filter(Envio::isPagado)
                 .collect(Collectors.toList());
 
         enviosObservableList.clear();
@@ -481,29 +523,26 @@ public class AsignacionEnvioController {
     }
 
     private void cargarRepartidores() {
-        List<Dealer> repartidores = sameDay.getListPersons().stream()
-                .filter(person -> person instanceof Dealer)
-                .map(person -> (Dealer) person)
-                .collect(Collectors.toList());
+        List<Dealer> repartidores = sameDay.getListDealers();
 
         repartidoresObservableList.clear();
         repartidoresObservableList.addAll(repartidores);
     }
 
     private void actualizarEstadisticas() {
-        long pendientes = sameDay.getListEnvios().stream()
-                .filter(envio -> "PAGADO".equals(envio.getEstado()))
+        // Ambos conteos salen de la misma versión de los envíos
+        VersionEnvios version = sameDay.getVersionEnvios();
+        long pendientes = version.stream()
+                .filter(Envio::isPagado)
                 .filter(envio -> envio.getRepartidorAsignado() == null)
                 .count();
 
-        long asignados = sameDay.getListEnvios().stream()
-                .filter(envio -> "PAGADO".equals(envio.getEstado()))
+        long asignados = version.stream()
+                .filter(Envio::isPagado)
                 .filter(envio -> envio.getRepartidorAsignado() != null)
                 .count();
 
-        long repartidoresDisponibles = sameDay.getListPersons().stream()
-                .filter(person -> person instanceof Dealer)
-                .map(person -> (Dealer) person)
+        long repartidoresDisponibles = sameDay.getListDealers().stream()
                 .filter(Dealer::isDisponible)
                 .count();
 
@@ -512,6 +551,21 @@ public class AsignacionEnvioController {
         lblRepartidoresDisponibles.setText("Disponibles: " + repartidoresDisponibles);
     }
 
+    /**
+     * Muestra por qué no se aplicó el cambio (p. ej. otro usuario modificó el envío) y
+     * recarga las tablas para que se vea el estado vigente
+     */
+    private void mostrarResultadoFallido(ResultadoOperacion resultado) {
+        mostrarAlerta(resultado.isConflicto() ? "Envío Modificado" : "Error",
+                resultado.getMensaje(),
+                Alert.AlertType.WARNING);
+        cargarEnviosPagados();
+        cargarRepartidores();
+        actualizarEstadisticas();
+        tablaEnvios.getSelectionModel().clearSelection();
+        envioSeleccionado = null;
+    }
+
     private void mostrarAlerta(String titulo, String mensaje, Alert.AlertType tipo) {
         Alert alerta = new Alert(tipo);
         alerta.setTitle(titulo);
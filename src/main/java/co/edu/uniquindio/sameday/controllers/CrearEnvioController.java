@@ -2,15 +2,21 @@ package co.edu.uniquindio.sameday.controllers;
 
 import co.edu.uniquindio.sameday.models.*;
 import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
+import co.edu.uniquindio.sameday.models.importacion.ErrorFila;
+import co.edu.uniquindio.sameday.models.importacion.ResultadoImportacion;
+import co.edu.uniquindio.sameday.models.query.EnvioQuery;
+import co.edu.uniquindio.sameday.models.query.FuenteConsultaEnvios;
 import co.edu.uniquindio.sameday.models.structural.facade.EnvioFacade;
 import co.edu.uniquindio.sameday.models.structural.facade.ResultadoOperacion;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.stage.FileChooser;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,6 +26,7 @@ public class CrearEnvioController {
     private EnvioFacade envioFacade = new EnvioFacade();
     private SameDay sameDay = SameDay.getInstance();
     private Envio selectedEnvio = null;
+    private long versionSeleccionada; // Versión del envío al seleccionarlo (control optimista)
     private double cotizacionActual = 0.0;
 
     @FXML private TextField txtId;
@@ -47,6 +54,7 @@ public class CrearEnvioController {
     @FXML private Button btnActualizar;
     @FXML private Button btnCotizar;
     @FXML private Button btnLimpiar;
+    @FXML private Button btnImportar;
     @FXML private Button btnEliminar;
     @FXML private TableView<Envio> tablaEnvios;
     @FXML private TableColumn<Envio, String> colId;
@@ -66,25 +74,12 @@ public class CrearEnvioController {
         loadTable();
         configureTableSelection();
         btnActualizar.setDisable(true);
-        txtId.setText(envioFacade.generarIdEnvio());
+        txtId.setText(envioFacade.previsualizarIdEnvio());
     }
 
     private void configureComboBoxes() {
-        List<Address> direccionesRemitente = new ArrayList<>();
-        for (Address address : sameDay.getListAddresses()) {
-            if (address.getType() == AddressType.REMITENTE) {
-                direccionesRemitente.add(address);
-            }
-        }
-        cmbOrigen.setItems(FXCollections.observableArrayList(direccionesRemitente));
-
-        List<Address> direccionesDestinatario = new ArrayList<>();
-        for (Address address : sameDay.getListAddresses()) {
-            if (address.getType() == AddressType.DESTINATARIO) {
-                direccionesDestinatario.add(address);
-            }
-        }
-        cmbDestino.setItems(FXCollections.observableArrayList(direccionesDestinatario));
+        SugerenciasDirecciones.configurar(cmbOrigen, AddressType.REMITENTE);
+        SugerenciasDirecciones.configurar(cmbDestino, AddressType.DESTINATARIO);
     }
 
     private void configureTable() {
@@ -127,6 +122,7 @@ public class CrearEnvioController {
                 (observable, oldValue, newValue) -> {
                     if (newValue != null) {
                         selectedEnvio = newValue;
+                        versionSeleccionada = newValue.getVersion();
                         loadEnvioInForm(newValue);
                         btnActualizar.setDisable(false);
                         btnAgregar.setDisable(true);
@@ -270,6 +266,7 @@ public class CrearEnvioController {
             // USANDO FACADE (ahora pasa datos del destinatario) ✨
             ResultadoOperacion resultado = envioFacade.actualizarEnvio(
                     selectedEnvio.getId(),
+                    versionSeleccionada,
                     cmbOrigen.getValue(),
                     cmbDestino.getValue(),
                     txtContenido.getText().trim(),
@@ -287,6 +284,10 @@ public class CrearEnvioController {
                 showAlert("Éxito", resultado.getMensaje(), Alert.AlertType.INFORMATION);
                 loadTable();
                 clearForm();
+            } else if (resultado.isConflicto()) {
+                showAlert("Envío Modificado", resultado.getMensaje(), Alert.AlertType.WARNING);
+                loadTable();
+                clearForm();
             } else {
                 showAlert("Error", resultado.getMensaje(), Alert.AlertType.WARNING);
             }
@@ -333,6 +334,57 @@ public class CrearEnvioController {
         clearForm();
     }
 
+    /**
+     * Importa envíos de un archivo CSV o JSON en segundo plano; el avance se muestra
+     * en la etiqueta de cotización
+     */
+    @FXML
+    void onImportar(ActionEvent event) {
+        FileChooser selector = new FileChooser();
+        selector.setTitle("Importar envíos");
+        selector.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV o JSON", "*.csv", "*.json", "*.jsonl"),
+                new FileChooser.ExtensionFilter("Todos los archivos", "*.*"));
+        File archivo = selector.showOpenDialog(btnImportar.getScene().getWindow());
+        if (archivo == null) {
+            return;
+        }
+
+        btnImportar.setDisable(true);
+        lblCotizacion.setText("📥 Importando " + archivo.getName() + "...");
+        Thread importacion = new Thread(() -> {
+            ResultadoOperacion resultado = envioFacade.importarEnvios(archivo.toPath(),
+                    (leidas, importadas, fallidas) -> Platform.runLater(() -> lblCotizacion.setText(
+                            String.format("📥 %,d filas leídas: %,d importadas, %,d con error",
+                                    leidas, importadas, fallidas))));
+            Platform.runLater(() -> mostrarImportacion(resultado));
+        }, "sameday-importacion");
+        importacion.setDaemon(true);
+        importacion.start();
+    }
+
+    private void mostrarImportacion(ResultadoOperacion resultado) {
+        btnImportar.setDisable(false);
+        clearForm();
+        loadTable();
+        if (!(resultado.getDato() instanceof ResultadoImportacion)) {
+            showAlert("Error", resultado.getMensaje(), Alert.AlertType.ERROR);
+            return;
+        }
+        ResultadoImportacion importacion = (ResultadoImportacion) resultado.getDato();
+        StringBuilder mensaje = new StringBuilder(resultado.getMensaje());
+        List<ErrorFila> errores = importacion.getErrores();
+        for (int i = 0; i < Math.min(10, errores.size()); i++) {
+            mensaje.append("\n• ").append(errores.get(i));
+        }
+        if (importacion.getFallidas() > 10) {
+            mensaje.append("\n... y ").append(importacion.getFallidas() - 10).append(" filas más con error");
+        }
+        showAlert(resultado.isExitoso() ? "Importación" : "Importación incompleta", mensaje.toString(),
+                importacion.getFallidas() == 0 && resultado.isExitoso()
+                        ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING);
+    }
+
     /**
      * Valida los campos del destinatario - NUEVO
      */
@@ -384,7 +436,7 @@ public class CrearEnvioController {
     }
 
     private void clearForm() {
-        txtId.setText(envioFacade.generarIdEnvio());
+        txtId.setText(envioFacade.previsualizarIdEnvio());
         cmbOrigen.setValue(null);
         cmbDestino.setValue(null);
 
@@ -415,14 +467,24 @@ public class CrearEnvioController {
 
     public void loadTable() {
         System.out.println("\n=== CARGANDO TABLA DE ENVÍOS ===");
-        // USANDO FACADE: Obtener todos los envíos
-        ObservableList<Envio> enviosList =
-                FXCollections.observableArrayList(envioFacade.obtenerTodosLosEnvios());
-        tablaEnvios.setItems(enviosList);
+        // USANDO FACADE: Obtener todos los envíos (tabla paginada, solo se leen las filas visibles)
+        FuenteConsultaEnvios fuente = envioFacade.obtenerFuenteEnvios();
+        ListaPaginada.mostrar(tablaEnvios, fuente,
+                (columna, ascendente) -> ordenarEnvios(fuente, columna, ascendente));
         tablaEnvios.refresh();
         System.out.println("=== TABLA CARGADA ===\n");
     }
 
+    /**
+     * Orden de la tabla por columna: el costo tiene índice ordenado; el resto se ordena en memoria
+     */
+    private FuenteConsultaEnvios ordenarEnvios(FuenteConsultaEnvios fuente, TableColumn<Envio, ?> columna, boolean ascendente) {
+        if (columna == colCosto) {
+            return fuente.ordenadaPor(ascendente ? EnvioQuery.Orden.COSTO_ASC : EnvioQuery.Orden.COSTO_DESC);
+        }
+        return ListaPaginada.ordenarEnMemoria(fuente, columna, ascendente);
+    }
+
     private void showAlert(String title, String message, Alert.AlertType type) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
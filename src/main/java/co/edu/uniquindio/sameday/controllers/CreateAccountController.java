@@ -166,13 +166,8 @@ public class CreateAccountController {
      * @return String con el ID generado
      */
     private String generarIdCliente() {
-        // Obtener el número de clientes actuales y sumarle 1
-        int numeroClientes = (int) sameDay.getListPersons().stream()
-                .filter(person -> person instanceof Client)
-                .count();
-
-        // Generar ID con formato 0001, 0002....
-        return String.format("%04d", numeroClientes + 1);
+        // Generar ID con formato 0001, 0002.... (no se repite aunque se eliminen clientes)
+        return sameDay.generarIdCliente();
     }
 
     /**
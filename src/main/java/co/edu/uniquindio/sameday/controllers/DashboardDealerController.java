@@ -60,6 +60,7 @@ public class DashboardDealerController {
         // Actualizar solo la disponibilidad MANUAL del repartidor
         if (repartidorActual != null) {
             repartidorActual.setDisponibleManual(disponible);
+            sameDay.actualizarPersona(repartidorActual);
         }
 
         actualizarEstadoDisponibilidad();
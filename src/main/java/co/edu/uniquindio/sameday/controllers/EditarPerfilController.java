@@ -175,13 +175,16 @@ public class EditarPerfilController {
 
         // Actualizar datos del usuario
         if (clienteActual.getUserAccount() != null) {
+            String usuarioAnterior = clienteActual.getUserAccount().getUser();
             clienteActual.getUserAccount().setUser(usuario);
+            sameDay.actualizarUsuario(clienteActual, usuarioAnterior);
 
             // Solo actualizar contraseña si se ingresó una nueva
             if (!contrasenia.isEmpty()) {
                 clienteActual.getUserAccount().setContrasenia(contrasenia);
             }
         }
+        sameDay.actualizarPersona(clienteActual);
 
         // Mostrar mensaje de éxito
         showAlert("Éxito",
@@ -276,8 +279,7 @@ public class EditarPerfilController {
      * Verifica si un nombre de usuario ya existe para otro cliente
      */
     private boolean usuarioExisteParaOtro(String usuario) {
-        return sameDay.getListPersons().stream()
-                .filter(person -> person instanceof Client)
+        return sameDay.getListClients().stream()
                 .filter(person -> !person.getId().equals(clienteActual.getId())) // Excluir al cliente actual
                 .anyMatch(person -> person.getUserAccount().getUser().equalsIgnoreCase(usuario));
     }
@@ -58,6 +58,7 @@ public class EditarPerfilRepartidorController {
         repartidorActual.setNombre(txtNombre.getText().trim());
         repartidorActual.setCorreo(txtCorreo.getText().trim());
         repartidorActual.setTelefono(txtTelefono.getText().trim());
+        sameDay.actualizarPersona(repartidorActual);
 
         // Cambiar contraseña si se proporcionó
         if (!txtPasswordActual.getText().isEmpty()) {
@@ -214,6 +215,7 @@ public class EditarPerfilRepartidorController {
 
         // Actualizar la contraseña
         repartidorActual.getUserAccount().setContrasenia(txtPasswordNueva.getText());
+        sameDay.actualizarPersona(repartidorActual);
         return true;
     }
 
@@ -1,6 +1,10 @@
 package co.edu.uniquindio.sameday.controllers;
 
 import co.edu.uniquindio.sameday.models.*;
+import co.edu.uniquindio.sameday.models.analytics.ResumenEstadisticas;
+import co.edu.uniquindio.sameday.models.analytics.RollupsEnvios;
+import co.edu.uniquindio.sameday.models.analytics.SketchesEnvios;
+import co.edu.uniquindio.sameday.models.analytics.TotalesPeriodo;
 import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -9,7 +13,7 @@ import javafx.scene.chart.*;
 import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
 
-import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -30,6 +34,11 @@ public class EstadisticaController {
     @FXML private Label lblPromedioEnvio;
     @FXML private Label lblRepartidoresActivos;
 
+    // Analítica aproximada (sketches)
+    @FXML private Label lblDestinatariosUnicos;
+    @FXML private Label lblPercentilesCosto;
+    @FXML private Label lblContenidoFrecuente;
+
     // Gráficos
     @FXML private PieChart pieEstadoEntrega;
     @FXML private BarChart<String, Number> barServiciosAdicionales;
@@ -48,6 +57,9 @@ public class EstadisticaController {
     // Referencia al singleton
     private SameDay sameDay;
 
+    // Contadores precalculados por SameDay, compartidos por las métricas de una misma carga
+    private ResumenEstadisticas resumen;
+
     @FXML
     void initialize() {
         sameDay = SameDay.getInstance();
@@ -58,83 +70,47 @@ public class EstadisticaController {
      * Carga todas las estadísticas y gráficos
      */
     private void cargarTodasLasEstadisticas() {
+        resumen = sameDay.getEstadisticas();
         cargarMetricasPrincipales();
         cargarGraficoEstadoEntrega();
         cargarGraficoServiciosAdicionales();
         cargarGraficoEnviosPorDia();
         cargarGraficoIngresosPorCiudad();
+        cargarAnaliticaAproximada();
     }
 
     /**
      * Calcula y muestra las métricas principales en las cards superiores
      */
     private void cargarMetricasPrincipales() {
-        ArrayList<Envio> envios = sameDay.getListEnvios();
-        ArrayList<Person> personas = sameDay.getListPersons();
-
         // Total de envíos
-        int totalEnvios = envios.size();
-        lblTotalEnvios.setText(String.valueOf(totalEnvios));
+        lblTotalEnvios.setText(String.valueOf(resumen.getTotalEnvios()));
 
         // Ingresos totales
-        double ingresosTotales = envios.stream()
-                .mapToDouble(Envio::getCostoTotal)
-                .sum();
-        lblIngresosTotales.setText(formatearMoneda(ingresosTotales));
+        lblIngresosTotales.setText(formatearMoneda(resumen.getIngresosTotales()));
 
         // Envíos entregados
-        long enviosEntregados = envios.stream()
-                .filter(e -> e.getEstadoEntrega() == EstadoEntrega.ENTREGADO)
-                .count();
-        lblEnviosEntregados.setText(String.valueOf(enviosEntregados));
+        lblEnviosEntregados.setText(String.valueOf(resumen.getEnviosEntregados()));
 
         // Tasa de éxito (entregados / total con estado)
-        long enviosConEstado = envios.stream()
-                .filter(e -> e.getEstadoEntrega() != null)
-                .count();
-        double tasaExito = enviosConEstado > 0
-                ? (enviosEntregados * 100.0 / enviosConEstado)
-                : 0;
-        lblTasaExito.setText(String.format("%.1f%%", tasaExito));
+        lblTasaExito.setText(String.format("%.1f%%", resumen.getTasaExito()));
 
         // Promedio por envío
-        double promedioEnvio = totalEnvios > 0
-                ? ingresosTotales / totalEnvios
-                : 0;
-        lblPromedioEnvio.setText(formatearMoneda(promedioEnvio));
+        lblPromedioEnvio.setText(formatearMoneda(resumen.getPromedioPorEnvio()));
 
         // Repartidores activos (disponibles)
-        long repartidoresActivos = personas.stream()
-                .filter(p -> p instanceof Dealer)
-                .map(p -> (Dealer) p)
-                .filter(Dealer::isDisponible)
-                .count();
-        lblRepartidoresActivos.setText(String.valueOf(repartidoresActivos));
+        lblRepartidoresActivos.setText(String.valueOf(resumen.getRepartidoresDisponibles()));
     }
 
     /**
      * Genera el gráfico de pastel con la distribución de estados de entrega
      */
     private void cargarGraficoEstadoEntrega() {
-        ArrayList<Envio> envios = sameDay.getListEnvios();
-
-        // Contar envíos por estado
-        Map<String, Long> conteoEstados = new HashMap<>();
-
-        // Inicializar con todos los estados posibles
-        conteoEstados.put("Sin Asignar", 0L);
-        for (EstadoEntrega estado : EstadoEntrega.values()) {
-            conteoEstados.put(estado.getDisplayName(), 0L);
-        }
-
-        // Contar
-        for (Envio envio : envios) {
-            if (envio.getEstadoEntrega() == null) {
-                conteoEstados.put("Sin Asignar", conteoEstados.get("Sin Asignar") + 1);
-            } else {
-                String nombreEstado = envio.getEstadoEntrega().getDisplayName();
-                conteoEstados.put(nombreEstado, conteoEstados.get(nombreEstado) + 1);
-            }
+        // Conteo de envíos por estado
+        Map<String, Long> conteoEstados = new LinkedHashMap<>();
+        conteoEstados.put("Sin Asignar", resumen.getEnviosSinAsignar());
+        for (Map.Entry<EstadoEntrega, Long> entry : resumen.getEnviosPorEstado().entrySet()) {
+            conteoEstados.put(entry.getKey().getDisplayName(), entry.getValue());
         }
 
         // Crear datos para el gráfico
@@ -158,19 +134,8 @@ public class EstadisticaController {
      * Genera el gráfico de barras con los servicios adicionales más solicitados
      */
     private void cargarGraficoServiciosAdicionales() {
-        ArrayList<Envio> envios = sameDay.getListEnvios();
-
-        // Contar servicios
-        Map<ServicioAdicional, Long> conteoServicios = new HashMap<>();
-        for (ServicioAdicional servicio : ServicioAdicional.values()) {
-            conteoServicios.put(servicio, 0L);
-        }
-
-        for (Envio envio : envios) {
-            for (ServicioAdicional servicio : envio.getServiciosAdicionales()) {
-                conteoServicios.put(servicio, conteoServicios.get(servicio) + 1);
-            }
-        }
+        // Solicitudes por servicio
+        Map<ServicioAdicional, Long> conteoServicios = resumen.getSolicitudesPorServicio();
 
         // Crear serie de datos
         XYChart.Series<String, Number> series = new XYChart.Series<>();
@@ -194,15 +159,9 @@ public class EstadisticaController {
      * Genera el gráfico de líneas con la tendencia de envíos por día
      */
     private void cargarGraficoEnviosPorDia() {
-        ArrayList<Envio> envios = sameDay.getListEnvios();
-
-        // Agrupar envíos por fecha
-        Map<LocalDate, Long> enviosPorDia = envios.stream()
-                .collect(Collectors.groupingBy(
-                        e -> e.getFechaCreacion().toLocalDate(),
-                        TreeMap::new,
-                        Collectors.counting()
-                ));
+        // Cubetas diarias ya agregadas (una lectura por día con envíos)
+        Map<LocalDateTime, TotalesPeriodo> enviosPorDia = sameDay.getRollupsEnvios()
+                .serieCompleta(RollupsEnvios.Granularidad.DIA, null);
 
         // Crear serie de datos
         XYChart.Series<String, Number> series = new XYChart.Series<>();
@@ -210,10 +169,10 @@ public class EstadisticaController {
 
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM");
 
-        for (Map.Entry<LocalDate, Long> entry : enviosPorDia.entrySet()) {
+        for (Map.Entry<LocalDateTime, TotalesPeriodo> entry : enviosPorDia.entrySet()) {
             series.getData().add(new XYChart.Data<>(
                     entry.getKey().format(formatter),
-                    entry.getValue()
+                    entry.getValue().getEnviosCreados()
             ));
         }
 
@@ -228,23 +187,8 @@ public class EstadisticaController {
      * Genera el gráfico de barras con ingresos por ciudad de destino
      */
     private void cargarGraficoIngresosPorCiudad() {
-        ArrayList<Envio> envios = sameDay.getListEnvios();
-
-        // Agrupar ingresos por ciudad de destino
-        Map<City, Double> ingresosPorCiudad = new HashMap<>();
-        for (City ciudad : City.values()) {
-            ingresosPorCiudad.put(ciudad, 0.0);
-        }
-
-        for (Envio envio : envios) {
-            if (envio.getDestino() != null) {
-                City ciudadDestino = envio.getDestino().getCity();
-                ingresosPorCiudad.put(
-                        ciudadDestino,
-                        ingresosPorCiudad.get(ciudadDestino) + envio.getCostoTotal()
-                );
-            }
-        }
+        // Ingresos por ciudad de destino
+        Map<City, Double> ingresosPorCiudad = resumen.getIngresosPorCiudad();
 
         // Ordenar por ingresos (mayor a menor) y tomar top 5
         List<Map.Entry<City, Double>> topCiudades = ingresosPorCiudad.entrySet().stream()
@@ -271,6 +215,27 @@ public class EstadisticaController {
         yAxisCiudades.setLabel("Ingresos ($)");
     }
 
+    /**
+     * Muestra las métricas que se estiman con sketches: destinatarios distintos,
+     * percentiles de costo y el contenido más enviado
+     */
+    private void cargarAnaliticaAproximada() {
+        SketchesEnvios sketches = sameDay.getAnaliticaEnvios().total();
+
+        lblDestinatariosUnicos.setText("≈ " + sketches.getDestinatarios().estimar());
+
+        double mediana = sketches.getCostos().cuantil(0.5);
+        double p95 = sketches.getCostos().cuantil(0.95);
+        lblPercentilesCosto.setText(Double.isNaN(mediana)
+                ? "-"
+                : formatearMoneda(mediana) + " / " + formatearMoneda(p95));
+
+        Map<String, Long> topContenidos = sketches.getTopContenidos().top(1);
+        lblContenidoFrecuente.setText(topContenidos.isEmpty()
+                ? "-"
+                : topContenidos.keySet().iterator().next() + " (" + topContenidos.values().iterator().next() + ")");
+    }
+
     /**
      * Formatea un valor numérico como moneda colombiana
      */
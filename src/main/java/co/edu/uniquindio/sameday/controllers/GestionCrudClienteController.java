@@ -1,5 +1,6 @@
 package co.edu.uniquindio.sameday.controllers;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -9,9 +10,8 @@ import co.edu.uniquindio.sameday.models.UserAccount;
 import co.edu.uniquindio.sameday.models.behavioral.state.SuspendedState;
 import co.edu.uniquindio.sameday.models.creational.factoryMethod.ClienteFactory;
 import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
+import co.edu.uniquindio.sameday.models.query.FuenteListaOrdenable;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -19,7 +19,8 @@ import javafx.scene.control.cell.PropertyValueFactory;
 
 public class GestionCrudClienteController {
 
-    private ObservableList<Client> listaClientes;
+    // Copia de los clientes mostrados; la tabla los lee por páginas
+    private List<Client> listaClientes;
     private SameDay sameDay;
     private Client clienteSeleccionado = null;
 
@@ -97,7 +98,7 @@ public class GestionCrudClienteController {
         System.out.println("=== INICIALIZANDO GESTIÓN CLIENTE ===");
         sameDay = SameDay.getInstance();
 
-        listaClientes = FXCollections.observableArrayList();
+        listaClientes = new ArrayList<>();
 
         configurarTabla();
         cargarClientes();
@@ -155,15 +156,14 @@ public class GestionCrudClienteController {
     private void cargarClientes() {
         System.out.println("🔄 Recargando clientes...");
 
-        List<Client> soloClientes = sameDay.getListPersons().stream()
-                .filter(persona -> persona instanceof Client)
-                .map(persona -> (Client) persona)
-                .collect(Collectors.toList());
+        List<Client> soloClientes = sameDay.getListClients();
 
-        listaClientes.clear();
-        listaClientes.addAll(soloClientes);
+        listaClientes = soloClientes;
 
-        tablaClientes.setItems(listaClientes);
+        // Tabla paginada: ordenar por una columna arma un índice ordenado sobre la copia
+        FuenteListaOrdenable<Client> fuente = new FuenteListaOrdenable<>(listaClientes);
+        ListaPaginada.mostrar(tablaClientes, fuente, (columna, ascendente) ->
+                fuente.ordenadaPor(ListaPaginada.comparadorColumna(columna, ascendente)));
         tablaClientes.refresh();
 
         actualizarEstadisticas();
@@ -339,8 +339,11 @@ public class GestionCrudClienteController {
         clienteSeleccionado.setDireccion(txtDireccion.getText().trim());
 
         if (clienteSeleccionado.getUserAccount() != null && !txtUsuario.getText().trim().isEmpty()) {
+            String usuarioAnterior = clienteSeleccionado.getUserAccount().getUser();
             clienteSeleccionado.getUserAccount().setUser(txtUsuario.getText().trim());
+            sameDay.actualizarUsuario(clienteSeleccionado, usuarioAnterior);
         }
+        sameDay.actualizarPersona(clienteSeleccionado);
 
         mostrarAlerta(Alert.AlertType.INFORMATION,
                 "Cliente Actualizado",
@@ -370,7 +373,7 @@ public class GestionCrudClienteController {
         confirmacion.setContentText("Cliente: " + clienteAEliminar.getNombre());
 
         if (confirmacion.showAndWait().get() == ButtonType.OK) {
-            sameDay.getListPersons().remove(clienteAEliminar);
+            sameDay.eliminarPersona(clienteAEliminar);
 
             mostrarAlerta(Alert.AlertType.INFORMATION,
                     "Cliente Eliminado",
@@ -455,9 +458,6 @@ public class GestionCrudClienteController {
     }
 
     private String generarIdCliente() {
-        int totalClientes = (int) sameDay.getListPersons().stream()
-                .filter(person -> person instanceof Client)
-                .count();
-        return String.format("%04d", totalClientes + 1);
+        return sameDay.generarIdCliente();
     }
 }
\ No newline at end of file
@@ -134,11 +134,7 @@ public class GestionCrudRepartidorController {
 
     private void loadDealers() {
         listDealer.clear();
-        for (var person : sameDay.getListPersons()) {
-            if (person instanceof Dealer) {
-                listDealer.add((Dealer) person);
-            }
-        }
+        listDealer.addAll(sameDay.getListDealers());
     }
 
     private void populateFields(Dealer dealer) {
@@ -300,7 +296,9 @@ public class GestionCrudRepartidorController {
             selecionadoDealer.setCity(cboxCity.getValue());
 
             if (selecionadoDealer.getUserAccount() != null) {
+                String usuarioAnterior = selecionadoDealer.getUserAccount().getUser();
                 selecionadoDealer.getUserAccount().setUser(txtUsuario.getText().trim());
+                sameDay.actualizarUsuario(selecionadoDealer, usuarioAnterior);
 
                 if (!txtPassword.getText().trim().isEmpty()) {
                     selecionadoDealer.getUserAccount().setContrasenia(txtPassword.getText().trim());
@@ -314,8 +312,10 @@ public class GestionCrudRepartidorController {
                             TypeUser.DEALER
                     );
                     selecionadoDealer.setUserAccount(newAccount);
+                    sameDay.actualizarUsuario(selecionadoDealer, null);
                 }
             }
+            sameDay.actualizarPersona(selecionadoDealer);
 
             dealerTable.refresh();
             showAlert(Alert.AlertType.INFORMATION, "Éxito",
@@ -478,11 +478,7 @@ public class GestionCrudRepartidorController {
     }
 
     private String generarIdRepartidor() {
-        int numeroRepartidores = (int) sameDay.getListPersons().stream()
-                .filter(person -> person instanceof Dealer)
-                .count();
-
-        return String.format("R%04d", numeroRepartidores + 1);
+        return sameDay.generarIdRepartidor();
     }
 
     private void showAlert(Alert.AlertType type, String title, String content) {
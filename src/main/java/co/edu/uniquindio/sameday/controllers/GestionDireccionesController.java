@@ -11,6 +11,8 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.beans.property.SimpleStringProperty;
 
+import java.util.List;
+
 
 public class GestionDireccionesController {
 
@@ -166,6 +168,18 @@ public class GestionDireccionesController {
                 txtInfoAdicional.getText().trim()
         );
 
+        // La misma dirección escrita de otra forma ("Cl 15 #20-45") se confirma antes de agregarla
+        List<Address> repetidas = sameDay.buscarDireccionesRepetidas(newAddress);
+        if (!repetidas.isEmpty()) {
+            Alert confirmacion = new Alert(Alert.AlertType.CONFIRMATION);
+            confirmacion.setTitle("Dirección Repetida");
+            confirmacion.setHeaderText("Ya existe esta dirección. ¿Desea agregarla de todas formas?");
+            confirmacion.setContentText(repetidas.get(0).getAlias() + " - " + repetidas.get(0).getFullAddress());
+            if (confirmacion.showAndWait().get() != ButtonType.OK) {
+                return;
+            }
+        }
+
         System.out.println("Agregando dirección: " + newAddress.toString());
 
         // Agregar al sistema
@@ -320,8 +334,7 @@ public class GestionDireccionesController {
      * Genera un ID único para una nueva dirección
      */
     private String generateAddressId() {
-        int count = sameDay.getListAddresses().size();
-        return String.format("DIR%03d", count + 1);
+        return sameDay.generarIdDireccion();
     }
 
     /**
@@ -2,6 +2,9 @@ package co.edu.uniquindio.sameday.controllers;
 
 import co.edu.uniquindio.sameday.models.*;
 import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
+import co.edu.uniquindio.sameday.models.rutas.Ruta;
+import co.edu.uniquindio.sameday.models.structural.facade.EnvioFacade;
+import co.edu.uniquindio.sameday.models.structural.facade.ResultadoOperacion;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -10,8 +13,10 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 /**
  * Controlador para la gestión de envíos del repartidor
@@ -22,6 +27,8 @@ public class GestionEnviosRepartidorController {
     private SameDay sameDay = SameDay.getInstance();
     private Dealer repartidorActual;
     private Envio envioSeleccionado;
+    private long versionSeleccionada; // Versión del envío al seleccionarlo (control optimista)
+    private EnvioFacade envioFacade = new EnvioFacade();
     private ObservableList<Envio> enviosObservableList;
 
     // Tabla de envíos
@@ -181,6 +188,7 @@ public class GestionEnviosRepartidorController {
                 (observable, oldValue, newValue) -> {
                     if (newValue != null) {
                         envioSeleccionado = newValue;
+                        versionSeleccionada = newValue.getVersion();
                         mostrarDetalleEnvio(newValue);
                         btnActualizarEstado.setDisable(
                                 newValue.getEstadoEntrega() == EstadoEntrega.ENTREGADO
@@ -191,16 +199,26 @@ public class GestionEnviosRepartidorController {
     }
 
     /**
-     * Carga los envíos asignados al repartidor actual
+     * Carga los envíos asignados al repartidor actual: primero los pendientes en el orden
+     * de la ruta sugerida, después los entregados y los que tienen incidencia
      */
     private void cargarEnviosAsignados() {
-        List<Envio> enviosAsignados = sameDay.getListEnvios().stream()
-                .filter(envio -> envio.getRepartidorAsignado() != null)
-                .filter(envio -> envio.getRepartidorAsignado().getId().equals(repartidorActual.getId()))
-                .collect(Collectors.toList());
+        List<Envio> enviosAsignados = sameDay.getEnviosPorRepartidor(repartidorActual);
+        Ruta ruta = sameDay.getRutaRepartidor(repartidorActual);
+
+        List<Envio> enOrden = new ArrayList<>(ruta.getEnvios());
+        Set<String> enRuta = new HashSet<>();
+        for (Envio envio : enOrden) {
+            enRuta.add(envio.getId());
+        }
+        for (Envio envio : enviosAsignados) {
+            if (!enRuta.contains(envio.getId())) {
+                enOrden.add(envio);
+            }
+        }
 
         enviosObservableList.clear();
-        enviosObservableList.addAll(enviosAsignados);
+        enviosObservableList.addAll(enOrden);
     }
 
     /**
@@ -294,15 +312,24 @@ public class GestionEnviosRepartidorController {
         );
 
         if (confirmacion.showAndWait().get() == ButtonType.OK) {
-            // Actualizar el estado del envío
-            envioSeleccionado.setEstadoEntrega(nuevoEstado);
-            envioSeleccionado.setObservaciones(txtObservaciones.getText().trim());
-
+            // Actualizar y guardar el estado, salvo que otro usuario haya modificado el envío
             // YA NO se modifica manualmente la disponibilidad
             // El método isDisponible() del Dealer lo calculará automáticamente
+            ResultadoOperacion resultado = envioFacade.actualizarEstadoEntrega(
+                    envioSeleccionado.getId(),
+                    versionSeleccionada,
+                    nuevoEstado,
+                    txtObservaciones.getText().trim()
+            );
 
-            // Guardar cambios
-            sameDay.updateEnvio(envioSeleccionado);
+            if (!resultado.isExitoso()) {
+                mostrarAlerta(resultado.isConflicto() ? "Envío Modificado" : "Error",
+                        resultado.getMensaje(),
+                        Alert.AlertType.WARNING);
+                cargarEnviosAsignados();
+                limpiarDetalles();
+                return;
+            }
 
             mostrarAlerta("Estado Actualizado",
                     "El estado del envío ha sido actualizado exitosamente a: " + nuevoEstado.getDisplayName(),
@@ -360,11 +387,11 @@ public class GestionEnviosRepartidorController {
             return;
         }
 
-        List<Envio> enviosFiltrados = sameDay.getListEnvios().stream()
-                .filter(envio -> envio.getRepartidorAsignado() != null)
-                .filter(envio -> envio.getRepartidorAsignado().getId().equals(repartidorActual.getId()))
-                .filter(envio -> envio.getEstadoEntrega() == estadoFiltro)
-                .collect(Collectors.toList());
+        // Consulta indexada: no recorre los envíos del repartidor uno a uno
+        List<Envio> enviosFiltrados = sameDay.consultarEnvios()
+                .deRepartidor(repartidorActual)
+                .conEstado(estadoFiltro)
+                .ejecutar();
 
         enviosObservableList.clear();
         enviosObservableList.addAll(enviosFiltrados);
@@ -383,10 +410,7 @@ public class GestionEnviosRepartidorController {
      * Actualiza las estadísticas
      */
     private void actualizarEstadisticas() {
-        List<Envio> misEnvios = sameDay.getListEnvios().stream()
-                .filter(envio -> envio.getRepartidorAsignado() != null)
-                .filter(envio -> envio.getRepartidorAsignado().getId().equals(repartidorActual.getId()))
-                .collect(Collectors.toList());
+        List<Envio> misEnvios = sameDay.getEnviosPorRepartidor(repartidorActual);
 
         long total = misEnvios.size();
 
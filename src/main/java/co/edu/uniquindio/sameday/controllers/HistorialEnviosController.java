@@ -2,6 +2,8 @@ package co.edu.uniquindio.sameday.controllers;
 
 import co.edu.uniquindio.sameday.models.*;
 import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
+import co.edu.uniquindio.sameday.models.query.EnvioQuery;
+import co.edu.uniquindio.sameday.models.query.FuenteConsultaEnvios;
 import co.edu.uniquindio.sameday.models.structural.adapter.PdfGenerator;
 import co.edu.uniquindio.sameday.models.structural.adapter.EnvioPdfAdapter;
 import javafx.beans.property.SimpleStringProperty;
@@ -13,10 +15,7 @@ import javafx.scene.control.*;
 
 import java.awt.Desktop;
 import java.io.File;
-import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Controlador para el historial de envíos del cliente
@@ -26,7 +25,8 @@ import java.util.stream.Collectors;
 public class HistorialEnviosController {
 
     private SameDay sameDay = SameDay.getInstance();
-    private ObservableList<Envio> todosLosEnvios = FXCollections.observableArrayList();
+    // Consulta que muestra la tabla (por páginas) y sobre la que se cuentan las estadísticas
+    private FuenteConsultaEnvios fuenteActual;
 
     // PATRÓN ADAPTER: Generador de PDFs
     private PdfGenerator pdfGenerator = new EnvioPdfAdapter();
@@ -229,30 +229,46 @@ public class HistorialEnviosController {
     private void cargarEnviosPagados() {
         System.out.println("\n=== CARGANDO ENVÍOS PAGADOS ===");
 
-        // Filtrar solo los envíos pagados
-        List<Envio> enviosPagados = sameDay.getListEnvios().stream()
-                .filter(envio -> "PAGADO".equals(envio.getEstado()))
-                .collect(Collectors.toList());
+        // Filtrar solo los envíos pagados; la tabla lee por páginas solo las filas visibles
+        mostrar(consultarPagados());
 
-        todosLosEnvios = FXCollections.observableArrayList(enviosPagados);
-        tablaHistorial.setItems(todosLosEnvios);
-
-        System.out.println("Total envíos pagados: " + enviosPagados.size());
+        System.out.println("Total envíos pagados: " + tablaHistorial.getItems().size());
         System.out.println("=== ENVÍOS CARGADOS ===\n");
     }
 
+    private EnvioQuery consultarPagados() {
+        return sameDay.consultarEnvios()
+                .pagados(true)
+                .ordenarPor(EnvioQuery.Orden.FECHA_ASC);
+    }
+
+    private void mostrar(EnvioQuery consulta) {
+        FuenteConsultaEnvios fuente = new FuenteConsultaEnvios(consulta);
+        fuenteActual = fuente;
+        ListaPaginada.mostrar(tablaHistorial, fuente, (columna, ascendente) -> {
+            // La fecha y el costo tienen índice ordenado; el resto se ordena en memoria
+            if (columna == colFecha) {
+                return fuente.ordenadaPor(ascendente ? EnvioQuery.Orden.FECHA_ASC : EnvioQuery.Orden.FECHA_DESC);
+            }
+            if (columna == colCosto) {
+                return fuente.ordenadaPor(ascendente ? EnvioQuery.Orden.COSTO_ASC : EnvioQuery.Orden.COSTO_DESC);
+            }
+            return ListaPaginada.ordenarEnMemoria(fuente, columna, ascendente);
+        });
+    }
+
     /**
-     * Aplica los filtros seleccionados
+     * Aplica los filtros seleccionados con una consulta indexada:
+     * solo se leen los envíos que cumplen todos los filtros
      */
     @FXML
     void onFiltrar(ActionEvent event) {
-        List<Envio> enviosFiltrados = todosLosEnvios.stream()
-                .filter(this::filtrarPorFecha)
-                .filter(this::filtrarPorEstado)
-                .filter(this::filtrarPorZona)
-                .collect(Collectors.toList());
+        EnvioQuery consulta = consultarPagados()
+                .creadosEntre(dpFechaInicio.getValue(), dpFechaFin.getValue());
+        filtrarPorEstado(consulta);
+        filtrarPorZona(consulta);
 
-        tablaHistorial.setItems(FXCollections.observableArrayList(enviosFiltrados));
+        mostrar(consulta);
         actualizarEstadisticas();
     }
 
@@ -266,100 +282,65 @@ public class HistorialEnviosController {
         cmbEstado.setValue("Todos");
         cmbZona.setValue(null);
 
-        tablaHistorial.setItems(todosLosEnvios);
+        mostrar(consultarPagados());
         actualizarEstadisticas();
     }
 
-    /**
-     * Filtra por rango de fechas
-     */
-    private boolean filtrarPorFecha(Envio envio) {
-        LocalDate fechaInicio = dpFechaInicio.getValue();
-        LocalDate fechaFin = dpFechaFin.getValue();
-
-        if (fechaInicio == null && fechaFin == null) {
-            return true; // Sin filtro de fecha
-        }
-
-        if (envio.getFechaCreacion() == null) {
-            return false;
-        }
-
-        LocalDate fechaEnvio = envio.getFechaCreacion().toLocalDate();
-
-        if (fechaInicio != null && fechaEnvio.isBefore(fechaInicio)) {
-            return false;
-        }
-
-        if (fechaFin != null && fechaEnvio.isAfter(fechaFin)) {
-            return false;
-        }
-
-        return true;
-    }
-
     /**
      * Filtra por estado - ACTUALIZADO para estados reales
      */
-    private boolean filtrarPorEstado(Envio envio) {
+    private void filtrarPorEstado(EnvioQuery consulta) {
         String estadoSeleccionado = cmbEstado.getValue();
 
         if (estadoSeleccionado == null || estadoSeleccionado.equals("Todos")) {
-            return true;
+            return;
         }
 
-        // Obtener el estado actual del envío
-        String estadoEnvio = "";
-
-        if (envio.getRepartidorAsignado() != null && envio.getEstadoEntrega() != null) {
-            estadoEnvio = envio.getEstadoEntrega().getDisplayName();
-        } else if (envio.getRepartidorAsignado() != null) {
-            estadoEnvio = "Asignado";
-        } else {
-            estadoEnvio = "Sin asignar";
+        if (estadoSeleccionado.equals("Sin asignar")) {
+            consulta.conRepartidor(false);
+            return;
         }
 
-        return estadoEnvio.equals(estadoSeleccionado);
+        consulta.conRepartidor(true);
+        for (EstadoEntrega estado : EstadoEntrega.values()) {
+            if (estado.getDisplayName().equals(estadoSeleccionado)) {
+                consulta.conEstado(estado);
+            }
+        }
+        // Con repartidor pero sin estado de entrega también se muestra como "Asignado"
+        if (estadoSeleccionado.equals("Asignado")) {
+            consulta.incluyendoSinEstado();
+        }
     }
 
     /**
      * Filtra por zona (ciudad de destino)
      */
-    private boolean filtrarPorZona(Envio envio) {
+    private void filtrarPorZona(EnvioQuery consulta) {
         City zonaSeleccionada = cmbZona.getValue();
 
-        if (zonaSeleccionada == null) {
-            return true; // Sin filtro de zona
+        if (zonaSeleccionada != null) {
+            consulta.conCiudadDestino(zonaSeleccionada);
         }
-
-        if (envio.getDestino() == null) {
-            return false;
-        }
-
-        return zonaSeleccionada == envio.getDestino().getCity();
     }
 
     /**
      * Actualiza las estadísticas mostradas - ACTUALIZADO
+     * Se cuentan sobre los índices, sin leer las filas de la tabla
      */
     private void actualizarEstadisticas() {
-        int total = tablaHistorial.getItems().size();
+        EnvioQuery consulta = fuenteActual.getConsulta();
+        int total = consulta.contar();
 
         // Contar envíos entregados (con estado ENTREGADO)
-        long entregados = tablaHistorial.getItems().stream()
-                .filter(envio -> envio.getEstadoEntrega() == EstadoEntrega.ENTREGADO)
-                .count();
+        int entregados = consulta.copiar().conEstado(EstadoEntrega.ENTREGADO).contar();
 
         // Contar pendientes (sin repartidor o con estados ASIGNADO, RECOGIDO, EN_RUTA)
-        long pendientes = tablaHistorial.getItems().stream()
-                .filter(envio ->
-                        envio.getRepartidorAsignado() == null ||
-                                envio.getEstadoEntrega() == EstadoEntrega.ASIGNADO ||
-                                envio.getEstadoEntrega() == EstadoEntrega.RECOGIDO ||
-                                envio.getEstadoEntrega() == EstadoEntrega.EN_RUTA ||
-                                envio.getEstadoEntrega() == EstadoEntrega.CON_INCIDENCIA
-                )
-                .count();
+        int pendientes = consulta.copiar().conRepartidor(false).contar()
+                + consulta.copiar().conRepartidor(true)
+                        .conEstado(EstadoEntrega.ASIGNADO, EstadoEntrega.RECOGIDO,
+                                EstadoEntrega.EN_RUTA, EstadoEntrega.CON_INCIDENCIA)
+                        .contar();
 
         lblTotalEnvios.setText("Total: " + total);
         lblEnviosEntregados.setText("Entregados: " + entregados);
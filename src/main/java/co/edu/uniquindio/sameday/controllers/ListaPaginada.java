@@ -0,0 +1,111 @@
+package co.edu.uniquindio.sameday.controllers;
+
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.query.FuenteConsultaEnvios;
+import co.edu.uniquindio.sameday.models.query.FuenteDatosPaginada;
+import co.edu.uniquindio.sameday.models.query.VentanaPaginada;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.Alert;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Lista de solo lectura para TableView que lee las filas por páginas.
+ *
+ * El TableView solo pide las filas visibles (get), así que abrir una pantalla cuesta
+ * contar las filas y leer una o dos páginas, no copiar todas. Para ordenar, la tabla
+ * no reordena la lista: la política de orden pide a la fuente las filas ya ordenadas.
+ * @param <T> Tipo de fila
+ */
+public class ListaPaginada<T> extends ObservableListBase<T> {
+
+    private VentanaPaginada<T> ventana;
+
+    public ListaPaginada(FuenteDatosPaginada<T> fuente) {
+        this.ventana = new VentanaPaginada<>(fuente);
+    }
+
+    @Override
+    public T get(int index) {
+        return ventana.obtener(index);
+    }
+
+    @Override
+    public int size() {
+        return ventana.tamano();
+    }
+
+    /**
+     * Mismas filas en otro orden: la cantidad no cambia, basta con refrescar la tabla
+     */
+    private void reordenar(FuenteDatosPaginada<T> fuente) {
+        this.ventana = new VentanaPaginada<>(fuente);
+    }
+
+    /**
+     * Muestra la fuente en la tabla y resuelve los clics en los encabezados con ella
+     * @param ordenar Fuente ordenada por la columna (true = ascendente), o null si
+     *                la columna no se puede ordenar
+     */
+    public static <T, F extends FuenteDatosPaginada<T>> void mostrar(
+            TableView<T> tabla, F fuente, BiFunction<TableColumn<T, ?>, Boolean, F> ordenar) {
+        ListaPaginada<T> lista = new ListaPaginada<>(fuente);
+        tabla.setSortPolicy(t -> {
+            List<TableColumn<T, ?>> columnas = t.getSortOrder();
+            F ordenada = fuente;
+            if (!columnas.isEmpty()) {
+                TableColumn<T, ?> columna = columnas.get(0);
+                ordenada = ordenar.apply(columna, columna.getSortType() == TableColumn.SortType.ASCENDING);
+                if (ordenada == null) {
+                    return false;
+                }
+            }
+            lista.reordenar(ordenada);
+            t.getSelectionModel().clearSelection();
+            t.refresh();
+            return true;
+        });
+        tabla.setItems(lista);
+        if (!tabla.getSortOrder().isEmpty()) {
+            tabla.sort();
+        }
+    }
+
+    /**
+     * Orden por el texto que muestra la columna (para fuentes en memoria)
+     */
+    public static <T> Comparator<T> comparadorColumna(TableColumn<T, ?> columna, boolean ascendente) {
+        Comparator<T> comparador = Comparator.comparing(fila -> {
+            Object valor = columna.getCellData(fila);
+            return valor != null ? valor.toString() : "";
+        });
+        return ascendente ? comparador : comparador.reversed();
+    }
+
+    /**
+     * Orden de una tabla de envíos por una columna sin índice ordenado: se ordena en
+     * memoria si el resultado es pequeño; si no, se avisa y la tabla queda como estaba
+     */
+    public static FuenteConsultaEnvios ordenarEnMemoria(FuenteConsultaEnvios fuente,
+                                                        TableColumn<Envio, ?> columna, boolean ascendente) {
+        FuenteConsultaEnvios ordenada = fuente.ordenadaEnMemoria(comparadorColumna(columna, ascendente));
+        if (ordenada == null) {
+            // Fuera de la política de orden: el aviso no debe abrirse a mitad del ordenamiento
+            Platform.runLater(() -> {
+                Alert alerta = new Alert(Alert.AlertType.INFORMATION);
+                alerta.setTitle("Orden no disponible");
+                alerta.setHeaderText(null);
+                alerta.setContentText("Hay más de " + FuenteConsultaEnvios.MAXIMO_ORDEN_EN_MEMORIA
+                        + " envíos en la tabla. Filtre los resultados u ordene por una columna indexada"
+                        + " para ordenar por \"" + columna.getText() + "\".");
+                alerta.show();
+            });
+        }
+        return ordenada;
+    }
+}
@@ -3,10 +3,10 @@ package co.edu.uniquindio.sameday.controllers;
 import co.edu.uniquindio.sameday.models.*;
 import co.edu.uniquindio.sameday.models.Client;
 import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
+import co.edu.uniquindio.sameday.models.query.EnvioQuery;
+import co.edu.uniquindio.sameday.models.query.FuenteConsultaEnvios;
 import javafx.animation.PauseTransition;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
@@ -96,8 +96,7 @@ public class PagosController {
                 new SimpleStringProperty(String.format("$%.0f", cellData.getValue().getCostoTotal())));
 
         colEstado.setCellValueFactory(cellData -> {
-            String estado = cellData.getValue().getEstado();
-            String estadoPago = estado.equals("PAGADO") ? "✅ Pagado" : "⏳ Sin pagar";
+            String estadoPago = cellData.getValue().isPagado() ? "✅ Pagado" : "⏳ Sin pagar";
             return new SimpleStringProperty(estadoPago);
         });
 
@@ -126,7 +125,7 @@ public class PagosController {
                     if (newValue != null) {
                         selectedEnvio = newValue;
                         // Habilitar el botón solo si el envío no está pagado
-                        btnPagar.setDisable(newValue.getEstado().equals("PAGADO"));
+                        btnPagar.setDisable(newValue.isPagado());
                     }
                 }
         );
@@ -139,7 +138,7 @@ public class PagosController {
             return;
         }
 
-        if (selectedEnvio.getEstado().equals("PAGADO")) {
+        if (selectedEnvio.isPagado()) {
             showAlert("Envío ya pagado",
                     "Este envío ya ha sido pagado anteriormente",
                     Alert.AlertType.INFORMATION);
@@ -245,7 +244,7 @@ public class PagosController {
                     lblSimuladorMensaje.setText("✅ El pago ha sido procesado exitosamente");
                     lblSimuladorMensaje.setStyle("-fx-text-fill: #10b981; -fx-font-weight: bold;");
 
-                    selectedEnvio.setEstado("PAGADO");
+                    selectedEnvio.setEstadoPago(EstadoPago.PAGADO);
                     sameDay.updateEnvio(selectedEnvio);
                     loadTable();
 
@@ -293,12 +292,24 @@ public class PagosController {
 
     private void loadTable() {
         System.out.println("\n=== CARGANDO TABLA DE PAGOS ===");
-        ObservableList<Envio> enviosList = FXCollections.observableArrayList(sameDay.getListEnvios());
-        tablaEnvios.setItems(enviosList);
+        // Tabla paginada: solo se leen las filas visibles
+        FuenteConsultaEnvios fuente = new FuenteConsultaEnvios(sameDay.consultarEnvios());
+        ListaPaginada.mostrar(tablaEnvios, fuente,
+                (columna, ascendente) -> ordenarEnvios(fuente, columna, ascendente));
         tablaEnvios.refresh();
         System.out.println("=== TABLA CARGADA ===\n");
     }
 
+    /**
+     * Orden de la tabla por columna: el costo tiene índice ordenado; el resto se ordena en memoria
+     */
+    private FuenteConsultaEnvios ordenarEnvios(FuenteConsultaEnvios fuente, TableColumn<Envio, ?> columna, boolean ascendente) {
+        if (columna == colCosto) {
+            return fuente.ordenadaPor(ascendente ? EnvioQuery.Orden.COSTO_ASC : EnvioQuery.Orden.COSTO_DESC);
+        }
+        return ListaPaginada.ordenarEnMemoria(fuente, columna, ascendente);
+    }
+
     private void showAlert(String title, String message, Alert.AlertType type) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
@@ -0,0 +1,67 @@
+package co.edu.uniquindio.sameday.controllers;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.AddressType;
+import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
+import javafx.application.Platform;
+import javafx.scene.control.ComboBox;
+import javafx.util.StringConverter;
+
+import java.util.List;
+
+/**
+ * ComboBox de direcciones con sugerencias: sin texto lista las direcciones del tipo
+ * (sin repetidas); al escribir muestra solo las más parecidas a lo escrito, aunque
+ * esté abreviado o incompleto ("cl 15 #20" sugiere "Calle 15 # 20-45").
+ */
+public final class SugerenciasDirecciones {
+
+    private static final int SUGERENCIAS = 15;
+
+    private SugerenciasDirecciones() {
+    }
+
+    public static void configurar(ComboBox<Address> combo, AddressType tipo) {
+        SameDay sameDay = SameDay.getInstance();
+        combo.getItems().setAll(sameDay.getDireccionesSinRepetir(tipo));
+        combo.setEditable(true);
+        combo.setConverter(new StringConverter<Address>() {
+            @Override
+            public String toString(Address address) {
+                return address != null ? address.toString() : "";
+            }
+
+            @Override
+            public Address fromString(String texto) {
+                // Lo escrito solo es una dirección si es una de las sugeridas
+                Address actual = combo.getValue();
+                if (actual != null && actual.toString().equals(texto)) {
+                    return actual;
+                }
+                for (Address address : combo.getItems()) {
+                    if (address.toString().equals(texto)) {
+                        return address;
+                    }
+                }
+                return null;
+            }
+        });
+        combo.getEditor().textProperty().addListener((obs, anterior, texto) -> {
+            Address actual = combo.getValue();
+            if (actual != null && actual.toString().equals(texto)) {
+                // Texto puesto al elegir una dirección, no escrito
+                return;
+            }
+            List<Address> sugerencias = texto == null || texto.isBlank()
+                    ? sameDay.getDireccionesSinRepetir(tipo)
+                    : sameDay.buscarDirecciones(texto, null, tipo, SUGERENCIAS);
+            // Fuera del evento del editor: cambiar los ítems dentro de él altera el texto
+            Platform.runLater(() -> {
+                combo.getItems().setAll(sugerencias);
+                if (combo.isFocused() && !sugerencias.isEmpty()) {
+                    combo.show();
+                }
+            });
+        });
+    }
+}
@@ -30,13 +30,8 @@ public class Dealer extends Person {
             return false;
         }
 
-        // Verificar si tiene envíos activos (sin entregar)
-        SameDay sameDay = SameDay.getInstance();
-        boolean tieneEnviosActivos = sameDay.getListEnvios().stream()
-                .filter(envio -> envio.getRepartidorAsignado() != null)
-                .filter(envio -> envio.getRepartidorAsignado().getId().equals(this.getId()))
-                .anyMatch(envio -> envio.getEstadoEntrega() != null &&
-                        envio.getEstadoEntrega() != EstadoEntrega.ENTREGADO);
+        // Verificar si tiene envíos activos (sin entregar), según el índice de SameDay
+        boolean tieneEnviosActivos = SameDay.getInstance().contarEnviosActivos(this) > 0;
 
         // Disponible solo si NO tiene envíos activos
         return !tieneEnviosActivos;
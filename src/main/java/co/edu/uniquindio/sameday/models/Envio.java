@@ -1,8 +1,15 @@
 package co.edu.uniquindio.sameday.models;
 
+import co.edu.uniquindio.sameday.models.behavioral.observer.EnvioObserver;
+
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Clase que representa un envío en el sistema SameDay
@@ -11,25 +18,48 @@ import java.util.List;
  * - Builder: Para construcción fluida y legible de envíos complejos
  * - Decorator: Para servicios adicionales (en conjunto con ServicioDecorator)
  * - Facade: Para simplificar operaciones (EnvioFacade)
+ * - Observer: Notifica a SameDay los cambios de asignación y de estado de entrega
+ *
+ * REPRESENTACIÓN COMPACTA: los getters conservan sus tipos, pero por dentro los
+ * servicios son una máscara de bits (más su orden de llegada empacado en un int), el
+ * estado de pago un enum, las fechas milisegundos
+ * (hora local tomada como UTC, sin conversión de zona) y las dimensiones "LxAxH cm" tres
+ * enteros empacados. Cada envío ahorra así la lista, las fechas y el texto de dimensiones.
  */
 public class Envio {
+    private static final long SIN_FECHA = Long.MIN_VALUE;
+    private static final int SIN_MEDIDAS = -1;
+    private static final int BITS_MEDIDA = 10;
+    private static final int MAX_MEDIDA = (1 << BITS_MEDIDA) - 1;
+    private static final int CON_UNIDAD = 1 << 30;
+    private static final Pattern MEDIDAS = Pattern.compile("(\\d{1,4})x(\\d{1,4})x(\\d{1,4})( cm)?");
+
     private String id;
     private Address origen;
     private Address destino;
     private double peso;
-    private String dimensiones;
     private double volumen;
     private String contenido;
 
+    // Dimensiones "LxAxH" o "LxAxH cm" en cm enteros: largo, ancho y alto de 10 bits y la
+    // unidad en el bit 30. Cualquier otro texto se guarda tal cual en dimensionesTexto
+    private int medidas = SIN_MEDIDAS;
+    private String dimensionesTexto;
+
     // Información del destinatario
     private String nombreDestinatario;
     private String telefonoDestinatario;
     private String cedulaDestinatario;
 
-    private List<ServicioAdicional> serviciosAdicionales;
+    private byte servicios; // Un bit por ServicioAdicional (ordinal)
+    private int ordenServicios; // Ordinales en orden de llegada, 4 bits cada uno
     private double costoTotal;
-    private LocalDateTime fechaCreacion;
-    private String estado; // Estado del pago: SOLICITADO, PAGADO
+    private long fechaCreacion; // Milisegundos (SIN_FECHA = null)
+    private EstadoPago estadoPago;
+    private String estadoTexto; // Solo si setEstado recibió un texto que no es un EstadoPago
+    // Vista de servicios, creada la primera vez que se pide (sin estado propio: si dos hilos
+    // la crean a la vez, ambas leen y escriben los mismos campos)
+    private List<ServicioAdicional> vistaServicios;
 
     // Asignación de repartidor
     private Dealer repartidorAsignado;
@@ -37,16 +67,21 @@ public class Envio {
     // Estado de la entrega (para el flujo del repartidor)
     private EstadoEntrega estadoEntrega; // ASIGNADO, RECOGIDO, EN_RUTA, ENTREGADO, CON_INCIDENCIA
     private String observaciones; // Notas del repartidor sobre el envío o incidencias
-    private LocalDateTime fechaActualizacionEstado; // Última vez que se actualizó el estado
+    private long fechaActualizacionEstado = SIN_FECHA; // Última vez que se actualizó el estado
+
+    // Observador registrado por SameDay al agregar el envío al sistema
+    private EnvioObserver observer;
+
+    // Versión para control de concurrencia optimista: SameDay la incrementa con cada cambio
+    private volatile long version;
 
     /**
      * Constructor por defecto
      * Inicializa valores por defecto para un envío nuevo
      */
     public Envio() {
-        this.serviciosAdicionales = new ArrayList<>();
-        this.fechaCreacion = LocalDateTime.now();
-        this.estado = "SOLICITADO";
+        this.fechaCreacion = ahora();
+        this.estadoPago = EstadoPago.SOLICITADO;
         this.estadoEntrega = null;
         this.observaciones = "";
     }
@@ -61,12 +96,11 @@ public class Envio {
         this.origen = origen;
         this.destino = destino;
         this.peso = peso;
-        this.dimensiones = dimensiones;
+        asignarDimensiones(dimensiones);
         this.volumen = volumen;
         this.contenido = contenido;
-        this.serviciosAdicionales = new ArrayList<>();
-        this.fechaCreacion = LocalDateTime.now();
-        this.estado = "SOLICITADO";
+        this.fechaCreacion = ahora();
+        this.estadoPago = EstadoPago.SOLICITADO;
         this.estadoEntrega = null;
         this.observaciones = "";
     }
@@ -85,8 +119,57 @@ public class Envio {
     public double getPeso() { return peso; }
     public void setPeso(double peso) { this.peso = peso; }
 
-    public String getDimensiones() { return dimensiones; }
-    public void setDimensiones(String dimensiones) { this.dimensiones = dimensiones; }
+    public String getDimensiones() {
+        if (medidas == SIN_MEDIDAS) {
+            return dimensionesTexto;
+        }
+        String texto = getLargoCm() + "x" + getAnchoCm() + "x" + getAltoCm();
+        return (medidas & CON_UNIDAD) != 0 ? texto + " cm" : texto;
+    }
+
+    public void setDimensiones(String dimensiones) {
+        asignarDimensiones(dimensiones);
+    }
+
+    // El constructor usa este y no el setter, que una subclase podría sobrescribir
+    private void asignarDimensiones(String dimensiones) {
+        this.medidas = empacarMedidas(dimensiones);
+        this.dimensionesTexto = medidas == SIN_MEDIDAS ? dimensiones : null;
+    }
+
+    /**
+     * @return Largo en cm, o -1 si las dimensiones no tienen la forma "LxAxH cm"
+     */
+    public int getLargoCm() { return medida(0); }
+    public int getAnchoCm() { return medida(1); }
+    public int getAltoCm() { return medida(2); }
+
+    private int medida(int posicion) {
+        return medidas == SIN_MEDIDAS ? -1 : (medidas >>> (posicion * BITS_MEDIDA)) & MAX_MEDIDA;
+    }
+
+    /**
+     * Solo se empaca un texto que se vuelve a escribir igual (sin ceros a la izquierda)
+     */
+    private static int empacarMedidas(String dimensiones) {
+        if (dimensiones == null) {
+            return SIN_MEDIDAS;
+        }
+        Matcher partes = MEDIDAS.matcher(dimensiones);
+        if (!partes.matches()) {
+            return SIN_MEDIDAS;
+        }
+        int empacadas = partes.group(4) != null ? CON_UNIDAD : 0;
+        for (int i = 0; i < 3; i++) {
+            String numero = partes.group(i + 1);
+            int valor = Integer.parseInt(numero);
+            if (valor > MAX_MEDIDA || !Integer.toString(valor).equals(numero)) {
+                return SIN_MEDIDAS;
+            }
+            empacadas |= valor << (i * BITS_MEDIDA);
+        }
+        return empacadas;
+    }
 
     public double getVolumen() { return volumen; }
     public void setVolumen(double volumen) { this.volumen = volumen; }
@@ -110,67 +193,170 @@ public class Envio {
         this.cedulaDestinatario = cedulaDestinatario;
     }
 
-    public List<ServicioAdicional> getServiciosAdicionales() { return serviciosAdicionales; }
-    public void setServiciosAdicionales(List<ServicioAdicional> serviciosAdicionales) {
-        this.serviciosAdicionales = serviciosAdicionales;
+    /**
+     * @return Vista modificable de los servicios, en el orden en que se agregaron y sin
+     * repetidos (add de uno que ya está no lo duplica y devuelve false; add en una
+     * posición o set con un servicio que ya está en otra lanzan IllegalArgumentException)
+     */
+    public List<ServicioAdicional> getServiciosAdicionales() {
+        List<ServicioAdicional> vista = vistaServicios;
+        if (vista == null) {
+            vista = new VistaServicios();
+            vistaServicios = vista;
+        }
+        return vista;
+    }
+
+    public void setServiciosAdicionales(Collection<ServicioAdicional> serviciosAdicionales) {
+        this.servicios = 0;
+        this.ordenServicios = 0;
+        if (serviciosAdicionales != null) {
+            for (ServicioAdicional servicio : serviciosAdicionales) {
+                addServicioAdicional(servicio);
+            }
+        }
     }
 
     public void addServicioAdicional(ServicioAdicional servicio) {
-        if (!this.serviciosAdicionales.contains(servicio)) {
-            this.serviciosAdicionales.add(servicio);
+        insertarServicio(Integer.bitCount(servicios & 0xFF), servicio);
+    }
+
+    public boolean tieneServicio(ServicioAdicional servicio) {
+        return (servicios & (1 << servicio.ordinal())) != 0;
+    }
+
+    /**
+     * @return Copia de los servicios como conjunto
+     */
+    public EnumSet<ServicioAdicional> getServicios() {
+        EnumSet<ServicioAdicional> conjunto = EnumSet.noneOf(ServicioAdicional.class);
+        for (ServicioAdicional servicio : ServicioAdicional.values()) {
+            if (tieneServicio(servicio)) {
+                conjunto.add(servicio);
+            }
         }
+        return conjunto;
     }
 
     public double getCostoTotal() { return costoTotal; }
     public void setCostoTotal(double costoTotal) { this.costoTotal = costoTotal; }
 
-    public LocalDateTime getFechaCreacion() { return fechaCreacion; }
-    public void setFechaCreacion(LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+    public LocalDateTime getFechaCreacion() { return aFecha(fechaCreacion); }
+    public void setFechaCreacion(LocalDateTime fechaCreacion) { this.fechaCreacion = aMillis(fechaCreacion); }
+
+    /**
+     * @return Fecha de creación en milisegundos (hora local tomada como UTC), o
+     * Long.MIN_VALUE si no tiene; para índices que no necesitan el LocalDateTime
+     */
+    public long getFechaCreacionMillis() { return fechaCreacion; }
+
+    /**
+     * @return "SOLICITADO" o "PAGADO" (o el texto que se haya guardado con setEstado)
+     */
+    public String getEstado() { return estadoPago != null ? estadoPago.name() : estadoTexto; }
+
+    /**
+     * Un texto que no es el nombre de un EstadoPago se guarda tal cual, como antes de
+     * existir el enum; en ese caso getEstadoPago() es null e isPagado() es false
+     */
+    public void setEstado(String estado) {
+        this.estadoPago = EstadoPago.conNombre(estado);
+        this.estadoTexto = estadoPago == null ? estado : null;
+    }
 
-    public String getEstado() { return estado; }
-    public void setEstado(String estado) { this.estado = estado; }
+    public EstadoPago getEstadoPago() { return estadoPago; }
+    public void setEstadoPago(EstadoPago estadoPago) {
+        this.estadoPago = estadoPago;
+        this.estadoTexto = null;
+    }
+
+    public boolean isPagado() { return estadoPago == EstadoPago.PAGADO; }
 
     // Getters y Setters para repartidor asignado
     public Dealer getRepartidorAsignado() { return repartidorAsignado; }
 
     public void setRepartidorAsignado(Dealer repartidorAsignado) {
+        Dealer repartidorAnterior = this.repartidorAsignado;
+        EstadoEntrega estadoAnterior = this.estadoEntrega;
         this.repartidorAsignado = repartidorAsignado;
         // Solo establecer ASIGNADO si no hay estado previo
         if (repartidorAsignado != null && this.estadoEntrega == null) {
             this.estadoEntrega = EstadoEntrega.ASIGNADO;
-            this.fechaActualizacionEstado = LocalDateTime.now();
+            this.fechaActualizacionEstado = ahora();
         }
+        notificarCambio(repartidorAnterior, estadoAnterior);
     }
 
     // Getters y Setters para el estado de entrega
     public EstadoEntrega getEstadoEntrega() { return estadoEntrega; }
 
     public void setEstadoEntrega(EstadoEntrega estadoEntrega) {
+        EstadoEntrega estadoAnterior = this.estadoEntrega;
         this.estadoEntrega = estadoEntrega;
-        this.fechaActualizacionEstado = LocalDateTime.now();
+        this.fechaActualizacionEstado = ahora();
+        notificarCambio(this.repartidorAsignado, estadoAnterior);
     }
 
     public String getObservaciones() { return observaciones; }
     public void setObservaciones(String observaciones) { this.observaciones = observaciones; }
 
-    public LocalDateTime getFechaActualizacionEstado() { return fechaActualizacionEstado; }
+    public LocalDateTime getFechaActualizacionEstado() { return aFecha(fechaActualizacionEstado); }
     public void setFechaActualizacionEstado(LocalDateTime fechaActualizacionEstado) {
-        this.fechaActualizacionEstado = fechaActualizacionEstado;
+        this.fechaActualizacionEstado = aMillis(fechaActualizacionEstado);
+    }
+
+    // Observador de transiciones (lo asigna SameDay)
+    public void setObserver(EnvioObserver observer) { this.observer = observer; }
+
+    // Versión optimista (la avanza SameDay con su candado; setVersion solo restaura desde disco)
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    public void avanzarVersion() { this.version++; }
+
+    private void notificarCambio(Dealer repartidorAnterior, EstadoEntrega estadoAnterior) {
+        if (observer != null) {
+            observer.onEnvioActualizado(this, repartidorAnterior, estadoAnterior);
+        }
+    }
+
+    /**
+     * Crea una copia de los datos del envío, sin observador.
+     * Las direcciones y el repartidor se comparten con el original.
+     */
+    public Envio copiar() {
+        Envio copia = new Envio(id, origen, destino, peso, null, volumen, contenido);
+        copia.medidas = medidas;
+        copia.dimensionesTexto = dimensionesTexto;
+        copia.nombreDestinatario = nombreDestinatario;
+        copia.telefonoDestinatario = telefonoDestinatario;
+        copia.cedulaDestinatario = cedulaDestinatario;
+        copia.servicios = servicios;
+        copia.ordenServicios = ordenServicios;
+        copia.costoTotal = costoTotal;
+        copia.fechaCreacion = fechaCreacion;
+        copia.estadoPago = estadoPago;
+        copia.estadoTexto = estadoTexto;
+        copia.repartidorAsignado = repartidorAsignado;
+        copia.estadoEntrega = estadoEntrega;
+        copia.observaciones = observaciones;
+        copia.fechaActualizacionEstado = fechaActualizacionEstado;
+        copia.version = version;
+        return copia;
     }
 
     /**
      * Obtiene una representación de los servicios adicionales como String
      */
     public String getServiciosAdicionalesString() {
-        if (serviciosAdicionales.isEmpty()) {
+        if (servicios == 0) {
             return "Ninguno";
         }
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < serviciosAdicionales.size(); i++) {
-            sb.append(serviciosAdicionales.get(i).toString());
-            if (i < serviciosAdicionales.size() - 1) {
+        for (ServicioAdicional servicio : getServiciosAdicionales()) {
+            if (sb.length() > 0) {
                 sb.append(", ");
             }
+            sb.append(servicio.toString());
         }
         return sb.toString();
     }
@@ -196,6 +382,113 @@ public class Envio {
         return estadoEntrega.getDisplayName(); // Sin emojis, solo texto
     }
 
+    // ==================== REPRESENTACIÓN COMPACTA ====================
+
+    private static long aMillis(LocalDateTime fecha) {
+        return fecha != null ? fecha.toInstant(ZoneOffset.UTC).toEpochMilli() : SIN_FECHA;
+    }
+
+    private static LocalDateTime aFecha(long millis) {
+        if (millis == SIN_FECHA) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    private static long ahora() {
+        return aMillis(LocalDateTime.now());
+    }
+
+    private ServicioAdicional servicioEn(int posicion) {
+        return ServicioAdicional.values()[(ordenServicios >>> (posicion * 4)) & 0xF];
+    }
+
+    /**
+     * Inserta el servicio en la posición dada del orden, si no estaba ya
+     */
+    private boolean insertarServicio(int posicion, ServicioAdicional servicio) {
+        if (tieneServicio(servicio)) {
+            return false;
+        }
+        int desplazamiento = posicion * 4;
+        int anteriores = desplazamiento == 0 ? 0 : ordenServicios & (-1 >>> (32 - desplazamiento));
+        int siguientes = desplazamiento == 0 ? ordenServicios : ordenServicios >>> desplazamiento;
+        ordenServicios = anteriores | (servicio.ordinal() << desplazamiento) | (siguientes << (desplazamiento + 4));
+        servicios |= (byte) (1 << servicio.ordinal());
+        return true;
+    }
+
+    private ServicioAdicional quitarServicio(int posicion) {
+        ServicioAdicional servicio = servicioEn(posicion);
+        int desplazamiento = posicion * 4;
+        int anteriores = desplazamiento == 0 ? 0 : ordenServicios & (-1 >>> (32 - desplazamiento));
+        int siguientes = desplazamiento + 4 >= 32 ? 0 : ordenServicios >>> (desplazamiento + 4);
+        ordenServicios = anteriores | (siguientes << desplazamiento);
+        servicios &= (byte) ~(1 << servicio.ordinal());
+        return servicio;
+    }
+
+    /**
+     * Los servicios vistos como lista: leer y modificar la lista lee y modifica la máscara
+     * y el orden
+     */
+    private final class VistaServicios extends AbstractList<ServicioAdicional> {
+
+        @Override
+        public ServicioAdicional get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Índice: " + index + ", tamaño: " + size());
+            }
+            return servicioEn(index);
+        }
+
+        @Override
+        public int size() {
+            return Integer.bitCount(servicios & 0xFF);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof ServicioAdicional && tieneServicio((ServicioAdicional) o);
+        }
+
+        @Override
+        public boolean add(ServicioAdicional servicio) {
+            return insertarServicio(size(), servicio);
+        }
+
+        @Override
+        public void add(int index, ServicioAdicional servicio) {
+            if (index < 0 || index > size()) {
+                throw new IndexOutOfBoundsException("Índice: " + index + ", tamaño: " + size());
+            }
+            if (!insertarServicio(index, servicio)) {
+                throw new IllegalArgumentException("El servicio " + servicio + " ya está en la lista");
+            }
+        }
+
+        @Override
+        public ServicioAdicional set(int index, ServicioAdicional servicio) {
+            ServicioAdicional anterior = get(index);
+            if (anterior != servicio) {
+                // Se valida antes de quitar el anterior para no dejar la lista más corta
+                if (tieneServicio(servicio)) {
+                    throw new IllegalArgumentException("El servicio " + servicio + " ya está en la lista");
+                }
+                quitarServicio(index);
+                insertarServicio(index, servicio);
+            }
+            return anterior;
+        }
+
+        @Override
+        public ServicioAdicional remove(int index) {
+            get(index);
+            return quitarServicio(index);
+        }
+    }
+
     @Override
     public String toString() {
         return "Envio{" +
@@ -206,7 +499,7 @@ public class Envio {
                 ", peso=" + peso +
                 ", contenido='" + contenido + '\'' +
                 ", costoTotal=" + costoTotal +
-                ", estado='" + estado + '\'' +
+                ", estado='" + getEstado() + '\'' +
                 ", estadoEntrega=" + (estadoEntrega != null ? estadoEntrega.getDisplayName() : "null") +
                 ", repartidorAsignado=" + (repartidorAsignado != null ? repartidorAsignado.getNombre() : "null") +
                 '}';
@@ -0,0 +1,21 @@
+package co.edu.uniquindio.sameday.models;
+
+/**
+ * Estado del pago de un envío (Envio.getEstado() devuelve su nombre)
+ */
+public enum EstadoPago {
+    SOLICITADO,
+    PAGADO;
+
+    /**
+     * @return El estado con exactamente ese nombre, o null si el texto no es uno
+     */
+    public static EstadoPago conNombre(String texto) {
+        for (EstadoPago estado : values()) {
+            if (estado.name().equals(texto)) {
+                return estado;
+            }
+        }
+        return null;
+    }
+}
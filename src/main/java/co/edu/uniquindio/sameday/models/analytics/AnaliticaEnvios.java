@@ -0,0 +1,80 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+import co.edu.uniquindio.sameday.models.Envio;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Analítica aproximada de envíos: un juego de sketches por día de creación.
+ *
+ * Cada envío se observa una sola vez, al darse de alta (los sketches no admiten restar,
+ * así que cambios y bajas posteriores no se reflejan). Un rango de fechas se responde
+ * combinando los sketches de sus días, y el estado de otro nodo se puede combinar con
+ * combinar(), ya sea en memoria o leído con leer().
+ */
+public class AnaliticaEnvios {
+
+    private final ConcurrentSkipListMap<LocalDate, SketchesEnvios> porDia = new ConcurrentSkipListMap<>();
+
+    public void observar(Envio envio) {
+        if (envio.getFechaCreacion() == null) {
+            return;
+        }
+        porDia.computeIfAbsent(envio.getFechaCreacion().toLocalDate(), d -> new SketchesEnvios())
+                .observar(envio);
+    }
+
+    /**
+     * @return Sketches combinados de los días en [desde, hasta] (copia independiente)
+     */
+    public SketchesEnvios rango(LocalDate desde, LocalDate hasta) {
+        SketchesEnvios combinados = new SketchesEnvios();
+        for (SketchesEnvios dia : porDia.subMap(desde, true, hasta, true).values()) {
+            combinados.combinar(dia);
+        }
+        return combinados;
+    }
+
+    /**
+     * @return Sketches combinados de toda la historia
+     */
+    public SketchesEnvios total() {
+        SketchesEnvios combinados = new SketchesEnvios();
+        for (SketchesEnvios dia : porDia.values()) {
+            combinados.combinar(dia);
+        }
+        return combinados;
+    }
+
+    /**
+     * Suma la analítica de otro nodo, día por día
+     */
+    public void combinar(AnaliticaEnvios otra) {
+        for (Map.Entry<LocalDate, SketchesEnvios> dia : otra.porDia.entrySet()) {
+            porDia.computeIfAbsent(dia.getKey(), d -> new SketchesEnvios()).combinar(dia.getValue());
+        }
+    }
+
+    public void escribir(DataOutput out) throws IOException {
+        Map<LocalDate, SketchesEnvios> dias = porDia.clone();
+        out.writeInt(dias.size());
+        for (Map.Entry<LocalDate, SketchesEnvios> dia : dias.entrySet()) {
+            out.writeLong(dia.getKey().toEpochDay());
+            dia.getValue().escribir(out);
+        }
+    }
+
+    public static AnaliticaEnvios leer(DataInput in) throws IOException {
+        AnaliticaEnvios analitica = new AnaliticaEnvios();
+        int dias = in.readInt();
+        for (int i = 0; i < dias; i++) {
+            analitica.porDia.put(LocalDate.ofEpochDay(in.readLong()), SketchesEnvios.leer(in));
+        }
+        return analitica;
+    }
+}
@@ -0,0 +1,117 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Frecuencia aproximada de cualquier valor en memoria fija (Count-Min).
+ *
+ * Cada valor suma 1 en una celda de cada fila; la estimación es el mínimo de sus
+ * celdas, que nunca queda por debajo de la frecuencia real y la supera como mucho en
+ * (e / ancho) * total con probabilidad 1 - e^-profundidad. Dos sketches con las mismas
+ * dimensiones se combinan sumando celda a celda.
+ */
+public class CountMinSketch {
+
+    public static final int ANCHO_POR_DEFECTO = 512;
+    public static final int PROFUNDIDAD_POR_DEFECTO = 4;
+
+    private final int ancho;
+    private final int profundidad;
+    private final long[] celdas;
+    private long total;
+
+    public CountMinSketch() {
+        this(ANCHO_POR_DEFECTO, PROFUNDIDAD_POR_DEFECTO);
+    }
+
+    public CountMinSketch(int ancho, int profundidad) {
+        if (ancho < 1 || profundidad < 1) {
+            throw new IllegalArgumentException("Dimensiones inválidas");
+        }
+        this.ancho = ancho;
+        this.profundidad = profundidad;
+        this.celdas = new long[ancho * profundidad];
+    }
+
+    public synchronized void agregar(String valor) {
+        if (valor == null) {
+            return;
+        }
+        long hash = Hash64.de(valor);
+        for (int fila = 0; fila < profundidad; fila++) {
+            celdas[fila * ancho + columna(hash, fila)]++;
+        }
+        total++;
+    }
+
+    /**
+     * @return Frecuencia estimada del valor (cota superior de la real)
+     */
+    public synchronized long estimar(String valor) {
+        if (valor == null) {
+            return 0;
+        }
+        long hash = Hash64.de(valor);
+        long minimo = Long.MAX_VALUE;
+        for (int fila = 0; fila < profundidad; fila++) {
+            minimo = Math.min(minimo, celdas[fila * ancho + columna(hash, fila)]);
+        }
+        return minimo;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public void combinar(CountMinSketch otro) {
+        if (otro.ancho != ancho || otro.profundidad != profundidad) {
+            throw new IllegalArgumentException("Solo se combinan sketches de las mismas dimensiones");
+        }
+        long[] ajenas;
+        long totalAjeno;
+        synchronized (otro) {
+            ajenas = otro.celdas.clone();
+            totalAjeno = otro.total;
+        }
+        synchronized (this) {
+            for (int i = 0; i < celdas.length; i++) {
+                celdas[i] += ajenas[i];
+            }
+            total += totalAjeno;
+        }
+    }
+
+    public synchronized CountMinSketch copiar() {
+        CountMinSketch copia = new CountMinSketch(ancho, profundidad);
+        System.arraycopy(celdas, 0, copia.celdas, 0, celdas.length);
+        copia.total = total;
+        return copia;
+    }
+
+    // Doble hashing: la fila i usa h1 + i * h2, con las dos mitades del hash de 64 bits
+    private int columna(long hash, int fila) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return Math.floorMod(h1 + fila * h2, ancho);
+    }
+
+    public synchronized void escribir(DataOutput out) throws IOException {
+        out.writeInt(ancho);
+        out.writeInt(profundidad);
+        out.writeLong(total);
+        for (long celda : celdas) {
+            out.writeLong(celda);
+        }
+    }
+
+    public static CountMinSketch leer(DataInput in) throws IOException {
+        CountMinSketch sketch = new CountMinSketch(in.readInt(), in.readInt());
+        sketch.total = in.readLong();
+        for (int i = 0; i < sketch.celdas.length; i++) {
+            sketch.celdas[i] = in.readLong();
+        }
+        return sketch;
+    }
+}
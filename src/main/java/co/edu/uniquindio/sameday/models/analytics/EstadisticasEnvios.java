@@ -0,0 +1,205 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.EstadoEntrega;
+import co.edu.uniquindio.sameday.models.ServicioAdicional;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * Estadísticas del dashboard mantenidas de forma incremental (vista materializada).
+ *
+ * SameDay llama a registrar/retirar en cada alta, cambio o baja de un envío. Por cada
+ * envío se guarda su aporte vigente (costo, estado, servicios y ciudad destino); un
+ * evento resta el aporte anterior y suma el nuevo, así que cuesta O(1) sin importar
+ * cuántos envíos haya. getResumen() solo lee los contadores.
+ *
+ * Los ingresos se acumulan en centavos (long) para que restar y sumar no arrastre
+ * error de redondeo. Los ingresos por ciudad se asignan a la ciudad destino que tenía
+ * el envío en su último cambio.
+ *
+ * Con los mismos aportes se mantienen las series de tiempo (RollupsEnvios). Las altas
+ * además alimentan los sketches de AnaliticaEnvios.
+ */
+public class EstadisticasEnvios {
+
+    private static final EstadoEntrega[] ESTADOS = EstadoEntrega.values();
+    private static final ServicioAdicional[] SERVICIOS = ServicioAdicional.values();
+    private static final City[] CIUDADES = City.values();
+
+    // Aporte vigente de cada envío; compute() ordena los eventos de un mismo envío
+    private final ConcurrentHashMap<String, Aporte> aportes = new ConcurrentHashMap<>();
+
+    private final LongAdder total = new LongAdder();
+    private final LongAdder ingresosCentavos = new LongAdder();
+    // Posición 0 = sin asignar; el resto, ordinal + 1 de EstadoEntrega
+    private final LongAdder[] porEstado = contadores(ESTADOS.length + 1);
+    private final LongAdder[] porServicio = contadores(SERVICIOS.length);
+    private final LongAdder[] ingresosPorCiudad = contadores(CIUDADES.length);
+    private final RollupsEnvios rollups = new RollupsEnvios();
+    private final AnaliticaEnvios analitica = new AnaliticaEnvios();
+
+    // Disponibilidad vigente de cada repartidor, por id
+    private final ConcurrentHashMap<String, Boolean> repartidoresDisponibles = new ConcurrentHashMap<>();
+    private final LongAdder disponibles = new LongAdder();
+    private final ToIntFunction<Dealer> cargaActiva;
+
+    /**
+     * @param cargaActiva Envíos activos de un repartidor (el índice de SameDay)
+     */
+    public EstadisticasEnvios(ToIntFunction<Dealer> cargaActiva) {
+        this.cargaActiva = cargaActiva;
+    }
+
+    /**
+     * Registra el alta o el cambio de un envío
+     */
+    public void registrar(Envio envio) {
+        Aporte nuevo = new Aporte(envio);
+        boolean[] alta = new boolean[1];
+        aportes.compute(envio.getId(), (id, anterior) -> {
+            if (anterior != null) {
+                aplicar(anterior, -1);
+            }
+            aplicar(nuevo, 1);
+            alta[0] = anterior == null;
+            return nuevo;
+        });
+        if (alta[0]) {
+            analitica.observar(envio);
+        }
+    }
+
+    /**
+     * Descuenta un envío eliminado
+     */
+    public void retirar(String envioId) {
+        aportes.computeIfPresent(envioId, (id, anterior) -> {
+            aplicar(anterior, -1);
+            return null;
+        });
+    }
+
+    /**
+     * Vuelve a evaluar la disponibilidad de un repartidor tras un cambio en su carga
+     * o en su disponibilidad manual
+     */
+    public void reevaluarRepartidor(Dealer repartidor) {
+        if (repartidor == null) {
+            return;
+        }
+        repartidoresDisponibles.compute(repartidor.getId(), (id, anterior) -> {
+            // Se evalúa dentro de compute para que gane siempre la evaluación más reciente
+            // (mismo criterio que Dealer.isDisponible)
+            boolean disponible = repartidor.isDisponibleManual() && cargaActiva.applyAsInt(repartidor) == 0;
+            if (anterior == null || anterior != disponible) {
+                if (disponible) {
+                    disponibles.increment();
+                } else if (anterior != null) {
+                    disponibles.decrement();
+                }
+            }
+            return disponible;
+        });
+    }
+
+    public void retirarRepartidor(Dealer repartidor) {
+        repartidoresDisponibles.computeIfPresent(repartidor.getId(), (id, anterior) -> {
+            if (anterior) {
+                disponibles.decrement();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return Series por hora, día y mes (se consultan en vivo)
+     */
+    public RollupsEnvios getRollups() {
+        return rollups;
+    }
+
+    /**
+     * @return Sketches de destinatarios, costos, pesos y valores más frecuentes
+     */
+    public AnaliticaEnvios getAnalitica() {
+        return analitica;
+    }
+
+    /**
+     * @return Foto de los contadores; cuesta lo mismo con 10 envíos que con un millón
+     */
+    public ResumenEstadisticas getResumen() {
+        long[] estados = new long[porEstado.length];
+        for (int i = 0; i < estados.length; i++) {
+            estados[i] = porEstado[i].sum();
+        }
+        long[] servicios = new long[porServicio.length];
+        for (int i = 0; i < servicios.length; i++) {
+            servicios[i] = porServicio[i].sum();
+        }
+        long[] ciudades = new long[ingresosPorCiudad.length];
+        for (int i = 0; i < ciudades.length; i++) {
+            ciudades[i] = ingresosPorCiudad[i].sum();
+        }
+        return new ResumenEstadisticas(total.sum(), ingresosCentavos.sum(), estados, servicios,
+                ciudades, disponibles.sum());
+    }
+
+    private void aplicar(Aporte aporte, int signo) {
+        total.add(signo);
+        ingresosCentavos.add(signo * aporte.centavos);
+        porEstado[aporte.estado == null ? 0 : aporte.estado.ordinal() + 1].add(signo);
+        for (int i = 0; i < SERVICIOS.length; i++) {
+            if ((aporte.servicios & (1 << i)) != 0) {
+                porServicio[i].add(signo);
+            }
+        }
+        if (aporte.ciudad != null) {
+            ingresosPorCiudad[aporte.ciudad.ordinal()].add(signo * aporte.centavos);
+        }
+        rollups.aplicar(aporte.fechaCreacion, aporte.ciudad, aporte.centavos, aporte.pagado, signo);
+    }
+
+    private static LongAdder[] contadores(int cantidad) {
+        LongAdder[] contadores = new LongAdder[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            contadores[i] = new LongAdder();
+        }
+        return contadores;
+    }
+
+    private static long aCentavos(double valor) {
+        return Math.round(valor * 100);
+    }
+
+    /**
+     * Lo que un envío suma a los contadores, tomado en el momento del evento
+     */
+    private static final class Aporte {
+        private final long centavos;
+        private final EstadoEntrega estado;
+        private final int servicios; // Un bit por ServicioAdicional
+        private final City ciudad;
+        private final LocalDateTime fechaCreacion;
+        private final boolean pagado;
+
+        private Aporte(Envio envio) {
+            this.centavos = aCentavos(envio.getCostoTotal());
+            this.estado = envio.getEstadoEntrega();
+            int mascara = 0;
+            for (ServicioAdicional servicio : envio.getServiciosAdicionales()) {
+                mascara |= 1 << servicio.ordinal();
+            }
+            this.servicios = mascara;
+            this.ciudad = envio.getDestino() != null ? envio.getDestino().getCity() : null;
+            this.fechaCreacion = envio.getFechaCreacion();
+            this.pagado = envio.isPagado();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+/**
+ * Hash de 64 bits para los sketches: FNV-1a sobre los caracteres, seguido del
+ * mezclador final de MurmurHash3 para repartir bien los bits altos.
+ * (String.hashCode tiene solo 32 bits y choca demasiado a partir de millones de valores.)
+ */
+final class Hash64 {
+
+    private Hash64() {
+    }
+
+    static long de(String valor) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            hash ^= valor.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
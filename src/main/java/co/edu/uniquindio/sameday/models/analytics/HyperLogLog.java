@@ -0,0 +1,106 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Conteo aproximado de valores distintos (HyperLogLog).
+ *
+ * Usa 2^precision registros de un byte: con la precisión por defecto (12) ocupa 4 KB
+ * y el error típico es de 1,6 % sin importar cuántos valores distintos haya. Dos
+ * sketches de la misma precisión se combinan tomando el máximo de cada registro, así
+ * que se pueden sumar días o nodos sin volver a ver los datos.
+ */
+public class HyperLogLog {
+
+    public static final int PRECISION_POR_DEFECTO = 12;
+
+    private final int precision;
+    private final byte[] registros;
+
+    public HyperLogLog() {
+        this(PRECISION_POR_DEFECTO);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("La precisión debe estar entre 4 y 18");
+        }
+        this.precision = precision;
+        this.registros = new byte[1 << precision];
+    }
+
+    public synchronized void agregar(String valor) {
+        if (valor == null || valor.isEmpty()) {
+            return;
+        }
+        long hash = Hash64.de(valor);
+        int indice = (int) (hash >>> (64 - precision));
+        // Posición del primer 1 en los bits restantes (el centinela acota el resultado)
+        long resto = (hash << precision) | (1L << (precision - 1));
+        byte rango = (byte) (Long.numberOfLeadingZeros(resto) + 1);
+        if (rango > registros[indice]) {
+            registros[indice] = rango;
+        }
+    }
+
+    /**
+     * @return Número estimado de valores distintos
+     */
+    public synchronized long estimar() {
+        int m = registros.length;
+        double suma = 0;
+        int ceros = 0;
+        for (byte registro : registros) {
+            suma += 1.0 / (1L << registro);
+            if (registro == 0) {
+                ceros++;
+            }
+        }
+        double alfa = 0.7213 / (1 + 1.079 / m);
+        double estimacion = alfa * m * m / suma;
+        if (estimacion <= 2.5 * m && ceros > 0) {
+            // Rango bajo: el conteo lineal es más preciso
+            estimacion = m * Math.log((double) m / ceros);
+        }
+        return Math.round(estimacion);
+    }
+
+    /**
+     * Suma a este sketch los valores vistos por otro de la misma precisión
+     */
+    public void combinar(HyperLogLog otro) {
+        if (otro.precision != precision) {
+            throw new IllegalArgumentException("Solo se combinan sketches de la misma precisión");
+        }
+        byte[] ajenos;
+        synchronized (otro) {
+            ajenos = otro.registros.clone();
+        }
+        synchronized (this) {
+            for (int i = 0; i < registros.length; i++) {
+                if (ajenos[i] > registros[i]) {
+                    registros[i] = ajenos[i];
+                }
+            }
+        }
+    }
+
+    public synchronized HyperLogLog copiar() {
+        HyperLogLog copia = new HyperLogLog(precision);
+        System.arraycopy(registros, 0, copia.registros, 0, registros.length);
+        return copia;
+    }
+
+    public synchronized void escribir(DataOutput out) throws IOException {
+        out.writeByte(precision);
+        out.write(registros);
+    }
+
+    public static HyperLogLog leer(DataInput in) throws IOException {
+        HyperLogLog sketch = new HyperLogLog(in.readByte());
+        in.readFully(sketch.registros);
+        return sketch;
+    }
+}
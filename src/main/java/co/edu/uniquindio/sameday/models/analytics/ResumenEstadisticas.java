@@ -0,0 +1,101 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.EstadoEntrega;
+import co.edu.uniquindio.sameday.models.ServicioAdicional;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Foto inmutable de las estadísticas de envíos, leída de EstadisticasEnvios
+ */
+public class ResumenEstadisticas {
+
+    private final long totalEnvios;
+    private final long ingresosCentavos;
+    private final long[] porEstado; // Posición 0 = sin asignar
+    private final long[] porServicio;
+    private final long[] ingresosPorCiudad; // En centavos
+    private final long repartidoresDisponibles;
+
+    ResumenEstadisticas(long totalEnvios, long ingresosCentavos, long[] porEstado, long[] porServicio,
+                        long[] ingresosPorCiudad, long repartidoresDisponibles) {
+        this.totalEnvios = totalEnvios;
+        this.ingresosCentavos = ingresosCentavos;
+        this.porEstado = porEstado;
+        this.porServicio = porServicio;
+        this.ingresosPorCiudad = ingresosPorCiudad;
+        this.repartidoresDisponibles = repartidoresDisponibles;
+    }
+
+    public long getTotalEnvios() {
+        return totalEnvios;
+    }
+
+    public double getIngresosTotales() {
+        return ingresosCentavos / 100.0;
+    }
+
+    public long getEnviosEntregados() {
+        return getEnviosPorEstado(EstadoEntrega.ENTREGADO);
+    }
+
+    public long getEnviosSinAsignar() {
+        return porEstado[0];
+    }
+
+    /**
+     * @return Envíos que ya tienen un estado de entrega (asignados en adelante)
+     */
+    public long getEnviosConEstado() {
+        return totalEnvios - porEstado[0];
+    }
+
+    /**
+     * @return Porcentaje de entregados sobre los envíos con estado
+     */
+    public double getTasaExito() {
+        long conEstado = getEnviosConEstado();
+        return conEstado > 0 ? getEnviosEntregados() * 100.0 / conEstado : 0;
+    }
+
+    public double getPromedioPorEnvio() {
+        return totalEnvios > 0 ? getIngresosTotales() / totalEnvios : 0;
+    }
+
+    public long getEnviosPorEstado(EstadoEntrega estado) {
+        return porEstado[estado.ordinal() + 1];
+    }
+
+    public Map<EstadoEntrega, Long> getEnviosPorEstado() {
+        Map<EstadoEntrega, Long> mapa = new EnumMap<>(EstadoEntrega.class);
+        for (EstadoEntrega estado : EstadoEntrega.values()) {
+            mapa.put(estado, porEstado[estado.ordinal() + 1]);
+        }
+        return mapa;
+    }
+
+    public Map<ServicioAdicional, Long> getSolicitudesPorServicio() {
+        Map<ServicioAdicional, Long> mapa = new EnumMap<>(ServicioAdicional.class);
+        for (ServicioAdicional servicio : ServicioAdicional.values()) {
+            mapa.put(servicio, porServicio[servicio.ordinal()]);
+        }
+        return mapa;
+    }
+
+    /**
+     * @return Ingresos por ciudad de destino
+     */
+    public Map<City, Double> getIngresosPorCiudad() {
+        Map<City, Double> mapa = new EnumMap<>(City.class);
+        for (City ciudad : City.values()) {
+            mapa.put(ciudad, ingresosPorCiudad[ciudad.ordinal()] / 100.0);
+        }
+        return mapa;
+    }
+
+    public long getRepartidoresDisponibles() {
+        return repartidoresDisponibles;
+    }
+}
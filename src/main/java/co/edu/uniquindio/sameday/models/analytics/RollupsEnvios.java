@@ -0,0 +1,222 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+import co.edu.uniquindio.sameday.models.City;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Series de tiempo de envíos por hora, día y mes, para cada ciudad de destino.
+ *
+ * Cada cubeta acumula envíos creados, envíos pagados y sus ingresos. EstadisticasEnvios
+ * la actualiza con el mismo esquema de aportes (resta el anterior, suma el nuevo), así
+ * que crear o pagar un envío toca una cubeta por granularidad. Los envíos se ubican por
+ * su fecha de creación; pagar un envío suma a la cubeta de ese día, no a la del pago.
+ *
+ * Un rango arbitrario se responde leyendo horas sueltas en los bordes, días completos
+ * y meses completos en el medio: unas decenas de cubetas, no todos los envíos.
+ */
+public class RollupsEnvios {
+
+    public enum Granularidad { HORA, DIA, MES }
+
+    private static final City[] CIUDADES = City.values();
+    // Una posición por ciudad y una más con el total de todas
+    private static final int POSICIONES = CIUDADES.length + 1;
+    private static final int TODAS = CIUDADES.length;
+
+    private final ConcurrentHashMap<Long, Cubeta> horas = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Cubeta> dias = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Cubeta> meses = new ConcurrentHashMap<>();
+
+    // Horas extremas vistas, para que los gráficos sepan desde dónde pedir
+    private final AtomicLong primeraHora = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong ultimaHora = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Suma (signo 1) o resta (signo -1) un envío a sus cubetas
+     */
+    void aplicar(LocalDateTime fecha, City ciudad, long centavos, boolean pagado, int signo) {
+        if (fecha == null) {
+            return;
+        }
+        long hora = indiceHora(fecha);
+        long dia = Math.floorDiv(hora, 24);
+        long mes = indiceMes(fecha.toLocalDate());
+        if (signo > 0) {
+            primeraHora.accumulateAndGet(hora, Math::min);
+            ultimaHora.accumulateAndGet(hora, Math::max);
+        }
+        int posicionCiudad = ciudad != null ? ciudad.ordinal() : -1;
+        aplicar(horas.computeIfAbsent(hora, i -> new Cubeta()), posicionCiudad, centavos, pagado, signo);
+        aplicar(dias.computeIfAbsent(dia, i -> new Cubeta()), posicionCiudad, centavos, pagado, signo);
+        aplicar(meses.computeIfAbsent(mes, i -> new Cubeta()), posicionCiudad, centavos, pagado, signo);
+    }
+
+    private static void aplicar(Cubeta cubeta, int posicionCiudad, long centavos, boolean pagado, int signo) {
+        cubeta.aplicar(TODAS, centavos, pagado, signo);
+        if (posicionCiudad >= 0) {
+            cubeta.aplicar(posicionCiudad, centavos, pagado, signo);
+        }
+    }
+
+    /**
+     * Totales de los envíos creados en [desde, hasta). La resolución es de una hora:
+     * se cuentan completas las horas que toca el rango.
+     * @param ciudad Ciudad de destino, o null para todas
+     */
+    public TotalesPeriodo consultar(LocalDateTime desde, LocalDateTime hasta, City ciudad) {
+        int posicion = ciudad != null ? ciudad.ordinal() : TODAS;
+        long[] acumulado = new long[4];
+        long hora = indiceHora(desde);
+        long fin = indiceHora(hasta);
+        if (!hasta.equals(hasta.truncatedTo(ChronoUnit.HOURS))) {
+            fin++;
+        }
+        while (hora < fin) {
+            if (Math.floorMod(hora, 24) == 0 && hora + 24 <= fin) {
+                LocalDate dia = LocalDate.ofEpochDay(Math.floorDiv(hora, 24));
+                long inicioMesSiguiente = dia.withDayOfMonth(1).plusMonths(1).toEpochDay() * 24;
+                if (dia.getDayOfMonth() == 1 && inicioMesSiguiente <= fin) {
+                    sumar(meses.get(indiceMes(dia)), posicion, acumulado);
+                    hora = inicioMesSiguiente;
+                } else {
+                    sumar(dias.get(Math.floorDiv(hora, 24)), posicion, acumulado);
+                    hora += 24;
+                }
+            } else {
+                sumar(horas.get(hora), posicion, acumulado);
+                hora++;
+            }
+        }
+        return new TotalesPeriodo(acumulado[0], acumulado[1], acumulado[2], acumulado[3]);
+    }
+
+    public TotalesPeriodo consultar(LocalDate desde, LocalDate hasta, City ciudad) {
+        return consultar(desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay(), ciudad);
+    }
+
+    /**
+     * Serie para gráficos: una entrada por periodo con envíos, en orden cronológico
+     * @param desde Inicio del rango (incluido)
+     * @param hasta Fin del rango (excluido)
+     * @param ciudad Ciudad de destino, o null para todas
+     */
+    public TreeMap<LocalDateTime, TotalesPeriodo> serie(LocalDateTime desde, LocalDateTime hasta,
+                                                         Granularidad granularidad, City ciudad) {
+        int posicion = ciudad != null ? ciudad.ordinal() : TODAS;
+        TreeMap<LocalDateTime, TotalesPeriodo> serie = new TreeMap<>();
+        LocalDateTime periodo = inicioPeriodo(desde, granularidad);
+        while (periodo.isBefore(hasta)) {
+            Cubeta cubeta = nivel(granularidad).get(indice(periodo, granularidad));
+            if (cubeta != null) {
+                long[] acumulado = new long[4];
+                sumar(cubeta, posicion, acumulado);
+                if (acumulado[0] != 0 || acumulado[2] != 0) {
+                    serie.put(periodo, new TotalesPeriodo(acumulado[0], acumulado[1], acumulado[2], acumulado[3]));
+                }
+            }
+            periodo = siguientePeriodo(periodo, granularidad);
+        }
+        return serie;
+    }
+
+    /**
+     * @return Serie completa, desde el primer envío registrado hasta el último
+     */
+    public TreeMap<LocalDateTime, TotalesPeriodo> serieCompleta(Granularidad granularidad, City ciudad) {
+        long primera = primeraHora.get();
+        if (primera == Long.MAX_VALUE) {
+            return new TreeMap<>();
+        }
+        return serie(deIndiceHora(primera), deIndiceHora(ultimaHora.get() + 1), granularidad, ciudad);
+    }
+
+    private Map<Long, Cubeta> nivel(Granularidad granularidad) {
+        switch (granularidad) {
+            case HORA: return horas;
+            case DIA: return dias;
+            default: return meses;
+        }
+    }
+
+    private static long indice(LocalDateTime periodo, Granularidad granularidad) {
+        switch (granularidad) {
+            case HORA: return indiceHora(periodo);
+            case DIA: return periodo.toLocalDate().toEpochDay();
+            default: return indiceMes(periodo.toLocalDate());
+        }
+    }
+
+    private static LocalDateTime inicioPeriodo(LocalDateTime fecha, Granularidad granularidad) {
+        switch (granularidad) {
+            case HORA: return fecha.truncatedTo(ChronoUnit.HOURS);
+            case DIA: return fecha.toLocalDate().atStartOfDay();
+            default: return fecha.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        }
+    }
+
+    private static LocalDateTime siguientePeriodo(LocalDateTime periodo, Granularidad granularidad) {
+        switch (granularidad) {
+            case HORA: return periodo.plusHours(1);
+            case DIA: return periodo.plusDays(1);
+            default: return periodo.plusMonths(1);
+        }
+    }
+
+    // Las fechas de los envíos son locales: se numeran las horas como si fueran UTC
+    private static long indiceHora(LocalDateTime fecha) {
+        return Math.floorDiv(fecha.toEpochSecond(ZoneOffset.UTC), 3600);
+    }
+
+    private static LocalDateTime deIndiceHora(long hora) {
+        return LocalDateTime.ofEpochSecond(hora * 3600, 0, ZoneOffset.UTC);
+    }
+
+    private static long indiceMes(LocalDate fecha) {
+        return fecha.getYear() * 12L + fecha.getMonthValue() - 1;
+    }
+
+    private static void sumar(Cubeta cubeta, int posicion, long[] acumulado) {
+        if (cubeta != null) {
+            acumulado[0] += cubeta.creados[posicion].sum();
+            acumulado[1] += cubeta.pagados[posicion].sum();
+            acumulado[2] += cubeta.centavosCreados[posicion].sum();
+            acumulado[3] += cubeta.centavosPagados[posicion].sum();
+        }
+    }
+
+    /**
+     * Contadores de un periodo, por ciudad
+     */
+    private static final class Cubeta {
+        private final LongAdder[] creados = contadores();
+        private final LongAdder[] pagados = contadores();
+        private final LongAdder[] centavosCreados = contadores();
+        private final LongAdder[] centavosPagados = contadores();
+
+        private void aplicar(int posicion, long centavos, boolean pagado, int signo) {
+            creados[posicion].add(signo);
+            centavosCreados[posicion].add(signo * centavos);
+            if (pagado) {
+                pagados[posicion].add(signo);
+                centavosPagados[posicion].add(signo * centavos);
+            }
+        }
+
+        private static LongAdder[] contadores() {
+            LongAdder[] contadores = new LongAdder[POSICIONES];
+            for (int i = 0; i < POSICIONES; i++) {
+                contadores[i] = new LongAdder();
+            }
+            return contadores;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+import co.edu.uniquindio.sameday.models.Envio;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Sketches de los envíos de un periodo (un día, un rango o un nodo completo).
+ *
+ * - Destinatarios y direcciones de origen distintos: HyperLogLog
+ * - Distribución de costoTotal y peso: t-digest
+ * - Contenidos y ciudades de destino más frecuentes: Space-Saving, con Count-Min
+ *   para estimar la frecuencia de cualquier contenido aunque no esté en el top
+ *
+ * Ocupa menos de 40 KB sin importar cuántos envíos resuma. Todos los sketches se combinan,
+ * así que el resumen de un rango es la combinación de los de sus días.
+ */
+public class SketchesEnvios {
+
+    private final HyperLogLog destinatarios;
+    private final HyperLogLog remitentes;
+    private final TDigest costos;
+    private final TDigest pesos;
+    private final CountMinSketch frecuenciaContenidos;
+    private final SpaceSaving topContenidos;
+    private final SpaceSaving topCiudadesDestino;
+
+    public SketchesEnvios() {
+        this(new HyperLogLog(), new HyperLogLog(), new TDigest(), new TDigest(),
+                new CountMinSketch(), new SpaceSaving(), new SpaceSaving());
+    }
+
+    private SketchesEnvios(HyperLogLog destinatarios, HyperLogLog remitentes, TDigest costos, TDigest pesos,
+                           CountMinSketch frecuenciaContenidos, SpaceSaving topContenidos,
+                           SpaceSaving topCiudadesDestino) {
+        this.destinatarios = destinatarios;
+        this.remitentes = remitentes;
+        this.costos = costos;
+        this.pesos = pesos;
+        this.frecuenciaContenidos = frecuenciaContenidos;
+        this.topContenidos = topContenidos;
+        this.topCiudadesDestino = topCiudadesDestino;
+    }
+
+    public void observar(Envio envio) {
+        destinatarios.agregar(envio.getCedulaDestinatario());
+        if (envio.getOrigen() != null) {
+            remitentes.agregar(envio.getOrigen().getId());
+        }
+        costos.agregar(envio.getCostoTotal());
+        pesos.agregar(envio.getPeso());
+        String contenido = normalizar(envio.getContenido());
+        frecuenciaContenidos.agregar(contenido);
+        topContenidos.agregar(contenido);
+        if (envio.getDestino() != null && envio.getDestino().getCity() != null) {
+            topCiudadesDestino.agregar(envio.getDestino().getCity().name());
+        }
+    }
+
+    public void combinar(SketchesEnvios otro) {
+        destinatarios.combinar(otro.destinatarios);
+        remitentes.combinar(otro.remitentes);
+        costos.combinar(otro.costos);
+        pesos.combinar(otro.pesos);
+        frecuenciaContenidos.combinar(otro.frecuenciaContenidos);
+        topContenidos.combinar(otro.topContenidos);
+        topCiudadesDestino.combinar(otro.topCiudadesDestino);
+    }
+
+    public SketchesEnvios copiar() {
+        return new SketchesEnvios(destinatarios.copiar(), remitentes.copiar(), costos.copiar(), pesos.copiar(),
+                frecuenciaContenidos.copiar(), topContenidos.copiar(), topCiudadesDestino.copiar());
+    }
+
+    /**
+     * "Documentos Legales" y "documentos legales " cuentan como el mismo contenido
+     */
+    static String normalizar(String contenido) {
+        return contenido == null ? null : contenido.trim().toLowerCase();
+    }
+
+    public HyperLogLog getDestinatarios() {
+        return destinatarios;
+    }
+
+    public HyperLogLog getRemitentes() {
+        return remitentes;
+    }
+
+    public TDigest getCostos() {
+        return costos;
+    }
+
+    public TDigest getPesos() {
+        return pesos;
+    }
+
+    public CountMinSketch getFrecuenciaContenidos() {
+        return frecuenciaContenidos;
+    }
+
+    public SpaceSaving getTopContenidos() {
+        return topContenidos;
+    }
+
+    public SpaceSaving getTopCiudadesDestino() {
+        return topCiudadesDestino;
+    }
+
+    /**
+     * Serializa los sketches para combinarlos en otro nodo
+     */
+    public void escribir(DataOutput out) throws IOException {
+        destinatarios.escribir(out);
+        remitentes.escribir(out);
+        costos.escribir(out);
+        pesos.escribir(out);
+        frecuenciaContenidos.escribir(out);
+        topContenidos.escribir(out);
+        topCiudadesDestino.escribir(out);
+    }
+
+    public static SketchesEnvios leer(DataInput in) throws IOException {
+        return new SketchesEnvios(HyperLogLog.leer(in), HyperLogLog.leer(in), TDigest.leer(in), TDigest.leer(in),
+                CountMinSketch.leer(in), SpaceSaving.leer(in), SpaceSaving.leer(in));
+    }
+}
@@ -0,0 +1,168 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Los K valores más frecuentes con memoria fija (algoritmo Space-Saving).
+ *
+ * Vigila como mucho "capacidad" valores. Un valor nuevo con la tabla llena reemplaza
+ * al de menor conteo y hereda ese conteo como error. Así, todo valor con frecuencia
+ * mayor que total / capacidad está en la tabla, y su conteo la sobreestima como mucho
+ * en su error. Dos resúmenes se combinan sumando conteos y recortando a la capacidad.
+ */
+public class SpaceSaving {
+
+    public static final int CAPACIDAD_POR_DEFECTO = 64;
+
+    private final int capacidad;
+    private final HashMap<String, long[]> contadores; // valor -> {conteo, error}
+    private long total;
+
+    public SpaceSaving() {
+        this(CAPACIDAD_POR_DEFECTO);
+    }
+
+    public SpaceSaving(int capacidad) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva");
+        }
+        this.capacidad = capacidad;
+        this.contadores = new HashMap<>();
+    }
+
+    public synchronized void agregar(String valor) {
+        if (valor == null || valor.isEmpty()) {
+            return;
+        }
+        total++;
+        long[] contador = contadores.get(valor);
+        if (contador != null) {
+            contador[0]++;
+        } else if (contadores.size() < capacidad) {
+            contadores.put(valor, new long[]{1, 0});
+        } else {
+            // La capacidad es pequeña: buscar el mínimo recorriendo es más barato que mantener un heap
+            String menor = null;
+            long minimo = Long.MAX_VALUE;
+            for (Map.Entry<String, long[]> entrada : contadores.entrySet()) {
+                if (entrada.getValue()[0] < minimo) {
+                    minimo = entrada.getValue()[0];
+                    menor = entrada.getKey();
+                }
+            }
+            contadores.remove(menor);
+            contadores.put(valor, new long[]{minimo + 1, minimo});
+        }
+    }
+
+    /**
+     * @return Los k valores más frecuentes con su conteo estimado, de mayor a menor
+     */
+    public synchronized LinkedHashMap<String, Long> top(int k) {
+        LinkedHashMap<String, Long> top = new LinkedHashMap<>();
+        contadores.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0]).reversed())
+                .limit(k)
+                .forEach(e -> top.put(e.getKey(), e.getValue()[0]));
+        return top;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public void combinar(SpaceSaving otro) {
+        Map<String, long[]> ajenos = new HashMap<>();
+        long totalAjeno;
+        long minimoAjeno;
+        synchronized (otro) {
+            for (Map.Entry<String, long[]> entrada : otro.contadores.entrySet()) {
+                ajenos.put(entrada.getKey(), entrada.getValue().clone());
+            }
+            totalAjeno = otro.total;
+            minimoAjeno = otro.minimoSiLleno();
+        }
+        synchronized (this) {
+            long minimoPropio = minimoSiLleno();
+            // Un valor que falta en un lado pudo tener allí hasta su conteo mínimo
+            for (Map.Entry<String, long[]> entrada : contadores.entrySet()) {
+                if (!ajenos.containsKey(entrada.getKey())) {
+                    entrada.getValue()[0] += minimoAjeno;
+                    entrada.getValue()[1] += minimoAjeno;
+                }
+            }
+            for (Map.Entry<String, long[]> entrada : ajenos.entrySet()) {
+                long[] propio = contadores.get(entrada.getKey());
+                if (propio != null) {
+                    propio[0] += entrada.getValue()[0];
+                    propio[1] += entrada.getValue()[1];
+                } else {
+                    contadores.put(entrada.getKey(), new long[]{
+                            entrada.getValue()[0] + minimoPropio, entrada.getValue()[1] + minimoPropio});
+                }
+            }
+            total += totalAjeno;
+            recortar();
+        }
+    }
+
+    public synchronized SpaceSaving copiar() {
+        SpaceSaving copia = new SpaceSaving(capacidad);
+        for (Map.Entry<String, long[]> entrada : contadores.entrySet()) {
+            copia.contadores.put(entrada.getKey(), entrada.getValue().clone());
+        }
+        copia.total = total;
+        return copia;
+    }
+
+    private long minimoSiLleno() {
+        if (contadores.size() < capacidad) {
+            return 0;
+        }
+        long minimo = Long.MAX_VALUE;
+        for (long[] contador : contadores.values()) {
+            minimo = Math.min(minimo, contador[0]);
+        }
+        return minimo;
+    }
+
+    private void recortar() {
+        if (contadores.size() <= capacidad) {
+            return;
+        }
+        List<Map.Entry<String, long[]>> entradas = new ArrayList<>(contadores.entrySet());
+        entradas.sort(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0]).reversed());
+        for (int i = capacidad; i < entradas.size(); i++) {
+            contadores.remove(entradas.get(i).getKey());
+        }
+    }
+
+    public synchronized void escribir(DataOutput out) throws IOException {
+        out.writeInt(capacidad);
+        out.writeLong(total);
+        out.writeInt(contadores.size());
+        for (Map.Entry<String, long[]> entrada : contadores.entrySet()) {
+            out.writeUTF(entrada.getKey());
+            out.writeLong(entrada.getValue()[0]);
+            out.writeLong(entrada.getValue()[1]);
+        }
+    }
+
+    public static SpaceSaving leer(DataInput in) throws IOException {
+        SpaceSaving resumen = new SpaceSaving(in.readInt());
+        resumen.total = in.readLong();
+        int cantidad = in.readInt();
+        for (int i = 0; i < cantidad; i++) {
+            resumen.contadores.put(in.readUTF(), new long[]{in.readLong(), in.readLong()});
+        }
+        return resumen;
+    }
+}
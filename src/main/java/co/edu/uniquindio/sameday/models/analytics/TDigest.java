@@ -0,0 +1,236 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Resumen de una distribución para estimar percentiles (t-digest, variante por fusión).
+ *
+ * Los valores se agrupan en centroides (media y peso); la función de escala k1 deja
+ * centroides pequeños en las colas y grandes en el centro, así que p1 y p99 salen casi
+ * exactos con un centenar de centroides, sin importar cuántos valores se hayan visto.
+ * Los valores nuevos se acumulan en un búfer y se fusionan por lotes. Dos digests se
+ * combinan fusionando sus centroides.
+ */
+public class TDigest {
+
+    public static final double COMPRESION_POR_DEFECTO = 200;
+
+    private final double compresion;
+    // Tamaño máximo del búfer; los arreglos empiezan pequeños y crecen hasta aquí
+    private final int limiteBuffer;
+
+    // Centroides fusionados, ordenados por media
+    private double[] medias;
+    private double[] pesos;
+    private int centroides;
+
+    // Valores (o centroides de otro digest) pendientes de fusionar
+    private double[] bufferMedias;
+    private double[] bufferPesos;
+    private int pendientes;
+
+    private double total;
+    private double minimo = Double.POSITIVE_INFINITY;
+    private double maximo = Double.NEGATIVE_INFINITY;
+
+    public TDigest() {
+        this(COMPRESION_POR_DEFECTO);
+    }
+
+    public TDigest(double compresion) {
+        this.compresion = compresion;
+        this.limiteBuffer = (int) Math.ceil(compresion) * 5;
+        medias = new double[16];
+        pesos = new double[16];
+        bufferMedias = new double[16];
+        bufferPesos = new double[16];
+    }
+
+    public synchronized void agregar(double valor) {
+        agregar(valor, 1);
+    }
+
+    private void agregar(double media, double peso) {
+        if (Double.isNaN(media)) {
+            return;
+        }
+        if (pendientes == bufferMedias.length) {
+            if (pendientes < limiteBuffer) {
+                bufferMedias = Arrays.copyOf(bufferMedias, Math.min(pendientes * 2, limiteBuffer));
+                bufferPesos = Arrays.copyOf(bufferPesos, bufferMedias.length);
+            } else {
+                fusionar();
+            }
+        }
+        bufferMedias[pendientes] = media;
+        bufferPesos[pendientes] = peso;
+        pendientes++;
+        total += peso;
+        minimo = Math.min(minimo, media);
+        maximo = Math.max(maximo, media);
+    }
+
+    public synchronized double getTotal() {
+        return total;
+    }
+
+    /**
+     * @param q Cuantil entre 0 y 1 (0.5 = mediana, 0.95 = percentil 95)
+     * @return Valor estimado, o NaN si no hay datos
+     */
+    public synchronized double cuantil(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("El cuantil debe estar entre 0 y 1");
+        }
+        fusionar();
+        if (centroides == 0) {
+            return Double.NaN;
+        }
+        if (centroides == 1) {
+            return medias[0];
+        }
+        double objetivo = q * total;
+        // Peso acumulado hasta el centro del centroide actual
+        double acumulado = pesos[0] / 2;
+        if (objetivo < acumulado) {
+            return interpolar(minimo, medias[0], objetivo / acumulado);
+        }
+        for (int i = 0; i < centroides - 1; i++) {
+            double paso = (pesos[i] + pesos[i + 1]) / 2;
+            if (objetivo < acumulado + paso) {
+                return interpolar(medias[i], medias[i + 1], (objetivo - acumulado) / paso);
+            }
+            acumulado += paso;
+        }
+        double cola = pesos[centroides - 1] / 2;
+        return interpolar(medias[centroides - 1], maximo, cola > 0 ? (objetivo - acumulado) / cola : 1);
+    }
+
+    /**
+     * Suma a este digest los valores resumidos por otro
+     */
+    public void combinar(TDigest otro) {
+        double[][] ajenos;
+        double minimoAjeno;
+        double maximoAjeno;
+        synchronized (otro) {
+            otro.fusionar();
+            ajenos = new double[][]{
+                    Arrays.copyOf(otro.medias, otro.centroides),
+                    Arrays.copyOf(otro.pesos, otro.centroides)};
+            minimoAjeno = otro.minimo;
+            maximoAjeno = otro.maximo;
+        }
+        synchronized (this) {
+            for (int i = 0; i < ajenos[0].length; i++) {
+                agregar(ajenos[0][i], ajenos[1][i]);
+            }
+            minimo = Math.min(minimo, minimoAjeno);
+            maximo = Math.max(maximo, maximoAjeno);
+            fusionar();
+        }
+    }
+
+    public synchronized TDigest copiar() {
+        TDigest copia = new TDigest(compresion);
+        copia.combinar(this);
+        return copia;
+    }
+
+    /**
+     * Fusiona el búfer con los centroides: ordena todo por media y recorre de menor
+     * a mayor juntando vecinos mientras el centroide no supere su límite de tamaño
+     */
+    private void fusionar() {
+        if (pendientes == 0) {
+            return;
+        }
+        int n = centroides + pendientes;
+        double[] todasMedias = new double[n];
+        double[] todosPesos = new double[n];
+        System.arraycopy(medias, 0, todasMedias, 0, centroides);
+        System.arraycopy(pesos, 0, todosPesos, 0, centroides);
+        System.arraycopy(bufferMedias, 0, todasMedias, centroides, pendientes);
+        System.arraycopy(bufferPesos, 0, todosPesos, centroides, pendientes);
+        pendientes = 0;
+
+        Integer[] orden = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, (a, b) -> Double.compare(todasMedias[a], todasMedias[b]));
+
+        int resultado = 0;
+        double mediaActual = todasMedias[orden[0]];
+        double pesoActual = todosPesos[orden[0]];
+        double pesoPrevio = 0;
+        double limite = limiteCuantil(0);
+        for (int j = 1; j < n; j++) {
+            int i = orden[j];
+            double propuesto = pesoActual + todosPesos[i];
+            if ((pesoPrevio + propuesto) / total <= limite) {
+                mediaActual += (todasMedias[i] - mediaActual) * todosPesos[i] / propuesto;
+                pesoActual = propuesto;
+            } else {
+                resultado = guardar(resultado, mediaActual, pesoActual);
+                pesoPrevio += pesoActual;
+                limite = limiteCuantil(pesoPrevio / total);
+                mediaActual = todasMedias[i];
+                pesoActual = todosPesos[i];
+            }
+        }
+        centroides = guardar(resultado, mediaActual, pesoActual);
+    }
+
+    private int guardar(int posicion, double media, double peso) {
+        if (posicion == medias.length) {
+            medias = Arrays.copyOf(medias, posicion * 2);
+            pesos = Arrays.copyOf(pesos, posicion * 2);
+        }
+        medias[posicion] = media;
+        pesos[posicion] = peso;
+        return posicion + 1;
+    }
+
+    /**
+     * Cuantil hasta el que puede crecer un centroide que empieza en q (escala k1)
+     */
+    private double limiteCuantil(double q) {
+        double k = compresion / (2 * Math.PI) * Math.asin(2 * Math.min(1, q) - 1);
+        double siguiente = Math.min(k + 1, compresion / 4);
+        return (Math.sin(siguiente * 2 * Math.PI / compresion) + 1) / 2;
+    }
+
+    private static double interpolar(double desde, double hasta, double fraccion) {
+        return desde + (hasta - desde) * Math.max(0, Math.min(1, fraccion));
+    }
+
+    public synchronized void escribir(DataOutput out) throws IOException {
+        fusionar();
+        out.writeDouble(compresion);
+        out.writeDouble(minimo);
+        out.writeDouble(maximo);
+        out.writeInt(centroides);
+        for (int i = 0; i < centroides; i++) {
+            out.writeDouble(medias[i]);
+            out.writeDouble(pesos[i]);
+        }
+    }
+
+    public static TDigest leer(DataInput in) throws IOException {
+        TDigest digest = new TDigest(in.readDouble());
+        double minimo = in.readDouble();
+        double maximo = in.readDouble();
+        int cantidad = in.readInt();
+        for (int i = 0; i < cantidad; i++) {
+            digest.agregar(in.readDouble(), in.readDouble());
+        }
+        digest.minimo = Math.min(digest.minimo, minimo);
+        digest.maximo = Math.max(digest.maximo, maximo);
+        digest.fusionar();
+        return digest;
+    }
+}
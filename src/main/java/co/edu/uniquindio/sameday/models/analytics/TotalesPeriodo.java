@@ -0,0 +1,41 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+/**
+ * Totales de envíos de un periodo, leídos de RollupsEnvios
+ */
+public class TotalesPeriodo {
+
+    private final long enviosCreados;
+    private final long enviosPagados;
+    private final long centavosCreados;
+    private final long centavosPagados;
+
+    TotalesPeriodo(long enviosCreados, long enviosPagados, long centavosCreados, long centavosPagados) {
+        this.enviosCreados = enviosCreados;
+        this.enviosPagados = enviosPagados;
+        this.centavosCreados = centavosCreados;
+        this.centavosPagados = centavosPagados;
+    }
+
+    public long getEnviosCreados() {
+        return enviosCreados;
+    }
+
+    public long getEnviosPagados() {
+        return enviosPagados;
+    }
+
+    /**
+     * @return Valor cotizado de todos los envíos creados en el periodo
+     */
+    public double getValorCreado() {
+        return centavosCreados / 100.0;
+    }
+
+    /**
+     * @return Ingresos de los envíos del periodo que ya están pagados
+     */
+    public double getIngresosPagados() {
+        return centavosPagados / 100.0;
+    }
+}
@@ -2,7 +2,6 @@ package co.edu.uniquindio.sameday.models.behavioral.chainofresponsibility;
 
 import co.edu.uniquindio.sameday.models.Dealer;
 import co.edu.uniquindio.sameday.models.Envio;
-import co.edu.uniquindio.sameday.models.EstadoEntrega;
 import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
 
 /**
@@ -23,12 +22,7 @@ public class ValidadorCargaMaxima extends ValidadorRepartidor {
         SameDay sameDay = SameDay.getInstance();
 
         // Contar envíos activos (no entregados) del repartidor
-        long enviosActivos = sameDay.getListEnvios().stream()
-                .filter(e -> e.getRepartidorAsignado() != null)
-                .filter(e -> e.getRepartidorAsignado().getId().equals(repartidor.getId()))
-                .filter(e -> e.getEstadoEntrega() != null &&
-                        e.getEstadoEntrega() != EstadoEntrega.ENTREGADO)
-                .count();
+        int enviosActivos = sameDay.contarEnviosActivos(repartidor);
 
         System.out.println("   Envíos activos: " + enviosActivos + "/" + CARGA_MAXIMA);
 
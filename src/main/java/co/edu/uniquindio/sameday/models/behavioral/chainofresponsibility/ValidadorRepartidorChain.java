@@ -14,6 +14,7 @@ import co.edu.uniquindio.sameday.models.Envio;
  * 1. ValidadorDisponibilidadManual - Verifica que no esté marcado como no disponible
  * 2. ValidadorCargaMaxima - Verifica que no tenga demasiados envíos activos
  * 3. ValidadorZonaCobertura - Verifica que cubra la zona del destino
+ *    (o ValidadorZonaCercana, si se construye con un radio en minutos)
  */
 public class ValidadorRepartidorChain {
 
@@ -23,17 +24,24 @@ public class ValidadorRepartidorChain {
      * Constructor que inicializa la cadena de validadores
      */
     public ValidadorRepartidorChain() {
-        construirCadena();
+        construirCadena(new ValidadorZonaCobertura());
+    }
+
+    /**
+     * Cadena con la zona flexible: acepta repartidores de otras ciudades a menos del radio
+     * @param radioMinutos Tiempo de viaje máximo hasta la ciudad de destino
+     */
+    public ValidadorRepartidorChain(int radioMinutos) {
+        construirCadena(new ValidadorZonaCercana(radioMinutos));
     }
 
     /**
      * Construye la cadena de responsabilidad enlazando los validadores
      */
-    private void construirCadena() {
+    private void construirCadena(ValidadorRepartidor validadorZona) {
         // Crear los validadores
         primerValidador = new ValidadorDisponibilidadManual();
         ValidadorRepartidor validadorCarga = new ValidadorCargaMaxima();
-        ValidadorRepartidor validadorZona = new ValidadorZonaCobertura();
 
         // Enlazar la cadena
         primerValidador
@@ -43,7 +51,7 @@ public class ValidadorRepartidorChain {
         System.out.println("✅ Cadena de validación de repartidor construida:");
         System.out.println("   1. ValidadorDisponibilidadManual");
         System.out.println("   2. ValidadorCargaMaxima");
-        System.out.println("   3. ValidadorZonaCobertura");
+        System.out.println("   3. " + validadorZona.getClass().getSimpleName());
     }
 
     /**
@@ -0,0 +1,61 @@
+package co.edu.uniquindio.sameday.models.behavioral.chainofresponsibility;
+
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.rutas.TiemposViaje;
+
+/**
+ * PATRÓN COMPORTAMENTAL: CHAIN OF RESPONSIBILITY
+ *
+ * Validador concreto de zona, más flexible que ValidadorZonaCobertura: el repartidor
+ * puede estar en otra ciudad si el tiempo de viaje hasta el destino no supera el radio.
+ */
+public class ValidadorZonaCercana extends ValidadorRepartidor {
+
+    private final int radioMinutos;
+
+    public ValidadorZonaCercana() {
+        this(TiemposViaje.radioConfigurado());
+    }
+
+    public ValidadorZonaCercana(int radioMinutos) {
+        this.radioMinutos = radioMinutos;
+    }
+
+    @Override
+    public ResultadoValidacion validar(Dealer repartidor, Envio envio) {
+        System.out.println("🔍 Validando cercanía a la zona para: " + repartidor.getNombre());
+
+        if (envio.getDestino() == null || envio.getDestino().getCity() == null) {
+            System.out.println("❌ Falló: Envío sin destino definido");
+            return ResultadoValidacion.fallo(
+                    "El envío no tiene una dirección de destino definida",
+                    "Validador de Zona Cercana"
+            );
+        }
+
+        if (repartidor.getCity() == null) {
+            System.out.println("❌ Falló: Repartidor sin ciudad asignada");
+            return ResultadoValidacion.fallo(
+                    "El repartidor " + repartidor.getNombre() + " no tiene una ciudad asignada",
+                    "Validador de Zona Cercana"
+            );
+        }
+
+        int minutos = TiemposViaje.minutos(repartidor.getCity(), envio.getDestino().getCity());
+        System.out.println("   Ciudad repartidor: " + repartidor.getCity());
+        System.out.println("   Ciudad destino: " + envio.getDestino().getCity());
+
+        if (minutos > radioMinutos) {
+            System.out.println("❌ Falló: Destino fuera del radio");
+            return ResultadoValidacion.fallo(
+                    "El repartidor " + repartidor.getNombre() + " está en " + repartidor.getCity()
+                            + ", a más de " + radioMinutos + " minutos de " + envio.getDestino().getCity(),
+                    "Validador de Zona Cercana"
+            );
+        }
+
+        System.out.println("✅ Pasó: Destino a " + minutos + " minutos");
+        return pasarAlSiguiente(repartidor, envio);
+    }
+}
@@ -0,0 +1,23 @@
+package co.edu.uniquindio.sameday.models.behavioral.observer;
+
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.EstadoEntrega;
+
+/**
+ * PATRÓN COMPORTAMENTAL: OBSERVER
+ *
+ * Observador que recibe las transiciones de asignación y de estado de entrega
+ * de un envío registrado en SameDay. Permite mantener índices derivados
+ * sin tener que recorrer la lista completa de envíos.
+ */
+public interface EnvioObserver {
+
+    /**
+     * Se invoca después de cambiar el repartidor o el estado de entrega del envío
+     * @param envio El envío que cambió (ya con los valores nuevos)
+     * @param repartidorAnterior Repartidor asignado antes del cambio
+     * @param estadoAnterior Estado de entrega antes del cambio
+     */
+    void onEnvioActualizado(Envio envio, Dealer repartidorAnterior, EstadoEntrega estadoAnterior);
+}
@@ -0,0 +1,137 @@
+package co.edu.uniquindio.sameday.models.behavioral.observer;
+
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.EstadoEntrega;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PATRÓN COMPORTAMENTAL: OBSERVER
+ *
+ * Observador concreto que mantiene, por cada repartidor, el conjunto de envíos
+ * asignados y un contador de envíos activos (asignados y no entregados).
+ * Así la disponibilidad y la carga de un repartidor se consultan en tiempo constante.
+ * Es seguro entre hilos: los contadores se actualizan con operaciones atómicas de
+ * ConcurrentHashMap y cada conjunto de envíos está sincronizado.
+ *
+ * El índice recuerda con qué repartidor y estado registró cada envío y, ante cada
+ * aviso, lo concilia con el estado actual del envío. No usa los valores anteriores que
+ * trae el aviso: los setters de Envio cambian el campo antes de avisar, así que con dos
+ * cambios simultáneos esos valores pueden estar desactualizados.
+ */
+public class IndiceEnviosPorRepartidor implements EnvioObserver {
+
+    private final ConcurrentHashMap<String, Set<Envio>> enviosPorRepartidor = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> cargaActivaPorRepartidor = new ConcurrentHashMap<>();
+    // Lo último que se registró de cada envío (Envio compara por identidad)
+    private final ConcurrentHashMap<Envio, Registro> registros = new ConcurrentHashMap<>();
+
+    @Override
+    public void onEnvioActualizado(Envio envio, Dealer repartidorAnterior, EstadoEntrega estadoAnterior) {
+        conciliar(envio);
+    }
+
+    /**
+     * Lleva el índice al repartidor y estado actuales del envío
+     * @return El repartidor con el que estaba registrado el envío (null si no tenía)
+     */
+    public Dealer conciliar(Envio envio) {
+        Dealer[] anterior = new Dealer[1];
+        registros.compute(envio, (clave, registrado) -> {
+            Registro actual = new Registro(envio.getRepartidorAsignado(), esActivo(envio.getEstadoEntrega()));
+            if (registrado != null) {
+                anterior[0] = registrado.repartidor;
+                if (registrado.repartidor == actual.repartidor && registrado.activo == actual.activo) {
+                    return registrado;
+                }
+                retirar(envio, registrado);
+            }
+            registrar(envio, actual);
+            return actual.repartidor != null ? actual : null;
+        });
+        return anterior[0];
+    }
+
+    /**
+     * Agrega al índice un envío que entra al sistema
+     */
+    public void agregar(Envio envio) {
+        conciliar(envio);
+    }
+
+    /**
+     * Retira del índice un envío que sale del sistema
+     */
+    public void eliminar(Envio envio) {
+        registros.computeIfPresent(envio, (clave, registrado) -> {
+            retirar(envio, registrado);
+            return null;
+        });
+    }
+
+    /**
+     * @return Copia de los envíos asignados al repartidor, en orden de asignación
+     */
+    public List<Envio> getEnvios(Dealer repartidor) {
+        Set<Envio> envios = enviosPorRepartidor.get(repartidor.getId());
+        if (envios == null) {
+            return new ArrayList<>();
+        }
+        synchronized (envios) {
+            return new ArrayList<>(envios);
+        }
+    }
+
+    /**
+     * @return Número de envíos asignados al repartidor que aún no han sido entregados
+     */
+    public int getCargaActiva(Dealer repartidor) {
+        return cargaActivaPorRepartidor.getOrDefault(repartidor.getId(), 0);
+    }
+
+    private void registrar(Envio envio, Registro registro) {
+        if (registro.repartidor == null) {
+            return;
+        }
+        enviosPorRepartidor.computeIfAbsent(registro.repartidor.getId(),
+                id -> Collections.synchronizedSet(new LinkedHashSet<>())).add(envio);
+        if (registro.activo) {
+            cargaActivaPorRepartidor.merge(registro.repartidor.getId(), 1, Integer::sum);
+        }
+    }
+
+    private void retirar(Envio envio, Registro registro) {
+        if (registro.repartidor == null) {
+            return;
+        }
+        // Los conjuntos vacíos se conservan: quitarlos competiría con un registro simultáneo
+        Set<Envio> envios = enviosPorRepartidor.get(registro.repartidor.getId());
+        if (envios == null || !envios.remove(envio)) {
+            return;
+        }
+        if (registro.activo) {
+            cargaActivaPorRepartidor.computeIfPresent(registro.repartidor.getId(),
+                    (id, carga) -> carga > 1 ? carga - 1 : null);
+        }
+    }
+
+    private boolean esActivo(EstadoEntrega estado) {
+        return estado != null && estado != EstadoEntrega.ENTREGADO;
+    }
+
+    private static final class Registro {
+        private final Dealer repartidor;
+        private final boolean activo;
+
+        Registro(Dealer repartidor, boolean activo) {
+            this.repartidor = repartidor;
+            this.activo = activo;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package co.edu.uniquindio.sameday.models.behavioral.strategy;
+
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.ServicioAdicional;
+import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Asignación de un lote completo de envíos, óptima por ciudad.
+ *
+ * Cada repartidor disponible de la ciudad de destino ofrece cupos hasta la capacidad
+ * (el cupo k es su k-ésimo envío activo). Un envío en el cupo k cuesta
+ * peso × (k - capacidad), siempre negativo: asignar conviene, a un cupo bajo más, y un
+ * envío con PRIORIDAD pesa más que uno normal. El flujo de costo mínimo de cada ciudad
+ * decide cuántos envíos de cada clase van a cada nivel de carga; con eso los
+ * prioritarios quedan con los repartidores menos cargados, la carga se reparte pareja
+ * y, si faltan cupos, quedan sin asignar los normales más recientes.
+ *
+ * Los envíos iguales se agrupan antes de armar la red (dos clases por nivel de carga),
+ * así que el costo no depende de cuántos envíos haya: el lote se resuelve en una sola
+ * pasada de ordenamiento.
+ */
+public class AsignacionOptimaPorCiudad implements EstrategiaAsignacion {
+
+    /**
+     * Envíos activos que puede tener un repartidor (-Dsameday.asignacion.capacidad=3).
+     * Con 1, igual que Dealer.isDisponible, solo se asigna a quien no tiene envíos activos.
+     */
+    public static final String PROPIEDAD_CAPACIDAD = "sameday.asignacion.capacidad";
+
+    private static final long PESO_PRIORIDAD = 3;
+    private static final long PESO_NORMAL = 1;
+
+    private final int capacidad;
+    private final ToIntFunction<Dealer> cargaActiva;
+
+    public AsignacionOptimaPorCiudad() {
+        this(Integer.getInteger(PROPIEDAD_CAPACIDAD, 1), SameDay.getInstance()::contarEnviosActivos);
+    }
+
+    /**
+     * @param cargaActiva Envíos activos de cada repartidor al empezar
+     */
+    public AsignacionOptimaPorCiudad(int capacidad, ToIntFunction<Dealer> cargaActiva) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad por repartidor debe ser mayor a 0");
+        }
+        this.capacidad = capacidad;
+        this.cargaActiva = cargaActiva;
+    }
+
+    @Override
+    public Dealer seleccionarRepartidor(Envio envio, List<Dealer> repartidoresDisponible) {
+        return asignarLote(Collections.singletonList(envio), repartidoresDisponible).get(envio);
+    }
+
+    @Override
+    public Map<Envio, Dealer> asignarLote(List<Envio> envios, List<Dealer> repartidores) {
+        long inicio = System.currentTimeMillis();
+        Map<City, List<Envio>> enviosPorCiudad = new EnumMap<>(City.class);
+        for (Envio envio : envios) {
+            if (envio.getDestino() != null && envio.getDestino().getCity() != null) {
+                enviosPorCiudad.computeIfAbsent(envio.getDestino().getCity(), c -> new ArrayList<>()).add(envio);
+            }
+        }
+        Map<City, List<Dealer>> repartidoresPorCiudad = new EnumMap<>(City.class);
+        Map<Dealer, Integer> cargas = new HashMap<>();
+        for (Dealer repartidor : repartidores) {
+            if (repartidor.getCity() == null || !repartidor.isDisponibleManual()) {
+                continue;
+            }
+            int carga = cargaActiva.applyAsInt(repartidor);
+            if (carga < capacidad && cargas.putIfAbsent(repartidor, carga) == null) {
+                repartidoresPorCiudad.computeIfAbsent(repartidor.getCity(), c -> new ArrayList<>()).add(repartidor);
+            }
+        }
+
+        Map<Envio, Dealer> asignaciones = new LinkedHashMap<>();
+        for (Map.Entry<City, List<Envio>> ciudad : enviosPorCiudad.entrySet()) {
+            List<Dealer> disponibles = repartidoresPorCiudad.get(ciudad.getKey());
+            if (disponibles != null) {
+                asignarCiudad(ciudad.getValue(), disponibles, cargas, asignaciones);
+            }
+        }
+        if (envios.size() > 1) {
+            System.out.println("🚚 Asignación óptima por ciudad: " + asignaciones.size() + " de " + envios.size()
+                    + " envíos (" + (System.currentTimeMillis() - inicio) + " ms)");
+        }
+        return asignaciones;
+    }
+
+    private void asignarCiudad(List<Envio> envios, List<Dealer> repartidores, Map<Dealer, Integer> cargas,
+                               Map<Envio, Dealer> asignaciones) {
+        // Clase 0: con PRIORIDAD, clase 1: normales; dentro de cada una, el más antiguo primero
+        List<List<Envio>> clases = List.of(new ArrayList<>(), new ArrayList<>());
+        for (Envio envio : envios) {
+            clases.get(envio.tieneServicio(ServicioAdicional.PRIORIDAD) ? 0 : 1).add(envio);
+        }
+        long[] pesos = {PESO_PRIORIDAD, PESO_NORMAL};
+        for (List<Envio> clase : clases) {
+            clase.sort(Comparator.comparingLong(Envio::getFechaCreacionMillis));
+        }
+
+        // Nivel p: repartidores cuya carga es p o menos ofrecen su cupo p
+        int nivelMinimo = capacidad;
+        for (Dealer repartidor : repartidores) {
+            nivelMinimo = Math.min(nivelMinimo, cargas.get(repartidor));
+        }
+        int niveles = capacidad - nivelMinimo;
+        int[] cuposPorNivel = new int[niveles];
+        for (Dealer repartidor : repartidores) {
+            for (int p = cargas.get(repartidor); p < capacidad; p++) {
+                cuposPorNivel[p - nivelMinimo]++;
+            }
+        }
+
+        // Red: origen → clase → nivel → destino
+        int origen = 0;
+        int destino = 3 + niveles;
+        FlujoCostoMinimo red = new FlujoCostoMinimo(destino + 1);
+        int[][] arcos = new int[2][niveles];
+        for (int c = 0; c < 2; c++) {
+            red.agregarArco(origen, 1 + c, clases.get(c).size(), 0);
+            for (int n = 0; n < niveles; n++) {
+                long nivel = nivelMinimo + n;
+                arcos[c][n] = red.agregarArco(1 + c, 3 + n, Long.MAX_VALUE / 4, pesos[c] * (nivel - capacidad));
+            }
+        }
+        for (int n = 0; n < niveles; n++) {
+            red.agregarArco(3 + n, destino, cuposPorNivel[n], 0);
+        }
+        red.resolver(origen, destino);
+
+        // Los cupos bajos se llenan primero (son más baratos para cualquier clase), así que
+        // en cada nivel se toman los primeros repartidores que lo ofrecen y cada uno
+        // recibe cupos seguidos desde su carga actual
+        int[] siguientePorClase = new int[2];
+        for (int n = 0; n < niveles; n++) {
+            int nivel = nivelMinimo + n;
+            List<Dealer> ofrecen = new ArrayList<>();
+            for (Dealer repartidor : repartidores) {
+                if (cargas.get(repartidor) <= nivel) {
+                    ofrecen.add(repartidor);
+                }
+            }
+            int usados = 0;
+            for (int c = 0; c < 2; c++) {
+                long cantidad = red.flujo(arcos[c][n]);
+                for (long k = 0; k < cantidad; k++) {
+                    asignaciones.put(clases.get(c).get(siguientePorClase[c]++), ofrecen.get(usados++));
+                }
+            }
+        }
+    }
+}
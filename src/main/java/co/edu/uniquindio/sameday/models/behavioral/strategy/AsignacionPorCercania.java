@@ -0,0 +1,107 @@
+package co.edu.uniquindio.sameday.models.behavioral.strategy;
+
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
+import co.edu.uniquindio.sameday.models.rutas.TiemposViaje;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Asigna al repartidor disponible más cercano al destino, aunque esté en otra ciudad.
+ *
+ * Recorre las ciudades de la más cercana a la más lejana (TiemposViaje) sin pasar del
+ * radio, y en cada una toma al primero del montículo de carga de SameDay. Así un envío a
+ * PIJAO no se queda sin repartidor si hay uno libre en CORDOBA. Con la ciudad de destino
+ * siempre primero, cuando hay repartidor ahí el resultado es el de AsignacionPorMenorCarga.
+ */
+public class AsignacionPorCercania implements EstrategiaAsignacion {
+
+    private final IndiceCargaRepartidores indice;
+    private final int radioMinutos;
+    private final CandidatosRepartidor candidatos = new CandidatosRepartidor();
+
+    public AsignacionPorCercania() {
+        this(SameDay.getInstance().getIndiceCargaRepartidores(), TiemposViaje.radioConfigurado());
+    }
+
+    /**
+     * @param radioMinutos Tiempo de viaje máximo entre la ciudad del repartidor y el destino
+     */
+    public AsignacionPorCercania(IndiceCargaRepartidores indice, int radioMinutos) {
+        if (radioMinutos < 0) {
+            throw new IllegalArgumentException("El radio no puede ser negativo");
+        }
+        this.indice = indice;
+        this.radioMinutos = radioMinutos;
+    }
+
+    @Override
+    public Dealer seleccionarRepartidor(Envio envio, List<Dealer> repartidoresDisponible) {
+        if (envio.getDestino() == null || envio.getDestino().getCity() == null) {
+            return null;
+        }
+        City destino = envio.getDestino().getCity();
+        for (City ciudad : TiemposViaje.porCercania(destino)) {
+            if (!TiemposViaje.dentroDelRadio(ciudad, destino, radioMinutos)) {
+                break;
+            }
+            Dealer repartidor = indice.menosCargado(ciudad, 0,
+                    dealer -> candidatos.contiene(repartidoresDisponible, dealer));
+            if (repartidor != null) {
+                return repartidor;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean soloCiudadDestino() {
+        return false;
+    }
+
+    /**
+     * Como AsignacionPorMenorCarga: el orden de cada ciudad se toma una vez y se consume,
+     * y un repartidor que recibe un envío no se vuelve a ofrecer en el lote
+     */
+    @Override
+    public Map<Envio, Dealer> asignarLote(List<Envio> envios, List<Dealer> repartidores) {
+        Set<Dealer> candidatos = Collections.newSetFromMap(new IdentityHashMap<>());
+        candidatos.addAll(repartidores);
+        Map<City, Iterator<Dealer>> ordenPorCiudad = new EnumMap<>(City.class);
+        Map<Envio, Dealer> asignaciones = new LinkedHashMap<>();
+        for (Envio envio : envios) {
+            if (envio.getDestino() == null || envio.getDestino().getCity() == null) {
+                continue;
+            }
+            City destino = envio.getDestino().getCity();
+            Dealer elegido = null;
+            for (City ciudad : TiemposViaje.porCercania(destino)) {
+                if (elegido != null || !TiemposViaje.dentroDelRadio(ciudad, destino, radioMinutos)) {
+                    break;
+                }
+                Iterator<Dealer> orden = ordenPorCiudad.computeIfAbsent(ciudad,
+                        c -> indice.enOrden(c, 0).iterator());
+                while (orden.hasNext()) {
+                    Dealer repartidor = orden.next();
+                    if (candidatos.contains(repartidor)) {
+                        elegido = repartidor;
+                        break;
+                    }
+                }
+            }
+            if (elegido != null) {
+                asignaciones.put(envio, elegido);
+            }
+        }
+        return asignaciones;
+    }
+}
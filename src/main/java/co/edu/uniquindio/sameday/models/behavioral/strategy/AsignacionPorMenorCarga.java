@@ -1,35 +1,72 @@
 package co.edu.uniquindio.sameday.models.behavioral.strategy;
 
+import co.edu.uniquindio.sameday.models.City;
 import co.edu.uniquindio.sameday.models.Dealer;
 import co.edu.uniquindio.sameday.models.Envio;
-import co.edu.uniquindio.sameday.models.EstadoEntrega;
 import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
 
-import java.util.Comparator;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Asigna al repartidor disponible con menos envíos activos en la ciudad de destino.
+ * Consulta el montículo por ciudad de SameDay en lugar de recorrer los repartidores;
+ * a igual carga gana el que se registró primero.
+ */
 public class AsignacionPorMenorCarga implements EstrategiaAsignacion {
 
+    private final IndiceCargaRepartidores indice;
+    private final CandidatosRepartidor candidatos = new CandidatosRepartidor();
+
+    public AsignacionPorMenorCarga() {
+        this(SameDay.getInstance().getIndiceCargaRepartidores());
+    }
+
+    public AsignacionPorMenorCarga(IndiceCargaRepartidores indice) {
+        this.indice = indice;
+    }
+
     @Override
     public Dealer seleccionarRepartidor(Envio envio, List<Dealer> repartidoresDisponible) {
         if (envio.getDestino() == null) {
             return null;
         }
-        SameDay sameDay = SameDay.getInstance();
-
-        return repartidoresDisponible.stream()
-                .filter(dealer -> dealer.getCity() == envio.getDestino().getCity())
-                .filter(Dealer::isDisponible)
-                .min(Comparator.comparingLong(dealer -> contarEnviosActivos(dealer, sameDay)))
-                .orElse(null);
+        // Disponible = sin envíos activos, así que la carga máxima es 0.
+        // Solo se revisa en la lista a los repartidores que el montículo propone.
+        return indice.menosCargado(envio.getDestino().getCity(), 0,
+                dealer -> candidatos.contiene(repartidoresDisponible, dealer));
     }
 
-    private long contarEnviosActivos(Dealer dealer, SameDay sameDay) {
-        return sameDay.getListEnvios().stream()
-                .filter(e -> e.getRepartidorAsignado() != null)
-                .filter(e -> e.getRepartidorAsignado().getId().equals(dealer.getId()))
-                .filter(e -> e.getEstadoEntrega() != null &&
-                        e.getEstadoEntrega() != EstadoEntrega.ENTREGADO)
-                .count();
+    /**
+     * Toma el orden de cada ciudad una sola vez y lo consume: cada repartidor recibe un
+     * envío y deja de estar disponible para el resto del lote (igual que uno a uno).
+     */
+    @Override
+    public Map<Envio, Dealer> asignarLote(List<Envio> envios, List<Dealer> repartidores) {
+        Set<Dealer> candidatos = Collections.newSetFromMap(new IdentityHashMap<>());
+        candidatos.addAll(repartidores);
+        Map<City, Iterator<Dealer>> ordenPorCiudad = new EnumMap<>(City.class);
+        Map<Envio, Dealer> asignaciones = new LinkedHashMap<>();
+        for (Envio envio : envios) {
+            if (envio.getDestino() == null || envio.getDestino().getCity() == null) {
+                continue;
+            }
+            Iterator<Dealer> orden = ordenPorCiudad.computeIfAbsent(envio.getDestino().getCity(),
+                    ciudad -> indice.enOrden(ciudad, 0).iterator());
+            while (orden.hasNext()) {
+                Dealer repartidor = orden.next();
+                if (candidatos.contains(repartidor)) {
+                    asignaciones.put(envio, repartidor);
+                    break;
+                }
+            }
+        }
+        return asignaciones;
     }
 }
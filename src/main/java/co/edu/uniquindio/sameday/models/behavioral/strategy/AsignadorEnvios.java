@@ -4,6 +4,7 @@ import co.edu.uniquindio.sameday.models.Dealer;
 import co.edu.uniquindio.sameday.models.Envio;
 
 import java.util.List;
+import java.util.Map;
 
 public class AsignadorEnvios {
     private EstrategiaAsignacion estrategia;
@@ -23,4 +24,8 @@ public class AsignadorEnvios {
     public Dealer asignar(Envio envio, List<Dealer>repartidorDisponible){
         return estrategia.seleccionarRepartidor(envio,repartidorDisponible);
     }
+
+    public Map<Envio, Dealer> asignarLote(List<Envio> envios, List<Dealer> repartidores){
+        return estrategia.asignarLote(envios, repartidores);
+    }
 }
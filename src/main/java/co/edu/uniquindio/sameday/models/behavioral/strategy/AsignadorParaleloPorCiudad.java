@@ -0,0 +1,204 @@
+package co.edu.uniquindio.sameday.models.behavioral.strategy;
+
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
+import co.edu.uniquindio.sameday.models.query.EnvioQuery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Asignación automática en paralelo, una ciudad por tarea.
+ *
+ * Si la estrategia solo asigna repartidores de la ciudad de destino (como exige
+ * ValidadorZonaCobertura), las ciudades no comparten nada: los envíos pendientes y los
+ * repartidores se reparten por ciudad, cada ciudad se asigna con su propia instancia de
+ * la estrategia en un ForkJoinPool y el resultado es el mismo que con un solo lote.
+ * Una estrategia que cruza ciudades (AsignacionPorCercania) se resuelve en un solo lote.
+ * Las asignaciones se aplican en SameDay de una sola vez (SameDay.asignarEnvios).
+ */
+public class AsignadorParaleloPorCiudad {
+
+    /**
+     * Hilos del pool de asignación (-Dsameday.asignacion.hilos=4); por defecto, uno por núcleo
+     */
+    public static final String PROPIEDAD_HILOS = "sameday.asignacion.hilos";
+
+    // Si otro escritor asignó alguno de los envíos entretanto, se recalcula el lote
+    private static final int INTENTOS = 3;
+    private static final AtomicInteger CONTADOR_HILOS = new AtomicInteger();
+
+    private final ForkJoinPool pool;
+
+    public AsignadorParaleloPorCiudad() {
+        this(Integer.getInteger(PROPIEDAD_HILOS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public AsignadorParaleloPorCiudad(int hilos) {
+        if (hilos <= 0) {
+            throw new IllegalArgumentException("El número de hilos debe ser mayor a 0");
+        }
+        this.pool = new ForkJoinPool(hilos, fondo -> {
+            ForkJoinWorkerThread hilo = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(fondo);
+            hilo.setName("sameday-asignacion-" + CONTADOR_HILOS.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        }, null, false);
+    }
+
+    /**
+     * Asigna los envíos pagados sin repartidor a los repartidores registrados y guarda
+     * el resultado en SameDay en un solo lote.
+     *
+     * @param estrategias Crea la estrategia de cada ciudad (por ejemplo AsignacionPorCiudad::new)
+     * @return Asignaciones guardadas y envíos pendientes que se consideraron en el último intento
+     */
+    public Resultado asignarPendientes(SameDay sameDay, Supplier<EstrategiaAsignacion> estrategias) {
+        int considerados = 0;
+        for (int intento = 1; intento <= INTENTOS; intento++) {
+            long inicio = System.currentTimeMillis();
+            List<Envio> pendientes = sameDay.consultarEnvios()
+                    .pagados(true)
+                    .conRepartidor(false)
+                    .ordenarPor(EnvioQuery.Orden.FECHA_ASC)
+                    .ejecutar();
+            considerados = pendientes.size();
+            Map<Envio, Dealer> asignaciones = asignar(pendientes, sameDay.getListDealers(), estrategias);
+            if (sameDay.asignarEnvios(asignaciones)) {
+                System.out.println("🚚 Asignación paralela por ciudad: " + asignaciones.size() + " de "
+                        + pendientes.size() + " envíos (" + (System.currentTimeMillis() - inicio) + " ms)");
+                return new Resultado(asignaciones, considerados, true);
+            }
+            System.out.println("⚠️ Otro usuario asignó envíos del lote; se recalcula (intento " + intento + ")");
+        }
+        return new Resultado(Collections.emptyMap(), considerados, false);
+    }
+
+    /**
+     * Resultado de asignarPendientes: los envíos considerados son los pendientes leídos en el
+     * último intento, que pueden ser menos que los mostrados si otro usuario asignó algunos
+     */
+    public static final class Resultado {
+        private final Map<Envio, Dealer> asignaciones;
+        private final int considerados;
+        private final boolean guardado;
+
+        Resultado(Map<Envio, Dealer> asignaciones, int considerados, boolean guardado) {
+            this.asignaciones = Collections.unmodifiableMap(asignaciones);
+            this.considerados = considerados;
+            this.guardado = guardado;
+        }
+
+        /**
+         * @return Envío → repartidor de los envíos asignados (vacío si no se pudo guardar el lote)
+         */
+        public Map<Envio, Dealer> getAsignaciones() {
+            return asignaciones;
+        }
+
+        public int getConsiderados() {
+            return considerados;
+        }
+
+        public int getSinAsignar() {
+            return considerados - asignaciones.size();
+        }
+
+        /**
+         * @return false si otro usuario cambió los envíos en todos los intentos y no se guardó nada
+         */
+        public boolean isGuardado() {
+            return guardado;
+        }
+    }
+
+    /**
+     * Calcula las asignaciones sin aplicarlas
+     *
+     * @return Envío → repartidor, en el orden de los envíos recibidos
+     */
+    public Map<Envio, Dealer> asignar(List<Envio> envios, List<Dealer> repartidores,
+                                      Supplier<EstrategiaAsignacion> estrategias) {
+        EstrategiaAsignacion estrategia = estrategias.get();
+        if (!estrategia.soloCiudadDestino()) {
+            return estrategia.asignarLote(envios, repartidores);
+        }
+        Map<City, Particion> particiones = new EnumMap<>(City.class);
+        for (Envio envio : envios) {
+            if (envio.getDestino() != null && envio.getDestino().getCity() != null) {
+                particiones.computeIfAbsent(envio.getDestino().getCity(), ciudad -> new Particion()).envios.add(envio);
+            }
+        }
+        for (Dealer repartidor : repartidores) {
+            Particion particion = particiones.get(repartidor.getCity());
+            if (particion != null) {
+                particion.repartidores.add(repartidor);
+            }
+        }
+
+        Map<Envio, Dealer> porEnvio = pool.invoke(new TareaCiudades(new ArrayList<>(particiones.values()), estrategias));
+        Map<Envio, Dealer> asignaciones = new LinkedHashMap<>();
+        for (Envio envio : envios) {
+            Dealer repartidor = porEnvio.get(envio);
+            if (repartidor != null) {
+                asignaciones.put(envio, repartidor);
+            }
+        }
+        return asignaciones;
+    }
+
+    private static final class Particion {
+        final List<Envio> envios = new ArrayList<>();
+        final List<Dealer> repartidores = new ArrayList<>();
+    }
+
+    /**
+     * Divide las ciudades en mitades hasta quedar con una; cada resultado es propio de la
+     * tarea y se combina al volver, sin estructuras compartidas entre hilos
+     */
+    private static final class TareaCiudades extends RecursiveTask<Map<Envio, Dealer>> {
+        private static final long serialVersionUID = 1L;
+
+        // La tarea solo vive dentro del pool; nunca se serializa
+        private final transient List<Particion> particiones;
+        private final transient Supplier<EstrategiaAsignacion> estrategias;
+
+        TareaCiudades(List<Particion> particiones, Supplier<EstrategiaAsignacion> estrategias) {
+            this.particiones = particiones;
+            this.estrategias = estrategias;
+        }
+
+        @Override
+        protected Map<Envio, Dealer> compute() {
+            if (particiones.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            if (particiones.size() == 1) {
+                Particion particion = particiones.get(0);
+                if (particion.repartidores.isEmpty()) {
+                    return Collections.emptyMap();
+                }
+                return estrategias.get().asignarLote(particion.envios, particion.repartidores);
+            }
+            int mitad = particiones.size() / 2;
+            TareaCiudades izquierda = new TareaCiudades(particiones.subList(0, mitad), estrategias);
+            TareaCiudades derecha = new TareaCiudades(particiones.subList(mitad, particiones.size()), estrategias);
+            izquierda.fork();
+            Map<Envio, Dealer> resultado = new HashMap<>(derecha.compute());
+            resultado.putAll(izquierda.join());
+            return resultado;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package co.edu.uniquindio.sameday.models.behavioral.strategy;
+
+import co.edu.uniquindio.sameday.models.Dealer;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pertenencia a la lista de repartidores disponibles que recibe seleccionarRepartidor.
+ *
+ * Las estrategias con montículo (AsignacionPorMenorCarga, AsignacionPorCercania) revisan
+ * cada repartidor que el montículo propone contra esa lista. Recorrerla en cada revisión
+ * haría la selección O(repartidores); aquí el conjunto por identidad se construye una vez
+ * por lista (O(n)) y se reutiliza mientras llegue la misma lista con el mismo tamaño, así
+ * que las selecciones siguientes cuestan O(1) por revisión. Una lista nueva, o la misma
+ * con otro tamaño (como la de libres en EstrategiaAsignacion.asignarLote), lo reconstruye.
+ */
+final class CandidatosRepartidor {
+
+    // Lista y conjunto van juntos y se cambian de una vez: seguro entre hilos
+    private volatile Entrada ultima;
+
+    boolean contiene(List<Dealer> repartidores, Dealer repartidor) {
+        Entrada entrada = ultima;
+        if (entrada == null || entrada.lista != repartidores || entrada.tamano != repartidores.size()) {
+            entrada = new Entrada(repartidores);
+            ultima = entrada;
+        }
+        return entrada.conjunto.contains(repartidor);
+    }
+
+    private static final class Entrada {
+        final List<Dealer> lista;
+        final int tamano;
+        final Set<Dealer> conjunto = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Entrada(List<Dealer> lista) {
+            this.lista = lista;
+            this.tamano = lista.size();
+            conjunto.addAll(lista);
+        }
+    }
+}
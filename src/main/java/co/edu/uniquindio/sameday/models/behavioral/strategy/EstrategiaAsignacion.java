@@ -3,8 +3,38 @@ package co.edu.uniquindio.sameday.models.behavioral.strategy;
 import co.edu.uniquindio.sameday.models.Dealer;
 import co.edu.uniquindio.sameday.models.Envio;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public interface EstrategiaAsignacion {
     Dealer seleccionarRepartidor(Envio envio, List<Dealer>repartidoresDisponible);
+
+    /**
+     * @return true si solo asigna repartidores de la ciudad de destino; entonces cada
+     * ciudad se puede asignar por separado (AsignadorParaleloPorCiudad)
+     */
+    default boolean soloCiudadDestino() {
+        return true;
+    }
+
+    /**
+     * Asigna un lote de envíos. Por defecto, uno a uno en el orden recibido: quien recibe
+     * un envío queda con un envío activo y deja de estar disponible para el resto del lote.
+     *
+     * @return Envío → repartidor, solo de los envíos que recibieron repartidor
+     */
+    default Map<Envio, Dealer> asignarLote(List<Envio> envios, List<Dealer> repartidores) {
+        Map<Envio, Dealer> asignaciones = new LinkedHashMap<>();
+        List<Dealer> libres = new ArrayList<>(repartidores);
+        for (Envio envio : envios) {
+            Dealer repartidor = seleccionarRepartidor(envio, libres);
+            if (repartidor != null) {
+                asignaciones.put(envio, repartidor);
+                libres.remove(repartidor);
+            }
+        }
+        return asignaciones;
+    }
 }
@@ -0,0 +1,111 @@
+package co.edu.uniquindio.sameday.models.behavioral.strategy;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Flujo de costo mínimo por caminos más cortos sucesivos (Bellman-Ford con cola, así
+ * que admite costos negativos). Aumenta mientras el camino más corto tenga costo
+ * negativo: el resultado es el flujo, de cualquier tamaño, con el menor costo total.
+ *
+ * Pensado para redes pequeñas (decenas de nodos); la asignación agrupa los envíos y
+ * los cupos antes de armar la red.
+ */
+class FlujoCostoMinimo {
+
+    private final int nodos;
+    private int[] desde = new int[16];
+    private int[] hacia = new int[16];
+    private long[] capacidad = new long[16];
+    private long[] costo = new long[16];
+    private int arcos;
+
+    FlujoCostoMinimo(int nodos) {
+        this.nodos = nodos;
+    }
+
+    /**
+     * @return Índice del arco, para leer su flujo después de resolver
+     */
+    int agregarArco(int origen, int destino, long capacidadArco, long costoUnitario) {
+        if (arcos + 2 > desde.length) {
+            int nuevoTamano = desde.length * 2;
+            desde = Arrays.copyOf(desde, nuevoTamano);
+            hacia = Arrays.copyOf(hacia, nuevoTamano);
+            capacidad = Arrays.copyOf(capacidad, nuevoTamano);
+            costo = Arrays.copyOf(costo, nuevoTamano);
+        }
+        int arco = arcos;
+        // Arco y su residual, uno junto al otro: el par de un arco es arco ^ 1
+        guardar(arco, origen, destino, capacidadArco, costoUnitario);
+        guardar(arco + 1, destino, origen, 0, -costoUnitario);
+        arcos += 2;
+        return arco;
+    }
+
+    private void guardar(int arco, int origen, int destino, long capacidadArco, long costoUnitario) {
+        desde[arco] = origen;
+        hacia[arco] = destino;
+        capacidad[arco] = capacidadArco;
+        costo[arco] = costoUnitario;
+    }
+
+    /**
+     * @return Unidades que pasan por el arco
+     */
+    long flujo(int arco) {
+        return capacidad[arco ^ 1];
+    }
+
+    /**
+     * @return Costo total del flujo encontrado
+     */
+    long resolver(int origen, int destino) {
+        long costoTotal = 0;
+        long[] distancia = new long[nodos];
+        int[] arcoPrevio = new int[nodos];
+        boolean[] enCola = new boolean[nodos];
+        Deque<Integer> cola = new ArrayDeque<>();
+        while (true) {
+            Arrays.fill(distancia, Long.MAX_VALUE);
+            Arrays.fill(arcoPrevio, -1);
+            distancia[origen] = 0;
+            cola.add(origen);
+            enCola[origen] = true;
+            while (!cola.isEmpty()) {
+                int nodo = cola.poll();
+                enCola[nodo] = false;
+                for (int arco = 0; arco < arcos; arco++) {
+                    if (desde[arco] != nodo || capacidad[arco] == 0) {
+                        continue;
+                    }
+                    long nueva = distancia[nodo] + costo[arco];
+                    int siguiente = hacia[arco];
+                    if (nueva < distancia[siguiente]) {
+                        distancia[siguiente] = nueva;
+                        arcoPrevio[siguiente] = arco;
+                        if (!enCola[siguiente]) {
+                            enCola[siguiente] = true;
+                            cola.add(siguiente);
+                        }
+                    }
+                }
+            }
+            if (distancia[destino] == Long.MAX_VALUE || distancia[destino] >= 0) {
+                return costoTotal;
+            }
+
+            long aumento = Long.MAX_VALUE;
+            for (int nodo = destino; nodo != origen; nodo = desde[arcoPrevio[nodo]]) {
+                aumento = Math.min(aumento, capacidad[arcoPrevio[nodo]]);
+            }
+            for (int nodo = destino; nodo != origen; nodo = desde[arcoPrevio[nodo]]) {
+                int arco = arcoPrevio[nodo];
+                capacidad[arco] -= aumento;
+                capacidad[arco ^ 1] += aumento;
+            }
+            costoTotal += aumento * distancia[destino];
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package co.edu.uniquindio.sameday.models.behavioral.strategy;
+
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Dealer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Montículo de repartidores por ciudad, ordenado por carga activa.
+ *
+ * SameDay lo actualiza cada vez que cambia la carga o los datos de un repartidor
+ * (asignación, entrega, disponibilidad manual, ciudad), así que el menos cargado de
+ * una ciudad se consulta sin recorrer los repartidores. El orden es estable: los
+ * no disponibles manualmente van al final y, a igual carga, gana el que se registró
+ * primero (el mismo que elegía el recorrido de la lista de repartidores).
+ */
+public class IndiceCargaRepartidores {
+
+    private static final class Nodo {
+        final Dealer repartidor;
+        final long orden;
+        City ciudad;
+        boolean disponibleManual;
+        int carga;
+        int posicion = -1;
+
+        Nodo(Dealer repartidor, long orden) {
+            this.repartidor = repartidor;
+            this.orden = orden;
+        }
+
+        boolean antesQue(Nodo otro) {
+            return comparar(this, otro) < 0;
+        }
+
+        static int comparar(Nodo a, Nodo b) {
+            if (a.disponibleManual != b.disponibleManual) {
+                return a.disponibleManual ? -1 : 1;
+            }
+            if (a.carga != b.carga) {
+                return Integer.compare(a.carga, b.carga);
+            }
+            return Long.compare(a.orden, b.orden);
+        }
+    }
+
+    /**
+     * Montículo binario con la posición de cada nodo guardada en el nodo
+     */
+    private static final class Monticulo {
+        Nodo[] nodos = new Nodo[16];
+        int tamano;
+
+        void insertar(Nodo nodo) {
+            if (tamano == nodos.length) {
+                nodos = Arrays.copyOf(nodos, tamano * 2);
+            }
+            colocar(nodo, tamano++);
+            subir(nodo.posicion);
+        }
+
+        void quitar(Nodo nodo) {
+            int posicion = nodo.posicion;
+            Nodo ultimo = nodos[--tamano];
+            nodos[tamano] = null;
+            nodo.posicion = -1;
+            if (ultimo != nodo) {
+                colocar(ultimo, posicion);
+                reubicar(ultimo);
+            }
+        }
+
+        void reubicar(Nodo nodo) {
+            bajar(subir(nodo.posicion));
+        }
+
+        private int subir(int i) {
+            Nodo nodo = nodos[i];
+            while (i > 0) {
+                int padre = (i - 1) >>> 1;
+                if (!nodo.antesQue(nodos[padre])) {
+                    break;
+                }
+                colocar(nodos[padre], i);
+                i = padre;
+            }
+            colocar(nodo, i);
+            return i;
+        }
+
+        private void bajar(int i) {
+            Nodo nodo = nodos[i];
+            while (true) {
+                int hijo = 2 * i + 1;
+                if (hijo >= tamano) {
+                    break;
+                }
+                if (hijo + 1 < tamano && nodos[hijo + 1].antesQue(nodos[hijo])) {
+                    hijo++;
+                }
+                if (!nodos[hijo].antesQue(nodo)) {
+                    break;
+                }
+                colocar(nodos[hijo], i);
+                i = hijo;
+            }
+            colocar(nodo, i);
+        }
+
+        private void colocar(Nodo nodo, int i) {
+            nodos[i] = nodo;
+            nodo.posicion = i;
+        }
+    }
+
+    private final ToIntFunction<Dealer> cargaActiva;
+    private final Map<City, Monticulo> porCiudad = new EnumMap<>(City.class);
+    // Por id: los envíos pueden traer otra instancia del mismo repartidor
+    private final Map<String, Nodo> nodos = new HashMap<>();
+    private long siguienteOrden;
+
+    /**
+     * @param cargaActiva Envíos activos de un repartidor según el índice de envíos
+     */
+    public IndiceCargaRepartidores(ToIntFunction<Dealer> cargaActiva) {
+        this.cargaActiva = cargaActiva;
+    }
+
+    /**
+     * Registra el repartidor o vuelve a ubicarlo con su carga, ciudad y disponibilidad actuales
+     */
+    public synchronized void actualizar(Dealer repartidor) {
+        if (repartidor == null) {
+            return;
+        }
+        Nodo nodo = nodos.get(repartidor.getId());
+        if (nodo == null || nodo.repartidor != repartidor) {
+            retirar(repartidor);
+            nodo = new Nodo(repartidor, siguienteOrden++);
+            nodos.put(repartidor.getId(), nodo);
+        }
+        City ciudad = repartidor.getCity();
+        if (nodo.posicion >= 0 && nodo.ciudad != ciudad) {
+            porCiudad.get(nodo.ciudad).quitar(nodo);
+        }
+        nodo.ciudad = ciudad;
+        nodo.disponibleManual = repartidor.isDisponibleManual();
+        ubicar(nodo);
+    }
+
+    /**
+     * La carga del repartidor cambió (asignación, entrega, eliminación de un envío).
+     * Un repartidor que no está registrado se ignora.
+     */
+    public synchronized void actualizarCarga(Dealer repartidor) {
+        Nodo nodo = repartidor != null ? nodos.get(repartidor.getId()) : null;
+        if (nodo != null) {
+            ubicar(nodo);
+        }
+    }
+
+    private void ubicar(Nodo nodo) {
+        nodo.carga = cargaActiva.applyAsInt(nodo.repartidor);
+        if (nodo.ciudad == null) {
+            return;
+        }
+        Monticulo monticulo = porCiudad.computeIfAbsent(nodo.ciudad, c -> new Monticulo());
+        if (nodo.posicion < 0) {
+            monticulo.insertar(nodo);
+        } else {
+            monticulo.reubicar(nodo);
+        }
+    }
+
+    public synchronized void retirar(Dealer repartidor) {
+        Nodo nodo = nodos.remove(repartidor.getId());
+        if (nodo != null && nodo.posicion >= 0) {
+            porCiudad.get(nodo.ciudad).quitar(nodo);
+        }
+    }
+
+    /**
+     * Repartidor disponible manualmente con menos carga en la ciudad. Revisa el montículo
+     * en orden y descarta los que no acepta el filtro, sin pasar de la carga máxima.
+     *
+     * @param cargaMaxima Carga más alta que se acepta (0 = solo repartidores sin envíos activos)
+     * @return El primero en orden que acepta el filtro, o null
+     */
+    public synchronized Dealer menosCargado(City ciudad, int cargaMaxima, Predicate<Dealer> acepta) {
+        Monticulo monticulo = porCiudad.get(ciudad);
+        if (monticulo == null || monticulo.tamano == 0) {
+            return null;
+        }
+        // Recorrido por mejores primero: los hijos nunca van antes que su padre
+        Nodo[] arbol = monticulo.nodos;
+        PriorityQueue<Nodo> frontera = new PriorityQueue<>(8, Nodo::comparar);
+        frontera.add(arbol[0]);
+        while (!frontera.isEmpty()) {
+            Nodo nodo = frontera.poll();
+            if (!nodo.disponibleManual || nodo.carga > cargaMaxima) {
+                return null;
+            }
+            if (acepta.test(nodo.repartidor)) {
+                return nodo.repartidor;
+            }
+            int hijo = 2 * nodo.posicion + 1;
+            for (int i = hijo; i < hijo + 2 && i < monticulo.tamano; i++) {
+                frontera.add(arbol[i]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Los repartidores de la ciudad disponibles manualmente con carga hasta la
+     * máxima, en orden (menos cargado primero, luego el registrado primero)
+     */
+    public synchronized List<Dealer> enOrden(City ciudad, int cargaMaxima) {
+        List<Dealer> resultado = new ArrayList<>();
+        Monticulo monticulo = porCiudad.get(ciudad);
+        if (monticulo == null) {
+            return resultado;
+        }
+        List<Nodo> candidatos = new ArrayList<>();
+        for (int i = 0; i < monticulo.tamano; i++) {
+            Nodo nodo = monticulo.nodos[i];
+            if (nodo.disponibleManual && nodo.carga <= cargaMaxima) {
+                candidatos.add(nodo);
+            }
+        }
+        candidatos.sort(Nodo::comparar);
+        for (Nodo nodo : candidatos) {
+            resultado.add(nodo.repartidor);
+        }
+        return resultado;
+    }
+}
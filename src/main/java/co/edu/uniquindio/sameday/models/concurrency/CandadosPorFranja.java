@@ -0,0 +1,86 @@
+package co.edu.uniquindio.sameday.models.concurrency;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Conjunto fijo de candados repartidos por el hash de la clave (lock striping).
+ *
+ * Dos operaciones sobre la misma entidad siempre usan el mismo candado y quedan
+ * serializadas; operaciones sobre entidades distintas casi nunca comparten candado,
+ * así que no compiten entre sí. Los candados son reentrantes para que una
+ * operación pueda invocar a otra sobre la misma entidad.
+ */
+public class CandadosPorFranja {
+
+    private final ReentrantLock[] franjas;
+    private final int mascara;
+
+    /**
+     * @param cantidad Número mínimo de franjas (se redondea a potencia de 2)
+     */
+    public CandadosPorFranja(int cantidad) {
+        int tamano = Integer.highestOneBit(Math.max(1, cantidad - 1)) << 1;
+        franjas = new ReentrantLock[tamano];
+        for (int i = 0; i < tamano; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+        mascara = tamano - 1;
+    }
+
+    public ReentrantLock candado(Object clave) {
+        return franjas[franja(clave)];
+    }
+
+    private int franja(Object clave) {
+        int hash = clave.hashCode();
+        hash ^= (hash >>> 16);
+        return hash & mascara;
+    }
+
+    public void ejecutar(Object clave, Runnable accion) {
+        ReentrantLock candado = candado(clave);
+        candado.lock();
+        try {
+            accion.run();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    public <T> T ejecutar(Object clave, Supplier<T> accion) {
+        ReentrantLock candado = candado(clave);
+        candado.lock();
+        try {
+            return accion.get();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Ejecuta la acción con los candados de todas las claves tomados a la vez.
+     * Las franjas se toman en orden de índice, así que dos lotes que se cruzan no se
+     * bloquean entre sí.
+     */
+    public <T> T ejecutarTodos(Collection<?> claves, Supplier<T> accion) {
+        BitSet usadas = new BitSet(franjas.length);
+        for (Object clave : claves) {
+            usadas.set(franja(clave));
+        }
+        int tomadas = 0;
+        try {
+            for (int i = usadas.nextSetBit(0); i >= 0; i = usadas.nextSetBit(i + 1)) {
+                franjas[i].lock();
+                tomadas = i + 1;
+            }
+            return accion.get();
+        } finally {
+            for (int i = usadas.previousSetBit(tomadas - 1); i >= 0; i = usadas.previousSetBit(i - 1)) {
+                franjas[i].unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package co.edu.uniquindio.sameday.models.concurrency;
+
+/**
+ * Origen de los bloques de ids que reparte GeneradorIds.
+ *
+ * Guarda, por cada secuencia, la marca de agua: el primer número que todavía no
+ * se ha entregado a nadie. Reservar un bloque mueve la marca; los números del
+ * bloque quedan en exclusiva para quien lo reservó, aunque no llegue a usarlos.
+ */
+public interface FuenteBloquesIds {
+
+    /**
+     * Reserva los números [inicio, inicio + tamano) de la secuencia
+     * @return El primer número del bloque reservado
+     */
+    long reservarBloque(String secuencia, int tamano);
+
+    /**
+     * Garantiza que ningún bloque futuro de la secuencia empiece antes de minimo
+     */
+    void asegurarMinimo(String secuencia, long minimo);
+}
@@ -0,0 +1,27 @@
+package co.edu.uniquindio.sameday.models.concurrency;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Marcas de agua solo en memoria, para cuando SameDay no tiene directorio de datos.
+ * Las secuencias empiezan en 1.
+ */
+public class FuenteBloquesMemoria implements FuenteBloquesIds {
+
+    private final ConcurrentHashMap<String, AtomicLong> marcas = new ConcurrentHashMap<>();
+
+    @Override
+    public long reservarBloque(String secuencia, int tamano) {
+        return marca(secuencia).getAndAdd(tamano);
+    }
+
+    @Override
+    public void asegurarMinimo(String secuencia, long minimo) {
+        marca(secuencia).accumulateAndGet(minimo, Math::max);
+    }
+
+    private AtomicLong marca(String secuencia) {
+        return marcas.computeIfAbsent(secuencia, s -> new AtomicLong(1));
+    }
+}
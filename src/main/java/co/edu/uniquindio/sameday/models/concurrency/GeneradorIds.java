@@ -0,0 +1,133 @@
+package co.edu.uniquindio.sameday.models.concurrency;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Servicio central de ids numéricos crecientes, uno por secuencia (envíos, clientes...).
+ *
+ * Cada secuencia arrienda bloques de números a la FuenteBloquesIds y los reparte con
+ * un contador atómico, sin candados: solo se consulta la fuente cuando se agota el
+ * bloque. Así varios hilos, e incluso varias instancias que compartan la fuente,
+ * obtienen ids sin coordinarse en cada llamada. Un id nunca se repite, aunque se
+ * borren entidades; a cambio puede haber huecos (números de un bloque que no se
+ * usó completo antes de reiniciar).
+ */
+public class GeneradorIds {
+
+    public static final String ENVIOS = "envios";
+    public static final String CLIENTES = "clientes";
+    public static final String REPARTIDORES = "repartidores";
+    public static final String DIRECCIONES = "direcciones";
+
+    public static final int TAMANO_BLOQUE = 64;
+
+    private final FuenteBloquesIds fuente;
+    private final int tamanoBloque;
+    private final ConcurrentHashMap<String, Secuencia> secuencias = new ConcurrentHashMap<>();
+
+    public GeneradorIds(FuenteBloquesIds fuente) {
+        this(fuente, TAMANO_BLOQUE);
+    }
+
+    public GeneradorIds(FuenteBloquesIds fuente, int tamanoBloque) {
+        if (tamanoBloque < 1) {
+            throw new IllegalArgumentException("El tamaño de bloque debe ser positivo");
+        }
+        this.fuente = fuente;
+        this.tamanoBloque = tamanoBloque;
+    }
+
+    /**
+     * @return El siguiente número de la secuencia (nunca entregado antes)
+     */
+    public long siguiente(String secuencia) {
+        return secuencia(secuencia).siguiente();
+    }
+
+    /**
+     * Número que probablemente devolverá la próxima llamada a siguiente.
+     * Solo sirve para mostrarlo; otro hilo puede tomarlo antes.
+     */
+    public long consultarSiguiente(String secuencia) {
+        return secuencia(secuencia).consultar();
+    }
+
+    /**
+     * Garantiza que la secuencia no entregue números menores que minimo
+     * (se usa al arrancar con los ids que ya existen)
+     */
+    public void asegurarMinimo(String secuencia, long minimo) {
+        secuencia(secuencia).asegurarMinimo(minimo);
+    }
+
+    private Secuencia secuencia(String nombre) {
+        return secuencias.computeIfAbsent(nombre, Secuencia::new);
+    }
+
+    /**
+     * Bloque arrendado: números [siguiente, fin). Los hilos toman números con
+     * getAndIncrement; el que se pasa de fin sabe que el bloque está agotado.
+     */
+    private static final class Bloque {
+        private final AtomicLong siguiente;
+        private final long fin;
+
+        private Bloque(long inicio, long fin) {
+            this.siguiente = new AtomicLong(inicio);
+            this.fin = fin;
+        }
+    }
+
+    private final class Secuencia {
+        private final String nombre;
+        private final AtomicReference<Bloque> actual = new AtomicReference<>(new Bloque(0, 0));
+
+        private Secuencia(String nombre) {
+            this.nombre = nombre;
+        }
+
+        private long siguiente() {
+            while (true) {
+                Bloque bloque = actual.get();
+                long numero = bloque.siguiente.getAndIncrement();
+                if (numero < bloque.fin) {
+                    return numero;
+                }
+                renovar(bloque);
+            }
+        }
+
+        private long consultar() {
+            Bloque bloque = actual.get();
+            long numero = bloque.siguiente.get();
+            if (numero < bloque.fin) {
+                return numero;
+            }
+            // Sin bloque vigente: arrendar uno para conocer el próximo número
+            renovar(bloque);
+            return consultar();
+        }
+
+        /**
+         * Arrienda un bloque nuevo si nadie lo hizo ya. Solo el hilo que agotó el
+         * bloque compite por este candado; el resto sigue en el camino sin candados.
+         */
+        private synchronized void renovar(Bloque agotado) {
+            if (actual.get() == agotado) {
+                long inicio = fuente.reservarBloque(nombre, tamanoBloque);
+                actual.set(new Bloque(inicio, inicio + tamanoBloque));
+            }
+        }
+
+        private synchronized void asegurarMinimo(long minimo) {
+            fuente.asegurarMinimo(nombre, minimo);
+            Bloque bloque = actual.get();
+            if (bloque.siguiente.get() < minimo) {
+                // El resto del bloque quedaría por debajo del mínimo: se descarta
+                actual.set(new Bloque(0, 0));
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package co.edu.uniquindio.sameday.models.concurrency;
+
+import co.edu.uniquindio.sameday.models.Envio;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publica versiones nuevas de los envíos para las lecturas MVCC.
+ *
+ * Cada escritura copia el envío y crea una versión nueva que comparte casi toda su
+ * estructura con la anterior; la versión vigente se publica con un compareAndSet.
+ * Los lectores solo leen esa referencia y nunca esperan.
+ *
+ * Actualizar un envío que ya está publicado no toma candados: si otro escritor
+ * publicó entretanto, se rehace la copia del camino (O(log32 n)) sobre la versión
+ * nueva. Solo las altas, las bajas y los lotes, que cambian posiciones, se ordenan
+ * entre sí con un candado. Quien llama garantiza que dos publicaciones del mismo
+ * envío no ocurren a la vez (SameDay publica con el candado del envío tomado).
+ */
+public class PublicadorVersionesEnvios {
+
+    // Versión vigente junto con las posiciones de sus envíos en el vector. El mapa se
+    // comparte entre estados hasta que una compactación cambia las posiciones.
+    private static final class Estado {
+        private final VersionEnvios version;
+        private final ConcurrentHashMap<String, Integer> posiciones;
+
+        Estado(VersionEnvios version, ConcurrentHashMap<String, Integer> posiciones) {
+            this.version = version;
+            this.posiciones = posiciones;
+        }
+    }
+
+    private final ReentrantLock candadoPosiciones = new ReentrantLock();
+    private final AtomicReference<Estado> actual =
+            new AtomicReference<>(new Estado(VersionEnvios.VACIA, new ConcurrentHashMap<>()));
+
+    public VersionEnvios getActual() {
+        return actual.get().version;
+    }
+
+    /**
+     * Publica una copia del estado actual del envío (lo agrega si es nuevo)
+     */
+    public void publicar(Envio envio) {
+        Envio copia = envio.copiar();
+        while (true) {
+            Estado estado = actual.get();
+            Integer posicion = estado.posiciones.get(copia.getId());
+            if (posicion == null) {
+                publicarLoteCopiado(List.of(copia));
+                return;
+            }
+            VersionEnvios version = estado.version;
+            VersionEnvios nueva = new VersionEnvios(version.getNumero() + 1,
+                    version.getVector().asignar(posicion, copia), version.contarEnvios());
+            if (actual.compareAndSet(estado, new Estado(nueva, estado.posiciones))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publica en una sola versión una copia de cada envío del lote: un lector ve el
+     * lote completo o nada de él
+     */
+    public void publicarLote(Collection<Envio> envios) {
+        List<Envio> copias = new ArrayList<>(envios.size());
+        for (Envio envio : envios) {
+            copias.add(envio.copiar());
+        }
+        publicarLoteCopiado(copias);
+    }
+
+    private void publicarLoteCopiado(List<Envio> copias) {
+        candadoPosiciones.lock();
+        try {
+            while (true) {
+                Estado estado = actual.get();
+                VersionEnvios version = estado.version;
+                VectorPersistente<Envio> vector = version.getVector();
+                int vivos = version.contarEnvios();
+                // Con el candado tomado nadie más agrega, así que las posiciones nuevas
+                // no cambian entre reintentos
+                Map<String, Integer> nuevos = new HashMap<>();
+                for (Envio copia : copias) {
+                    Integer posicion = estado.posiciones.get(copia.getId());
+                    if (posicion == null) {
+                        posicion = nuevos.get(copia.getId());
+                    }
+                    if (posicion == null) {
+                        nuevos.put(copia.getId(), vector.tamano());
+                        vector = vector.agregar(copia);
+                        vivos++;
+                    } else {
+                        vector = vector.asignar(posicion, copia);
+                    }
+                }
+                VersionEnvios nueva = new VersionEnvios(version.getNumero() + 1, vector, vivos);
+                if (actual.compareAndSet(estado, new Estado(nueva, estado.posiciones))) {
+                    estado.posiciones.putAll(nuevos);
+                    return;
+                }
+            }
+        } finally {
+            candadoPosiciones.unlock();
+        }
+    }
+
+    /**
+     * Publica una versión sin el envío
+     */
+    public void retirar(String envioId) {
+        candadoPosiciones.lock();
+        try {
+            while (true) {
+                Estado estado = actual.get();
+                Integer posicion = estado.posiciones.get(envioId);
+                if (posicion == null) {
+                    return;
+                }
+                VersionEnvios version = estado.version;
+                VectorPersistente<Envio> vector = version.getVector().asignar(posicion, null);
+                int vivos = version.contarEnvios() - 1;
+                ConcurrentHashMap<String, Integer> posiciones = estado.posiciones;
+                // Con demasiados huecos se reconstruye el vector (las versiones viejas no cambian)
+                int huecos = vector.tamano() - vivos;
+                if (huecos > 32 && huecos > vivos) {
+                    posiciones = new ConcurrentHashMap<>();
+                    vector = compactar(vector, posiciones);
+                }
+                VersionEnvios nueva = new VersionEnvios(version.getNumero() + 1, vector, vivos);
+                if (actual.compareAndSet(estado, new Estado(nueva, posiciones))) {
+                    estado.posiciones.remove(envioId);
+                    return;
+                }
+            }
+        } finally {
+            candadoPosiciones.unlock();
+        }
+    }
+
+    private static VectorPersistente<Envio> compactar(VectorPersistente<Envio> vector,
+                                                      ConcurrentHashMap<String, Integer> posiciones) {
+        VectorPersistente<Envio> compacto = VectorPersistente.vacio();
+        for (Envio envio : vector) {
+            if (envio != null) {
+                posiciones.put(envio.getId(), compacto.tamano());
+                compacto = compacto.agregar(envio);
+            }
+        }
+        return compacto;
+    }
+}
@@ -0,0 +1,88 @@
+package co.edu.uniquindio.sameday.models.concurrency;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tabla concurrente indexada por id que conserva el orden de inserción.
+ *
+ * Cada clave recibe una posición creciente al insertarse; el valor vive en un
+ * ConcurrentSkipListMap ordenado por esa posición. Reemplazar un valor conserva
+ * su posición, igual que {@code ArrayList.set}. Las escrituras sobre una misma
+ * clave son atómicas (se hacen dentro de {@code compute}) y los recorridos son
+ * débilmente consistentes: nunca lanzan ConcurrentModificationException.
+ */
+public class TablaOrdenada<V> {
+
+    private final ConcurrentHashMap<String, Long> posiciones = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, V> valores = new ConcurrentSkipListMap<>();
+    private final AtomicLong siguientePosicion = new AtomicLong();
+
+    /**
+     * Inserta el valor al final, o lo reemplaza en su lugar si la clave ya existe
+     */
+    public void poner(String clave, V valor) {
+        posiciones.compute(clave, (k, posicion) -> {
+            long nueva = posicion != null ? posicion : siguientePosicion.getAndIncrement();
+            valores.put(nueva, valor);
+            return nueva;
+        });
+    }
+
+    /**
+     * Elimina la clave solo si sigue asociada a ese valor
+     * @return true si se eliminó
+     */
+    public boolean eliminar(String clave, V valor) {
+        boolean[] eliminado = {false};
+        posiciones.computeIfPresent(clave, (k, posicion) -> {
+            if (valores.get(posicion) != valor) {
+                return posicion;
+            }
+            valores.remove(posicion);
+            eliminado[0] = true;
+            return null;
+        });
+        return eliminado[0];
+    }
+
+    /**
+     * @return El valor eliminado, o null si la clave no existía
+     */
+    public V eliminar(String clave) {
+        AtomicReference<V> eliminado = new AtomicReference<>();
+        posiciones.computeIfPresent(clave, (k, posicion) -> {
+            eliminado.set(valores.remove(posicion));
+            return null;
+        });
+        return eliminado.get();
+    }
+
+    public V obtener(String clave) {
+        Long posicion = posiciones.get(clave);
+        return posicion != null ? valores.get(posicion) : null;
+    }
+
+    public boolean contiene(String clave) {
+        return posiciones.containsKey(clave);
+    }
+
+    public int tamano() {
+        return posiciones.size();
+    }
+
+    /**
+     * @return Copia de los valores en orden de inserción
+     */
+    public ArrayList<V> valores() {
+        return new ArrayList<>(valores.values());
+    }
+
+    public void limpiar() {
+        posiciones.clear();
+        valores.clear();
+    }
+}
@@ -0,0 +1,185 @@
+package co.edu.uniquindio.sameday.models.concurrency;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Vector inmutable con estructura compartida (árbol de anchura 32 con cola).
+ *
+ * {@link #agregar} y {@link #asignar} devuelven un vector nuevo copiando solo el
+ * camino desde la raíz hasta la hoja modificada (O(log32 n)); el resto de nodos se
+ * comparte con la versión anterior, que sigue siendo válida. Por eso una versión
+ * publicada se puede leer desde cualquier hilo sin candados ni copias.
+ */
+public final class VectorPersistente<T> implements Iterable<T> {
+
+    private static final int BITS = 5;
+    private static final int ANCHO = 1 << BITS;
+    private static final int MASCARA = ANCHO - 1;
+
+    private static final VectorPersistente<?> VACIO =
+            new VectorPersistente<>(0, BITS, new Object[ANCHO], new Object[0]);
+
+    private final int tamano;
+    private final int desplazamiento;
+    private final Object[] raiz;
+    private final Object[] cola;
+
+    private VectorPersistente(int tamano, int desplazamiento, Object[] raiz, Object[] cola) {
+        this.tamano = tamano;
+        this.desplazamiento = desplazamiento;
+        this.raiz = raiz;
+        this.cola = cola;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> VectorPersistente<T> vacio() {
+        return (VectorPersistente<T>) VACIO;
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T obtener(int indice) {
+        return (T) hojaDe(indice)[indice & MASCARA];
+    }
+
+    /**
+     * @return Un vector nuevo con el valor agregado al final
+     */
+    public VectorPersistente<T> agregar(T valor) {
+        if (tamano - inicioCola() < ANCHO) {
+            Object[] nuevaCola = new Object[cola.length + 1];
+            System.arraycopy(cola, 0, nuevaCola, 0, cola.length);
+            nuevaCola[cola.length] = valor;
+            return new VectorPersistente<>(tamano + 1, desplazamiento, raiz, nuevaCola);
+        }
+        // La cola está llena: pasa al árbol y se empieza una nueva
+        Object[] nuevaRaiz;
+        int nuevoDesplazamiento = desplazamiento;
+        if ((tamano >>> BITS) > (1 << desplazamiento)) {
+            nuevaRaiz = new Object[ANCHO];
+            nuevaRaiz[0] = raiz;
+            nuevaRaiz[1] = nuevoCamino(desplazamiento, cola);
+            nuevoDesplazamiento += BITS;
+        } else {
+            nuevaRaiz = empujarCola(desplazamiento, raiz, cola);
+        }
+        return new VectorPersistente<>(tamano + 1, nuevoDesplazamiento, nuevaRaiz, new Object[]{valor});
+    }
+
+    /**
+     * @return Un vector nuevo con el valor reemplazado en la posición dada
+     */
+    public VectorPersistente<T> asignar(int indice, T valor) {
+        if (indice < 0 || indice >= tamano) {
+            throw new IndexOutOfBoundsException(indice);
+        }
+        if (indice >= inicioCola()) {
+            Object[] nuevaCola = cola.clone();
+            nuevaCola[indice & MASCARA] = valor;
+            return new VectorPersistente<>(tamano, desplazamiento, raiz, nuevaCola);
+        }
+        return new VectorPersistente<>(tamano, desplazamiento, asignar(desplazamiento, raiz, indice, valor), cola);
+    }
+
+    /**
+     * @return Vista de solo lectura como List, sin copiar los elementos
+     */
+    public List<T> comoLista() {
+        return new AbstractList<T>() {
+            @Override
+            public T get(int indice) {
+                return obtener(indice);
+            }
+
+            @Override
+            public int size() {
+                return tamano;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int indice = 0;
+            private Object[] hoja = tamano > 0 ? hojaDe(0) : null;
+
+            @Override
+            public boolean hasNext() {
+                return indice < tamano;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (indice >= tamano) {
+                    throw new NoSuchElementException();
+                }
+                if ((indice & MASCARA) == 0 && indice > 0) {
+                    hoja = hojaDe(indice);
+                }
+                return (T) hoja[indice++ & MASCARA];
+            }
+        };
+    }
+
+    // ==================== ÁRBOL ====================
+
+    private int inicioCola() {
+        return tamano < ANCHO ? 0 : ((tamano - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] hojaDe(int indice) {
+        if (indice < 0 || indice >= tamano) {
+            throw new IndexOutOfBoundsException(indice);
+        }
+        if (indice >= inicioCola()) {
+            return cola;
+        }
+        Object[] nodo = raiz;
+        for (int nivel = desplazamiento; nivel > 0; nivel -= BITS) {
+            nodo = (Object[]) nodo[(indice >>> nivel) & MASCARA];
+        }
+        return nodo;
+    }
+
+    private Object[] empujarCola(int nivel, Object[] padre, Object[] hoja) {
+        int sub = ((tamano - 1) >>> nivel) & MASCARA;
+        Object[] copia = padre.clone();
+        Object[] insertar;
+        if (nivel == BITS) {
+            insertar = hoja;
+        } else {
+            Object[] hijo = (Object[]) padre[sub];
+            insertar = hijo != null ? empujarCola(nivel - BITS, hijo, hoja) : nuevoCamino(nivel - BITS, hoja);
+        }
+        copia[sub] = insertar;
+        return copia;
+    }
+
+    private static Object[] nuevoCamino(int nivel, Object[] hoja) {
+        if (nivel == 0) {
+            return hoja;
+        }
+        Object[] nodo = new Object[ANCHO];
+        nodo[0] = nuevoCamino(nivel - BITS, hoja);
+        return nodo;
+    }
+
+    private static Object[] asignar(int nivel, Object[] nodo, int indice, Object valor) {
+        Object[] copia = nodo.clone();
+        if (nivel == 0) {
+            copia[indice & MASCARA] = valor;
+        } else {
+            int sub = (indice >>> nivel) & MASCARA;
+            copia[sub] = asignar(nivel - BITS, (Object[]) nodo[sub], indice, valor);
+        }
+        return copia;
+    }
+}
@@ -0,0 +1,66 @@
+package co.edu.uniquindio.sameday.models.concurrency;
+
+import co.edu.uniquindio.sameday.models.Envio;
+
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Foto inmutable y consistente de los envíos en un instante (lectura MVCC).
+ *
+ * Contiene copias de los envíos tal como quedaron al publicarse la versión, así que
+ * los recorridos largos (estadísticas, reportes) no toman candados ni ven cambios
+ * aplicados a medias. Las copias no están conectadas a SameDay: modificarlas no
+ * cambia el envío real.
+ */
+public final class VersionEnvios {
+
+    public static final VersionEnvios VACIA = new VersionEnvios(0, VectorPersistente.vacio(), 0);
+
+    private final long numero;
+    private final VectorPersistente<Envio> envios; // null en las posiciones eliminadas
+    private final int vivos;
+
+    public VersionEnvios(long numero, VectorPersistente<Envio> envios, int vivos) {
+        this.numero = numero;
+        this.envios = envios;
+        this.vivos = vivos;
+    }
+
+    /**
+     * @return Número de versión, creciente con cada cambio publicado
+     */
+    public long getNumero() {
+        return numero;
+    }
+
+    public int contarEnvios() {
+        return vivos;
+    }
+
+    /**
+     * @return Los envíos de esta versión en orden de creación
+     */
+    public Stream<Envio> stream() {
+        return StreamSupport.stream(envios.spliterator(), false).filter(Objects::nonNull);
+    }
+
+    /**
+     * @return Lista nueva con los envíos de esta versión, en orden de creación
+     */
+    public ArrayList<Envio> getEnvios() {
+        ArrayList<Envio> lista = new ArrayList<>(vivos);
+        for (Envio envio : envios) {
+            if (envio != null) {
+                lista.add(envio);
+            }
+        }
+        return lista;
+    }
+
+    VectorPersistente<Envio> getVector() {
+        return envios;
+    }
+}
@@ -1,6 +1,7 @@
 package co.edu.uniquindio.sameday.models.creational.builder;
 
 import co.edu.uniquindio.sameday.models.*;
+import co.edu.uniquindio.sameday.models.validacion.ReglasEnvio;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -14,7 +15,7 @@ import java.util.List;
  *
  * Ventajas:
  * - Código más legible y mantenible
- * - Validaciones centralizadas en build()
+ * - Validaciones centralizadas en build() (reglas de ReglasEnvio)
  * - Construcción paso a paso de objetos complejos
  * - Inmutabilidad opcional del objeto construido
  *
@@ -254,10 +255,18 @@ public class EnvioBuilder {
      * @throws IllegalStateException si faltan campos obligatorios o hay datos inválidos
      */
     public Envio build() {
-        // Validar campos obligatorios
-        validar();
+        Envio envio = armar();
+        validar(envio);
+        return envio;
+    }
 
-        // Crear el objeto Envio
+    /**
+     * Construye el Envio sin validarlo, para validar un lote completo de una vez
+     * con ReglasEnvio.ENVIO.validarLote
+     *
+     * @return Envio con los valores del builder
+     */
+    public Envio armar() {
         Envio envio = new Envio();
 
         // Asignar todos los valores
@@ -289,71 +298,18 @@ public class EnvioBuilder {
     // ==================== VALIDACIONES ====================
 
     /**
-     * Valida que todos los campos obligatorios estén presentes y sean válidos
+     * Valida el envío armado con las reglas compartidas de ReglasEnvio.ENVIO
      *
-     * @throws IllegalStateException si hay errores de validación
+     * @throws IllegalStateException con todos los errores, uno por línea
      */
-    private void validar() {
-        StringBuilder errores = new StringBuilder();
-
-        // Validar dirección de origen
-        if (origen == null) {
-            errores.append("• La dirección de origen es obligatoria\n");
-        }
-
-        // Validar dirección de destino
-        if (destino == null) {
-            errores.append("• La dirección de destino es obligatoria\n");
-        }
-
-        // Validar que origen y destino no sean iguales
-        if (origen != null && destino != null && origen.getId().equals(destino.getId())) {
-            errores.append("• La dirección de origen y destino no pueden ser la misma\n");
-        }
-
-        // Validar peso
-        if (peso <= 0) {
-            errores.append("• El peso debe ser mayor a 0 kg\n");
-        }
-        if (peso > 100) {
-            errores.append("• El peso no puede superar los 100 kg\n");
-        }
-
-        // Validar volumen
-        if (volumen <= 0) {
-            errores.append("• El volumen debe ser mayor a 0 cm³\n");
-        }
-
-        // Validar contenido
-        if (contenido == null || contenido.trim().isEmpty()) {
-            errores.append("• La descripción del contenido es obligatoria\n");
-        }
-
-        // Validar información del destinatario
-        if (nombreDestinatario == null || nombreDestinatario.trim().isEmpty()) {
-            errores.append("• El nombre del destinatario es obligatorio\n");
-        }
-
-        if (cedulaDestinatario == null || cedulaDestinatario.trim().isEmpty()) {
-            errores.append("• La cédula del destinatario es obligatoria\n");
-        } else if (!cedulaDestinatario.matches("\\d+")) {
-            errores.append("• La cédula debe contener solo números\n");
-        }
-
-        if (telefonoDestinatario == null || telefonoDestinatario.trim().isEmpty()) {
-            errores.append("• El teléfono del destinatario es obligatorio\n");
-        } else if (!telefonoDestinatario.matches("\\d{10}")) {
-            errores.append("• El teléfono debe tener 10 dígitos\n");
-        }
-
-        // Validar costo total
-        if (costoTotal <= 0) {
-            errores.append("• El costo total debe ser mayor a 0\n");
-        }
-
-        // Si hay errores, lanzar excepción
-        if (errores.length() > 0) {
-            throw new IllegalStateException("Error al construir el Envio:\n" + errores.toString());
+    private void validar(Envio envio) {
+        List<String> errores = ReglasEnvio.ENVIO.validar(envio);
+        if (!errores.isEmpty()) {
+            StringBuilder mensaje = new StringBuilder("Error al construir el Envio:\n");
+            for (String error : errores) {
+                mensaje.append("• ").append(error).append('\n');
+            }
+            throw new IllegalStateException(mensaje.toString());
         }
     }
 
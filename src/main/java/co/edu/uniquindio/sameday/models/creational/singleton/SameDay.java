@@ -5,34 +5,367 @@ import co.edu.uniquindio.sameday.models.Admin;
 import co.edu.uniquindio.sameday.models.Client;
 import co.edu.uniquindio.sameday.models.Dealer;
 import co.edu.uniquindio.sameday.models.Person;
+import co.edu.uniquindio.sameday.models.analytics.AnaliticaEnvios;
+import co.edu.uniquindio.sameday.models.analytics.EstadisticasEnvios;
+import co.edu.uniquindio.sameday.models.analytics.ResumenEstadisticas;
+import co.edu.uniquindio.sameday.models.analytics.RollupsEnvios;
+import co.edu.uniquindio.sameday.models.behavioral.observer.EnvioObserver;
+import co.edu.uniquindio.sameday.models.behavioral.observer.IndiceEnviosPorRepartidor;
 import co.edu.uniquindio.sameday.models.behavioral.state.ActiveState;
 import co.edu.uniquindio.sameday.models.behavioral.state.SuspendedState;
+import co.edu.uniquindio.sameday.models.behavioral.strategy.IndiceCargaRepartidores;
+import co.edu.uniquindio.sameday.models.concurrency.CandadosPorFranja;
+import co.edu.uniquindio.sameday.models.concurrency.FuenteBloquesMemoria;
+import co.edu.uniquindio.sameday.models.concurrency.GeneradorIds;
+import co.edu.uniquindio.sameday.models.concurrency.PublicadorVersionesEnvios;
+import co.edu.uniquindio.sameday.models.concurrency.TablaOrdenada;
+import co.edu.uniquindio.sameday.models.concurrency.VectorPersistente;
+import co.edu.uniquindio.sameday.models.concurrency.VersionEnvios;
 import co.edu.uniquindio.sameday.models.creational.factoryMethod.AdminFactory;
 import co.edu.uniquindio.sameday.models.creational.factoryMethod.ClienteFactory;
 import co.edu.uniquindio.sameday.models.creational.factoryMethod.DealerFactory;
+import co.edu.uniquindio.sameday.models.persistence.AlmacenDurable;
+import co.edu.uniquindio.sameday.models.persistence.AlmacenEnviosMapeado;
+import co.edu.uniquindio.sameday.models.persistence.FuenteBloquesArchivo;
+import co.edu.uniquindio.sameday.models.persistence.ReceptorRecuperacion;
+import co.edu.uniquindio.sameday.models.persistence.RegistroCodec;
+import co.edu.uniquindio.sameday.models.query.DetectorDireccionesRepetidas;
+import co.edu.uniquindio.sameday.models.query.EnvioQuery;
+import co.edu.uniquindio.sameday.models.query.IndiceConsultasEnvios;
+import co.edu.uniquindio.sameday.models.query.IndiceDirecciones;
+import co.edu.uniquindio.sameday.models.query.IndiceTexto;
+import co.edu.uniquindio.sameday.models.query.ResultadoBusqueda;
+import co.edu.uniquindio.sameday.models.rutas.Ruta;
+import co.edu.uniquindio.sameday.models.rutas.RutasRepartidores;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
+/**
+ * Almacén central de la aplicación (PATRÓN SINGLETON).
+ *
+ * Es seguro para varios hilos lectores y escritores: las colecciones son
+ * concurrentes y los getters de listas devuelven copias, así que recorrerlas nunca
+ * lanza ConcurrentModificationException. Las escrituras de envíos y direcciones se
+ * serializan por entidad con candados por franja, de modo que actualizar envíos
+ * distintos no compite; las personas cambian poco y comparten un único candado.
+ * Las lecturas largas pueden usar {@link #getVersionEnvios()}, una foto inmutable
+ * que no bloquea ni es bloqueada por los escritores.
+ */
 public class SameDay {
 
-    private static SameDay instance;
-    private Person userActive;
-    private ArrayList<Person> listPersons;
-    private ArrayList<Address> listAddresses;
-    private ArrayList<Envio> listEnvios;
+    /**
+     * Propiedad del sistema con el directorio de datos. Si está definida, SameDay
+     * recupera su estado del snapshot y del diario en lugar de usar los datos de prueba,
+     * y registra cada mutación en el diario (-Dsameday.persistencia=/ruta/datos)
+     */
+    public static final String PROPIEDAD_PERSISTENCIA = "sameday.persistencia";
+
+    /**
+     * Con -Dsameday.persistencia.sincrona=false las mutaciones no esperan el fsync
+     */
+    public static final String PROPIEDAD_PERSISTENCIA_SINCRONA = "sameday.persistencia.sincrona";
+
+    /**
+     * Propiedad del sistema con la ruta del archivo mapeado de envíos. Si está definida,
+     * solo los envíos no entregados quedan en memoria; el resto se lee del archivo
+     * al consultarlo (-Dsameday.envios.archivo=/ruta/envios.dat)
+     */
+    public static final String PROPIEDAD_ARCHIVO_ENVIOS = "sameday.envios.archivo";
+
+    private volatile Person userActive;
+    private final CopyOnWriteArrayList<Person> listPersons;
+
+    // Direcciones y envíos por clave primaria, en orden de inserción
+    // (con archivo mapeado, envios solo contiene los no entregados)
+    private final TablaOrdenada<Address> direcciones;
+    private final TablaOrdenada<Envio> envios;
+    private final ConcurrentHashMap<String, Person> personasPorUsuario;
+
+    // Particiones tipadas de personas, con su índice por id
+    // (los ids solo son únicos dentro de cada tipo de persona)
+    private final CopyOnWriteArrayList<Dealer> listDealers;
+    private final CopyOnWriteArrayList<Client> listClients;
+    private final CopyOnWriteArrayList<Admin> listAdmins;
+    private final ConcurrentHashMap<String, Dealer> dealersPorId;
+    private final ConcurrentHashMap<String, Client> clientesPorId;
+    private final ConcurrentHashMap<String, Admin> adminsPorId;
+
+    // Candados de escritura: uno por franja de ids para envíos y direcciones, uno para personas
+    private final CandadosPorFranja candadosEnvios;
+    private final CandadosPorFranja candadosDirecciones;
+    private final ReentrantLock candadoPersonas;
+
+    // Envíos y carga activa por repartidor (PATRÓN OBSERVER sobre cada Envio)
+    private final IndiceEnviosPorRepartidor indiceRepartidores;
+    // Repartidores por ciudad ordenados por carga, para la asignación por menor carga
+    private final IndiceCargaRepartidores indiceCarga;
+    // Ruta del día de cada repartidor, recalculada solo cuando cambian sus paradas
+    private final RutasRepartidores rutas;
+    private final EnvioObserver observadorEnvios;
+
+    // Estadísticas del dashboard, actualizadas con cada evento de envíos y repartidores
+    private final EstadisticasEnvios estadisticas;
+
+    // Índices secundarios para EnvioQuery (fecha, estado, ciudad, pago y repartidor)
+    private final IndiceConsultasEnvios indiceConsultas;
+
+    // Índice de texto de envíos, personas y direcciones para la búsqueda por fragmentos
+    private final IndiceTexto indiceTexto;
+
+    // Trigramas de las direcciones (búsqueda mientras se escribe) y grupos de repetidas
+    private final IndiceDirecciones indiceDirecciones;
+    private final DetectorDireccionesRepetidas detectorRepetidas;
+
+    // Versiones inmutables de los envíos para lecturas sin candados (MVCC)
+    private final PublicadorVersionesEnvios versiones;
+    // Dentro de actualizarEnvio la versión se publica una sola vez, al terminar el cambio
+    private final ThreadLocal<Boolean> cambioEnCurso;
+
+    // Ids nuevos de envíos, clientes, repartidores y direcciones (marcas persistidas
+    // en el directorio de datos si lo hay)
+    private final GeneradorIds generadorIds;
+
+    // Persistencia durable opcional (null = solo en memoria)
+    private volatile AlmacenDurable almacen;
+
+    // Archivo mapeado de envíos opcional (null = todos los envíos en memoria)
+    private volatile AlmacenEnviosMapeado almacenEnvios;
 
     private SameDay() {
-        listPersons = new ArrayList<>();
-        listAddresses = new ArrayList<>();
-        listEnvios = new ArrayList<>();
-        cargarDatos();
+        listPersons = new CopyOnWriteArrayList<>();
+        direcciones = new TablaOrdenada<>();
+        envios = new TablaOrdenada<>();
+        personasPorUsuario = new ConcurrentHashMap<>();
+        listDealers = new CopyOnWriteArrayList<>();
+        listClients = new CopyOnWriteArrayList<>();
+        listAdmins = new CopyOnWriteArrayList<>();
+        dealersPorId = new ConcurrentHashMap<>();
+        clientesPorId = new ConcurrentHashMap<>();
+        adminsPorId = new ConcurrentHashMap<>();
+        candadosEnvios = new CandadosPorFranja(64);
+        candadosDirecciones = new CandadosPorFranja(16);
+        candadoPersonas = new ReentrantLock();
+        indiceRepartidores = new IndiceEnviosPorRepartidor();
+        indiceCarga = new IndiceCargaRepartidores(indiceRepartidores::getCargaActiva);
+        rutas = new RutasRepartidores(indiceRepartidores::getEnvios);
+        estadisticas = new EstadisticasEnvios(indiceRepartidores::getCargaActiva);
+        indiceConsultas = new IndiceConsultasEnvios();
+        indiceTexto = new IndiceTexto();
+        indiceDirecciones = new IndiceDirecciones();
+        detectorRepetidas = new DetectorDireccionesRepetidas(indiceDirecciones).iniciar();
+        versiones = new PublicadorVersionesEnvios();
+        cambioEnCurso = ThreadLocal.withInitial(() -> false);
+        // Los setters de Envio notifican fuera de SameDay y cambian el campo antes de
+        // avisar: con dos cambios simultáneos, el repartidor anterior del aviso puede estar
+        // desactualizado. Con el candado del envío tomado, todo se calcula con el estado
+        // actual, y el repartidor anterior es el que tenía registrado el índice.
+        // Dentro de un cambio de SameDay (actualizarEnvio, asignarEnvios) no se hace nada:
+        // quien hace el cambio registra el envío una sola vez al terminar.
+        observadorEnvios = (envio, repartidorAviso, estadoAviso) -> {
+            if (cambioEnCurso.get()) {
+                return;
+            }
+            candadosEnvios.ejecutar(envio.getId(), () -> {
+                envio.avanzarVersion();
+                Dealer repartidorAnterior = repartidorAviso;
+                // Las vistas leídas del archivo no están en el índice hasta volver a memoria
+                if (envios.obtener(envio.getId()) == envio) {
+                    repartidorAnterior = indiceRepartidores.conciliar(envio);
+                    publicarVersion(envio);
+                }
+                if (almacenEnvios != null) {
+                    sincronizarEnvioMapeado(envio);
+                }
+                if (almacen != null) {
+                    almacen.registrarEnvio(envio);
+                }
+                registrarDerivados(envio, repartidorAnterior);
+            });
+        };
+
+        String archivoEnvios = System.getProperty(PROPIEDAD_ARCHIVO_ENVIOS);
+        if (archivoEnvios != null && !archivoEnvios.isBlank()) {
+            abrirArchivoEnvios(Path.of(archivoEnvios));
+        }
+
+        String directorioDatos = System.getProperty(PROPIEDAD_PERSISTENCIA);
+        boolean durable = directorioDatos != null && !directorioDatos.isBlank();
+        generadorIds = new GeneradorIds(durable ? abrirMarcasIds(Path.of(directorioDatos)) : new FuenteBloquesMemoria());
+        if (durable) {
+            abrirPersistencia(Path.of(directorioDatos));
+        } else {
+            cargarDatos();
+        }
+
+        if (almacenEnvios != null) {
+            cargarEnviosNoEntregados();
+        }
+        registrarIdsExistentes();
+        for (Dealer dealer : listDealers) {
+            estadisticas.reevaluarRepartidor(dealer);
+            indiceCarga.actualizar(dealer);
+        }
     }
 
-    public static SameDay getInstance() {
-        if (instance == null) {
-            instance = new SameDay();
+    private FuenteBloquesArchivo abrirMarcasIds(Path directorio) {
+        try {
+            return new FuenteBloquesArchivo(directorio);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el archivo de ids en " + directorio, e);
+        }
+    }
+
+    /**
+     * Sube las marcas de los generadores por encima de los ids ya cargados, para que
+     * los datos de prueba o los recuperados de un directorio sin ids.properties
+     * no choquen con los ids nuevos
+     */
+    private void registrarIdsExistentes() {
+        long maxEnvio = 0;
+        for (Envio envio : envios.valores()) {
+            maxEnvio = Math.max(maxEnvio, numeroDeId(envio.getId()));
+        }
+        if (almacenEnvios != null) {
+            for (String id : almacenEnvios.getIds()) {
+                maxEnvio = Math.max(maxEnvio, numeroDeId(id));
+            }
+        }
+        long maxDireccion = 0;
+        for (Address address : direcciones.valores()) {
+            maxDireccion = Math.max(maxDireccion, numeroDeId(address.getId()));
+        }
+        long maxCliente = 0;
+        for (String id : clientesPorId.keySet()) {
+            maxCliente = Math.max(maxCliente, numeroDeId(id));
         }
-        return instance;
+        long maxRepartidor = 0;
+        for (String id : dealersPorId.keySet()) {
+            maxRepartidor = Math.max(maxRepartidor, numeroDeId(id));
+        }
+        generadorIds.asegurarMinimo(GeneradorIds.ENVIOS, maxEnvio + 1);
+        generadorIds.asegurarMinimo(GeneradorIds.DIRECCIONES, maxDireccion + 1);
+        generadorIds.asegurarMinimo(GeneradorIds.CLIENTES, maxCliente + 1);
+        generadorIds.asegurarMinimo(GeneradorIds.REPARTIDORES, maxRepartidor + 1);
+    }
+
+    /**
+     * @return Los dígitos finales del id como número (ENV0042 -> 42), o 0 si no tiene
+     */
+    private static long numeroDeId(String id) {
+        if (id == null) {
+            return 0;
+        }
+        int inicio = id.length();
+        while (inicio > 0 && Character.isDigit(id.charAt(inicio - 1))) {
+            inicio--;
+        }
+        if (inicio == id.length() || id.length() - inicio > 18) {
+            return 0;
+        }
+        return Long.parseLong(id.substring(inicio));
+    }
+
+    /**
+     * Mapea el archivo de envíos. Solo se construye el índice de ids; los envíos
+     * no entregados se cargan en memoria cuando ya existen sus direcciones y repartidores.
+     */
+    private void abrirArchivoEnvios(Path archivo) {
+        try {
+            almacenEnvios = new AlmacenEnviosMapeado(archivo, direcciones::obtener, dealersPorId::get);
+            Runtime.getRuntime().addShutdownHook(new Thread(almacenEnvios::close, "sameday-cierre-envios"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el archivo de envíos " + archivo, e);
+        }
+    }
+
+    private void cargarEnviosNoEntregados() {
+        for (String id : almacenEnvios.getIdsNoEntregados()) {
+            if (!envios.contiene(id)) {
+                cargarEnMemoria(almacenEnvios.leer(id));
+            }
+        }
+        for (Envio envio : envios.valores()) {
+            indexarHistorial(envio);
+        }
+        // Las estadísticas y los índices de consulta cubren también los entregados, que
+        // se quedan en el archivo: se decodifican en segundo plano para que el arranque
+        // no dependa del tamaño del historial
+        Thread indexador = new Thread(this::indexarEntregadosDelArchivo, "sameday-indices-envios");
+        indexador.setDaemon(true);
+        indexador.start();
+        System.out.println("📦 Archivo de envíos mapeado: " + almacenEnvios.tamano()
+                + " envíos, " + envios.tamano() + " en memoria");
+    }
+
+    private void indexarEntregadosDelArchivo() {
+        long inicio = System.nanoTime();
+        int indexados = 0;
+        for (String id : almacenEnvios.getIds()) {
+            // Con el candado del envío: un cambio simultáneo ya registró su versión nueva
+            // o espera a que se registre esta, y nunca queda pisado por una lectura vieja
+            boolean indexado = candadosEnvios.ejecutar(id, () -> {
+                if (envios.contiene(id)) {
+                    return false; // Los que están en memoria ya se registraron
+                }
+                Envio envio = almacenEnvios.leer(id);
+                if (envio == null) {
+                    return false;
+                }
+                indexarHistorial(envio);
+                return true;
+            });
+            if (indexado) {
+                indexados++;
+            }
+        }
+        System.out.println("📊 Índices de envíos entregados listos: " + indexados + " envíos en "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+    }
+
+    private void indexarHistorial(Envio envio) {
+        estadisticas.registrar(envio);
+        indiceConsultas.registrar(envio);
+        indiceTexto.indexarEnvio(envio);
+    }
+
+    /**
+     * Recupera el estado desde el directorio de datos y activa el registro en el diario.
+     * En el primer arranque (directorio vacío) se cargan y registran los datos de prueba.
+     */
+    private void abrirPersistencia(Path directorio) {
+        try {
+            AlmacenDurable nuevoAlmacen = new AlmacenDurable(directorio,
+                    !"false".equals(System.getProperty(PROPIEDAD_PERSISTENCIA_SINCRONA)));
+            boolean recuperado = nuevoAlmacen.recuperar(new RecuperacionSameDay());
+            almacen = nuevoAlmacen;
+            if (!recuperado) {
+                cargarDatos();
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(almacen::close, "sameday-cierre"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el directorio de datos " + directorio, e);
+        }
+    }
+
+    /**
+     * Inicialización perezosa y publicación segura a cargo de la JVM (idioma del holder)
+     */
+    private static class Holder {
+        private static final SameDay INSTANCE = new SameDay();
+    }
+
+    public static SameDay getInstance() {
+        return Holder.INSTANCE;
     }
 
     public void setUserActive(Person userActive) {
@@ -107,88 +440,157 @@ public class SameDay {
 
         // ==================== ENVÍOS DE PRUEBA ====================
 
-        // ENVÍO 1: Documentos urgentes - PAGADO
-        Envio envio1 = new Envio("ENV0001", dir1, dir2, 0.5,
-                "30x20x5 cm", 3000.0, "Documentos Legales");
-        envio1.setNombreDestinatario("Carlos Rodríguez");
-        envio1.setCedulaDestinatario("1094123456");
-        envio1.setTelefonoDestinatario("3151234567");
-        envio1.getServiciosAdicionales().add(ServicioAdicional.PRIORIDAD);
-        envio1.getServiciosAdicionales().add(ServicioAdicional.FIRMA_REQUERIDA);
-        envio1.setCostoTotal(19000.0);
-        envio1.setEstado("PAGADO");
-        envio1.setFechaCreacion(java.time.LocalDateTime.now().minusDays(5));
-        addEnvio(envio1);
-
-        // ENVÍO 2: Electrónicos frágiles - PAGADO
-        Envio envio2 = new Envio("ENV0002", dir5, dir6, 4.0,
-                "35x35x25 cm", 30625.0, "Computadora Portátil");
-        envio2.setNombreDestinatario("Pedro Martínez");
-        envio2.setCedulaDestinatario("1094345678");
-        envio2.setTelefonoDestinatario("3173456789");
-        envio2.getServiciosAdicionales().add(ServicioAdicional.SEGURO);
-        envio2.getServiciosAdicionales().add(ServicioAdicional.FRAGIL);
-        envio2.setCostoTotal(19000.0);
-        envio2.setEstado("PAGADO");
-        envio2.setFechaCreacion(java.time.LocalDateTime.now().minusDays(3));
-        addEnvio(envio2);
-
-        // ENVÍO 3: Medicamentos con firma - PAGADO
-        Envio envio3 = new Envio("ENV0003", dir9, dir10, 1.2,
-                "25x20x15 cm", 7500.0, "Medicamentos");
-        envio3.setNombreDestinatario("Luis Ramírez");
-        envio3.setCedulaDestinatario("1094567890");
-        envio3.setTelefonoDestinatario("3195678901");
-        envio3.getServiciosAdicionales().add(ServicioAdicional.FIRMA_REQUERIDA);
-        envio3.getServiciosAdicionales().add(ServicioAdicional.PRIORIDAD);
-        envio3.setCostoTotal(19000.0);
-        envio3.setEstado("PAGADO");
-        envio3.setFechaCreacion(java.time.LocalDateTime.now().minusDays(2));
-        addEnvio(envio3);
-
-        // ENVÍO 4: Paquete grande con todos los servicios - PAGADO
-        Envio envio4 = new Envio("ENV0004", dir3, dir12, 15.0,
-                "60x50x40 cm", 120000.0, "Equipos de Oficina");
-        envio4.setNombreDestinatario("Roberto Silva");
-        envio4.setCedulaDestinatario("1094789012");
-        envio4.setTelefonoDestinatario("3217890123");
-        envio4.getServiciosAdicionales().add(ServicioAdicional.SEGURO);
-        envio4.getServiciosAdicionales().add(ServicioAdicional.FRAGIL);
-        envio4.getServiciosAdicionales().add(ServicioAdicional.FIRMA_REQUERIDA);
-        envio4.getServiciosAdicionales().add(ServicioAdicional.PRIORIDAD);
-        envio4.setCostoTotal(32000.0);
-        envio4.setEstado("PAGADO");
-        envio4.setFechaCreacion(java.time.LocalDateTime.now().minusDays(1));
-        addEnvio(envio4);
-
-        // ENVÍO 5: Alimentos - PAGADO
-        Envio envio5 = new Envio("ENV0005", dir7, dir4, 10.0,
-                "40x40x30 cm", 48000.0, "Productos Alimenticios");
-        envio5.setNombreDestinatario("Jorge Mendoza");
-        envio5.setCedulaDestinatario("1094901234");
-        envio5.setTelefonoDestinatario("3239012345");
-        envio5.getServiciosAdicionales().add(ServicioAdicional.PRIORIDAD);
-        envio5.setCostoTotal(24000.0);
-        envio5.setEstado("PAGADO");
-        envio5.setFechaCreacion(java.time.LocalDateTime.now().minusDays(7));
-        addEnvio(envio5);
+        // Si el archivo mapeado ya tiene envíos, esos son los datos vigentes
+        if (almacenEnvios == null || almacenEnvios.estaVacio()) {
+            // ENVÍO 1: Documentos urgentes - PAGADO
+            Envio envio1 = new Envio("ENV0001", dir1, dir2, 0.5,
+                    "30x20x5 cm", 3000.0, "Documentos Legales");
+            envio1.setNombreDestinatario("Carlos Rodríguez");
+            envio1.setCedulaDestinatario("1094123456");
+            envio1.setTelefonoDestinatario("3151234567");
+            envio1.getServiciosAdicionales().add(ServicioAdicional.PRIORIDAD);
+            envio1.getServiciosAdicionales().add(ServicioAdicional.FIRMA_REQUERIDA);
+            envio1.setCostoTotal(19000.0);
+            envio1.setEstadoPago(EstadoPago.PAGADO);
+            envio1.setFechaCreacion(java.time.LocalDateTime.now().minusDays(5));
+            addEnvio(envio1);
+
+            // ENVÍO 2: Electrónicos frágiles - PAGADO
+            Envio envio2 = new Envio("ENV0002", dir5, dir6, 4.0,
+                    "35x35x25 cm", 30625.0, "Computadora Portátil");
+            envio2.setNombreDestinatario("Pedro Martínez");
+            envio2.setCedulaDestinatario("1094345678");
+            envio2.setTelefonoDestinatario("3173456789");
+            envio2.getServiciosAdicionales().add(ServicioAdicional.SEGURO);
+            envio2.getServiciosAdicionales().add(ServicioAdicional.FRAGIL);
+            envio2.setCostoTotal(19000.0);
+            envio2.setEstadoPago(EstadoPago.PAGADO);
+            envio2.setFechaCreacion(java.time.LocalDateTime.now().minusDays(3));
+            addEnvio(envio2);
+
+            // ENVÍO 3: Medicamentos con firma - PAGADO
+            Envio envio3 = new Envio("ENV0003", dir9, dir10, 1.2,
+                    "25x20x15 cm", 7500.0, "Medicamentos");
+            envio3.setNombreDestinatario("Luis Ramírez");
+            envio3.setCedulaDestinatario("1094567890");
+            envio3.setTelefonoDestinatario("3195678901");
+            envio3.getServiciosAdicionales().add(ServicioAdicional.FIRMA_REQUERIDA);
+            envio3.getServiciosAdicionales().add(ServicioAdicional.PRIORIDAD);
+            envio3.setCostoTotal(19000.0);
+            envio3.setEstadoPago(EstadoPago.PAGADO);
+            envio3.setFechaCreacion(java.time.LocalDateTime.now().minusDays(2));
+            addEnvio(envio3);
+
+            // ENVÍO 4: Paquete grande con todos los servicios - PAGADO
+            Envio envio4 = new Envio("ENV0004", dir3, dir12, 15.0,
+                    "60x50x40 cm", 120000.0, "Equipos de Oficina");
+            envio4.setNombreDestinatario("Roberto Silva");
+            envio4.setCedulaDestinatario("1094789012");
+            envio4.setTelefonoDestinatario("3217890123");
+            envio4.getServiciosAdicionales().add(ServicioAdicional.SEGURO);
+            envio4.getServiciosAdicionales().add(ServicioAdicional.FRAGIL);
+            envio4.getServiciosAdicionales().add(ServicioAdicional.FIRMA_REQUERIDA);
+            envio4.getServiciosAdicionales().add(ServicioAdicional.PRIORIDAD);
+            envio4.setCostoTotal(32000.0);
+            envio4.setEstadoPago(EstadoPago.PAGADO);
+            envio4.setFechaCreacion(java.time.LocalDateTime.now().minusDays(1));
+            addEnvio(envio4);
+
+            // ENVÍO 5: Alimentos - PAGADO
+            Envio envio5 = new Envio("ENV0005", dir7, dir4, 10.0,
+                    "40x40x30 cm", 48000.0, "Productos Alimenticios");
+            envio5.setNombreDestinatario("Jorge Mendoza");
+            envio5.setCedulaDestinatario("1094901234");
+            envio5.setTelefonoDestinatario("3239012345");
+            envio5.getServiciosAdicionales().add(ServicioAdicional.PRIORIDAD);
+            envio5.setCostoTotal(24000.0);
+            envio5.setEstadoPago(EstadoPago.PAGADO);
+            envio5.setFechaCreacion(java.time.LocalDateTime.now().minusDays(7));
+            addEnvio(envio5);
+        }
 
         System.out.println("=== DATOS CARGADOS CORRECTAMENTE ===");
         System.out.println("Total Personas: " + listPersons.size());
-        System.out.println("Total Direcciones: " + listAddresses.size());
-        System.out.println("Total Envíos: " + listEnvios.size());
+        System.out.println("Total Direcciones: " + direcciones.tamano());
+        System.out.println("Total Envíos: " + contarEnvios());
     }
 
     public void agregarPersona(Person person) {
-        listPersons.add(person);
+        candadoPersonas.lock();
+        try {
+            listPersons.add(person);
+            indexarPersona(person);
+            indiceTexto.indexarPersona(person);
+            if (person instanceof Dealer) {
+                estadisticas.reevaluarRepartidor((Dealer) person);
+                indiceCarga.actualizar((Dealer) person);
+            }
+            if (almacen != null) {
+                almacen.registrarPersona(person);
+            }
+        } finally {
+            candadoPersonas.unlock();
+        }
     }
 
     public void eliminarPersona(Person persona){
-        listPersons.remove(persona);
+        candadoPersonas.lock();
+        try {
+            if (listPersons.remove(persona)) {
+                desindexarPersona(persona);
+                indiceTexto.retirarPersona(persona);
+                if (persona instanceof Dealer) {
+                    estadisticas.retirarRepartidor((Dealer) persona);
+                    indiceCarga.retirar((Dealer) persona);
+                    rutas.olvidar((Dealer) persona);
+                }
+                if (almacen != null) {
+                    almacen.eliminarPersona(persona);
+                }
+            }
+        } finally {
+            candadoPersonas.unlock();
+        }
+    }
+
+    /**
+     * Registra los cambios hechos directamente sobre una persona (perfil, disponibilidad, cuenta)
+     * @param persona La persona modificada
+     */
+    public void actualizarPersona(Person persona) {
+        if (persona instanceof Dealer) {
+            estadisticas.reevaluarRepartidor((Dealer) persona);
+            indiceCarga.actualizar((Dealer) persona);
+        }
+        indiceTexto.indexarPersona(persona);
+        if (almacen == null) {
+            return;
+        }
+        candadoPersonas.lock();
+        try {
+            almacen.registrarPersona(persona);
+        } finally {
+            candadoPersonas.unlock();
+        }
+    }
+
+    /**
+     * Reindexa la cuenta de una persona cuyo nombre de usuario cambió
+     * @param persona La persona cuyo usuario fue modificado
+     * @param usuarioAnterior El nombre de usuario antes del cambio
+     */
+    public void actualizarUsuario(Person persona, String usuarioAnterior) {
+        if (usuarioAnterior != null) {
+            personasPorUsuario.remove(usuarioAnterior, persona);
+        }
+        if (persona.getUserAccount() != null && persona.getUserAccount().getUser() != null) {
+            personasPorUsuario.put(persona.getUserAccount().getUser(), persona);
+        }
     }
 
     public Person validarUsuario(String usuario, String contrasenia) {
-        for (Person person : listPersons) {
+        Person person = personasPorUsuario.get(usuario);
+        if (person != null) {
             UserAccount persActive = person.getUserAccount();
             if (persActive != null && persActive.getUser().equals(usuario) && persActive.getContrasenia().equals(contrasenia)) {
                 userActive = person;
@@ -199,11 +601,10 @@ public class SameDay {
     }
 
     public UserAccount buscarCuentaPorUsuario(String usuario) {
-        for (Person person : listPersons) {
-            if (person.getUserAccount() != null &&
-                    person.getUserAccount().getUser().equals(usuario)) {
-                return person.getUserAccount();
-            }
+        Person person = personasPorUsuario.get(usuario);
+        if (person != null && person.getUserAccount() != null &&
+                person.getUserAccount().getUser().equals(usuario)) {
+            return person.getUserAccount();
         }
         return null;
     }
@@ -218,6 +619,7 @@ public class SameDay {
         UserAccount cuenta = buscarCuentaPorUsuario(usuario);
         if (cuenta != null) {
             cuenta.setAccountState(new SuspendedState(razon));
+            actualizarPersona(personasPorUsuario.get(usuario));
             return true;
         }
         return false;
@@ -233,6 +635,7 @@ public class SameDay {
         if (cuenta != null) {
             cuenta.setAccountState(new ActiveState());
             cuenta.resetFailedAttempts();
+            actualizarPersona(personasPorUsuario.get(usuario));
             return true;
         }
         return false;
@@ -251,59 +654,806 @@ public class SameDay {
         return null;
     }
 
+    /**
+     * @return Copia de la lista de personas
+     */
     public ArrayList<Person> getListPersons() {
-        return listPersons;
+        return new ArrayList<>(listPersons);
     }
 
+    /**
+     * Reemplaza las personas pasando cada baja y cada alta por eliminarPersona y
+     * agregarPersona, para que los índices derivados y el diario queden al día
+     */
     public void setListPersons(ArrayList<Person> listPersons) {
-        this.listPersons = listPersons;
+        candadoPersonas.lock();
+        try {
+            for (Person persona : new ArrayList<>(this.listPersons)) {
+                eliminarPersona(persona);
+            }
+            for (Person persona : listPersons) {
+                agregarPersona(persona);
+            }
+        } finally {
+            candadoPersonas.unlock();
+        }
+    }
+
+    /**
+     * Obtiene solo los repartidores (copia), sin recorrer la lista completa de personas
+     */
+    public ArrayList<Dealer> getListDealers() {
+        return new ArrayList<>(listDealers);
+    }
+
+    /**
+     * Obtiene solo los clientes (copia), sin recorrer la lista completa de personas
+     */
+    public ArrayList<Client> getListClients() {
+        return new ArrayList<>(listClients);
+    }
+
+    /**
+     * Obtiene solo los administradores (copia), sin recorrer la lista completa de personas
+     */
+    public ArrayList<Admin> getListAdmins() {
+        return new ArrayList<>(listAdmins);
+    }
+
+    public Dealer buscarDealerPorId(String id) {
+        return dealersPorId.get(id);
+    }
+
+    public Client buscarClientePorId(String id) {
+        return clientesPorId.get(id);
+    }
+
+    public Admin buscarAdminPorId(String id) {
+        return adminsPorId.get(id);
     }
 
     // MÉTODOS PARA DIRECCIONES
     public void addAddress(Address address) {
-        listAddresses.add(address);
+        candadosDirecciones.ejecutar(address.getId(), () -> {
+            direcciones.poner(address.getId(), address);
+            indexarDireccion(address);
+            if (almacen != null) {
+                almacen.registrarDireccion(address);
+            }
+        });
     }
 
     public void updateAddress(Address address) {
-        for (int i = 0; i < listAddresses.size(); i++) {
-            if (listAddresses.get(i).getId().equals(address.getId())) {
-                listAddresses.set(i, address);
-                break;
+        candadosDirecciones.ejecutar(address.getId(), () -> {
+            if (!direcciones.contiene(address.getId())) {
+                return;
             }
-        }
+            // La mayoría de pantallas editan la misma instancia; poner la reemplaza en su lugar si es otra
+            direcciones.poner(address.getId(), address);
+            indexarDireccion(address);
+            if (almacen != null) {
+                almacen.registrarDireccion(address);
+            }
+        });
     }
 
     public boolean deleteAddress(String addressId) {
-        return listAddresses.removeIf(address -> address.getId().equals(addressId));
+        return candadosDirecciones.ejecutar(addressId, () -> {
+            if (direcciones.eliminar(addressId) == null) {
+                return false;
+            }
+            indiceTexto.retirar(IndiceTexto.TipoDocumento.DIRECCION, addressId);
+            indiceDirecciones.retirar(addressId);
+            detectorRepetidas.marcarCambio();
+            if (almacen != null) {
+                almacen.eliminarDireccion(addressId);
+            }
+            return true;
+        });
     }
 
+    private void indexarDireccion(Address address) {
+        indiceTexto.indexarDireccion(address);
+        indiceDirecciones.indexar(address);
+        detectorRepetidas.marcarCambio();
+    }
+
+    public Address buscarDireccionPorId(String addressId) {
+        return direcciones.obtener(addressId);
+    }
+
+    /**
+     * Búsqueda mientras se escribe: tolera abreviaturas, palabras incompletas y errores
+     * de digitación ("cl 15 #20-4" encuentra "Calle 15 # 20-45")
+     * @param ciudad Solo de esta ciudad (null = todas)
+     * @param tipo Solo de este tipo (null = todos)
+     * @return Las direcciones más parecidas primero
+     */
+    public List<Address> buscarDirecciones(String texto, City ciudad, AddressType tipo, int limite) {
+        List<Address> resultado = new ArrayList<>();
+        for (ResultadoBusqueda acierto : indiceDirecciones.buscar(texto, ciudad, tipo, limite)) {
+            Address address = direcciones.obtener(acierto.getId());
+            if (address != null) {
+                resultado.add(address);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @return Direcciones existentes que son la misma que la dada (para avisar antes de
+     * guardar una repetida)
+     */
+    public List<Address> buscarDireccionesRepetidas(Address address) {
+        List<Address> repetidas = new ArrayList<>();
+        for (String id : indiceDirecciones.repetidasDe(address)) {
+            Address existente = direcciones.obtener(id);
+            if (existente != null) {
+                repetidas.add(existente);
+            }
+        }
+        return repetidas;
+    }
+
+    /**
+     * @return Por ciudad, los grupos de direcciones repetidas según la última revisión de
+     * fondo; en cada grupo la primera es la más antigua
+     */
+    public Map<City, List<List<Address>>> getDireccionesRepetidas() {
+        Map<City, List<List<Address>>> resultado = new EnumMap<>(City.class);
+        detectorRepetidas.getGrupos().forEach((ciudad, grupos) -> {
+            for (List<String> ids : grupos) {
+                List<Address> grupo = new ArrayList<>();
+                for (String id : ids) {
+                    Address address = direcciones.obtener(id);
+                    if (address != null) {
+                        grupo.add(address);
+                    }
+                }
+                if (grupo.size() > 1) {
+                    resultado.computeIfAbsent(ciudad, c -> new ArrayList<>()).add(grupo);
+                }
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Direcciones de un tipo sin las repetidas: de cada grupo queda solo la más antigua
+     * (para listas de selección)
+     */
+    public List<Address> getDireccionesSinRepetir(AddressType tipo) {
+        List<Address> resultado = new ArrayList<>();
+        for (Address address : direcciones.valores()) {
+            if (address.getType() == tipo && !detectorRepetidas.esRepetida(address.getId())) {
+                resultado.add(address);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @return Copia de las direcciones en orden de creación
+     */
     public ArrayList<Address> getListAddresses() {
-        return listAddresses;
+        return direcciones.valores();
     }
 
     // MÉTODOS PARA ENVÍOS
     public void addEnvio(Envio envio) {
-        listEnvios.add(envio);
+        candadosEnvios.ejecutar(envio.getId(), () -> {
+            cargarEnMemoria(envio);
+            publicarVersion(envio);
+            if (almacenEnvios != null) {
+                sincronizarEnvioMapeado(envio);
+            }
+            if (almacen != null) {
+                almacen.registrarEnvio(envio);
+            }
+            registrarDerivados(envio, null);
+        });
+    }
+
+    /**
+     * Agrega un lote de envíos. Cada uno entra al diario en orden con su candado, pero
+     * con persistencia síncrona se espera el disco una sola vez, al final del lote.
+     */
+    public void addEnvios(List<Envio> lote) {
+        long ultimaSecuencia = -1;
+        for (Envio envio : lote) {
+            long secuencia = candadosEnvios.ejecutar(envio.getId(), () -> {
+                cargarEnMemoria(envio);
+                publicarVersion(envio);
+                if (almacenEnvios != null) {
+                    sincronizarEnvioMapeado(envio);
+                }
+                long registro = almacen != null ? almacen.registrarEnvioDiferido(envio) : -1;
+                registrarDerivados(envio, null);
+                return registro;
+            });
+            ultimaSecuencia = Math.max(ultimaSecuencia, secuencia);
+        }
+        if (almacen != null && ultimaSecuencia >= 0) {
+            almacen.esperarDurabilidad(ultimaSecuencia);
+        }
     }
 
     public void updateEnvio(Envio envio) {
-        for (int i = 0; i < listEnvios.size(); i++) {
-            if (listEnvios.get(i).getId().equals(envio.getId())) {
-                listEnvios.set(i, envio);
-                break;
+        candadosEnvios.ejecutar(envio.getId(), () -> {
+            guardarActualizacion(envio, false);
+        });
+    }
+
+    /**
+     * Asigna un lote de envíos de una sola vez. Con los candados de todos los envíos
+     * tomados comprueba que cada uno siga registrado y sin repartidor, y solo entonces
+     * los asigna todos: ningún otro escritor se cruza con el lote, y las lecturas MVCC
+     * lo ven completo porque se publica en una sola versión.
+     * Los avisos de los setters no se atienden durante el lote: cada envío se registra
+     * una sola vez (un registro en el diario), y con persistencia síncrona se espera el
+     * disco una sola vez, al final.
+     * @param asignaciones Envío → repartidor
+     * @return false si algún envío ya no estaba pendiente; en ese caso no se asigna ninguno
+     */
+    public boolean asignarEnvios(Map<Envio, Dealer> asignaciones) {
+        if (asignaciones.isEmpty()) {
+            return true;
+        }
+        List<String> ids = new ArrayList<>(asignaciones.size());
+        for (Envio envio : asignaciones.keySet()) {
+            ids.add(envio.getId());
+        }
+        Long ultimaSecuencia = candadosEnvios.ejecutarTodos(ids, () -> {
+            for (String id : ids) {
+                Envio existente = envios.obtener(id);
+                if (existente == null || existente.getRepartidorAsignado() != null) {
+                    return null;
+                }
+            }
+            long ultima = -1;
+            List<Envio> asignados = new ArrayList<>(asignaciones.size());
+            // La versión MVCC se publica una sola vez con todo el lote
+            boolean anidado = cambioEnCurso.get();
+            cambioEnCurso.set(true);
+            try {
+                for (Map.Entry<Envio, Dealer> asignacion : asignaciones.entrySet()) {
+                    Envio envio = envios.obtener(asignacion.getKey().getId());
+                    envio.setRepartidorAsignado(asignacion.getValue());
+                    envio.setEstadoEntrega(EstadoEntrega.ASIGNADO);
+                    ultima = Math.max(ultima, guardarActualizacion(envio, true));
+                    asignados.add(envio);
+                }
+            } finally {
+                cambioEnCurso.set(anidado);
+            }
+            if (almacenEnvios == null && !anidado) {
+                versiones.publicarLote(asignados);
             }
+            return ultima;
+        });
+        if (ultimaSecuencia == null) {
+            return false;
         }
+        if (almacen != null && ultimaSecuencia >= 0) {
+            almacen.esperarDurabilidad(ultimaSecuencia);
+        }
+        return true;
+    }
+
+    /**
+     * Aplica un cambio sobre un envío con su candado tomado y registra el resultado.
+     * Los cambios concurrentes sobre el mismo envío se aplican uno tras otro, sin perder ninguno.
+     * @param envioId Id del envío
+     * @param cambio Modificación a aplicar sobre la instancia vigente
+     * @return false si el envío no existe
+     */
+    public boolean actualizarEnvio(String envioId, Consumer<Envio> cambio) {
+        return candadosEnvios.ejecutar(envioId, () -> {
+            Envio envio = buscarEnvioPorId(envioId);
+            if (envio == null) {
+                return false;
+            }
+            boolean anidado = cambioEnCurso.get();
+            cambioEnCurso.set(true);
+            try {
+                cambio.accept(envio);
+            } finally {
+                cambioEnCurso.set(anidado);
+            }
+            updateEnvio(envio);
+            return true;
+        });
+    }
+
+    /**
+     * Control de concurrencia optimista: aplica el cambio solo si el envío sigue en la
+     * versión que leyó quien lo edita (comparar y asignar bajo el candado del envío).
+     * @param envioId Id del envío
+     * @param versionEsperada Versión leída antes de editar
+     * @param cambio Modificación a aplicar sobre la instancia vigente
+     * @return false si el envío no existe o si otro escritor lo modificó entretanto
+     */
+    public boolean actualizarEnvioSiVersion(String envioId, long versionEsperada, Consumer<Envio> cambio) {
+        return candadosEnvios.ejecutar(envioId, () -> {
+            Envio envio = buscarEnvioPorId(envioId);
+            if (envio == null || envio.getVersion() != versionEsperada) {
+                return false;
+            }
+            return actualizarEnvio(envioId, cambio);
+        });
     }
 
     public boolean deleteEnvio(String envioId) {
-        return listEnvios.removeIf(envio -> envio.getId().equals(envioId));
+        return candadosEnvios.ejecutar(envioId, () -> {
+            Envio existente = envios.obtener(envioId);
+            boolean eliminado = existente != null;
+            if (existente != null) {
+                descargarDeMemoria(existente);
+                versiones.retirar(envioId);
+                estadisticas.reevaluarRepartidor(existente.getRepartidorAsignado());
+                indiceCarga.actualizarCarga(existente.getRepartidorAsignado());
+            }
+            if (almacenEnvios != null) {
+                eliminado |= almacenEnvios.eliminar(envioId);
+            }
+            estadisticas.retirar(envioId);
+            indiceConsultas.retirar(envioId);
+            indiceTexto.retirar(IndiceTexto.TipoDocumento.ENVIO, envioId);
+            if (eliminado && almacen != null) {
+                almacen.eliminarEnvio(envioId);
+            }
+            return eliminado;
+        });
+    }
+
+    public Envio buscarEnvioPorId(String envioId) {
+        Envio envio = envios.obtener(envioId);
+        if (envio == null && almacenEnvios != null) {
+            envio = almacenEnvios.leer(envioId);
+            if (envio != null) {
+                envio.setObserver(observadorEnvios);
+            }
+        }
+        return envio;
+    }
+
+    /**
+     * @return true si existe un envío con ese id, en memoria o en el archivo mapeado
+     */
+    public boolean existeEnvio(String envioId) {
+        return envios.contiene(envioId) || (almacenEnvios != null && almacenEnvios.contiene(envioId));
     }
 
+    /**
+     * @return Número total de envíos, sin materializar los que están en el archivo
+     */
+    public int contarEnvios() {
+        return almacenEnvios != null ? almacenEnvios.tamano() : envios.tamano();
+    }
+
+    /**
+     * Devuelve una copia de los envíos en orden de creación. Con archivo mapeado
+     * incluye vistas materializadas de los ya entregados.
+     */
     public ArrayList<Envio> getListEnvios() {
-        return listEnvios;
+        if (almacenEnvios == null) {
+            return envios.valores();
+        }
+        ArrayList<Envio> todos = new ArrayList<>(almacenEnvios.tamano());
+        for (String id : almacenEnvios.getIds()) {
+            Envio envio = buscarEnvioPorId(id);
+            if (envio != null) {
+                todos.add(envio);
+            }
+        }
+        return todos;
+    }
+
+    /**
+     * Foto inmutable y consistente de los envíos: obtenerla no cuesta nada y recorrerla
+     * no toma candados. Con archivo mapeado no se mantienen versiones (ocuparían el heap
+     * que el archivo ahorra) y se arma una con copias de todos los envíos.
+     */
+    public VersionEnvios getVersionEnvios() {
+        if (almacenEnvios == null) {
+            return versiones.getActual();
+        }
+        VectorPersistente<Envio> copias = VectorPersistente.vacio();
+        for (Envio envio : getListEnvios()) {
+            copias = copias.agregar(envio.copiar());
+        }
+        return new VersionEnvios(0, copias, copias.tamano());
+    }
+
+    /**
+     * Obtiene los envíos asignados a un repartidor sin recorrer todos los envíos
+     * @param repartidor El repartidor a consultar
+     * @return Lista de envíos asignados, en orden de asignación
+     */
+    public List<Envio> getEnviosPorRepartidor(Dealer repartidor) {
+        List<Envio> asignados = indiceRepartidores.getEnvios(repartidor);
+        if (almacenEnvios != null) {
+            // Los entregados ya no están en el índice: se leen del archivo
+            for (String id : almacenEnvios.getIdsPorRepartidor(repartidor.getId())) {
+                if (!envios.contiene(id)) {
+                    asignados.add(buscarEnvioPorId(id));
+                }
+            }
+        }
+        return asignados;
+    }
+
+    /**
+     * Cuenta los envíos activos (asignados y no entregados) de un repartidor en O(1)
+     * @param repartidor El repartidor a consultar
+     * @return Número de envíos activos
+     */
+    public int contarEnviosActivos(Dealer repartidor) {
+        return indiceRepartidores.getCargaActiva(repartidor);
+    }
+
+    /**
+     * Repartidores de cada ciudad ordenados por carga activa, al día con cada asignación y entrega
+     */
+    public IndiceCargaRepartidores getIndiceCargaRepartidores() {
+        return indiceCarga;
+    }
+
+    /**
+     * Orden sugerido de recogidas y entregas para los envíos activos del repartidor
+     * @param repartidor El repartidor a consultar
+     * @return La ruta guardada si sus envíos no cambiaron; si cambiaron, la ruta ajustada
+     */
+    public Ruta getRutaRepartidor(Dealer repartidor) {
+        return rutas.rutaDe(repartidor);
+    }
+
+    /**
+     * Estadísticas del dashboard, mantenidas con cada cambio: leerlas es O(1)
+     * sin importar cuántos envíos haya
+     */
+    public ResumenEstadisticas getEstadisticas() {
+        return estadisticas.getResumen();
+    }
+
+    /**
+     * Series de envíos creados y pagados por hora, día y mes, por ciudad de destino
+     */
+    public RollupsEnvios getRollupsEnvios() {
+        return estadisticas.getRollups();
+    }
+
+    /**
+     * Analítica aproximada (valores distintos, percentiles, más frecuentes) por día
+     */
+    public AnaliticaEnvios getAnaliticaEnvios() {
+        return estadisticas.getAnalitica();
+    }
+
+    /**
+     * Consulta indexada de envíos (incluye los entregados que están en el archivo mapeado).
+     * Los filtros se resuelven sobre índices; solo se leen los envíos del resultado.
+     */
+    public EnvioQuery consultarEnvios() {
+        return new EnvioQuery(indiceConsultas, this::buscarEnvioPorId);
+    }
+
+    /**
+     * Búsqueda por fragmentos de texto (nombre, cédula, teléfono, contenido, calle, alias
+     * o prefijo del id), sin distinguir tildes ni mayúsculas
+     * @param tipos Tipos de documento a buscar (ninguno = todos)
+     * @return Los mejores resultados, del más al menos relevante
+     */
+    public List<ResultadoBusqueda> buscarTexto(String texto, int limite, IndiceTexto.TipoDocumento... tipos) {
+        return indiceTexto.buscar(texto, limite, tipos);
+    }
+
+    /**
+     * Envíos que coinciden con el texto, del más al menos relevante
+     */
+    public List<Envio> buscarEnviosPorTexto(String texto, int limite) {
+        List<Envio> encontrados = new ArrayList<>();
+        for (ResultadoBusqueda resultado : indiceTexto.buscar(texto, limite, IndiceTexto.TipoDocumento.ENVIO)) {
+            Envio envio = buscarEnvioPorId(resultado.getId());
+            if (envio != null) {
+                encontrados.add(envio);
+            }
+        }
+        return encontrados;
+    }
+
+    // ==================== GENERACIÓN DE IDS ====================
+
+    /**
+     * Genera un id de envío nuevo (ENV0001, ENV0002...). Nunca repite un id,
+     * aunque se eliminen envíos o se llame desde varios hilos.
+     */
+    public String generarIdEnvio() {
+        return String.format("ENV%04d", generadorIds.siguiente(GeneradorIds.ENVIOS));
+    }
+
+    /**
+     * Id que probablemente recibirá el próximo envío, solo para mostrarlo en formularios
+     */
+    public String previsualizarIdEnvio() {
+        return String.format("ENV%04d", generadorIds.consultarSiguiente(GeneradorIds.ENVIOS));
+    }
+
+    public String generarIdCliente() {
+        return String.format("%04d", generadorIds.siguiente(GeneradorIds.CLIENTES));
+    }
+
+    public String generarIdRepartidor() {
+        return String.format("R%04d", generadorIds.siguiente(GeneradorIds.REPARTIDORES));
+    }
+
+    public String generarIdDireccion() {
+        return String.format("DIR%03d", generadorIds.siguiente(GeneradorIds.DIRECCIONES));
+    }
+
+    // ==================== ENVÍOS EN MEMORIA ====================
+
+    // Se invocan con el candado del envío tomado
+
+    /**
+     * Registra la nueva versión del envío en memoria, en los almacenes y en los derivados
+     * @param diferido true para no esperar el disco (el llamador espera la secuencia)
+     * @return Secuencia del registro diferido, o -1
+     */
+    private long guardarActualizacion(Envio envio, boolean diferido) {
+        Envio existente = envios.obtener(envio.getId());
+        Dealer repartidorAnterior = null;
+        if (existente == envio) {
+            // La instancia ya tiene el repartidor nuevo; el anterior es el del índice
+            repartidorAnterior = indiceRepartidores.conciliar(envio);
+        } else if (existente != null) {
+            repartidorAnterior = existente.getRepartidorAsignado();
+        }
+        if (existente == null) {
+            // Con archivo mapeado, el envío puede estar solo en disco (ya entregado)
+            if (almacenEnvios == null || !almacenEnvios.contiene(envio.getId())) {
+                return -1;
+            }
+            envio.setObserver(observadorEnvios);
+        } else if (existente != envio) {
+            // Los controladores modifican la misma instancia; solo se reemplaza si es otra,
+            // que nunca queda por debajo de la versión que reemplaza
+            envio.setVersion(Math.max(envio.getVersion(), existente.getVersion()));
+            envios.poner(envio.getId(), envio);
+            existente.setObserver(null);
+            indiceRepartidores.eliminar(existente);
+            indiceRepartidores.agregar(envio);
+            envio.setObserver(observadorEnvios);
+        }
+        envio.avanzarVersion();
+        publicarVersion(envio);
+        if (almacenEnvios != null) {
+            sincronizarEnvioMapeado(envio);
+        }
+        long registro = -1;
+        if (almacen != null) {
+            if (diferido) {
+                registro = almacen.registrarEnvioDiferido(envio);
+            } else {
+                almacen.registrarEnvio(envio);
+            }
+        }
+        registrarDerivados(envio, repartidorAnterior);
+        return registro;
+    }
+
+    private void publicarVersion(Envio envio) {
+        if (almacenEnvios == null && !cambioEnCurso.get()) {
+            versiones.publicar(envio);
+        }
+    }
+
+    /**
+     * Actualiza las estadísticas y los índices de consulta y de texto con el estado actual
+     * del envío, y la disponibilidad de los repartidores que ganaron o perdieron carga
+     */
+    private void registrarDerivados(Envio envio, Dealer repartidorAnterior) {
+        estadisticas.registrar(envio);
+        indiceConsultas.registrar(envio);
+        indiceTexto.indexarEnvio(envio);
+        Dealer repartidor = envio.getRepartidorAsignado();
+        estadisticas.reevaluarRepartidor(repartidor);
+        indiceCarga.actualizarCarga(repartidor);
+        if (repartidorAnterior != null && repartidorAnterior != repartidor) {
+            estadisticas.reevaluarRepartidor(repartidorAnterior);
+            indiceCarga.actualizarCarga(repartidorAnterior);
+        }
+    }
+
+    private void cargarEnMemoria(Envio envio) {
+        // Las copias de una dirección se cambian por la instancia que guarda SameDay
+        envio.setOrigen(internarDireccion(envio.getOrigen()));
+        envio.setDestino(internarDireccion(envio.getDestino()));
+        envios.poner(envio.getId(), envio);
+        indiceRepartidores.agregar(envio);
+        envio.setObserver(observadorEnvios);
+    }
+
+    private Address internarDireccion(Address address) {
+        if (address == null || address.getId() == null) {
+            return address;
+        }
+        Address registrada = direcciones.obtener(address.getId());
+        return registrada != null ? registrada : address;
+    }
+
+    private void descargarDeMemoria(Envio envio) {
+        envios.eliminar(envio.getId(), envio);
+        indiceRepartidores.eliminar(envio);
+        envio.setObserver(null);
+    }
+
+    /**
+     * Escribe el envío en el archivo mapeado y lo mantiene en memoria solo mientras
+     * no haya sido entregado. Una vista ya entregada que vuelve a otro estado regresa a memoria.
+     */
+    private void sincronizarEnvioMapeado(Envio envio) {
+        almacenEnvios.escribir(envio);
+        boolean entregado = envio.getEstadoEntrega() == EstadoEntrega.ENTREGADO;
+        Envio enMemoria = envios.obtener(envio.getId());
+        if (entregado && enMemoria == envio) {
+            descargarDeMemoria(envio);
+            // Quien tenga la instancia puede seguir editándola; los cambios llegan al archivo
+            envio.setObserver(observadorEnvios);
+        } else if (!entregado && enMemoria == null) {
+            cargarEnMemoria(envio);
+        }
+    }
+
+    // ==================== ÍNDICES DE PERSONAS ====================
+
+    private void indexarPersona(Person person) {
+        if (person.getUserAccount() != null && person.getUserAccount().getUser() != null) {
+            personasPorUsuario.put(person.getUserAccount().getUser(), person);
+        }
+        if (person instanceof Dealer) {
+            listDealers.add((Dealer) person);
+            dealersPorId.put(person.getId(), (Dealer) person);
+        } else if (person instanceof Client) {
+            listClients.add((Client) person);
+            clientesPorId.put(person.getId(), (Client) person);
+        } else if (person instanceof Admin) {
+            listAdmins.add((Admin) person);
+            adminsPorId.put(person.getId(), (Admin) person);
+        }
+    }
+
+    private void desindexarPersona(Person person) {
+        if (person.getUserAccount() != null) {
+            personasPorUsuario.remove(person.getUserAccount().getUser(), person);
+        }
+        if (person instanceof Dealer) {
+            listDealers.remove(person);
+            dealersPorId.remove(person.getId(), person);
+        } else if (person instanceof Client) {
+            listClients.remove(person);
+            clientesPorId.remove(person.getId(), person);
+        } else if (person instanceof Admin) {
+            listAdmins.remove(person);
+            adminsPorId.remove(person.getId(), person);
+        }
     }
 
     public Person getUserActive() {
         return userActive;
     }
-}
\ No newline at end of file
+
+    // ==================== RECUPERACIÓN ====================
+
+    /**
+     * Aplica las entidades recuperadas del snapshot y del diario. Las modificaciones
+     * se copian sobre la instancia existente para que los envíos sigan compartiendo
+     * sus direcciones y repartidores, igual que en la ejecución original.
+     */
+    private class RecuperacionSameDay implements ReceptorRecuperacion {
+
+        @Override
+        public void aplicarPersona(Person persona) {
+            Person existente = buscarPersonaPorClave(RegistroCodec.clavePersona(persona));
+            if (existente == null) {
+                agregarPersona(persona);
+                return;
+            }
+            String usuarioAnterior = existente.getUserAccount() != null ? existente.getUserAccount().getUser() : null;
+            existente.setDocumento(persona.getDocumento());
+            existente.setNombre(persona.getNombre());
+            existente.setCorreo(persona.getCorreo());
+            existente.setTelefono(persona.getTelefono());
+            if (existente instanceof Client) {
+                ((Client) existente).setDireccion(((Client) persona).getDireccion());
+            } else if (existente instanceof Dealer) {
+                ((Dealer) existente).setDisponibleManual(((Dealer) persona).isDisponibleManual());
+                ((Dealer) existente).setCity(((Dealer) persona).getCity());
+            } else if (existente instanceof Admin) {
+                ((Admin) existente).setCargo(((Admin) persona).getCargo());
+            }
+            if (persona.getUserAccount() != null) {
+                persona.getUserAccount().setPerson(existente);
+            }
+            existente.setUserAccount(persona.getUserAccount());
+            actualizarUsuario(existente, usuarioAnterior);
+            indiceTexto.indexarPersona(existente);
+        }
+
+        @Override
+        public void eliminarPersona(String clave) {
+            Person existente = buscarPersonaPorClave(clave);
+            if (existente != null) {
+                SameDay.this.eliminarPersona(existente);
+            }
+        }
+
+        @Override
+        public void aplicarDireccion(Address direccion) {
+            Address existente = direcciones.obtener(direccion.getId());
+            if (existente == null) {
+                addAddress(direccion);
+                return;
+            }
+            existente.setAlias(direccion.getAlias());
+            existente.setStreet(direccion.getStreet());
+            existente.setCity(direccion.getCity());
+            existente.setType(direccion.getType());
+            existente.setPlaceDescription(direccion.getPlaceDescription());
+            existente.setAdditionalInfo(direccion.getAdditionalInfo());
+            indexarDireccion(existente);
+        }
+
+        @Override
+        public void eliminarDireccion(String id) {
+            deleteAddress(id);
+        }
+
+        @Override
+        public void aplicarEnvio(Envio envio) {
+            if (existeEnvio(envio.getId())) {
+                updateEnvio(envio);
+            } else {
+                addEnvio(envio);
+            }
+        }
+
+        @Override
+        public void eliminarEnvio(String id) {
+            deleteEnvio(id);
+        }
+
+        @Override
+        public Address buscarDireccionPorId(String id) {
+            return direcciones.obtener(id);
+        }
+
+        @Override
+        public Dealer buscarDealerPorId(String id) {
+            return dealersPorId.get(id);
+        }
+
+        /**
+         * La clave es "rol:id"; se busca el id en los índices de cada rol y se confirma
+         * el rol con la clave del candidato. Solo una persona sin rol (que no está en
+         * esos índices) obliga a recorrer la lista.
+         */
+        private Person buscarPersonaPorClave(String clave) {
+            String id = clave.substring(clave.indexOf(':') + 1);
+            Person[] candidatos = {dealersPorId.get(id), clientesPorId.get(id), adminsPorId.get(id)};
+            for (Person candidato : candidatos) {
+                if (candidato != null && RegistroCodec.clavePersona(candidato).equals(clave)) {
+                    return candidato;
+                }
+            }
+            if (RegistroCodec.esClaveSinRol(clave)) {
+                for (Person persona : listPersons) {
+                    if (RegistroCodec.clavePersona(persona).equals(clave)) {
+                        return persona;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
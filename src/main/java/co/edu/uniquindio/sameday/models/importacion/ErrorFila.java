@@ -0,0 +1,27 @@
+package co.edu.uniquindio.sameday.models.importacion;
+
+/**
+ * Fila del archivo que no se pudo importar
+ */
+public class ErrorFila {
+
+    private final long fila;
+    private final String mensaje;
+
+    /**
+     * @param fila Número del registro en el archivo, desde 1 (sin contar el encabezado CSV)
+     */
+    public ErrorFila(long fila, String mensaje) {
+        this.fila = fila;
+        this.mensaje = mensaje;
+    }
+
+    public long getFila() { return fila; }
+
+    public String getMensaje() { return mensaje; }
+
+    @Override
+    public String toString() {
+        return "Fila " + fila + ": " + mensaje;
+    }
+}
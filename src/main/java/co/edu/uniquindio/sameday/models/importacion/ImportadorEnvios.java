@@ -0,0 +1,360 @@
+package co.edu.uniquindio.sameday.models.importacion;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.ServicioAdicional;
+import co.edu.uniquindio.sameday.models.creational.builder.EnvioBuilder;
+import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
+import co.edu.uniquindio.sameday.models.tarifas.MotorTarifas;
+import co.edu.uniquindio.sameday.models.validacion.ConjuntoReglas;
+import co.edu.uniquindio.sameday.models.validacion.ReglasEnvio;
+import co.edu.uniquindio.sameday.models.validacion.ResultadoValidacion;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Importación masiva de envíos desde un archivo CSV o JSON.
+ *
+ * El hilo que llama lee el archivo en orden y lo corta en bloques de filas; cada bloque
+ * se interpreta, se arma con EnvioBuilder, se cotiza y se valida (ReglasEnvio.ENVIO, el
+ * bloque completo de una vez) en un hilo de trabajo.
+ * El hilo que llama recibe los bloques en el orden del archivo, les asigna ids y los
+ * agrega a SameDay por lotes. Solo hay unos pocos bloques en memoria a la vez (el
+ * lector espera si los trabajadores van atrás), así que el tamaño del archivo no importa.
+ *
+ * Una fila que no pasa la validación, o con la que falla cualquier etapa, queda en el
+ * reporte de errores y la importación sigue con las demás. Un registro de más de
+ * LectorManifiesto.MAXIMO_REGISTRO caracteres (por ejemplo, unas comillas sin cerrar)
+ * detiene la lectura con un error general.
+ *
+ * Columnas (sin distinguir mayúsculas): origen y destino (ids de dirección), peso,
+ * dimensiones, volumen (si falta se calcula de las dimensiones), contenido,
+ * nombreDestinatario, cedulaDestinatario, telefonoDestinatario y servicios
+ * (por ejemplo "SEGURO|FRAGIL", o un arreglo en JSON).
+ */
+public class ImportadorEnvios {
+
+    public enum Formato {
+        CSV, JSON;
+
+        /**
+         * .json y .jsonl son JSON; cualquier otra extensión se lee como CSV
+         */
+        public static Formato deArchivo(Path archivo) {
+            String nombre = archivo.getFileName().toString().toLowerCase(Locale.ROOT);
+            return nombre.endsWith(".json") || nombre.endsWith(".jsonl") ? JSON : CSV;
+        }
+    }
+
+    private static final int FILAS_POR_BLOQUE = 512;
+    // Bloques en vuelo por hilo de trabajo antes de que el lector espere
+    private static final int BLOQUES_POR_HILO = 2;
+    // El id definitivo se asigna al agregar, en el orden del archivo
+    private static final String ID_PROVISIONAL = "IMPORTACION";
+    private static final AtomicInteger CONTADOR_HILOS = new AtomicInteger();
+
+    private final SameDay sameDay;
+    private final MotorTarifas tarifas;
+    private final int hilos;
+    private Writer reporteErrores;
+
+    public ImportadorEnvios(SameDay sameDay) {
+        this(sameDay, MotorTarifas.getInstance(), Runtime.getRuntime().availableProcessors());
+    }
+
+    public ImportadorEnvios(SameDay sameDay, MotorTarifas tarifas, int hilos) {
+        if (hilos <= 0) {
+            throw new IllegalArgumentException("Se necesita al menos un hilo de trabajo");
+        }
+        this.sameDay = sameDay;
+        this.tarifas = tarifas;
+        this.hilos = hilos;
+    }
+
+    /**
+     * Escribe todos los errores de fila (CSV: fila,mensaje) a medida que aparecen.
+     * El importador no cierra el writer.
+     */
+    public ImportadorEnvios setReporteErrores(Writer reporteErrores) {
+        this.reporteErrores = reporteErrores;
+        return this;
+    }
+
+    /**
+     * Importa el archivo en UTF-8, con el formato según su extensión
+     * @throws IOException si el archivo no se puede abrir o está vacío
+     */
+    public ResultadoImportacion importar(Path archivo, ProgresoImportacion progreso) throws IOException {
+        try (Reader entrada = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            return importar(entrada, Formato.deArchivo(archivo), progreso);
+        }
+    }
+
+    /**
+     * Importa hasta el final de la entrada. Un error de lectura a mitad del archivo o la
+     * interrupción del hilo detienen la importación; lo ya agregado se conserva y el
+     * motivo queda en ResultadoImportacion.getErrorGeneral().
+     * @throws IOException si la entrada está vacía o no se puede empezar a leer
+     */
+    public ResultadoImportacion importar(Reader entrada, Formato formato, ProgresoImportacion progreso)
+            throws IOException {
+        long inicio = System.currentTimeMillis();
+        LectorManifiesto lector = formato == Formato.CSV ? new LectorCsv(entrada) : new LectorJson(entrada);
+        ProgresoImportacion avance = progreso != null ? progreso : ProgresoImportacion.NINGUNO;
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        if (reporteErrores != null) {
+            reporteErrores.write("fila,mensaje\n");
+        }
+
+        ExecutorService trabajadores = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "sameday-importacion-" + CONTADOR_HILOS.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        Deque<Future<Bloque>> enCurso = new ArrayDeque<>();
+        long filasLeidas = 0;
+        boolean finArchivo = false;
+        try {
+            while (!finArchivo) {
+                List<String> filas = new ArrayList<>(FILAS_POR_BLOQUE);
+                try {
+                    String fila;
+                    while (filas.size() < FILAS_POR_BLOQUE && (fila = lector.siguiente()) != null) {
+                        filas.add(fila);
+                    }
+                    finArchivo = filas.size() < FILAS_POR_BLOQUE;
+                } catch (IOException e) {
+                    // Las filas completas antes del error sí se importan
+                    resultado.setErrorGeneral("Error leyendo el archivo después de la fila "
+                            + (filasLeidas + filas.size()) + ": " + e.getMessage());
+                    finArchivo = true;
+                }
+                if (!filas.isEmpty()) {
+                    long primeraFila = filasLeidas + 1;
+                    enCurso.add(trabajadores.submit(() -> procesar(lector, primeraFila, filas)));
+                    filasLeidas += filas.size();
+                }
+                while (!enCurso.isEmpty() && (finArchivo || enCurso.size() > hilos * BLOQUES_POR_HILO)) {
+                    agregar(enCurso.poll().get(), resultado);
+                    avance.avance(resultado.getLeidas(), resultado.getImportadas(), resultado.getFallidas());
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resultado.setErrorGeneral("Importación cancelada después de la fila " + resultado.getLeidas());
+        } catch (ExecutionException e) {
+            // procesar() atrapa los errores de fila: esto es una falla del programa
+            throw new IllegalStateException("Falla procesando el archivo", e.getCause());
+        } finally {
+            trabajadores.shutdownNow();
+        }
+
+        resultado.setDuracionMs(System.currentTimeMillis() - inicio);
+        System.out.println("📥 Importación de envíos: " + resultado);
+        return resultado;
+    }
+
+    /**
+     * Etapas en paralelo: interpretar, armar y cotizar cada fila del bloque, y validar
+     * el bloque completo en una pasada
+     */
+    private Bloque procesar(LectorManifiesto lector, long primeraFila, List<String> filas) {
+        Bloque bloque = new Bloque(filas.size());
+        List<Envio> candidatos = new ArrayList<>(filas.size());
+        long[] filaCandidato = new long[filas.size()];
+        for (int i = 0; i < filas.size(); i++) {
+            try {
+                filaCandidato[candidatos.size()] = primeraFila + i;
+                candidatos.add(armar(lector.campos(filas.get(i))));
+            } catch (RuntimeException e) {
+                // Cualquier falla con una fila (no solo las esperadas) es un error de esa fila
+                bloque.errores.add(new ErrorFila(primeraFila + i, mensaje(e)));
+            }
+        }
+
+        ResultadoValidacion validacion;
+        try {
+            validacion = ReglasEnvio.ENVIO.validarLote(candidatos, ConjuntoReglas.Modo.TODOS_LOS_ERRORES);
+        } catch (RuntimeException e) {
+            // Una regla falló con algún candidato: se valida uno por uno para saber cuál
+            validacion = null;
+        }
+        for (int i = 0; i < candidatos.size(); i++) {
+            List<String> errores;
+            if (validacion != null) {
+                errores = validacion.erroresDe(i);
+            } else {
+                try {
+                    errores = ReglasEnvio.ENVIO.validar(candidatos.get(i));
+                } catch (RuntimeException e) {
+                    errores = List.of(mensaje(e));
+                }
+            }
+            if (errores.isEmpty()) {
+                bloque.envios.add(candidatos.get(i));
+            } else {
+                bloque.errores.add(new ErrorFila(filaCandidato[i], String.join("; ", errores)));
+            }
+        }
+        // Los errores de interpretación y los de validación quedan en el orden del archivo
+        bloque.errores.sort(Comparator.comparingLong(ErrorFila::getFila));
+        return bloque;
+    }
+
+    private static String mensaje(RuntimeException e) {
+        if (e instanceof IllegalArgumentException && e.getMessage() != null) {
+            return e.getMessage();
+        }
+        return "Error inesperado procesando la fila: " + e;
+    }
+
+    private Envio armar(Map<String, String> campos) {
+        String dimensiones = texto(campos, "dimensiones");
+        double peso = numero(campos, "peso", "El peso");
+        double volumen = texto(campos, "volumen").isEmpty()
+                ? volumenDe(dimensiones) : numero(campos, "volumen", "El volumen");
+        List<ServicioAdicional> servicios = servicios(texto(campos, "servicios"));
+
+        EnvioBuilder builder = new EnvioBuilder(ID_PROVISIONAL)
+                .origen(direccion(campos, "origen"))
+                .destino(direccion(campos, "destino"))
+                .peso(peso)
+                .dimensiones(dimensiones)
+                .volumen(volumen)
+                .contenido(texto(campos, "contenido"))
+                .destinatario(texto(campos, "nombredestinatario"),
+                        texto(campos, "ceduladestinatario"),
+                        texto(campos, "telefonodestinatario"))
+                .serviciosAdicionales(servicios);
+        // Se cotiza antes de validar: las reglas exigen un costo mayor a 0
+        if (peso > 0) {
+            builder.costoTotal(tarifas.cotizar(peso, servicios));
+        }
+        return builder.armar();
+    }
+
+    /**
+     * Etapa final, en el hilo que importa y en el orden del archivo
+     */
+    private void agregar(Bloque bloque, ResultadoImportacion resultado) throws IOException {
+        for (Envio envio : bloque.envios) {
+            envio.setId(sameDay.generarIdEnvio());
+        }
+        if (!bloque.envios.isEmpty()) {
+            sameDay.addEnvios(bloque.envios);
+        }
+        resultado.sumarLeidas(bloque.leidas);
+        resultado.sumarImportadas(bloque.envios.size());
+        for (ErrorFila error : bloque.errores) {
+            resultado.agregarError(error);
+            if (reporteErrores != null) {
+                reporteErrores.write(error.getFila() + ",\"" + error.getMensaje().replace("\"", "\"\"") + "\"\n");
+            }
+        }
+    }
+
+    private Address direccion(Map<String, String> campos, String columna) {
+        String id = texto(campos, columna);
+        if (id.isEmpty()) {
+            return null; // La validación del builder informa que falta
+        }
+        Address direccion = sameDay.buscarDireccionPorId(id);
+        if (direccion == null) {
+            throw new IllegalArgumentException("La dirección de " + columna + " '" + id + "' no existe");
+        }
+        return direccion;
+    }
+
+    private static String texto(Map<String, String> campos, String columna) {
+        String valor = campos.get(columna);
+        return valor != null ? valor.trim() : "";
+    }
+
+    /**
+     * Acepta coma decimal ("2,5"); vacío es 0 para que la validación lo informe
+     */
+    private static double numero(Map<String, String> campos, String columna, String nombre) {
+        String valor = texto(campos, columna);
+        if (valor.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(valor.replace(',', '.'));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(nombre + " '" + valor + "' no es un número");
+        }
+    }
+
+    /**
+     * Volumen en cm³ de unas dimensiones "LxAxH" (con o sin " cm"); 0 si no se pueden leer
+     */
+    private static double volumenDe(String dimensiones) {
+        String[] medidas = dimensiones.toLowerCase(Locale.ROOT).replace("cm", "").split("x");
+        if (medidas.length != 3) {
+            return 0;
+        }
+        double volumen = 1;
+        try {
+            for (String medida : medidas) {
+                volumen *= Double.parseDouble(medida.trim().replace(',', '.'));
+            }
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        return volumen;
+    }
+
+    /**
+     * "SEGURO|FRAGIL", "seguro; firma requerida"...
+     */
+    private static List<ServicioAdicional> servicios(String valor) {
+        EnumSet<ServicioAdicional> servicios = EnumSet.noneOf(ServicioAdicional.class);
+        if (valor.isEmpty()) {
+            return new ArrayList<>(servicios);
+        }
+        for (String nombre : valor.split("[|;]")) {
+            String normalizado = nombre.trim().toUpperCase(Locale.ROOT).replace(' ', '_');
+            if (normalizado.isEmpty()) {
+                continue;
+            }
+            try {
+                servicios.add(ServicioAdicional.valueOf(normalizado));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Servicio adicional desconocido: " + nombre.trim());
+            }
+        }
+        return new ArrayList<>(servicios);
+    }
+
+    private static final class Bloque {
+        final int leidas;
+        final List<Envio> envios;
+        final List<ErrorFila> errores = new ArrayList<>();
+
+        Bloque(int leidas) {
+            this.leidas = leidas;
+            this.envios = new ArrayList<>(leidas);
+        }
+    }
+}
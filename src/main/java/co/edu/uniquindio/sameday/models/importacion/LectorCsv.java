@@ -0,0 +1,105 @@
+package co.edu.uniquindio.sameday.models.importacion;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * CSV con encabezado (RFC 4180): los valores entre comillas pueden tener separadores y
+ * saltos de línea, y "" es una comilla. El separador es coma, o punto y coma si el
+ * encabezado solo tiene punto y coma (lo que exporta Excel en español).
+ */
+class LectorCsv extends LectorManifiesto {
+
+    private final String[] columnas;
+    private final char separador;
+
+    LectorCsv(Reader entrada) throws IOException {
+        super(entrada);
+        if (mirar() == '\uFEFF') {
+            leer();
+        }
+        String encabezado = siguiente();
+        if (encabezado == null) {
+            throw new IOException("El archivo está vacío");
+        }
+        separador = encabezado.indexOf(',') < 0 && encabezado.indexOf(';') >= 0 ? ';' : ',';
+        List<String> nombres = partir(encabezado);
+        columnas = new String[nombres.size()];
+        for (int i = 0; i < columnas.length; i++) {
+            columnas[i] = nombres.get(i).trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @Override
+    String siguiente() throws IOException {
+        StringBuilder fila = new StringBuilder(128);
+        boolean entreComillas = false;
+        int c;
+        while ((c = leer()) != -1) {
+            if (c == '"') {
+                entreComillas = !entreComillas;
+            } else if ((c == '\n' || c == '\r') && !entreComillas) {
+                if (c == '\r' && mirar() == '\n') {
+                    leer();
+                }
+                if (fila.length() == 0) {
+                    continue; // Línea en blanco
+                }
+                return fila.toString();
+            }
+            fila.append((char) c);
+            verificarTamano(fila);
+        }
+        if (entreComillas) {
+            throw new IOException("Comillas sin cerrar al final del archivo");
+        }
+        return fila.length() > 0 ? fila.toString() : null;
+    }
+
+    @Override
+    Map<String, String> campos(String fila) {
+        List<String> valores = partir(fila);
+        if (valores.size() != columnas.length) {
+            throw new IllegalArgumentException("La fila tiene " + valores.size()
+                    + " columnas y el encabezado " + columnas.length);
+        }
+        Map<String, String> campos = new HashMap<>(columnas.length * 2);
+        for (int i = 0; i < columnas.length; i++) {
+            campos.put(columnas[i], valores.get(i));
+        }
+        return campos;
+    }
+
+    private List<String> partir(String fila) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder valor = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < fila.length(); i++) {
+            char c = fila.charAt(i);
+            if (entreComillas) {
+                if (c != '"') {
+                    valor.append(c);
+                } else if (i + 1 < fila.length() && fila.charAt(i + 1) == '"') {
+                    valor.append('"');
+                    i++;
+                } else {
+                    entreComillas = false;
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                valores.add(valor.toString());
+                valor.setLength(0);
+            } else {
+                valor.append(c);
+            }
+        }
+        valores.add(valor.toString());
+        return valores;
+    }
+}
@@ -0,0 +1,232 @@
+package co.edu.uniquindio.sameday.models.importacion;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * JSON con un arreglo de objetos planos ([{...}, {...}]) o un objeto por línea
+ * (JSON Lines). Los valores pueden ser texto, números, true/false, null o arreglos de
+ * esos valores (un arreglo se entrega unido con '|', igual que una columna CSV).
+ *
+ * El hilo lector solo corta cada objeto contando llaves fuera de las cadenas; el
+ * análisis del objeto se hace en campos(), en los hilos de trabajo.
+ */
+class LectorJson extends LectorManifiesto {
+
+    private boolean terminado;
+
+    LectorJson(Reader entrada) throws IOException {
+        super(entrada);
+        if (mirar() == '\uFEFF') {
+            leer();
+        }
+    }
+
+    @Override
+    String siguiente() throws IOException {
+        if (terminado) {
+            return null;
+        }
+        int c;
+        while ((c = leer()) != -1) {
+            if (c == '{') {
+                return cortarObjeto();
+            }
+            if (c == ']') {
+                terminado = true;
+                return null;
+            }
+            if (c != '[' && c != ',' && !Character.isWhitespace(c)) {
+                throw new IOException("JSON inválido: se esperaba '{' en el carácter " + getPosicion());
+            }
+        }
+        terminado = true;
+        return null;
+    }
+
+    private String cortarObjeto() throws IOException {
+        StringBuilder objeto = new StringBuilder(256).append('{');
+        int profundidad = 1;
+        boolean enCadena = false;
+        int c;
+        while ((c = leer()) != -1) {
+            objeto.append((char) c);
+            verificarTamano(objeto);
+            if (enCadena) {
+                if (c == '\\') {
+                    int escapado = leer();
+                    if (escapado == -1) {
+                        break;
+                    }
+                    objeto.append((char) escapado);
+                } else if (c == '"') {
+                    enCadena = false;
+                }
+            } else if (c == '"') {
+                enCadena = true;
+            } else if (c == '{') {
+                profundidad++;
+            } else if (c == '}' && --profundidad == 0) {
+                return objeto.toString();
+            }
+        }
+        throw new IOException("JSON inválido: objeto sin cerrar al final del archivo");
+    }
+
+    @Override
+    Map<String, String> campos(String fila) {
+        return new Analizador(fila).objeto();
+    }
+
+    /**
+     * Análisis de un objeto ya cortado; uno por fila, así que no se comparte entre hilos
+     */
+    private static final class Analizador {
+
+        private final String texto;
+        private int i;
+
+        Analizador(String texto) {
+            this.texto = texto;
+        }
+
+        Map<String, String> objeto() {
+            Map<String, String> campos = new HashMap<>();
+            esperar('{');
+            espacios();
+            if (mirar() == '}') {
+                i++;
+                return campos;
+            }
+            do {
+                espacios();
+                String clave = cadena();
+                espacios();
+                esperar(':');
+                espacios();
+                campos.put(clave.toLowerCase(Locale.ROOT), valor(true));
+                espacios();
+            } while (consumirSi(','));
+            esperar('}');
+            return campos;
+        }
+
+        private String valor(boolean admiteArreglo) {
+            char c = mirar();
+            if (c == '"') {
+                return cadena();
+            }
+            if (c == '[' && admiteArreglo) {
+                return arreglo();
+            }
+            if (c == '{' || c == '[') {
+                throw error("solo se admiten valores planos");
+            }
+            int inicio = i;
+            while (i < texto.length() && ",}] \t\r\n".indexOf(texto.charAt(i)) < 0) {
+                i++;
+            }
+            String literal = texto.substring(inicio, i);
+            if (literal.isEmpty()) {
+                throw error("falta un valor");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String arreglo() {
+            StringBuilder unido = new StringBuilder();
+            esperar('[');
+            espacios();
+            if (consumirSi(']')) {
+                return "";
+            }
+            do {
+                espacios();
+                String elemento = valor(false);
+                if (elemento != null) {
+                    if (unido.length() > 0) {
+                        unido.append('|');
+                    }
+                    unido.append(elemento);
+                }
+                espacios();
+            } while (consumirSi(','));
+            esperar(']');
+            return unido.toString();
+        }
+
+        private String cadena() {
+            esperar('"');
+            StringBuilder valor = new StringBuilder();
+            while (i < texto.length()) {
+                char c = texto.charAt(i++);
+                if (c == '"') {
+                    return valor.toString();
+                }
+                if (c != '\\') {
+                    valor.append(c);
+                    continue;
+                }
+                if (i >= texto.length()) {
+                    break;
+                }
+                char escapado = texto.charAt(i++);
+                switch (escapado) {
+                    case 'n': valor.append('\n'); break;
+                    case 't': valor.append('\t'); break;
+                    case 'r': valor.append('\r'); break;
+                    case 'b': valor.append('\b'); break;
+                    case 'f': valor.append('\f'); break;
+                    case 'u':
+                        if (i + 4 > texto.length()) {
+                            throw error("escape \\u incompleto");
+                        }
+                        try {
+                            valor.append((char) Integer.parseInt(texto.substring(i, i + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("escape \\u inválido");
+                        }
+                        i += 4;
+                        break;
+                    default: valor.append(escapado);
+                }
+            }
+            throw error("cadena sin cerrar");
+        }
+
+        private char mirar() {
+            if (i >= texto.length()) {
+                throw error("objeto incompleto");
+            }
+            return texto.charAt(i);
+        }
+
+        private void esperar(char c) {
+            if (mirar() != c) {
+                throw error("se esperaba '" + c + "'");
+            }
+            i++;
+        }
+
+        private boolean consumirSi(char c) {
+            if (i < texto.length() && texto.charAt(i) == c) {
+                i++;
+                return true;
+            }
+            return false;
+        }
+
+        private void espacios() {
+            while (i < texto.length() && Character.isWhitespace(texto.charAt(i))) {
+                i++;
+            }
+        }
+
+        private IllegalArgumentException error(String detalle) {
+            return new IllegalArgumentException("JSON inválido (" + detalle + ", posición " + i + ")");
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package co.edu.uniquindio.sameday.models.importacion;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+/**
+ * Lectura de un archivo de envíos en dos pasos.
+ *
+ * siguiente() corta el texto crudo de cada fila y solo la llama el hilo que lee el
+ * archivo, en orden; campos() interpreta una fila ya cortada y la llaman los hilos de
+ * trabajo en paralelo, así que no debe modificar el estado del lector.
+ */
+abstract class LectorManifiesto {
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+    /**
+     * Caracteres máximos de un registro. Una comilla o llave sin cerrar haría que el
+     * resto del archivo se leyera como un solo registro; con el límite se detiene ahí
+     */
+    static final int MAXIMO_REGISTRO = 1024 * 1024;
+
+    private final Reader entrada;
+    private final char[] buffer = new char[TAMANO_BUFFER];
+    private int posicion;
+    private int limite;
+    // Caracteres consumidos antes del buffer actual, para ubicar errores
+    private long consumidos;
+
+    protected LectorManifiesto(Reader entrada) {
+        this.entrada = entrada;
+    }
+
+    /**
+     * @return El texto de la siguiente fila, o null al terminar el archivo
+     * @throws IOException si el archivo no se puede leer o está mal formado
+     */
+    abstract String siguiente() throws IOException;
+
+    /**
+     * @return Columna → valor de la fila, con los nombres de columna en minúscula
+     * @throws IllegalArgumentException si la fila está mal formada
+     */
+    abstract Map<String, String> campos(String fila);
+
+    /**
+     * @return El siguiente carácter, o -1 al final del archivo
+     */
+    protected int leer() throws IOException {
+        if (posicion == limite && !llenar()) {
+            return -1;
+        }
+        return buffer[posicion++];
+    }
+
+    /**
+     * @return El siguiente carácter sin consumirlo, o -1 al final del archivo
+     */
+    protected int mirar() throws IOException {
+        if (posicion == limite && !llenar()) {
+            return -1;
+        }
+        return buffer[posicion];
+    }
+
+    protected long getPosicion() {
+        return consumidos + posicion;
+    }
+
+    /**
+     * @throws IOException si el registro que se está cortando pasó de MAXIMO_REGISTRO
+     */
+    protected void verificarTamano(StringBuilder registro) throws IOException {
+        if (registro.length() > MAXIMO_REGISTRO) {
+            throw new IOException("Registro de más de " + MAXIMO_REGISTRO
+                    + " caracteres antes del carácter " + getPosicion()
+                    + " (¿comillas o llaves sin cerrar?)");
+        }
+    }
+
+    private boolean llenar() throws IOException {
+        consumidos += limite;
+        posicion = 0;
+        limite = 0;
+        int leidos;
+        do {
+            leidos = entrada.read(buffer, 0, buffer.length);
+        } while (leidos == 0);
+        if (leidos < 0) {
+            return false;
+        }
+        limite = leidos;
+        return true;
+    }
+}
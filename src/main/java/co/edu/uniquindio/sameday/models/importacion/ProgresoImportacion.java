@@ -0,0 +1,12 @@
+package co.edu.uniquindio.sameday.models.importacion;
+
+/**
+ * Avance de una importación; se llama desde el hilo que importa después de cada bloque
+ */
+@FunctionalInterface
+public interface ProgresoImportacion {
+
+    ProgresoImportacion NINGUNO = (leidas, importadas, fallidas) -> { };
+
+    void avance(long leidas, long importadas, long fallidas);
+}
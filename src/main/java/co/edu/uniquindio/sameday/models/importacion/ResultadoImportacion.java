@@ -0,0 +1,78 @@
+package co.edu.uniquindio.sameday.models.importacion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resumen de una importación.
+ *
+ * Guarda en memoria solo los primeros errores de fila (para mostrarlos); el reporte
+ * completo se escribe mientras se importa si se pidió con ImportadorEnvios.setReporteErrores.
+ */
+public class ResultadoImportacion {
+
+    public static final int MAX_ERRORES_EN_MEMORIA = 1000;
+
+    private long leidas;
+    private long importadas;
+    private long fallidas;
+    private final List<ErrorFila> errores = new ArrayList<>();
+    // Falla que detuvo la importación (archivo ilegible, JSON desalineado, cancelación)
+    private String errorGeneral;
+    private long duracionMs;
+
+    void sumarLeidas(int cantidad) {
+        leidas += cantidad;
+    }
+
+    void sumarImportadas(int cantidad) {
+        importadas += cantidad;
+    }
+
+    void agregarError(ErrorFila error) {
+        fallidas++;
+        if (errores.size() < MAX_ERRORES_EN_MEMORIA) {
+            errores.add(error);
+        }
+    }
+
+    void setErrorGeneral(String errorGeneral) {
+        this.errorGeneral = errorGeneral;
+    }
+
+    void setDuracionMs(long duracionMs) {
+        this.duracionMs = duracionMs;
+    }
+
+    public long getLeidas() { return leidas; }
+
+    public long getImportadas() { return importadas; }
+
+    public long getFallidas() { return fallidas; }
+
+    /**
+     * @return Los primeros errores de fila, en el orden del archivo
+     */
+    public List<ErrorFila> getErrores() {
+        return Collections.unmodifiableList(errores);
+    }
+
+    public String getErrorGeneral() { return errorGeneral; }
+
+    /**
+     * @return true si el archivo se leyó hasta el final (aunque haya filas con error)
+     */
+    public boolean isCompleta() {
+        return errorGeneral == null;
+    }
+
+    public long getDuracionMs() { return duracionMs; }
+
+    @Override
+    public String toString() {
+        String resumen = importadas + " de " + leidas + " envíos importados, " + fallidas + " con error ("
+                + duracionMs + " ms)";
+        return errorGeneral != null ? resumen + ". Importación detenida: " + errorGeneral : resumen;
+    }
+}
@@ -0,0 +1,203 @@
+package co.edu.uniquindio.sameday.models.persistence;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.Person;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modo de persistencia durable de SameDay.
+ *
+ * Coordina el diario de escritura anticipada (DiarioEscritura) y la compactación
+ * en segundo plano (CompactadorSnapshots):
+ * - Cada mutación se registra en el diario antes de confirmarse a quien la hizo.
+ * - Periódicamente se sella el segmento activo y se genera un snapshot compactado.
+ * - Al arrancar se carga el último snapshot y se reproduce la cola del diario.
+ */
+public class AlmacenDurable implements AutoCloseable {
+
+    private static final long INTERVALO_SNAPSHOT_MINUTOS = 5;
+
+    private final Path directorio;
+    private final boolean sincrono;
+    private final CompactadorSnapshots compactador;
+    private final ScheduledExecutorService tareasFondo;
+    private DiarioEscritura diario;
+
+    /**
+     * @param directorio Directorio de datos (se crea si no existe)
+     * @param sincrono Si es true, cada mutación espera a que su registro esté sincronizado en disco
+     */
+    public AlmacenDurable(Path directorio, boolean sincrono) throws IOException {
+        this.directorio = Files.createDirectories(directorio);
+        this.sincrono = sincrono;
+        this.compactador = new CompactadorSnapshots(directorio);
+        this.tareasFondo = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "sameday-snapshots");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Reconstruye el estado a partir del último snapshot y de la cola del diario,
+     * y abre el diario para las nuevas operaciones
+     * @param receptor Destino de las entidades recuperadas
+     * @return true si se recuperó algún dato, false si el directorio estaba vacío
+     */
+    public boolean recuperar(ReceptorRecuperacion receptor) throws IOException {
+        long inicio = System.currentTimeMillis();
+        long ultimaSecuencia = 0;
+        long registros = 0;
+
+        Path snapshot = compactador.buscarUltimoSnapshot();
+        if (snapshot != null) {
+            long[] contador = new long[1];
+            ultimaSecuencia = compactador.recorrerSnapshot(snapshot, registro -> {
+                aplicar(registro, receptor);
+                contador[0]++;
+            });
+            registros += contador[0];
+        }
+
+        for (Path segmento : compactador.listarSegmentos()) {
+            try (DataInputStream in = CompactadorSnapshots.abrir(segmento)) {
+                Registro registro;
+                // Una trama incompleta o corrupta marca el final de lo que llegó a disco
+                while ((registro = Registro.leer(in)) != null) {
+                    if (registro.getSecuencia() > ultimaSecuencia) {
+                        aplicar(registro, receptor);
+                        ultimaSecuencia = registro.getSecuencia();
+                        registros++;
+                    }
+                }
+            }
+        }
+
+        diario = new DiarioEscritura(directorio, ultimaSecuencia + 1, this::programarCompactacion);
+        tareasFondo.scheduleAtFixedRate(diario::solicitarRotacion,
+                INTERVALO_SNAPSHOT_MINUTOS, INTERVALO_SNAPSHOT_MINUTOS, TimeUnit.MINUTES);
+        programarCompactacion();
+
+        System.out.println("=== RECUPERACIÓN COMPLETADA: " + registros + " registros en "
+                + (System.currentTimeMillis() - inicio) + " ms ===");
+        return registros > 0;
+    }
+
+    // ==================== OPERACIONES ====================
+
+    public void registrarPersona(Person persona) {
+        registrar(Registro.PERSONA_PUT, RegistroCodec.codificarPersona(persona));
+    }
+
+    public void eliminarPersona(Person persona) {
+        registrar(Registro.PERSONA_DEL, RegistroCodec.codificarClave(RegistroCodec.clavePersona(persona)));
+    }
+
+    public void registrarDireccion(Address direccion) {
+        registrar(Registro.DIRECCION_PUT, RegistroCodec.codificarDireccion(direccion));
+    }
+
+    public void eliminarDireccion(String id) {
+        registrar(Registro.DIRECCION_DEL, RegistroCodec.codificarClave(id));
+    }
+
+    public void registrarEnvio(Envio envio) {
+        registrar(Registro.ENVIO_PUT, RegistroCodec.codificarEnvio(envio));
+    }
+
+    /**
+     * Registra el envío sin esperar a que llegue al disco (para lotes: se espera una
+     * sola vez, por el último, con esperarDurabilidad)
+     * @return Secuencia del registro
+     */
+    public long registrarEnvioDiferido(Envio envio) {
+        return diario.registrar(Registro.ENVIO_PUT, RegistroCodec.codificarEnvio(envio));
+    }
+
+    /**
+     * Si el almacén es síncrono, espera a que los registros hasta la secuencia estén en disco
+     */
+    public void esperarDurabilidad(long secuencia) {
+        if (sincrono) {
+            diario.esperarDurabilidad(secuencia);
+        }
+    }
+
+    public void eliminarEnvio(String id) {
+        registrar(Registro.ENVIO_DEL, RegistroCodec.codificarClave(id));
+    }
+
+    /**
+     * Vacía el diario, sella el segmento activo y detiene las tareas de fondo,
+     * esperando a que termine una compactación en curso
+     */
+    @Override
+    public void close() {
+        tareasFondo.shutdown();
+        if (diario != null) {
+            diario.close();
+        }
+        try {
+            tareasFondo.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private void registrar(byte tipo, byte[] payload) {
+        long secuencia = diario.registrar(tipo, payload);
+        if (sincrono) {
+            diario.esperarDurabilidad(secuencia);
+        }
+    }
+
+    private void programarCompactacion() {
+        if (tareasFondo.isShutdown()) {
+            return;
+        }
+        tareasFondo.execute(() -> {
+            try {
+                compactador.compactar(diario.getSegmentoActivo());
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("⚠️ No se pudo generar el snapshot: " + e.getMessage());
+            }
+        });
+    }
+
+    private void aplicar(Registro registro, ReceptorRecuperacion receptor) {
+        byte[] payload = registro.getPayload();
+        switch (registro.getTipo()) {
+            case Registro.PERSONA_PUT:
+                receptor.aplicarPersona(RegistroCodec.decodificarPersona(payload));
+                break;
+            case Registro.PERSONA_DEL:
+                receptor.eliminarPersona(RegistroCodec.leerClave(payload));
+                break;
+            case Registro.DIRECCION_PUT:
+                receptor.aplicarDireccion(RegistroCodec.decodificarDireccion(payload));
+                break;
+            case Registro.DIRECCION_DEL:
+                receptor.eliminarDireccion(RegistroCodec.leerClave(payload));
+                break;
+            case Registro.ENVIO_PUT:
+                receptor.aplicarEnvio(RegistroCodec.decodificarEnvio(payload, receptor));
+                break;
+            case Registro.ENVIO_DEL:
+                receptor.eliminarEnvio(RegistroCodec.leerClave(payload));
+                break;
+            default:
+                break;
+        }
+    }
+}
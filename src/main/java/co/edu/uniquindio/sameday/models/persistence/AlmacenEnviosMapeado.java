@@ -0,0 +1,696 @@
+package co.edu.uniquindio.sameday.models.persistence;
+
+import co.edu.uniquindio.sameday.models.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Almacén de envíos en un archivo binario de registros de tamaño fijo, leído y
+ * escrito a través de MappedByteBuffer.
+ *
+ * En el heap solo quedan la tabla id → posición del registro (dos arreglos de int,
+ * sin guardar los ids), las posiciones de cada repartidor y un BitSet de posiciones
+ * libres; cada Envio se materializa al pedirlo. Las direcciones y el repartidor se
+ * guardan por id y se resuelven contra los que SameDay ya tiene en memoria. Como cada
+ * campo está en un desplazamiento fijo, el arranque solo mapea el archivo y lee los ids
+ * y el repartidor, y las consultas por estado de entrega no deserializan el registro.
+ *
+ * Formato: cabecera de {@value #TAMANO_CABECERA} bytes ([int MAGIA][int VERSION]
+ * [int TAMANO_REGISTRO][int capacidad]) seguida de registros de {@value #TAMANO_REGISTRO}
+ * bytes. Un registro con el primer byte en 0 está libre y se reutiliza. El archivo se
+ * mapea por segmentos de {@value #REGISTROS_POR_SEGMENTO} registros, así que no tiene
+ * el límite de 2 GB de un solo mapa.
+ *
+ * Los textos que no caben en su campo se guardan completos en el archivo de textos
+ * (mismo nombre con ".textos"), y el campo apunta a ellos. Ese archivo solo crece: un
+ * texto largo que no cambia se reutiliza, pero el espacio de los reemplazados no se recupera.
+ */
+public class AlmacenEnviosMapeado implements AutoCloseable {
+
+    public static final int TAMANO_REGISTRO = 1024;
+    public static final int TAMANO_CABECERA = 64;
+    static final int REGISTROS_POR_SEGMENTO = 1 << 16;
+
+    private static final int MAGIA = 0x53444556; // "SDEV"
+    // La versión 3 agrega los textos externos; un archivo de la versión 2 se lee igual
+    private static final int VERSION = 3;
+    private static final int VERSION_SIN_TEXTOS_EXTERNOS = 2;
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    private static final byte LIBRE = 0;
+    private static final byte OCUPADO = 1;
+    private static final short TEXTO_NULO = -1;
+    // Tras la marca van [long posición][int longitud] en el archivo de textos
+    private static final short TEXTO_EXTERNO = -2;
+
+    // Desplazamientos dentro del registro (los textos llevan un short con la longitud)
+    private static final int OFF_OCUPADO = 0;
+    private static final int OFF_ID = 1;
+    private static final int OFF_ORIGEN = OFF_ID + 40;
+    private static final int OFF_DESTINO = OFF_ORIGEN + 40;
+    private static final int OFF_REPARTIDOR = OFF_DESTINO + 40;
+    private static final int OFF_ESTADO_ENTREGA = OFF_REPARTIDOR + 40;
+    private static final int OFF_PESO = OFF_ESTADO_ENTREGA + 1;
+    private static final int OFF_VOLUMEN = OFF_PESO + 8;
+    private static final int OFF_COSTO = OFF_VOLUMEN + 8;
+    private static final int OFF_FECHA_CREACION = OFF_COSTO + 8;
+    private static final int OFF_FECHA_ESTADO = OFF_FECHA_CREACION + 12;
+    private static final int OFF_SERVICIOS = OFF_FECHA_ESTADO + 12;
+    private static final int OFF_ESTADO = OFF_SERVICIOS + 1 + ServicioAdicional.values().length;
+    private static final int OFF_DIMENSIONES = OFF_ESTADO + 24;
+    private static final int OFF_CONTENIDO = OFF_DIMENSIONES + 40;
+    private static final int OFF_NOMBRE_DESTINATARIO = OFF_CONTENIDO + 128;
+    private static final int OFF_TELEFONO_DESTINATARIO = OFF_NOMBRE_DESTINATARIO + 100;
+    private static final int OFF_CEDULA_DESTINATARIO = OFF_TELEFONO_DESTINATARIO + 24;
+    private static final int OFF_VERSION_ENVIO = OFF_CEDULA_DESTINATARIO + 24;
+    private static final int OFF_OBSERVACIONES = OFF_VERSION_ENVIO + 8;
+
+    private final Path archivo;
+    private final Path archivoTextos;
+    private final FileChannel canal;
+    private final Function<String, Address> resolverDireccion;
+    private final Function<String, Dealer> resolverRepartidor;
+
+    private final MappedByteBuffer cabecera;
+    private final List<MappedByteBuffer> segmentos = new ArrayList<>();
+    private int capacidad;
+
+    // Se abre con el primer texto largo
+    private FileChannel canalTextos;
+    private long finTextos;
+
+    // Tabla abierta (sondeo lineal) id → posición: guarda posición + 1 (0 = vacío) y el
+    // hash del id; el id se compara contra el registro
+    private int[] tabla = new int[64];
+    private int[] hashes = new int[64];
+    private int tamano;
+
+    // Posiciones de los envíos de cada repartidor
+    private final Map<String, Posiciones> porRepartidor = new HashMap<>();
+    private final BitSet libres = new BitSet();
+
+    /**
+     * Abre (o crea) el archivo de envíos y construye el índice leyendo solo los ids
+     * y el repartidor de cada registro
+     * @param archivo Ruta del archivo de registros
+     * @param resolverDireccion Busca una dirección por id al materializar un envío
+     * @param resolverRepartidor Busca un repartidor por id al materializar un envío
+     */
+    public AlmacenEnviosMapeado(Path archivo, Function<String, Address> resolverDireccion,
+                                Function<String, Dealer> resolverRepartidor) throws IOException {
+        this.archivo = archivo;
+        this.archivoTextos = archivo.resolveSibling(archivo.getFileName() + ".textos");
+        this.resolverDireccion = resolverDireccion;
+        this.resolverRepartidor = resolverRepartidor;
+
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        boolean nuevo = canal.size() == 0;
+        this.cabecera = canal.map(FileChannel.MapMode.READ_WRITE, 0, TAMANO_CABECERA);
+        if (nuevo) {
+            cabecera.putInt(0, MAGIA);
+            cabecera.putInt(4, VERSION);
+            cabecera.putInt(8, TAMANO_REGISTRO);
+            mapear(CAPACIDAD_INICIAL);
+        } else {
+            int version = cabecera.getInt(4);
+            if (cabecera.getInt(0) != MAGIA || cabecera.getInt(8) != TAMANO_REGISTRO
+                    || (version != VERSION && version != VERSION_SIN_TEXTOS_EXTERNOS)) {
+                canal.close();
+                throw new IOException("El archivo " + archivo + " no es un almacén de envíos válido");
+            }
+            cabecera.putInt(4, VERSION);
+            mapear(cabecera.getInt(12));
+        }
+        if (Files.exists(archivoTextos)) {
+            abrirTextos();
+        }
+        construirIndice();
+    }
+
+    // ==================== CONSULTAS ====================
+
+    public synchronized int tamano() {
+        return tamano;
+    }
+
+    public synchronized boolean estaVacio() {
+        return tamano == 0;
+    }
+
+    public synchronized boolean contiene(String id) {
+        return buscar(id) >= 0;
+    }
+
+    /**
+     * @return Ids de todos los envíos, en orden de posición en el archivo
+     */
+    public synchronized List<String> getIds() {
+        return leerIds(posicionesOcupadas());
+    }
+
+    /**
+     * Materializa un envío desde su registro
+     * @return El envío, o null si no existe
+     */
+    public synchronized Envio leer(String id) {
+        int celda = buscar(id);
+        return celda >= 0 ? materializar(tabla[celda] - 1) : null;
+    }
+
+    /**
+     * Ids de los envíos que aún no han sido entregados (solo lee el byte de estado)
+     */
+    public synchronized List<String> getIdsNoEntregados() {
+        byte entregado = (byte) (EstadoEntrega.ENTREGADO.ordinal() + 1);
+        int[] posiciones = posicionesOcupadas();
+        int cantidad = 0;
+        for (int posicion : posiciones) {
+            if (segmento(posicion).get(base(posicion) + OFF_ESTADO_ENTREGA) != entregado) {
+                posiciones[cantidad++] = posicion;
+            }
+        }
+        return leerIds(Arrays.copyOf(posiciones, cantidad));
+    }
+
+    /**
+     * Ids de los envíos asignados a un repartidor, en orden de posición en el archivo
+     */
+    public synchronized List<String> getIdsPorRepartidor(String repartidorId) {
+        Posiciones posiciones = porRepartidor.get(repartidorId);
+        if (posiciones == null) {
+            return new ArrayList<>();
+        }
+        int[] ordenadas = Arrays.copyOf(posiciones.valores, posiciones.cantidad);
+        Arrays.sort(ordenadas);
+        return leerIds(ordenadas);
+    }
+
+    // ==================== ESCRITURA ====================
+
+    /**
+     * Escribe el envío en una posición libre y solo entonces lo marca ocupado y suelta
+     * el registro anterior, así que una caída a medias deja en el archivo la versión
+     * anterior o la nueva completas, nunca un registro mezclado
+     */
+    public synchronized void escribir(Envio envio) {
+        int celda = buscar(envio.getId());
+        int anterior = celda >= 0 ? tabla[celda] - 1 : -1;
+        int posicion = reservarPosicion();
+        codificar(envio, posicion, anterior);
+        if (anterior >= 0) {
+            tabla[celda] = posicion + 1;
+            quitarDeRepartidor(leerTexto(anterior, OFF_REPARTIDOR), anterior);
+            liberar(anterior);
+        } else {
+            insertar(envio.getId(), posicion);
+        }
+        agregarARepartidor(leerTexto(posicion, OFF_REPARTIDOR), posicion);
+    }
+
+    /**
+     * Marca como libre el registro del envío
+     * @return true si el envío existía
+     */
+    public synchronized boolean eliminar(String id) {
+        int celda = buscar(id);
+        if (celda < 0) {
+            return false;
+        }
+        int posicion = tabla[celda] - 1;
+        quitarCelda(celda);
+        quitarDeRepartidor(leerTexto(posicion, OFF_REPARTIDOR), posicion);
+        liberar(posicion);
+        return true;
+    }
+
+    /**
+     * Fuerza a disco las páginas modificadas del mapa y el archivo de textos
+     */
+    public synchronized void forzar() {
+        try {
+            if (canalTextos != null) {
+                canalTextos.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo forzar a disco " + archivoTextos, e);
+        }
+        for (MappedByteBuffer segmento : segmentos) {
+            segmento.force();
+        }
+        cabecera.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            forzar();
+            canal.close();
+            if (canalTextos != null) {
+                canalTextos.close();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("⚠️ Error cerrando el archivo de envíos " + archivo + ": " + e.getMessage());
+        }
+    }
+
+    // ==================== CODIFICACIÓN ====================
+
+    /**
+     * @param anterior Posición de la versión anterior del envío (-1 si no hay), de la
+     *                 que se reutilizan los textos largos que no cambiaron
+     */
+    private void codificar(Envio envio, int posicion, int anterior) {
+        ByteBuffer mapa = segmento(posicion);
+        int base = base(posicion);
+        escribirTexto(posicion, OFF_ID, OFF_ORIGEN - OFF_ID, envio.getId(), anterior);
+        escribirTexto(posicion, OFF_ORIGEN, OFF_DESTINO - OFF_ORIGEN,
+                envio.getOrigen() != null ? envio.getOrigen().getId() : null, anterior);
+        escribirTexto(posicion, OFF_DESTINO, OFF_REPARTIDOR - OFF_DESTINO,
+                envio.getDestino() != null ? envio.getDestino().getId() : null, anterior);
+        escribirTexto(posicion, OFF_REPARTIDOR, OFF_ESTADO_ENTREGA - OFF_REPARTIDOR,
+                envio.getRepartidorAsignado() != null ? envio.getRepartidorAsignado().getId() : null, anterior);
+        mapa.put(base + OFF_ESTADO_ENTREGA,
+                (byte) (envio.getEstadoEntrega() != null ? envio.getEstadoEntrega().ordinal() + 1 : 0));
+        mapa.putDouble(base + OFF_PESO, envio.getPeso());
+        mapa.putDouble(base + OFF_VOLUMEN, envio.getVolumen());
+        mapa.putDouble(base + OFF_COSTO, envio.getCostoTotal());
+        escribirFecha(mapa, base + OFF_FECHA_CREACION, envio.getFechaCreacion());
+        escribirFecha(mapa, base + OFF_FECHA_ESTADO, envio.getFechaActualizacionEstado());
+
+        List<ServicioAdicional> servicios = envio.getServiciosAdicionales();
+        int cantidad = Math.min(servicios.size(), ServicioAdicional.values().length);
+        mapa.put(base + OFF_SERVICIOS, (byte) cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            mapa.put(base + OFF_SERVICIOS + 1 + i, (byte) servicios.get(i).ordinal());
+        }
+
+        escribirTexto(posicion, OFF_ESTADO, OFF_DIMENSIONES - OFF_ESTADO, envio.getEstado(), anterior);
+        escribirTexto(posicion, OFF_DIMENSIONES, OFF_CONTENIDO - OFF_DIMENSIONES, envio.getDimensiones(), anterior);
+        escribirTexto(posicion, OFF_CONTENIDO, OFF_NOMBRE_DESTINATARIO - OFF_CONTENIDO, envio.getContenido(), anterior);
+        escribirTexto(posicion, OFF_NOMBRE_DESTINATARIO, OFF_TELEFONO_DESTINATARIO - OFF_NOMBRE_DESTINATARIO,
+                envio.getNombreDestinatario(), anterior);
+        escribirTexto(posicion, OFF_TELEFONO_DESTINATARIO, OFF_CEDULA_DESTINATARIO - OFF_TELEFONO_DESTINATARIO,
+                envio.getTelefonoDestinatario(), anterior);
+        escribirTexto(posicion, OFF_CEDULA_DESTINATARIO, OFF_VERSION_ENVIO - OFF_CEDULA_DESTINATARIO,
+                envio.getCedulaDestinatario(), anterior);
+        mapa.putLong(base + OFF_VERSION_ENVIO, envio.getVersion());
+        escribirTexto(posicion, OFF_OBSERVACIONES, TAMANO_REGISTRO - OFF_OBSERVACIONES,
+                envio.getObservaciones(), anterior);
+        // Último: hasta aquí el registro sigue libre y un arranque lo ignora
+        mapa.put(base + OFF_OCUPADO, OCUPADO);
+    }
+
+    private Envio materializar(int posicion) {
+        ByteBuffer mapa = segmento(posicion);
+        int base = base(posicion);
+        Envio envio = new Envio();
+        envio.setId(leerTexto(posicion, OFF_ID));
+        envio.setOrigen(resolver(resolverDireccion, leerTexto(posicion, OFF_ORIGEN)));
+        envio.setDestino(resolver(resolverDireccion, leerTexto(posicion, OFF_DESTINO)));
+        envio.setPeso(mapa.getDouble(base + OFF_PESO));
+        envio.setVolumen(mapa.getDouble(base + OFF_VOLUMEN));
+        envio.setCostoTotal(mapa.getDouble(base + OFF_COSTO));
+        envio.setFechaCreacion(leerFecha(mapa, base + OFF_FECHA_CREACION));
+
+        int cantidad = mapa.get(base + OFF_SERVICIOS);
+        for (int i = 0; i < cantidad; i++) {
+            envio.getServiciosAdicionales().add(ServicioAdicional.values()[mapa.get(base + OFF_SERVICIOS + 1 + i)]);
+        }
+
+        envio.setEstado(leerTexto(posicion, OFF_ESTADO));
+        envio.setDimensiones(leerTexto(posicion, OFF_DIMENSIONES));
+        envio.setContenido(leerTexto(posicion, OFF_CONTENIDO));
+        envio.setNombreDestinatario(leerTexto(posicion, OFF_NOMBRE_DESTINATARIO));
+        envio.setTelefonoDestinatario(leerTexto(posicion, OFF_TELEFONO_DESTINATARIO));
+        envio.setCedulaDestinatario(leerTexto(posicion, OFF_CEDULA_DESTINATARIO));
+        envio.setObservaciones(leerTexto(posicion, OFF_OBSERVACIONES));
+
+        // El orden importa: los setters de asignación y estado actualizan la fecha de estado
+        envio.setRepartidorAsignado(resolver(resolverRepartidor, leerTexto(posicion, OFF_REPARTIDOR)));
+        byte estadoEntrega = mapa.get(base + OFF_ESTADO_ENTREGA);
+        envio.setEstadoEntrega(estadoEntrega > 0 ? EstadoEntrega.values()[estadoEntrega - 1] : null);
+        envio.setFechaActualizacionEstado(leerFecha(mapa, base + OFF_FECHA_ESTADO));
+        envio.setVersion(mapa.getLong(base + OFF_VERSION_ENVIO));
+        return envio;
+    }
+
+    private <T> T resolver(Function<String, T> resolutor, String id) {
+        return id != null ? resolutor.apply(id) : null;
+    }
+
+    private void escribirTexto(int posicion, int campo, int capacidadCampo, String texto, int anterior) {
+        ByteBuffer mapa = segmento(posicion);
+        int inicio = base(posicion) + campo;
+        if (texto == null) {
+            mapa.putShort(inicio, TEXTO_NULO);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= capacidadCampo - 2) {
+            mapa.putShort(inicio, (short) bytes.length);
+            mapa.put(inicio + 2, bytes, 0, bytes.length);
+            return;
+        }
+        long desplazamiento = anterior >= 0 ? textoExternoIgual(anterior, campo, bytes) : -1;
+        if (desplazamiento < 0) {
+            desplazamiento = agregarTexto(bytes);
+        }
+        mapa.putShort(inicio, TEXTO_EXTERNO);
+        mapa.putLong(inicio + 2, desplazamiento);
+        mapa.putInt(inicio + 10, bytes.length);
+    }
+
+    private String leerTexto(int posicion, int campo) {
+        ByteBuffer mapa = segmento(posicion);
+        int inicio = base(posicion) + campo;
+        short longitud = mapa.getShort(inicio);
+        if (longitud == TEXTO_NULO) {
+            return null;
+        }
+        if (longitud == TEXTO_EXTERNO) {
+            return new String(leerTextoExterno(mapa.getLong(inicio + 2), mapa.getInt(inicio + 10)),
+                    StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[longitud];
+        mapa.get(inicio + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return La posición en el archivo de textos del campo de la versión anterior si
+     *         guarda exactamente estos bytes, o -1
+     */
+    private long textoExternoIgual(int anterior, int campo, byte[] bytes) {
+        ByteBuffer mapa = segmento(anterior);
+        int inicio = base(anterior) + campo;
+        if (mapa.getShort(inicio) != TEXTO_EXTERNO || mapa.getInt(inicio + 10) != bytes.length) {
+            return -1;
+        }
+        long desplazamiento = mapa.getLong(inicio + 2);
+        return Arrays.equals(leerTextoExterno(desplazamiento, bytes.length), bytes) ? desplazamiento : -1;
+    }
+
+    private long agregarTexto(byte[] bytes) {
+        try {
+            if (canalTextos == null) {
+                abrirTextos();
+            }
+            long desplazamiento = finTextos;
+            ByteBuffer contenido = ByteBuffer.wrap(bytes);
+            while (contenido.hasRemaining()) {
+                canalTextos.write(contenido, finTextos + contenido.position());
+            }
+            finTextos += bytes.length;
+            return desplazamiento;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir en " + archivoTextos, e);
+        }
+    }
+
+    private byte[] leerTextoExterno(long desplazamiento, int longitud) {
+        try {
+            ByteBuffer contenido = ByteBuffer.allocate(longitud);
+            while (contenido.hasRemaining()) {
+                if (canalTextos.read(contenido, desplazamiento + contenido.position()) < 0) {
+                    throw new IOException("Texto truncado en la posición " + desplazamiento);
+                }
+            }
+            return contenido.array();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer " + archivoTextos, e);
+        }
+    }
+
+    private void abrirTextos() throws IOException {
+        canalTextos = FileChannel.open(archivoTextos, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        finTextos = canalTextos.size();
+    }
+
+    private static void escribirFecha(ByteBuffer mapa, int posicion, LocalDateTime fecha) {
+        if (fecha == null) {
+            mapa.putLong(posicion, Long.MIN_VALUE);
+            mapa.putInt(posicion + 8, 0);
+            return;
+        }
+        mapa.putLong(posicion, fecha.toEpochSecond(ZoneOffset.UTC));
+        mapa.putInt(posicion + 8, fecha.getNano());
+    }
+
+    private static LocalDateTime leerFecha(ByteBuffer mapa, int posicion) {
+        long segundos = mapa.getLong(posicion);
+        if (segundos == Long.MIN_VALUE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(segundos, mapa.getInt(posicion + 8), ZoneOffset.UTC);
+    }
+
+    // ==================== ÍNDICE ====================
+
+    private void construirIndice() {
+        for (int posicion = 0; posicion < capacidad; posicion++) {
+            if (segmento(posicion).get(base(posicion) + OFF_OCUPADO) != OCUPADO) {
+                libres.set(posicion);
+                continue;
+            }
+            String id = leerTexto(posicion, OFF_ID);
+            int celda = buscar(id);
+            if (celda < 0) {
+                insertar(id, posicion);
+                agregarARepartidor(leerTexto(posicion, OFF_REPARTIDOR), posicion);
+                continue;
+            }
+            // Una caída entre escribir la versión nueva y soltar la anterior deja dos
+            // registros completos del mismo envío: se queda el de versión mayor
+            int otra = tabla[celda] - 1;
+            if (version(posicion) > version(otra)) {
+                tabla[celda] = posicion + 1;
+                quitarDeRepartidor(leerTexto(otra, OFF_REPARTIDOR), otra);
+                agregarARepartidor(leerTexto(posicion, OFF_REPARTIDOR), posicion);
+                liberar(otra);
+            } else {
+                liberar(posicion);
+            }
+        }
+    }
+
+    private long version(int posicion) {
+        return segmento(posicion).getLong(base(posicion) + OFF_VERSION_ENVIO);
+    }
+
+    private static int mezclar(String id) {
+        int h = id.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return La celda de la tabla con el envío, o -1
+     */
+    private int buscar(String id) {
+        int hash = mezclar(id);
+        int mascara = tabla.length - 1;
+        for (int celda = hash & mascara; tabla[celda] != 0; celda = (celda + 1) & mascara) {
+            if (hashes[celda] == hash && id.equals(leerTexto(tabla[celda] - 1, OFF_ID))) {
+                return celda;
+            }
+        }
+        return -1;
+    }
+
+    private void insertar(String id, int posicion) {
+        if ((tamano + 1) * 2 > tabla.length) {
+            redimensionar(tabla.length * 2);
+        }
+        colocar(mezclar(id), posicion + 1);
+        tamano++;
+    }
+
+    private void colocar(int hash, int valor) {
+        int mascara = tabla.length - 1;
+        int celda = hash & mascara;
+        while (tabla[celda] != 0) {
+            celda = (celda + 1) & mascara;
+        }
+        tabla[celda] = valor;
+        hashes[celda] = hash;
+    }
+
+    private void redimensionar(int nuevoTamano) {
+        int[] tablaAnterior = tabla;
+        int[] hashesAnteriores = hashes;
+        tabla = new int[nuevoTamano];
+        hashes = new int[nuevoTamano];
+        for (int i = 0; i < tablaAnterior.length; i++) {
+            if (tablaAnterior[i] != 0) {
+                colocar(hashesAnteriores[i], tablaAnterior[i]);
+            }
+        }
+    }
+
+    /**
+     * Borra la celda corriendo hacia atrás las que la siguen en la misma secuencia de
+     * sondeo, para que ninguna quede detrás de un hueco
+     */
+    private void quitarCelda(int celda) {
+        int mascara = tabla.length - 1;
+        int hueco = celda;
+        for (int siguiente = (hueco + 1) & mascara; tabla[siguiente] != 0; siguiente = (siguiente + 1) & mascara) {
+            int ideal = hashes[siguiente] & mascara;
+            boolean alcanzable = hueco <= siguiente
+                    ? hueco < ideal && ideal <= siguiente
+                    : hueco < ideal || ideal <= siguiente;
+            if (!alcanzable) {
+                tabla[hueco] = tabla[siguiente];
+                hashes[hueco] = hashes[siguiente];
+                hueco = siguiente;
+            }
+        }
+        tabla[hueco] = 0;
+        hashes[hueco] = 0;
+        tamano--;
+    }
+
+    private int[] posicionesOcupadas() {
+        int[] posiciones = new int[tamano];
+        int cantidad = 0;
+        for (int valor : tabla) {
+            if (valor != 0) {
+                posiciones[cantidad++] = valor - 1;
+            }
+        }
+        Arrays.sort(posiciones);
+        return posiciones;
+    }
+
+    private List<String> leerIds(int[] posiciones) {
+        List<String> ids = new ArrayList<>(posiciones.length);
+        for (int posicion : posiciones) {
+            ids.add(leerTexto(posicion, OFF_ID));
+        }
+        return ids;
+    }
+
+    private void agregarARepartidor(String repartidorId, int posicion) {
+        if (repartidorId != null) {
+            porRepartidor.computeIfAbsent(repartidorId, id -> new Posiciones()).agregar(posicion);
+        }
+    }
+
+    private void quitarDeRepartidor(String repartidorId, int posicion) {
+        Posiciones posiciones = repartidorId != null ? porRepartidor.get(repartidorId) : null;
+        if (posiciones != null && posiciones.quitar(posicion) && posiciones.cantidad == 0) {
+            porRepartidor.remove(repartidorId);
+        }
+    }
+
+    /**
+     * Posiciones de los envíos de un repartidor, sin orden (se ordenan al consultarlas)
+     */
+    private static final class Posiciones {
+        private int[] valores = new int[8];
+        private int cantidad;
+
+        void agregar(int posicion) {
+            if (cantidad == valores.length) {
+                valores = Arrays.copyOf(valores, cantidad * 2);
+            }
+            valores[cantidad++] = posicion;
+        }
+
+        boolean quitar(int posicion) {
+            for (int i = 0; i < cantidad; i++) {
+                if (valores[i] == posicion) {
+                    valores[i] = valores[--cantidad];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // ==================== ARCHIVO ====================
+
+    private void liberar(int posicion) {
+        segmento(posicion).put(base(posicion) + OFF_OCUPADO, LIBRE);
+        libres.set(posicion);
+    }
+
+    /**
+     * Toma la primera posición libre, ampliando el archivo si está lleno: se duplica
+     * hasta llenar un segmento y luego crece de a un segmento
+     */
+    private int reservarPosicion() {
+        int posicion = libres.nextSetBit(0);
+        if (posicion < 0) {
+            posicion = capacidad;
+            long nuevaCapacidad = capacidad < REGISTROS_POR_SEGMENTO
+                    ? Math.min(capacidad * 2L, REGISTROS_POR_SEGMENTO)
+                    : capacidad + (long) REGISTROS_POR_SEGMENTO;
+            if (nuevaCapacidad > Integer.MAX_VALUE) {
+                throw new IllegalStateException("El archivo de envíos " + archivo + " llegó a su capacidad máxima");
+            }
+            try {
+                mapear((int) nuevaCapacidad);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo ampliar el archivo de envíos " + archivo, e);
+            }
+            libres.set(posicion, capacidad);
+        }
+        libres.clear(posicion);
+        return posicion;
+    }
+
+    /**
+     * Mapea los segmentos que cubren la capacidad; el último puede quedar parcial y se
+     * vuelve a mapear cuando crece
+     */
+    private void mapear(int nuevaCapacidad) throws IOException {
+        int cantidadSegmentos = (int) ((nuevaCapacidad + (long) REGISTROS_POR_SEGMENTO - 1) / REGISTROS_POR_SEGMENTO);
+        for (int k = 0; k < cantidadSegmentos; k++) {
+            int registros = (int) Math.min(REGISTROS_POR_SEGMENTO, nuevaCapacidad - (long) k * REGISTROS_POR_SEGMENTO);
+            int bytes = registros * TAMANO_REGISTRO;
+            if (k < segmentos.size() && segmentos.get(k).capacity() == bytes) {
+                continue;
+            }
+            long inicio = TAMANO_CABECERA + (long) k * REGISTROS_POR_SEGMENTO * TAMANO_REGISTRO;
+            MappedByteBuffer segmento = canal.map(FileChannel.MapMode.READ_WRITE, inicio, bytes);
+            if (k < segmentos.size()) {
+                segmentos.set(k, segmento);
+            } else {
+                segmentos.add(segmento);
+            }
+        }
+        capacidad = nuevaCapacidad;
+        cabecera.putInt(12, nuevaCapacidad);
+    }
+
+    private ByteBuffer segmento(int posicion) {
+        return segmentos.get(posicion / REGISTROS_POR_SEGMENTO);
+    }
+
+    private static int base(int posicion) {
+        return (posicion % REGISTROS_POR_SEGMENTO) * TAMANO_REGISTRO;
+    }
+}
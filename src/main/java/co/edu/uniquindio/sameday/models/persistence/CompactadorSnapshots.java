@@ -0,0 +1,175 @@
+package co.edu.uniquindio.sameday.models.persistence;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Genera snapshots compactados a partir de los segmentos sellados del diario.
+ *
+ * La compactación trabaja solo con archivos: parte del último snapshot, aplica
+ * los segmentos sellados quedándose con la última versión de cada clave y escribe
+ * un snapshot nuevo de forma atómica (archivo temporal + fsync + rename).
+ * Como no toca el estado vivo de SameDay, corre en segundo plano sin bloquear
+ * a los escritores. Después elimina los segmentos y snapshots que ya quedaron cubiertos.
+ *
+ * Formato del snapshot: [int MAGIA][long ultimaSecuencia][int cantidad] seguido
+ * de las tramas (ver Registro), primero personas, luego direcciones y luego envíos.
+ */
+public class CompactadorSnapshots {
+
+    public static final String PREFIJO_SNAPSHOT = "snapshot-";
+    public static final String EXTENSION_SNAPSHOT = ".snap";
+
+    private static final int MAGIA = 0x53444E50; // "SDNP"
+
+    private final Path directorio;
+
+    public CompactadorSnapshots(Path directorio) {
+        this.directorio = directorio;
+    }
+
+    /**
+     * Compacta todos los segmentos sellados (todos menos el activo) en un snapshot nuevo
+     * @param segmentoActivo Segmento en el que el diario sigue escribiendo
+     */
+    public synchronized void compactar(Path segmentoActivo) throws IOException {
+        List<Path> sellados = new ArrayList<>(listarSegmentos());
+        sellados.remove(segmentoActivo);
+        if (sellados.isEmpty()) {
+            return;
+        }
+
+        Path snapshotAnterior = buscarUltimoSnapshot();
+        List<LinkedHashMap<String, Registro>> grupos = nuevosGrupos();
+        long ultimaSecuencia = snapshotAnterior != null ? leerSnapshot(snapshotAnterior, grupos) : 0;
+
+        for (Path segmento : sellados) {
+            try (DataInputStream in = abrir(segmento)) {
+                Registro registro;
+                while ((registro = Registro.leer(in)) != null) {
+                    if (registro.getSecuencia() <= ultimaSecuencia) {
+                        continue;
+                    }
+                    aplicar(grupos, registro);
+                    ultimaSecuencia = registro.getSecuencia();
+                }
+            }
+        }
+
+        Path nuevo = directorio.resolve(String.format("%s%020d%s", PREFIJO_SNAPSHOT, ultimaSecuencia, EXTENSION_SNAPSHOT));
+        Path temporal = directorio.resolve(nuevo.getFileName() + ".tmp");
+        escribirSnapshot(temporal, ultimaSecuencia, grupos);
+        Files.move(temporal, nuevo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (snapshotAnterior != null && !snapshotAnterior.equals(nuevo)) {
+            Files.deleteIfExists(snapshotAnterior);
+        }
+        for (Path segmento : sellados) {
+            Files.deleteIfExists(segmento);
+        }
+    }
+
+    /**
+     * @return El snapshot más reciente del directorio, o null si no hay ninguno
+     */
+    public Path buscarUltimoSnapshot() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos
+                    .filter(p -> p.getFileName().toString().startsWith(PREFIJO_SNAPSHOT))
+                    .filter(p -> p.getFileName().toString().endsWith(EXTENSION_SNAPSHOT))
+                    .max(Path::compareTo)
+                    .orElse(null);
+        }
+    }
+
+    /**
+     * @return Los segmentos del diario ordenados por su primera secuencia
+     */
+    public List<Path> listarSegmentos() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos
+                    .filter(p -> p.getFileName().toString().startsWith(DiarioEscritura.PREFIJO_SEGMENTO))
+                    .filter(p -> p.getFileName().toString().endsWith(DiarioEscritura.EXTENSION_SEGMENTO))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Recorre las tramas de un snapshot
+     * @return Última secuencia cubierta por el snapshot
+     */
+    public long recorrerSnapshot(Path snapshot, Consumer<Registro> consumidor) throws IOException {
+        try (DataInputStream in = abrir(snapshot)) {
+            if (in.readInt() != MAGIA) {
+                throw new IOException("Snapshot inválido: " + snapshot);
+            }
+            long ultimaSecuencia = in.readLong();
+            int cantidad = in.readInt();
+            for (int i = 0; i < cantidad; i++) {
+                Registro registro = Registro.leer(in);
+                if (registro == null) {
+                    throw new IOException("Snapshot truncado: " + snapshot);
+                }
+                consumidor.accept(registro);
+            }
+            return ultimaSecuencia;
+        }
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private long leerSnapshot(Path snapshot, List<LinkedHashMap<String, Registro>> grupos) throws IOException {
+        return recorrerSnapshot(snapshot, registro -> aplicar(grupos, registro));
+    }
+
+    private void aplicar(List<LinkedHashMap<String, Registro>> grupos, Registro registro) {
+        LinkedHashMap<String, Registro> grupo = grupos.get(registro.getGrupo());
+        String clave = RegistroCodec.leerClave(registro.getPayload());
+        if (registro.esEliminacion()) {
+            grupo.remove(clave);
+        } else {
+            // put sobre una clave existente conserva su posición original
+            grupo.put(clave, registro);
+        }
+    }
+
+    private void escribirSnapshot(Path ruta, long ultimaSecuencia,
+                                  List<LinkedHashMap<String, Registro>> grupos) throws IOException {
+        int cantidad = 0;
+        for (LinkedHashMap<String, Registro> grupo : grupos) {
+            cantidad += grupo.size();
+        }
+        try (FileOutputStream archivo = new FileOutputStream(ruta.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(archivo, 1 << 16))) {
+            out.writeInt(MAGIA);
+            out.writeLong(ultimaSecuencia);
+            out.writeInt(cantidad);
+            for (LinkedHashMap<String, Registro> grupo : grupos) {
+                for (Registro registro : grupo.values()) {
+                    registro.escribir(out);
+                }
+            }
+            out.flush();
+            archivo.getFD().sync();
+        }
+    }
+
+    private List<LinkedHashMap<String, Registro>> nuevosGrupos() {
+        List<LinkedHashMap<String, Registro>> grupos = new ArrayList<>();
+        grupos.add(new LinkedHashMap<>()); // personas
+        grupos.add(new LinkedHashMap<>()); // direcciones
+        grupos.add(new LinkedHashMap<>()); // envíos
+        return grupos;
+    }
+
+    static DataInputStream abrir(Path ruta) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(ruta), 1 << 16));
+    }
+}
@@ -0,0 +1,256 @@
+package co.edu.uniquindio.sameday.models.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Diario de escritura anticipada (write-ahead log) de SameDay.
+ *
+ * Las operaciones se encolan con una secuencia creciente y un único hilo escritor
+ * las agrupa en lotes: cada lote se escribe de forma secuencial en el segmento
+ * activo y se sincroniza con un solo fsync (group commit). Los hilos que necesitan
+ * durabilidad esperan a que su secuencia quede sincronizada.
+ *
+ * Cuando el segmento activo supera TAMANO_SEGMENTO, o cuando se solicita
+ * explícitamente, se sella y se abre uno nuevo; los segmentos sellados son
+ * compactados en segundo plano por CompactadorSnapshots.
+ */
+public class DiarioEscritura implements AutoCloseable {
+
+    public static final String PREFIJO_SEGMENTO = "diario-";
+    public static final String EXTENSION_SEGMENTO = ".log";
+
+    private static final long TAMANO_SEGMENTO = 64L * 1024 * 1024;
+
+    private final Path directorio;
+    private final Runnable alSellarSegmento;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayTrabajo = lock.newCondition();
+    private final Condition hayDurables = lock.newCondition();
+
+    private ArrayList<Registro> pendientes = new ArrayList<>();
+    private long siguienteSecuencia;
+    private long secuenciaDurable;
+    private boolean rotacionSolicitada;
+    private boolean cerrado;
+    private IOException error;
+
+    // Estado del segmento activo (solo lo toca el hilo escritor, salvo el nombre)
+    private FileChannel canal;
+    private Path segmentoActivo;
+    private long bytesSegmento;
+
+    private final Thread escritor;
+
+    /**
+     * @param directorio Directorio donde viven los segmentos
+     * @param siguienteSecuencia Primera secuencia a asignar (última recuperada + 1)
+     * @param alSellarSegmento Acción a ejecutar cada vez que se sella un segmento
+     */
+    public DiarioEscritura(Path directorio, long siguienteSecuencia, Runnable alSellarSegmento) throws IOException {
+        this.directorio = directorio;
+        this.siguienteSecuencia = siguienteSecuencia;
+        this.secuenciaDurable = siguienteSecuencia - 1;
+        this.alSellarSegmento = alSellarSegmento;
+        abrirSegmento(siguienteSecuencia);
+
+        this.escritor = new Thread(this::ejecutarEscritor, "sameday-diario");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    public static Path rutaSegmento(Path directorio, long primeraSecuencia) {
+        return directorio.resolve(String.format("%s%020d%s", PREFIJO_SEGMENTO, primeraSecuencia, EXTENSION_SEGMENTO));
+    }
+
+    /**
+     * Encola una operación en el diario sin esperar a que sea durable
+     * @return Secuencia asignada a la operación
+     * @throws UncheckedIOException si el escritor ya falló y nadie drenaría la cola
+     */
+    public long registrar(byte tipo, byte[] payload) {
+        lock.lock();
+        try {
+            if (error != null) {
+                throw new UncheckedIOException("No se pudo escribir el diario", error);
+            }
+            if (cerrado) {
+                throw new IllegalStateException("El diario está cerrado");
+            }
+            long secuencia = siguienteSecuencia++;
+            pendientes.add(new Registro(tipo, secuencia, payload));
+            hayTrabajo.signal();
+            return secuencia;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Bloquea hasta que la operación con la secuencia dada esté sincronizada en disco
+     */
+    public void esperarDurabilidad(long secuencia) {
+        lock.lock();
+        try {
+            while (secuenciaDurable < secuencia && error == null && !(cerrado && !escritor.isAlive())) {
+                hayDurables.awaitUninterruptibly();
+            }
+            if (error != null) {
+                throw new UncheckedIOException("No se pudo escribir el diario", error);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pide al escritor sellar el segmento activo (si tiene datos) en su próximo ciclo
+     */
+    public void solicitarRotacion() {
+        lock.lock();
+        try {
+            rotacionSolicitada = true;
+            hayTrabajo.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Ruta del segmento en el que se está escribiendo
+     */
+    public Path getSegmentoActivo() {
+        lock.lock();
+        try {
+            return segmentoActivo;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            cerrado = true;
+            hayTrabajo.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==================== HILO ESCRITOR ====================
+
+    private void ejecutarEscritor() {
+        try {
+            while (true) {
+                ArrayList<Registro> lote;
+                boolean rotar;
+                lock.lock();
+                try {
+                    while (pendientes.isEmpty() && !rotacionSolicitada && !cerrado) {
+                        hayTrabajo.awaitUninterruptibly();
+                    }
+                    if (pendientes.isEmpty() && cerrado) {
+                        break;
+                    }
+                    lote = pendientes;
+                    pendientes = new ArrayList<>();
+                    rotar = rotacionSolicitada;
+                    rotacionSolicitada = false;
+                } finally {
+                    lock.unlock();
+                }
+
+                if (!lote.isEmpty()) {
+                    escribirLote(lote);
+                    marcarDurable(lote.get(lote.size() - 1).getSecuencia());
+                }
+                if ((rotar || bytesSegmento >= TAMANO_SEGMENTO) && bytesSegmento > 0) {
+                    sellarSegmento(secuenciaDurable + 1);
+                }
+            }
+            canal.close();
+        } catch (IOException e) {
+            lock.lock();
+            try {
+                error = e;
+                pendientes = new ArrayList<>();
+                hayDurables.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            cerrarCanalTrasError(e);
+        }
+    }
+
+    private void cerrarCanalTrasError(IOException causa) {
+        try {
+            canal.close();
+        } catch (IOException e) {
+            causa.addSuppressed(e);
+        }
+    }
+
+    private void escribirLote(ArrayList<Registro> lote) throws IOException {
+        int total = 0;
+        for (Registro registro : lote) {
+            total += registro.getTamanoTrama();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        for (Registro registro : lote) {
+            registro.escribir(buffer);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        canal.force(false);
+        bytesSegmento += total;
+    }
+
+    private void marcarDurable(long secuencia) {
+        lock.lock();
+        try {
+            secuenciaDurable = secuencia;
+            hayDurables.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sellarSegmento(long siguientePrimeraSecuencia) throws IOException {
+        canal.close();
+        abrirSegmento(siguientePrimeraSecuencia);
+        if (alSellarSegmento != null) {
+            alSellarSegmento.run();
+        }
+    }
+
+    private void abrirSegmento(long primeraSecuencia) throws IOException {
+        Path ruta = rutaSegmento(directorio, primeraSecuencia);
+        FileChannel nuevo = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        lock.lock();
+        try {
+            canal = nuevo;
+            segmentoActivo = ruta;
+            bytesSegmento = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
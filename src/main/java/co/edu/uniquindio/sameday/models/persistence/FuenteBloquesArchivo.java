@@ -0,0 +1,109 @@
+package co.edu.uniquindio.sameday.models.persistence;
+
+import co.edu.uniquindio.sameday.models.concurrency.FuenteBloquesIds;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Marcas de agua de los ids persistidas en el directorio de datos (ids.properties).
+ *
+ * Cada reserva de bloque lee el archivo, mueve la marca y lo reescribe de forma
+ * atómica (archivo temporal + fsync + rename) antes de devolver el bloque, así que
+ * tras un reinicio nunca se repite un número ya entregado. Un candado de archivo
+ * (ids.lock) ordena las reservas de varias instancias que compartan el directorio.
+ */
+public class FuenteBloquesArchivo implements FuenteBloquesIds, AutoCloseable {
+
+    public static final String ARCHIVO_MARCAS = "ids.properties";
+    private static final String ARCHIVO_CANDADO = "ids.lock";
+
+    // FileLock es por proceso: dentro de la JVM las reservas se ordenan con este candado,
+    // compartido por todas las instancias (las reservas son raras, no compiten)
+    private static final Object CANDADO_PROCESO = new Object();
+
+    private final Path archivo;
+    private final FileChannel canalCandado;
+
+    public FuenteBloquesArchivo(Path directorio) throws IOException {
+        Files.createDirectories(directorio);
+        this.archivo = directorio.resolve(ARCHIVO_MARCAS);
+        this.canalCandado = FileChannel.open(directorio.resolve(ARCHIVO_CANDADO),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public long reservarBloque(String secuencia, int tamano) {
+        return actualizar(secuencia, marca -> marca + tamano);
+    }
+
+    @Override
+    public void asegurarMinimo(String secuencia, long minimo) {
+        actualizar(secuencia, marca -> Math.max(marca, minimo));
+    }
+
+    /**
+     * Aplica el cambio a la marca de la secuencia con el candado de archivo tomado
+     * @return La marca anterior al cambio
+     */
+    private long actualizar(String secuencia, LongUnaryOperator cambio) {
+        synchronized (CANDADO_PROCESO) {
+            try {
+                FileLock candado = canalCandado.lock();
+                try {
+                    Properties marcas = leer();
+                    long anterior = Long.parseLong(marcas.getProperty(secuencia, "1"));
+                    long nueva = cambio.applyAsLong(anterior);
+                    if (nueva != anterior) {
+                        marcas.setProperty(secuencia, Long.toString(nueva));
+                        escribir(marcas);
+                    }
+                    return anterior;
+                } finally {
+                    candado.release();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo actualizar " + archivo, e);
+            }
+        }
+    }
+
+    private Properties leer() throws IOException {
+        Properties marcas = new Properties();
+        if (Files.exists(archivo)) {
+            try (InputStream in = Files.newInputStream(archivo)) {
+                marcas.load(in);
+            }
+        }
+        return marcas;
+    }
+
+    private void escribir(Properties marcas) throws IOException {
+        Path temporal = archivo.resolveSibling(ARCHIVO_MARCAS + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            marcas.store(Channels.newOutputStream(canal), "Marcas de agua de ids de SameDay");
+            canal.force(true);
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() {
+        try {
+            canalCandado.close();
+        } catch (IOException e) {
+            System.err.println("⚠️ Error al cerrar " + ARCHIVO_CANDADO + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package co.edu.uniquindio.sameday.models.persistence;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.Person;
+
+/**
+ * Destino de la recuperación: recibe, en orden, las entidades reconstruidas
+ * a partir del snapshot y del diario. SameDay lo implementa para repoblar sus listas
+ * sin volver a registrar las operaciones en el diario.
+ */
+public interface ReceptorRecuperacion {
+
+    void aplicarPersona(Person persona);
+
+    void eliminarPersona(String clave);
+
+    void aplicarDireccion(Address direccion);
+
+    void eliminarDireccion(String id);
+
+    void aplicarEnvio(Envio envio);
+
+    void eliminarEnvio(String id);
+
+    /**
+     * Permite que los envíos recuperados compartan la instancia de dirección ya cargada
+     */
+    Address buscarDireccionPorId(String id);
+
+    /**
+     * Permite que los envíos recuperados compartan la instancia de repartidor ya cargada
+     */
+    Dealer buscarDealerPorId(String id);
+}
@@ -0,0 +1,126 @@
+package co.edu.uniquindio.sameday.models.persistence;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Entrada del diario de escritura anticipada (y de los snapshots).
+ *
+ * Formato en disco de cada trama:
+ * [int longitud][byte tipo][long secuencia][payload][int crc32]
+ * donde longitud = 1 + 8 + payload.length y el CRC cubre tipo, secuencia y payload.
+ * Una trama incompleta o con CRC inválido marca el final recuperable del archivo.
+ */
+public class Registro {
+
+    // Tipos de registro: los impares son altas/modificaciones, los pares eliminaciones
+    public static final byte PERSONA_PUT = 1;
+    public static final byte PERSONA_DEL = 2;
+    public static final byte DIRECCION_PUT = 3;
+    public static final byte DIRECCION_DEL = 4;
+    public static final byte ENVIO_PUT = 5;
+    public static final byte ENVIO_DEL = 6;
+
+    private static final int LONGITUD_MAXIMA = 16 * 1024 * 1024;
+
+    private final byte tipo;
+    private final long secuencia;
+    private final byte[] payload;
+
+    public Registro(byte tipo, long secuencia, byte[] payload) {
+        this.tipo = tipo;
+        this.secuencia = secuencia;
+        this.payload = payload;
+    }
+
+    public byte getTipo() {
+        return tipo;
+    }
+
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    /**
+     * @return true si el registro elimina una entidad
+     */
+    public boolean esEliminacion() {
+        return tipo % 2 == 0;
+    }
+
+    /**
+     * @return Grupo de entidad: 0 personas, 1 direcciones, 2 envíos
+     */
+    public int getGrupo() {
+        return (tipo - 1) / 2;
+    }
+
+    /**
+     * @return Tamaño de la trama completa en disco
+     */
+    public int getTamanoTrama() {
+        return 4 + 1 + 8 + payload.length + 4;
+    }
+
+    /**
+     * Escribe la trama en un buffer (usado por el hilo de escritura del diario)
+     */
+    public void escribir(ByteBuffer buffer) {
+        buffer.putInt(1 + 8 + payload.length);
+        buffer.put(tipo);
+        buffer.putLong(secuencia);
+        buffer.put(payload);
+        buffer.putInt(calcularCrc());
+    }
+
+    /**
+     * Escribe la trama en un flujo (usado al generar snapshots)
+     */
+    public void escribir(DataOutputStream out) throws IOException {
+        out.writeInt(1 + 8 + payload.length);
+        out.writeByte(tipo);
+        out.writeLong(secuencia);
+        out.write(payload);
+        out.writeInt(calcularCrc());
+    }
+
+    /**
+     * Lee la siguiente trama del flujo
+     * @return El registro leído, o null si se llegó al final o la trama está incompleta/corrupta
+     */
+    public static Registro leer(DataInputStream in) throws IOException {
+        try {
+            int longitud = in.readInt();
+            if (longitud < 9 || longitud > LONGITUD_MAXIMA) {
+                return null;
+            }
+            byte tipo = in.readByte();
+            long secuencia = in.readLong();
+            byte[] payload = new byte[longitud - 9];
+            in.readFully(payload);
+            int crc = in.readInt();
+            Registro registro = new Registro(tipo, secuencia, payload);
+            return registro.calcularCrc() == crc ? registro : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private int calcularCrc() {
+        CRC32 crc = new CRC32();
+        crc.update(tipo);
+        for (int i = 56; i >= 0; i -= 8) {
+            crc.update((int) (secuencia >>> i));
+        }
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
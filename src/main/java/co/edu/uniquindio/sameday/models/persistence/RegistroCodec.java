@@ -0,0 +1,351 @@
+package co.edu.uniquindio.sameday.models.persistence;
+
+import co.edu.uniquindio.sameday.models.*;
+import co.edu.uniquindio.sameday.models.behavioral.state.ActiveState;
+import co.edu.uniquindio.sameday.models.behavioral.state.BlockedState;
+import co.edu.uniquindio.sameday.models.behavioral.state.SuspendedState;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serializa y deserializa las entidades de SameDay para el diario y los snapshots.
+ *
+ * Cada payload empieza con la clave de la entidad (writeUTF), de modo que la
+ * compactación puede quedarse con la última versión de cada clave sin decodificar
+ * el resto del registro. Los envíos incluyen sus direcciones y su repartidor
+ * completos para poder reconstruirse aunque estos se hayan eliminado después.
+ */
+public final class RegistroCodec {
+
+    private static final byte TIPO_CLIENTE = 1;
+    private static final byte TIPO_REPARTIDOR = 2;
+    private static final byte TIPO_ADMIN = 3;
+    private static final byte TIPO_PERSONA = 4;
+
+    private RegistroCodec() {
+    }
+
+    // ==================== CLAVES ====================
+
+    /**
+     * Clave de una persona: los ids solo son únicos dentro de cada rol,
+     * por eso se combinan rol e id
+     */
+    public static String clavePersona(Person persona) {
+        return tipoPersona(persona) + ":" + persona.getId();
+    }
+
+    /**
+     * @return true si la clave es de una persona sin rol (ni cliente, ni repartidor, ni administrador)
+     */
+    public static boolean esClaveSinRol(String clave) {
+        return clave.startsWith(TIPO_PERSONA + ":");
+    }
+
+    public static String leerClave(byte[] payload) {
+        try {
+            return new DataInputStream(new ByteArrayInputStream(payload)).readUTF();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static byte[] codificarClave(String clave) {
+        return codificar(out -> out.writeUTF(clave));
+    }
+
+    // ==================== CODIFICACIÓN ====================
+
+    public static byte[] codificarPersona(Person persona) {
+        return codificar(out -> {
+            out.writeUTF(clavePersona(persona));
+            escribirPersona(out, persona);
+        });
+    }
+
+    public static byte[] codificarDireccion(Address direccion) {
+        return codificar(out -> {
+            out.writeUTF(direccion.getId());
+            escribirDireccion(out, direccion);
+        });
+    }
+
+    public static byte[] codificarEnvio(Envio envio) {
+        return codificar(out -> {
+            out.writeUTF(envio.getId());
+            escribirTexto(out, envio.getId());
+            escribirDireccionOpcional(out, envio.getOrigen());
+            escribirDireccionOpcional(out, envio.getDestino());
+            out.writeDouble(envio.getPeso());
+            escribirTexto(out, envio.getDimensiones());
+            out.writeDouble(envio.getVolumen());
+            escribirTexto(out, envio.getContenido());
+            escribirTexto(out, envio.getNombreDestinatario());
+            escribirTexto(out, envio.getTelefonoDestinatario());
+            escribirTexto(out, envio.getCedulaDestinatario());
+            List<ServicioAdicional> servicios = envio.getServiciosAdicionales();
+            out.writeByte(servicios.size());
+            for (ServicioAdicional servicio : servicios) {
+                out.writeByte(servicio.ordinal());
+            }
+            out.writeDouble(envio.getCostoTotal());
+            escribirFecha(out, envio.getFechaCreacion());
+            escribirTexto(out, envio.getEstado());
+            out.writeBoolean(envio.getRepartidorAsignado() != null);
+            if (envio.getRepartidorAsignado() != null) {
+                escribirPersona(out, envio.getRepartidorAsignado());
+            }
+            out.writeByte(envio.getEstadoEntrega() != null ? envio.getEstadoEntrega().ordinal() : -1);
+            escribirTexto(out, envio.getObservaciones());
+            escribirFecha(out, envio.getFechaActualizacionEstado());
+            out.writeLong(envio.getVersion());
+        });
+    }
+
+    // ==================== DECODIFICACIÓN ====================
+
+    public static Person decodificarPersona(byte[] payload) {
+        return decodificar(payload, RegistroCodec::leerPersona);
+    }
+
+    public static Address decodificarDireccion(byte[] payload) {
+        return decodificar(payload, RegistroCodec::leerDireccion);
+    }
+
+    public static Envio decodificarEnvio(byte[] payload, ReceptorRecuperacion referencias) {
+        return decodificar(payload, in -> {
+            Envio envio = new Envio();
+            envio.setId(leerTexto(in));
+            envio.setOrigen(resolverDireccion(leerDireccionOpcional(in), referencias));
+            envio.setDestino(resolverDireccion(leerDireccionOpcional(in), referencias));
+            envio.setPeso(in.readDouble());
+            envio.setDimensiones(leerTexto(in));
+            envio.setVolumen(in.readDouble());
+            envio.setContenido(leerTexto(in));
+            envio.setNombreDestinatario(leerTexto(in));
+            envio.setTelefonoDestinatario(leerTexto(in));
+            envio.setCedulaDestinatario(leerTexto(in));
+            int totalServicios = in.readByte();
+            List<ServicioAdicional> servicios = new ArrayList<>(totalServicios);
+            for (int i = 0; i < totalServicios; i++) {
+                servicios.add(ServicioAdicional.values()[in.readByte()]);
+            }
+            envio.setServiciosAdicionales(servicios);
+            envio.setCostoTotal(in.readDouble());
+            envio.setFechaCreacion(leerFecha(in));
+            envio.setEstado(leerTexto(in));
+            if (in.readBoolean()) {
+                Dealer repartidor = (Dealer) leerPersona(in);
+                Dealer existente = referencias.buscarDealerPorId(repartidor.getId());
+                envio.setRepartidorAsignado(existente != null ? existente : repartidor);
+            }
+            int estadoEntrega = in.readByte();
+            envio.setEstadoEntrega(estadoEntrega >= 0 ? EstadoEntrega.values()[estadoEntrega] : null);
+            envio.setObservaciones(leerTexto(in));
+            envio.setFechaActualizacionEstado(leerFecha(in));
+            envio.setVersion(in.readLong());
+            return envio;
+        });
+    }
+
+    // ==================== PERSONAS ====================
+
+    private static void escribirPersona(DataOutputStream out, Person persona) throws IOException {
+        out.writeByte(tipoPersona(persona));
+        escribirTexto(out, persona.getId());
+        escribirTexto(out, persona.getDocumento());
+        escribirTexto(out, persona.getNombre());
+        escribirTexto(out, persona.getCorreo());
+        escribirTexto(out, persona.getTelefono());
+        if (persona instanceof Client) {
+            escribirTexto(out, ((Client) persona).getDireccion());
+        } else if (persona instanceof Dealer) {
+            Dealer dealer = (Dealer) persona;
+            out.writeBoolean(dealer.isDisponibleManual());
+            out.writeByte(dealer.getCity() != null ? dealer.getCity().ordinal() : -1);
+        } else if (persona instanceof Admin) {
+            escribirTexto(out, ((Admin) persona).getCargo());
+        }
+
+        UserAccount cuenta = persona.getUserAccount();
+        out.writeBoolean(cuenta != null);
+        if (cuenta != null) {
+            escribirTexto(out, cuenta.getUser());
+            escribirTexto(out, cuenta.getContrasenia());
+            out.writeByte(cuenta.getTypeUser() != null ? cuenta.getTypeUser().ordinal() : -1);
+            escribirTexto(out, cuenta.getAccountState().getStateName());
+            escribirTexto(out, cuenta.getAccountState() instanceof SuspendedState
+                    ? ((SuspendedState) cuenta.getAccountState()).getSuspensionReason() : null);
+            out.writeInt(cuenta.getFailedAttempts());
+            out.writeLong(cuenta.getBlockedTime());
+        }
+    }
+
+    private static Person leerPersona(DataInputStream in) throws IOException {
+        byte tipo = in.readByte();
+        String id = leerTexto(in);
+        String documento = leerTexto(in);
+        String nombre = leerTexto(in);
+        String correo = leerTexto(in);
+        String telefono = leerTexto(in);
+
+        Person persona;
+        switch (tipo) {
+            case TIPO_CLIENTE:
+                persona = new Client(id, documento, nombre, correo, telefono, leerTexto(in), null);
+                break;
+            case TIPO_REPARTIDOR:
+                boolean disponibleManual = in.readBoolean();
+                int ciudad = in.readByte();
+                persona = new Dealer(id, documento, nombre, correo, telefono, null,
+                        disponibleManual, ciudad >= 0 ? City.values()[ciudad] : null);
+                break;
+            case TIPO_ADMIN:
+                persona = new Admin(id, documento, nombre, correo, telefono, null, leerTexto(in));
+                break;
+            default:
+                persona = new Person(id, documento, nombre, correo, telefono, null);
+        }
+
+        if (in.readBoolean()) {
+            String usuario = leerTexto(in);
+            String contrasenia = leerTexto(in);
+            int tipoUsuario = in.readByte();
+            UserAccount cuenta = new UserAccount(usuario, contrasenia, persona,
+                    tipoUsuario >= 0 ? TypeUser.values()[tipoUsuario] : null);
+            String estado = leerTexto(in);
+            String razon = leerTexto(in);
+            int intentosFallidos = in.readInt();
+            long tiempoBloqueo = in.readLong();
+            if ("SUSPENDIDA".equals(estado)) {
+                cuenta.setAccountState(razon != null ? new SuspendedState(razon) : new SuspendedState());
+            } else if ("BLOQUEADA".equals(estado)) {
+                cuenta.setAccountState(new BlockedState());
+            } else {
+                cuenta.setAccountState(new ActiveState());
+            }
+            for (int i = 0; i < intentosFallidos; i++) {
+                cuenta.incrementFailedAttempts();
+            }
+            cuenta.setBlockedTime(tiempoBloqueo);
+            persona.setUserAccount(cuenta);
+        }
+        return persona;
+    }
+
+    private static byte tipoPersona(Person persona) {
+        if (persona instanceof Client) return TIPO_CLIENTE;
+        if (persona instanceof Dealer) return TIPO_REPARTIDOR;
+        if (persona instanceof Admin) return TIPO_ADMIN;
+        return TIPO_PERSONA;
+    }
+
+    // ==================== DIRECCIONES ====================
+
+    private static void escribirDireccion(DataOutputStream out, Address direccion) throws IOException {
+        escribirTexto(out, direccion.getId());
+        escribirTexto(out, direccion.getAlias());
+        escribirTexto(out, direccion.getStreet());
+        out.writeByte(direccion.getCity() != null ? direccion.getCity().ordinal() : -1);
+        out.writeByte(direccion.getType() != null ? direccion.getType().ordinal() : -1);
+        escribirTexto(out, direccion.getPlaceDescription());
+        escribirTexto(out, direccion.getAdditionalInfo());
+    }
+
+    private static Address leerDireccion(DataInputStream in) throws IOException {
+        String id = leerTexto(in);
+        String alias = leerTexto(in);
+        String calle = leerTexto(in);
+        int ciudad = in.readByte();
+        int tipo = in.readByte();
+        return new Address(id, alias, calle,
+                ciudad >= 0 ? City.values()[ciudad] : null,
+                tipo >= 0 ? AddressType.values()[tipo] : null,
+                leerTexto(in), leerTexto(in));
+    }
+
+    private static void escribirDireccionOpcional(DataOutputStream out, Address direccion) throws IOException {
+        out.writeBoolean(direccion != null);
+        if (direccion != null) {
+            escribirDireccion(out, direccion);
+        }
+    }
+
+    private static Address leerDireccionOpcional(DataInputStream in) throws IOException {
+        return in.readBoolean() ? leerDireccion(in) : null;
+    }
+
+    private static Address resolverDireccion(Address direccion, ReceptorRecuperacion referencias) {
+        if (direccion == null || direccion.getId() == null) {
+            return direccion;
+        }
+        Address existente = referencias.buscarDireccionPorId(direccion.getId());
+        return existente != null ? existente : direccion;
+    }
+
+    // ==================== TIPOS BÁSICOS ====================
+
+    private static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        out.writeBoolean(texto != null);
+        if (texto != null) {
+            out.writeUTF(texto);
+        }
+    }
+
+    private static String leerTexto(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void escribirFecha(DataOutputStream out, LocalDateTime fecha) throws IOException {
+        out.writeBoolean(fecha != null);
+        if (fecha != null) {
+            out.writeLong(fecha.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(fecha.getNano());
+        }
+    }
+
+    private static LocalDateTime leerFecha(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long segundos = in.readLong();
+        int nanos = in.readInt();
+        return LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC);
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private interface Escritura {
+        void escribir(DataOutputStream out) throws IOException;
+    }
+
+    private interface Lectura<T> {
+        T leer(DataInputStream in) throws IOException;
+    }
+
+    private static byte[] codificar(Escritura escritura) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            escritura.escribir(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T decodificar(byte[] payload, Lectura<T> lectura) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            in.readUTF(); // clave
+            return lectura.leer(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
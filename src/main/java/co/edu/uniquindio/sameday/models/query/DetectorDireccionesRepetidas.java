@@ -0,0 +1,108 @@
+package co.edu.uniquindio.sameday.models.query;
+
+import co.edu.uniquindio.sameday.models.City;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tarea de fondo que agrupa las direcciones repetidas de cada ciudad.
+ *
+ * Cada cambio de direcciones marca el índice como modificado; la tarea revisa la marca
+ * cada pocos segundos y, si hubo cambios, vuelve a agrupar y publica el resultado.
+ * Las pantallas leen el último resultado publicado sin esperar el cálculo.
+ */
+public class DetectorDireccionesRepetidas {
+
+    private static final long PERIODO_SEGUNDOS = 30;
+
+    private final IndiceDirecciones indice;
+    private final AtomicBoolean modificado = new AtomicBoolean(true);
+    private final ScheduledExecutorService tareaFondo;
+
+    private volatile Map<City, List<List<String>>> grupos = new EnumMap<>(City.class);
+    // Ids que no son el primero de su grupo
+    private volatile Set<String> repetidas = new HashSet<>();
+
+    public DetectorDireccionesRepetidas(IndiceDirecciones indice) {
+        this.indice = indice;
+        this.tareaFondo = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "sameday-direcciones-repetidas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Programa la revisión periódica. Va aparte del constructor para que la tarea
+     * de fondo nunca vea el detector a medio construir
+     * @return Este detector
+     */
+    public DetectorDireccionesRepetidas iniciar() {
+        tareaFondo.scheduleWithFixedDelay(this::revisar, 1, PERIODO_SEGUNDOS, TimeUnit.SECONDS);
+        return this;
+    }
+
+    /**
+     * Una dirección se agregó, cambió o se eliminó
+     */
+    public void marcarCambio() {
+        modificado.set(true);
+    }
+
+    private void revisar() {
+        try {
+            if (modificado.getAndSet(false)) {
+                recalcular();
+            }
+        } catch (RuntimeException e) {
+            // Una falla no debe cancelar las revisiones siguientes
+            modificado.set(true);
+            System.err.println("❌ Error agrupando direcciones repetidas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Agrupa en este hilo y publica el resultado (también lo usa la tarea de fondo)
+     */
+    public void recalcular() {
+        long inicio = System.currentTimeMillis();
+        Map<City, List<List<String>>> nuevos = indice.agruparRepetidas();
+        Set<String> nuevasRepetidas = new HashSet<>();
+        int cantidadGrupos = 0;
+        for (List<List<String>> gruposCiudad : nuevos.values()) {
+            for (List<String> grupo : gruposCiudad) {
+                nuevasRepetidas.addAll(grupo.subList(1, grupo.size()));
+                cantidadGrupos++;
+            }
+        }
+        grupos = nuevos;
+        repetidas = nuevasRepetidas;
+        if (cantidadGrupos > 0) {
+            System.out.println("🔁 Direcciones repetidas: " + cantidadGrupos + " grupos, "
+                    + nuevasRepetidas.size() + " sobrantes (" + (System.currentTimeMillis() - inicio) + " ms)");
+        }
+    }
+
+    /**
+     * @return Por ciudad, los grupos de ids repetidos de la última revisión (el primero es el más antiguo)
+     */
+    public Map<City, List<List<String>>> getGrupos() {
+        return Collections.unmodifiableMap(grupos);
+    }
+
+    /**
+     * @return true si la dirección repite a otra más antigua según la última revisión
+     */
+    public boolean esRepetida(String idDireccion) {
+        return repetidas.contains(idDireccion);
+    }
+}
@@ -0,0 +1,223 @@
+package co.edu.uniquindio.sameday.models.query;
+
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.EstadoEntrega;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Consulta de envíos sobre los índices de IndiceConsultasEnvios.
+ *
+ * Los filtros se combinan con Y (también si se repite uno: conEstado(A) y luego
+ * conEstado(B) no deja ninguno); sin filtros la consulta devuelve todos los envíos.
+ * Se obtiene con SameDay.consultarEnvios():
+ *
+ *   sameDay.consultarEnvios()
+ *          .pagados(true)
+ *          .conCiudadDestino(City.ARMENIA)
+ *          .creadosEntre(desde, hasta)
+ *          .ordenarPor(EnvioQuery.Orden.FECHA_DESC)
+ *          .limite(50)
+ *          .ejecutar();
+ *
+ * Solo los envíos del resultado se leen (de memoria o del archivo mapeado).
+ */
+public class EnvioQuery {
+
+    public enum Orden { NINGUNO, FECHA_ASC, FECHA_DESC, COSTO_ASC, COSTO_DESC }
+
+    private final IndiceConsultasEnvios indice;
+    private final Function<String, Envio> buscarPorId;
+
+    // Predicados (null = sin filtro); el planificador los lee directamente
+    LocalDateTime desde;
+    LocalDateTime hasta;
+    EnumSet<EstadoEntrega> estados;
+    boolean incluirSinEstado;
+    EnumSet<City> ciudades;
+    Boolean pagado;
+    String repartidorId;
+    Boolean conRepartidor;
+    // Dos filtros que se excluyen (pagados(true) y pagados(false), por ejemplo)
+    boolean contradictoria;
+    Orden orden = Orden.NINGUNO;
+    int desplazamiento;
+    int limite;
+
+    /**
+     * @param buscarPorId Lectura de un envío por id para materializar el resultado
+     */
+    public EnvioQuery(IndiceConsultasEnvios indice, Function<String, Envio> buscarPorId) {
+        this.indice = indice;
+        this.buscarPorId = buscarPorId;
+    }
+
+    /**
+     * Envíos creados en [desde, hasta); cualquiera de los dos puede ser null
+     */
+    public EnvioQuery creadosEntre(LocalDateTime desde, LocalDateTime hasta) {
+        this.desde = desde;
+        this.hasta = hasta;
+        return this;
+    }
+
+    /**
+     * Envíos creados entre dos días, ambos incluidos; cualquiera puede ser null
+     */
+    public EnvioQuery creadosEntre(LocalDate desde, LocalDate hasta) {
+        return creadosEntre(desde != null ? desde.atStartOfDay() : null,
+                hasta != null ? hasta.plusDays(1).atStartOfDay() : null);
+    }
+
+    /**
+     * Envíos en alguno de los estados de entrega dados
+     */
+    public EnvioQuery conEstado(EstadoEntrega estado, EstadoEntrega... otros) {
+        EnumSet<EstadoEntrega> nuevos = EnumSet.of(estado, otros);
+        if (estados == null) {
+            estados = nuevos;
+        } else {
+            estados.retainAll(nuevos);
+        }
+        incluirSinEstado = false;
+        return this;
+    }
+
+    /**
+     * Junto con conEstado, acepta también los envíos sin estado de entrega;
+     * por sí solo, deja únicamente los que no tienen estado
+     */
+    public EnvioQuery incluyendoSinEstado() {
+        if (estados == null) {
+            estados = EnumSet.noneOf(EstadoEntrega.class);
+        }
+        incluirSinEstado = true;
+        return this;
+    }
+
+    /**
+     * Envíos con destino en alguna de las ciudades dadas
+     */
+    public EnvioQuery conCiudadDestino(City ciudad, City... otras) {
+        EnumSet<City> nuevas = EnumSet.of(ciudad, otras);
+        if (ciudades == null) {
+            ciudades = nuevas;
+        } else {
+            ciudades.retainAll(nuevas);
+        }
+        return this;
+    }
+
+    public EnvioQuery pagados(boolean pagado) {
+        contradictoria |= this.pagado != null && this.pagado != pagado;
+        this.pagado = pagado;
+        return this;
+    }
+
+    public EnvioQuery deRepartidor(Dealer repartidor) {
+        contradictoria |= repartidorId != null && !repartidorId.equals(repartidor.getId());
+        this.repartidorId = repartidor.getId();
+        return this;
+    }
+
+    public EnvioQuery conRepartidor(boolean conRepartidor) {
+        contradictoria |= this.conRepartidor != null && this.conRepartidor != conRepartidor;
+        this.conRepartidor = conRepartidor;
+        return this;
+    }
+
+    public EnvioQuery ordenarPor(Orden orden) {
+        this.orden = orden;
+        return this;
+    }
+
+    /**
+     * Máximo de envíos a devolver (0 = sin límite)
+     */
+    public EnvioQuery limite(int limite) {
+        if (limite < 0) {
+            throw new IllegalArgumentException("El límite no puede ser negativo");
+        }
+        this.limite = limite;
+        return this;
+    }
+
+    /**
+     * Solo la página [desde, desde + cantidad) del resultado, en el orden pedido
+     */
+    public EnvioQuery pagina(int desde, int cantidad) {
+        if (desde < 0) {
+            throw new IllegalArgumentException("El inicio de la página no puede ser negativo");
+        }
+        limite(cantidad);
+        this.desplazamiento = desde;
+        return this;
+    }
+
+    /**
+     * @return Consulta independiente con los mismos filtros, orden y página
+     */
+    public EnvioQuery copiar() {
+        EnvioQuery copia = new EnvioQuery(indice, buscarPorId);
+        copia.desde = desde;
+        copia.hasta = hasta;
+        copia.estados = estados != null ? EnumSet.copyOf(estados) : null;
+        copia.incluirSinEstado = incluirSinEstado;
+        copia.ciudades = ciudades != null ? EnumSet.copyOf(ciudades) : null;
+        copia.pagado = pagado;
+        copia.repartidorId = repartidorId;
+        copia.conRepartidor = conRepartidor;
+        copia.contradictoria = contradictoria;
+        copia.orden = orden;
+        copia.desplazamiento = desplazamiento;
+        copia.limite = limite;
+        return copia;
+    }
+
+    boolean tieneRangoFecha() {
+        return desde != null || hasta != null;
+    }
+
+    /**
+     * @return Ids de los envíos que cumplen la consulta, sin leer los envíos
+     */
+    public List<String> ejecutarIds() {
+        return indice.buscar(this);
+    }
+
+    /**
+     * @return Envíos que cumplen la consulta, en el orden pedido
+     */
+    public List<Envio> ejecutar() {
+        return materializar(indice.buscar(this));
+    }
+
+    /**
+     * @return Los envíos de los ids dados, en el mismo orden
+     */
+    List<Envio> materializar(List<String> ids) {
+        List<Envio> resultado = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Envio envio = buscarPorId.apply(id);
+            // Un envío eliminado entre la búsqueda y la lectura se omite
+            if (envio != null) {
+                resultado.add(envio);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @return Cuántos envíos cumplen la consulta (ignora orden y página)
+     */
+    public int contar() {
+        return indice.contar(this);
+    }
+}
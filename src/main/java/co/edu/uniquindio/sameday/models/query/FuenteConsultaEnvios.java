@@ -0,0 +1,86 @@
+package co.edu.uniquindio.sameday.models.query;
+
+import co.edu.uniquindio.sameday.models.Envio;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Filas de una EnvioQuery por páginas.
+ *
+ * Las primeras páginas son consultas con desplazamiento y límite: con orden por fecha
+ * o costo se recorre el índice ya ordenado y se corta al completar la página, así que
+ * abrir la tabla no ordena el resultado completo. Si la tabla salta más lejos, se arma
+ * una sola vez la lista ordenada de ids del resultado y las páginas se leen de ella
+ * (solo ids; los envíos se leen por página).
+ *
+ * Las columnas sin índice ordenado se ordenan en memoria, siempre que el resultado no
+ * pase de {@value #MAXIMO_ORDEN_EN_MEMORIA} filas.
+ */
+public class FuenteConsultaEnvios implements FuenteDatosPaginada<Envio> {
+
+    /**
+     * Filas hasta las que se ordena en memoria por una columna sin índice
+     */
+    public static final int MAXIMO_ORDEN_EN_MEMORIA = 20_000;
+
+    // Filas que se resuelven con desplazamiento antes de armar la lista de ids
+    private static final int FILAS_DIRECTAS = 1000;
+
+    private final EnvioQuery consulta;
+    private List<String> idsOrdenados;
+
+    public FuenteConsultaEnvios(EnvioQuery consulta) {
+        this.consulta = consulta.copiar().pagina(0, 0);
+    }
+
+    /**
+     * @return La misma consulta con otro orden (la tabla pidió ordenar por otra columna)
+     */
+    public FuenteConsultaEnvios ordenadaPor(EnvioQuery.Orden orden) {
+        return new FuenteConsultaEnvios(consulta.copiar().ordenarPor(orden));
+    }
+
+    /**
+     * Ordena el resultado en memoria (para columnas sin índice ordenado): lee los
+     * envíos una vez, los ordena y guarda solo la lista de ids
+     * @return La misma consulta en el orden del comparador, o null si el resultado
+     *         tiene más de MAXIMO_ORDEN_EN_MEMORIA filas
+     */
+    public FuenteConsultaEnvios ordenadaEnMemoria(Comparator<? super Envio> comparador) {
+        if (consulta.contar() > MAXIMO_ORDEN_EN_MEMORIA) {
+            return null;
+        }
+        List<Envio> envios = consulta.ejecutar();
+        envios.sort(comparador);
+        List<String> ids = new ArrayList<>(envios.size());
+        for (Envio envio : envios) {
+            ids.add(envio.getId());
+        }
+        FuenteConsultaEnvios ordenada = new FuenteConsultaEnvios(consulta);
+        ordenada.idsOrdenados = ids;
+        return ordenada;
+    }
+
+    public EnvioQuery getConsulta() {
+        return consulta.copiar();
+    }
+
+    @Override
+    public int contar() {
+        return consulta.contar();
+    }
+
+    @Override
+    public List<Envio> leer(int desde, int cantidad) {
+        if (idsOrdenados == null && desde + cantidad <= FILAS_DIRECTAS) {
+            return consulta.copiar().pagina(desde, cantidad).ejecutar();
+        }
+        if (idsOrdenados == null) {
+            idsOrdenados = consulta.ejecutarIds();
+        }
+        int hasta = Math.min(idsOrdenados.size(), desde + cantidad);
+        return consulta.materializar(idsOrdenados.subList(Math.min(desde, hasta), hasta));
+    }
+}
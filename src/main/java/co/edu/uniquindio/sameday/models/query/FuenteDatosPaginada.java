@@ -0,0 +1,20 @@
+package co.edu.uniquindio.sameday.models.query;
+
+import java.util.List;
+
+/**
+ * Origen de filas para una tabla que se lee por páginas, ya en el orden de la tabla
+ * @param <T> Tipo de fila
+ */
+public interface FuenteDatosPaginada<T> {
+
+    /**
+     * @return Número total de filas
+     */
+    int contar();
+
+    /**
+     * @return Las filas [desde, desde + cantidad), o menos si se acaban
+     */
+    List<T> leer(int desde, int cantidad);
+}
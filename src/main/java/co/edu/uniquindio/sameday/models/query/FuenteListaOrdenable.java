@@ -0,0 +1,68 @@
+package co.edu.uniquindio.sameday.models.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Filas de una lista en memoria (una copia tomada al crear la fuente) por páginas.
+ *
+ * Para ordenar por una columna se construye una vez un índice ordenado (las posiciones
+ * de la copia ordenadas con el comparador) y las páginas se leen a través de él; la
+ * copia no se vuelve a copiar ni se reordena.
+ * @param <T> Tipo de fila
+ */
+public class FuenteListaOrdenable<T> implements FuenteDatosPaginada<T> {
+
+    private final List<T> filas;
+    // Posiciones de filas en el orden pedido (null = orden de la lista)
+    private final int[] orden;
+
+    /**
+     * @param filas Se copian: cambios posteriores a la lista no se ven en las páginas
+     */
+    public FuenteListaOrdenable(List<T> filas) {
+        this(new ArrayList<>(filas), null);
+    }
+
+    private FuenteListaOrdenable(List<T> filas, int[] orden) {
+        this.filas = filas;
+        this.orden = orden;
+    }
+
+    /**
+     * @param comparador Orden de la columna, o null para el orden de la lista
+     * @return Fuente con las mismas filas en otro orden
+     */
+    public FuenteListaOrdenable<T> ordenadaPor(Comparator<? super T> comparador) {
+        if (comparador == null) {
+            return new FuenteListaOrdenable<>(filas, null);
+        }
+        Integer[] posiciones = new Integer[filas.size()];
+        for (int i = 0; i < posiciones.length; i++) {
+            posiciones[i] = i;
+        }
+        Arrays.sort(posiciones, (a, b) -> comparador.compare(filas.get(a), filas.get(b)));
+        int[] indice = new int[posiciones.length];
+        for (int i = 0; i < indice.length; i++) {
+            indice[i] = posiciones[i];
+        }
+        return new FuenteListaOrdenable<>(filas, indice);
+    }
+
+    @Override
+    public int contar() {
+        return filas.size();
+    }
+
+    @Override
+    public List<T> leer(int desde, int cantidad) {
+        int hasta = Math.min(filas.size(), desde + cantidad);
+        List<T> pagina = new ArrayList<>(Math.max(0, hasta - desde));
+        for (int i = desde; i < hasta; i++) {
+            pagina.add(filas.get(orden != null ? orden[i] : i));
+        }
+        return pagina;
+    }
+}
@@ -0,0 +1,527 @@
+package co.edu.uniquindio.sameday.models.query;
+
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.EstadoEntrega;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índices secundarios de envíos para EnvioQuery.
+ *
+ * Cada envío ocupa una posición (slot) numérica; los índices por estado de entrega,
+ * ciudad de destino, pago y repartidor son mapas de bits sobre esas posiciones, y el
+ * de fecha de creación y el de costo son NavigableMap (ya ordenados, sirven para paginar
+ * sin ordenar). SameDay los mantiene con cada alta, cambio o baja: se quitan las claves
+ * anteriores del envío y se ponen las nuevas.
+ *
+ * El planificador (buscar) arranca por el predicado más selectivo, intersecta el resto
+ * como mapas de bits y solo materializa los ids de la página pedida. Un candado de lectura y
+ * escritura protege los índices: las escrituras son cortas y las lecturas no se bloquean
+ * entre sí.
+ */
+public class IndiceConsultasEnvios {
+
+    private static final EstadoEntrega[] ESTADOS = EstadoEntrega.values();
+    private static final City[] CIUDADES = City.values();
+    private static final long SIN_FECHA = Long.MIN_VALUE;
+
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    // Posiciones: id del envío <-> slot, con reutilización de los slots liberados
+    private final HashMap<String, Integer> slotPorId = new HashMap<>();
+    private final ArrayDeque<Integer> libres = new ArrayDeque<>();
+    private int siguienteSlot;
+
+    // Atributos por slot, para quitar las claves anteriores y para filtrar y ordenar
+    private String[] ids = new String[1024];
+    private long[] fechas = new long[1024];       // Segundos de fechaCreacion
+    private long[] costos = new long[1024];       // Centavos de costoTotal
+    private byte[] estados = new byte[1024];      // 0 = sin estado, si no ordinal + 1
+    private byte[] ciudades = new byte[1024];     // 0 = sin destino, si no ordinal + 1
+    private String[] repartidores = new String[1024];
+
+    private final BitSet vivos = new BitSet();
+    private final TreeMap<Long, int[]> porFecha = new TreeMap<>();
+    private final TreeMap<Long, int[]> porCosto = new TreeMap<>();
+    private final EnumMap<EstadoEntrega, BitSet> porEstado = new EnumMap<>(EstadoEntrega.class);
+    private final BitSet sinEstado = new BitSet();
+    private final EnumMap<City, BitSet> porCiudad = new EnumMap<>(City.class);
+    private final BitSet pagados = new BitSet();
+    private final BitSet conRepartidor = new BitSet();
+    private final HashMap<String, BitSet> porRepartidor = new HashMap<>();
+
+    public IndiceConsultasEnvios() {
+        for (EstadoEntrega estado : ESTADOS) {
+            porEstado.put(estado, new BitSet());
+        }
+        for (City ciudad : CIUDADES) {
+            porCiudad.put(ciudad, new BitSet());
+        }
+    }
+
+    // ==================== MANTENIMIENTO ====================
+
+    /**
+     * Registra el alta o el cambio de un envío
+     */
+    public void registrar(Envio envio) {
+        candado.writeLock().lock();
+        try {
+            Integer slot = slotPorId.get(envio.getId());
+            if (slot != null) {
+                quitar(slot);
+            } else {
+                slot = libres.isEmpty() ? siguienteSlot++ : libres.pop();
+                asegurarCapacidad(slot);
+                slotPorId.put(envio.getId(), slot);
+            }
+            poner(slot, envio);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public void retirar(String envioId) {
+        candado.writeLock().lock();
+        try {
+            Integer slot = slotPorId.remove(envioId);
+            if (slot != null) {
+                quitar(slot);
+                ids[slot] = null;
+                repartidores[slot] = null;
+                libres.push(slot);
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private void poner(int slot, Envio envio) {
+        ids[slot] = envio.getId();
+        long creacion = envio.getFechaCreacionMillis();
+        fechas[slot] = creacion != Long.MIN_VALUE ? Math.floorDiv(creacion, 1000) : SIN_FECHA;
+        costos[slot] = Math.round(envio.getCostoTotal() * 100);
+        EstadoEntrega estado = envio.getEstadoEntrega();
+        estados[slot] = (byte) (estado == null ? 0 : estado.ordinal() + 1);
+        City ciudad = envio.getDestino() != null ? envio.getDestino().getCity() : null;
+        ciudades[slot] = (byte) (ciudad == null ? 0 : ciudad.ordinal() + 1);
+        repartidores[slot] = envio.getRepartidorAsignado() != null ? envio.getRepartidorAsignado().getId() : null;
+
+        vivos.set(slot);
+        if (fechas[slot] != SIN_FECHA) {
+            porFecha.merge(fechas[slot], new int[]{slot}, IndiceConsultasEnvios::unir);
+        }
+        porCosto.merge(costos[slot], new int[]{slot}, IndiceConsultasEnvios::unir);
+        (estado == null ? sinEstado : porEstado.get(estado)).set(slot);
+        if (ciudad != null) {
+            porCiudad.get(ciudad).set(slot);
+        }
+        pagados.set(slot, envio.isPagado());
+        if (repartidores[slot] != null) {
+            conRepartidor.set(slot);
+            porRepartidor.computeIfAbsent(repartidores[slot], r -> new BitSet()).set(slot);
+        }
+    }
+
+    private void quitar(int slot) {
+        vivos.clear(slot);
+        if (fechas[slot] != SIN_FECHA) {
+            porFecha.computeIfPresent(fechas[slot], (f, slots) -> quitarDe(slots, slot));
+        }
+        porCosto.computeIfPresent(costos[slot], (c, slots) -> quitarDe(slots, slot));
+        (estados[slot] == 0 ? sinEstado : porEstado.get(ESTADOS[estados[slot] - 1])).clear(slot);
+        if (ciudades[slot] != 0) {
+            porCiudad.get(CIUDADES[ciudades[slot] - 1]).clear(slot);
+        }
+        pagados.clear(slot);
+        if (repartidores[slot] != null) {
+            conRepartidor.clear(slot);
+            BitSet delRepartidor = porRepartidor.get(repartidores[slot]);
+            delRepartidor.clear(slot);
+            if (delRepartidor.isEmpty()) {
+                porRepartidor.remove(repartidores[slot]);
+            }
+        }
+    }
+
+    private void asegurarCapacidad(int slot) {
+        if (slot < ids.length) {
+            return;
+        }
+        int capacidad = Math.max(slot + 1, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacidad);
+        fechas = Arrays.copyOf(fechas, capacidad);
+        costos = Arrays.copyOf(costos, capacidad);
+        estados = Arrays.copyOf(estados, capacidad);
+        ciudades = Arrays.copyOf(ciudades, capacidad);
+        repartidores = Arrays.copyOf(repartidores, capacidad);
+    }
+
+    // Los slots de una misma clave se mantienen ordenados: recorrer el índice y ordenar
+    // con el comparador dan el mismo orden, y las páginas no se solapan
+    private static int[] unir(int[] slots, int[] nuevo) {
+        int posicion = -Arrays.binarySearch(slots, nuevo[0]) - 1;
+        int[] unidos = new int[slots.length + 1];
+        System.arraycopy(slots, 0, unidos, 0, posicion);
+        unidos[posicion] = nuevo[0];
+        System.arraycopy(slots, posicion, unidos, posicion + 1, slots.length - posicion);
+        return unidos;
+    }
+
+    private static int[] quitarDe(int[] slots, int slot) {
+        if (slots.length == 1) {
+            return slots[0] == slot ? null : slots;
+        }
+        int[] restantes = new int[slots.length - 1];
+        int j = 0;
+        for (int s : slots) {
+            if (s != slot && j < restantes.length) {
+                restantes[j++] = s;
+            }
+        }
+        return restantes;
+    }
+
+    static long segundos(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    // ==================== PLANIFICADOR ====================
+
+    /**
+     * Resuelve la consulta sobre los índices
+     * @return Ids de los envíos que cumplen, en el orden pedido y como mucho el límite
+     */
+    List<String> buscar(EnvioQuery consulta) {
+        candado.readLock().lock();
+        try {
+            Plan plan = planificar(consulta);
+            if (plan.vacio) {
+                return new ArrayList<>();
+            }
+            if (plan.recorrerOrden) {
+                return recorrerOrdenado(consulta, plan);
+            }
+            BitSet candidatos = plan.candidatos();
+            return ordenar(candidatos, consulta);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    int contar(EnvioQuery consulta) {
+        candado.readLock().lock();
+        try {
+            Plan plan = planificar(consulta);
+            return plan.vacio ? 0 : plan.candidatos().cardinality();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Elige cómo resolver la consulta:
+     * 1. Cada predicado indexado se convierte en su mapa de bits y se ordena por cardinalidad.
+     * 2. El rango de fechas se cuenta solo hasta superar al mapa más pequeño; si no lo
+     *    supera, el rango manda y los mapas se comprueban bit a bit sobre sus slots.
+     * 3. Con orden por fecha o costo y límite (una página), si se espera llenar la página
+     *    antes de recorrer tantos envíos como tiene el candidato más pequeño, se recorre
+     *    el índice ya ordenado y se corta al completarla.
+     */
+    private Plan planificar(EnvioQuery consulta) {
+        Plan plan = new Plan(consulta);
+        List<BitSet> mapas = plan.mapas;
+        if (consulta.contradictoria) {
+            plan.vacio = true;
+            return plan;
+        }
+
+        if (consulta.estados != null) {
+            BitSet union = new BitSet();
+            for (EstadoEntrega estado : consulta.estados) {
+                union.or(porEstado.get(estado));
+            }
+            if (consulta.incluirSinEstado) {
+                union.or(sinEstado);
+            }
+            mapas.add(union);
+        }
+        if (consulta.ciudades != null) {
+            if (consulta.ciudades.size() == 1) {
+                mapas.add(porCiudad.get(consulta.ciudades.iterator().next()));
+            } else {
+                BitSet union = new BitSet();
+                for (City ciudad : consulta.ciudades) {
+                    union.or(porCiudad.get(ciudad));
+                }
+                mapas.add(union);
+            }
+        }
+        if (consulta.pagado != null) {
+            if (consulta.pagado) {
+                mapas.add(pagados);
+            } else {
+                BitSet noPagados = (BitSet) vivos.clone();
+                noPagados.andNot(pagados);
+                mapas.add(noPagados);
+            }
+        }
+        if (consulta.repartidorId != null) {
+            mapas.add(porRepartidor.getOrDefault(consulta.repartidorId, new BitSet()));
+        }
+        if (consulta.conRepartidor != null) {
+            if (consulta.conRepartidor) {
+                mapas.add(conRepartidor);
+            } else {
+                BitSet sinRepartidor = (BitSet) vivos.clone();
+                sinRepartidor.andNot(conRepartidor);
+                mapas.add(sinRepartidor);
+            }
+        }
+
+        int[] cardinalidades = new int[mapas.size()];
+        Integer[] orden = new Integer[mapas.size()];
+        for (int i = 0; i < mapas.size(); i++) {
+            cardinalidades[i] = mapas.get(i).cardinality();
+            orden[i] = i;
+        }
+        Arrays.sort(orden, Comparator.comparingInt(i -> cardinalidades[i]));
+        List<BitSet> ordenados = new ArrayList<>();
+        for (Integer i : orden) {
+            ordenados.add(mapas.get(i));
+        }
+        mapas.clear();
+        mapas.addAll(ordenados);
+        int menor = mapas.isEmpty() ? vivos.cardinality() : cardinalidades[orden[0]];
+        if (!mapas.isEmpty() && menor == 0) {
+            plan.vacio = true;
+            return plan;
+        }
+
+        int candidatos = menor;
+        if (consulta.tieneRangoFecha()) {
+            plan.rango = rango(consulta);
+            int enRango = contarHasta(plan.rango, menor + 1);
+            if (enRango == 0) {
+                plan.vacio = true;
+                return plan;
+            }
+            plan.conduceFecha = mapas.isEmpty() || enRango <= menor;
+            candidatos = Math.min(enRango, menor);
+        }
+
+        plan.indiceOrden = indiceOrden(consulta.orden, plan.rango);
+        if (plan.indiceOrden != null && consulta.limite > 0) {
+            boolean ordenFecha = consulta.orden == EnvioQuery.Orden.FECHA_ASC || consulta.orden == EnvioQuery.Orden.FECHA_DESC;
+            if (ordenFecha && plan.conduceFecha) {
+                // El rango manda y ya está ordenado: se recorre y se corta al completar la página
+                plan.recorrerOrden = true;
+            } else {
+                // Densidad de coincidencias estimada con el candidato más selectivo
+                int tope = consulta.desplazamiento + consulta.limite;
+                double densidad = Math.max(1, candidatos) / (double) Math.max(1, vivos.cardinality());
+                plan.recorrerOrden = tope / densidad < candidatos;
+            }
+        }
+        return plan;
+    }
+
+    private NavigableMap<Long, int[]> rango(EnvioQuery consulta) {
+        NavigableMap<Long, int[]> rango = porFecha;
+        if (consulta.desde != null) {
+            rango = rango.tailMap(segundos(consulta.desde), true);
+        }
+        if (consulta.hasta != null) {
+            rango = rango.headMap(segundos(consulta.hasta), false);
+        }
+        return rango;
+    }
+
+    private NavigableMap<Long, int[]> indiceOrden(EnvioQuery.Orden orden, NavigableMap<Long, int[]> rango) {
+        switch (orden) {
+            case FECHA_ASC:
+                return rango != null ? rango : porFecha;
+            case FECHA_DESC:
+                return (rango != null ? rango : porFecha).descendingMap();
+            case COSTO_ASC:
+                return porCosto;
+            case COSTO_DESC:
+                return porCosto.descendingMap();
+            default:
+                return null;
+        }
+    }
+
+    private static int contarHasta(NavigableMap<Long, int[]> rango, int tope) {
+        int cuenta = 0;
+        for (int[] slots : rango.values()) {
+            cuenta += slots.length;
+            if (cuenta >= tope) {
+                break;
+            }
+        }
+        return cuenta;
+    }
+
+    private List<String> recorrerOrdenado(EnvioQuery consulta, Plan plan) {
+        List<String> resultado = new ArrayList<>();
+        int saltar = consulta.desplazamiento;
+        for (int[] slots : plan.indiceOrden.values()) {
+            for (int slot : slots) {
+                if (plan.cumple(slot)) {
+                    if (saltar > 0) {
+                        saltar--;
+                        continue;
+                    }
+                    resultado.add(ids[slot]);
+                    if (resultado.size() == consulta.limite) {
+                        return resultado;
+                    }
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private List<String> ordenar(BitSet candidatos, EnvioQuery consulta) {
+        Comparator<Integer> comparador = comparador(consulta.orden);
+        List<String> resultado = new ArrayList<>();
+        if (comparador == null) {
+            // Sin orden: el de los slots
+            int saltar = consulta.desplazamiento;
+            for (int slot = candidatos.nextSetBit(0); slot >= 0; slot = candidatos.nextSetBit(slot + 1)) {
+                if (saltar > 0) {
+                    saltar--;
+                    continue;
+                }
+                resultado.add(ids[slot]);
+                if (resultado.size() == consulta.limite) {
+                    break;
+                }
+            }
+            return resultado;
+        }
+        List<Integer> slots;
+        if (consulta.limite > 0) {
+            // Top-k con un heap acotado: O(n log k) en lugar de ordenar todo
+            int tope = consulta.desplazamiento + consulta.limite;
+            PriorityQueue<Integer> heap = new PriorityQueue<>(tope + 1, comparador.reversed());
+            for (int slot = candidatos.nextSetBit(0); slot >= 0; slot = candidatos.nextSetBit(slot + 1)) {
+                heap.offer(slot);
+                if (heap.size() > tope) {
+                    heap.poll();
+                }
+            }
+            slots = new ArrayList<>(heap);
+        } else {
+            slots = new ArrayList<>(candidatos.cardinality());
+            for (int slot = candidatos.nextSetBit(0); slot >= 0; slot = candidatos.nextSetBit(slot + 1)) {
+                slots.add(slot);
+            }
+        }
+        slots.sort(comparador);
+        for (int i = consulta.desplazamiento; i < slots.size(); i++) {
+            resultado.add(ids[slots.get(i)]);
+        }
+        return resultado;
+    }
+
+    private Comparator<Integer> comparador(EnvioQuery.Orden orden) {
+        switch (orden) {
+            case FECHA_ASC:
+                return (a, b) -> fechas[a] != fechas[b] ? Long.compare(fechas[a], fechas[b]) : Integer.compare(a, b);
+            case FECHA_DESC:
+                return (a, b) -> fechas[a] != fechas[b] ? Long.compare(fechas[b], fechas[a]) : Integer.compare(a, b);
+            case COSTO_ASC:
+                return (a, b) -> costos[a] != costos[b] ? Long.compare(costos[a], costos[b]) : Integer.compare(a, b);
+            case COSTO_DESC:
+                return (a, b) -> costos[a] != costos[b] ? Long.compare(costos[b], costos[a]) : Integer.compare(a, b);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Plan de ejecución de una consulta
+     */
+    private final class Plan {
+        private final EnvioQuery consulta;
+        // Mapas de bits de los predicados, del más selectivo al menos selectivo
+        private final List<BitSet> mapas = new ArrayList<>();
+        private NavigableMap<Long, int[]> rango;
+        // Índice ya ordenado según el orden pedido (null = sin orden)
+        private NavigableMap<Long, int[]> indiceOrden;
+        private boolean conduceFecha;
+        private boolean recorrerOrden;
+        private boolean vacio;
+
+        private Plan(EnvioQuery consulta) {
+            this.consulta = consulta;
+        }
+
+        private boolean cumpleMapas(int slot) {
+            for (BitSet mapa : mapas) {
+                if (!mapa.get(slot)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Todos los predicados, incluido el rango de fechas (para recorrer otro índice)
+         */
+        private boolean cumple(int slot) {
+            return cumpleMapas(slot) && (rango == null || dentroDelRango(slot));
+        }
+
+        private boolean dentroDelRango(int slot) {
+            return fechas[slot] != SIN_FECHA
+                    && (consulta.desde == null || fechas[slot] >= segundos(consulta.desde))
+                    && (consulta.hasta == null || fechas[slot] < segundos(consulta.hasta));
+        }
+
+        private BitSet candidatos() {
+            BitSet candidatos;
+            if (conduceFecha) {
+                candidatos = new BitSet();
+                for (int[] slots : rango.values()) {
+                    for (int slot : slots) {
+                        if (cumpleMapas(slot)) {
+                            candidatos.set(slot);
+                        }
+                    }
+                }
+                return candidatos;
+            }
+            candidatos = (BitSet) (mapas.isEmpty() ? vivos : mapas.get(0)).clone();
+            for (int i = 1; i < mapas.size() && !candidatos.isEmpty(); i++) {
+                candidatos.and(mapas.get(i));
+            }
+            if (rango != null) {
+                // El rango no fue el más selectivo: se aplica como filtro residual
+                for (int slot = candidatos.nextSetBit(0); slot >= 0; slot = candidatos.nextSetBit(slot + 1)) {
+                    if (!dentroDelRango(slot)) {
+                        candidatos.clear(slot);
+                    }
+                }
+            }
+            return candidatos;
+        }
+    }
+}
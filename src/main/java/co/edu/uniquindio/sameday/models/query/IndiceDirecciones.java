@@ -0,0 +1,568 @@
+package co.edu.uniquindio.sameday.models.query;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.AddressType;
+import co.edu.uniquindio.sameday.models.City;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de trigramas de las direcciones, para buscar mientras se escribe y para
+ * encontrar direcciones repetidas.
+ *
+ * La calle, el alias y la información adicional se normalizan antes de partirlos en
+ * trigramas: sin tildes, en minúsculas, con las abreviaturas expandidas ("Cl", "Cll"
+ * -> calle; "Cra", "Kr" -> carrera; "Apto" -> apartamento) y sin "#" ni "No.", así que
+ * "Calle 15 # 20-45" y "Cl 15 #20-45" quedan iguales.
+ *
+ * Dos direcciones son la misma si tienen la misma ciudad, el mismo tipo, la misma vía
+ * con la misma numeración (calle 15 # 20-45 no es 20-46 ni 15A) y calles e información
+ * adicional parecidas por trigramas. La numeración se usa como bloque: solo se comparan
+ * las direcciones que la comparten.
+ */
+public class IndiceDirecciones {
+
+    // Parte de los trigramas de la búsqueda que debe estar en la dirección
+    private static final double COBERTURA_MINIMA = 0.5;
+    // Parecido (Dice sobre trigramas) de calles e información adicional repetidas
+    private static final double PARECIDO_CALLE = 0.6;
+    private static final double PARECIDO_INFO = 0.5;
+
+    private static final Pattern LETRA_DIGITO = Pattern.compile("(?<=[a-z])(?=[0-9])|(?<=[0-9])(?=[a-z])");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private static final Map<String, String> ABREVIATURAS = new HashMap<>();
+    private static final Set<String> RELLENO = Set.of("no", "nro", "num", "numero", "n");
+    private static final Set<String> VIAS = Set.of("calle", "carrera", "avenida", "diagonal", "transversal");
+    private static final Set<String> ORIENTACIONES = Set.of("sur", "norte", "este", "oeste", "bis");
+
+    static {
+        abreviar("calle", "cl", "cll", "cle", "clle", "call");
+        abreviar("carrera", "cr", "cra", "crr", "kr", "kra", "krr", "carr");
+        abreviar("avenida", "av", "avd", "avda", "ave");
+        abreviar("diagonal", "dg", "diag");
+        abreviar("transversal", "tv", "tr", "trans", "transv", "trv");
+        abreviar("apartamento", "ap", "apt", "apto");
+        abreviar("edificio", "ed", "edif");
+        abreviar("bloque", "bl", "blq");
+        abreviar("manzana", "mz", "mza");
+        abreviar("barrio", "br", "bro");
+        abreviar("kilometro", "km");
+    }
+
+    private static void abreviar(String palabra, String... abreviaturas) {
+        for (String abreviatura : abreviaturas) {
+            ABREVIATURAS.put(abreviatura, palabra);
+        }
+    }
+
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> slotPorId = new HashMap<>();
+    private final ArrayDeque<Integer> slotsLibres = new ArrayDeque<>();
+    private int tope;
+    // Orden de llegada: el primero de un grupo de repetidas es el más antiguo
+    private long siguienteOrden;
+
+    private String[] ids = new String[64];
+    private long[] ordenes = new long[64];
+    private byte[] ciudades = new byte[64];
+    private byte[] tipos = new byte[64];
+    private String[] bloques = new String[64];
+    // Trigramas ordenados y sin repetir: de todo el texto (búsqueda), de la calle y de la información
+    private int[][] trigramas = new int[64][];
+    private int[][] trigramasCalle = new int[64][];
+    private int[][] trigramasInfo = new int[64][];
+    private String[] numerosInfo = new String[64];
+
+    // Slots por trigrama, ordenados. Al retirar o reindexar no se quitan (los trigramas
+    // comunes tienen listas enormes): la verificación descarta las entradas viejas y las
+    // listas se reconstruyen cuando las viejas superan a las vigentes
+    private final Map<Integer, Postings> postings = new HashMap<>();
+    private long entradasVigentes;
+    private long entradasViejas;
+    // Slots por ciudad, tipo, vía y numeración
+    private final Map<String, List<Integer>> porBloque = new HashMap<>();
+
+    private static final class Postings {
+        int[] slots = new int[4];
+        int tamano;
+
+        void poner(int slot) {
+            int posicion = Arrays.binarySearch(slots, 0, tamano, slot);
+            if (posicion >= 0) {
+                return;
+            }
+            posicion = -posicion - 1;
+            if (tamano == slots.length) {
+                slots = Arrays.copyOf(slots, tamano * 2);
+            }
+            System.arraycopy(slots, posicion, slots, posicion + 1, tamano - posicion);
+            slots[posicion] = slot;
+            tamano++;
+        }
+
+    }
+
+    /**
+     * Agrega la dirección o la reindexa si ya estaba (conserva su antigüedad)
+     */
+    public void indexar(Address direccion) {
+        Ficha ficha = new Ficha(direccion);
+        candado.writeLock().lock();
+        try {
+            Integer existente = slotPorId.get(direccion.getId());
+            long orden;
+            int slot;
+            if (existente != null) {
+                slot = existente;
+                orden = ordenes[slot];
+                desindexar(slot);
+            } else {
+                slot = slotsLibres.isEmpty() ? tope++ : slotsLibres.pop();
+                orden = siguienteOrden++;
+                asegurarCapacidad(slot);
+                slotPorId.put(direccion.getId(), slot);
+            }
+            ids[slot] = direccion.getId();
+            ordenes[slot] = orden;
+            ciudades[slot] = ficha.ciudad;
+            tipos[slot] = ficha.tipo;
+            bloques[slot] = ficha.bloque;
+            trigramas[slot] = ficha.trigramas;
+            trigramasCalle[slot] = ficha.trigramasCalle;
+            trigramasInfo[slot] = ficha.trigramasInfo;
+            numerosInfo[slot] = ficha.numerosInfo;
+            for (int trigrama : ficha.trigramas) {
+                postings.computeIfAbsent(trigrama, t -> new Postings()).poner(slot);
+            }
+            entradasVigentes += ficha.trigramas.length;
+            if (ficha.bloque != null) {
+                porBloque.computeIfAbsent(ficha.bloque, b -> new ArrayList<>()).add(slot);
+            }
+            compactarSiHaceFalta();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public void retirar(String id) {
+        candado.writeLock().lock();
+        try {
+            Integer slot = slotPorId.remove(id);
+            if (slot == null) {
+                return;
+            }
+            desindexar(slot);
+            ids[slot] = null;
+            trigramas[slot] = null;
+            trigramasCalle[slot] = null;
+            trigramasInfo[slot] = null;
+            numerosInfo[slot] = null;
+            bloques[slot] = null;
+            slotsLibres.push(slot);
+            compactarSiHaceFalta();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private void desindexar(int slot) {
+        entradasVigentes -= trigramas[slot].length;
+        entradasViejas += trigramas[slot].length;
+        String bloque = bloques[slot];
+        if (bloque != null) {
+            List<Integer> slots = porBloque.get(bloque);
+            slots.remove(Integer.valueOf(slot));
+            if (slots.isEmpty()) {
+                porBloque.remove(bloque);
+            }
+        }
+    }
+
+    private void compactarSiHaceFalta() {
+        if (entradasViejas <= Math.max(4096, entradasVigentes)) {
+            return;
+        }
+        postings.clear();
+        for (int slot = 0; slot < tope; slot++) {
+            if (ids[slot] != null) {
+                for (int trigrama : trigramas[slot]) {
+                    postings.computeIfAbsent(trigrama, t -> new Postings()).poner(slot);
+                }
+            }
+        }
+        entradasViejas = 0;
+    }
+
+    private void asegurarCapacidad(int slot) {
+        if (slot < ids.length) {
+            return;
+        }
+        int capacidad = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacidad);
+        ordenes = Arrays.copyOf(ordenes, capacidad);
+        ciudades = Arrays.copyOf(ciudades, capacidad);
+        tipos = Arrays.copyOf(tipos, capacidad);
+        bloques = Arrays.copyOf(bloques, capacidad);
+        trigramas = Arrays.copyOf(trigramas, capacidad);
+        trigramasCalle = Arrays.copyOf(trigramasCalle, capacidad);
+        trigramasInfo = Arrays.copyOf(trigramasInfo, capacidad);
+        numerosInfo = Arrays.copyOf(numerosInfo, capacidad);
+    }
+
+    public int tamano() {
+        candado.readLock().lock();
+        try {
+            return slotPorId.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    // ==================== BÚSQUEDA ====================
+
+    /**
+     * Direcciones que contienen la mayor parte de lo escrito, aunque esté incompleto,
+     * abreviado o con errores ("cl 15 #20-4" encuentra "Calle 15 # 20-45"). El puntaje
+     * combina qué parte de lo escrito aparece en la dirección y qué tan parecidas son.
+     * @param ciudad Solo direcciones de esta ciudad (null = todas)
+     * @param tipo Solo direcciones de este tipo (null = todos)
+     */
+    public List<ResultadoBusqueda> buscar(String texto, City ciudad, AddressType tipo, int limite) {
+        int[] consulta = trigramas(normalizar(texto), false);
+        if (consulta.length == 0 || limite <= 0) {
+            return new ArrayList<>();
+        }
+        int requeridos = Math.max(1, (int) Math.ceil(COBERTURA_MINIMA * consulta.length));
+        byte filtroCiudad = ciudad != null ? (byte) (ciudad.ordinal() + 1) : 0;
+        byte filtroTipo = tipo != null ? (byte) (tipo.ordinal() + 1) : 0;
+
+        candado.readLock().lock();
+        try {
+            // Quien comparte "requeridos" trigramas comparte al menos uno de los
+            // (n - requeridos + 1) menos frecuentes: solo esas listas se recorren
+            Postings[] listas = new Postings[consulta.length];
+            int conLista = 0;
+            for (int trigrama : consulta) {
+                Postings lista = postings.get(trigrama);
+                if (lista != null) {
+                    listas[conLista++] = lista;
+                }
+            }
+            if (conLista < requeridos) {
+                return new ArrayList<>();
+            }
+            Arrays.sort(listas, 0, conLista, Comparator.comparingInt((Postings p) -> p.tamano));
+
+            boolean[] vistos = new boolean[tope];
+            PriorityQueue<ResultadoBusqueda> mejores = new PriorityQueue<>(
+                    Comparator.comparingDouble(ResultadoBusqueda::getPuntaje));
+            for (int i = 0; i < consulta.length - requeridos + 1 && i < conLista; i++) {
+                Postings lista = listas[i];
+                for (int j = 0; j < lista.tamano; j++) {
+                    int slot = lista.slots[j];
+                    if (vistos[slot]) {
+                        continue;
+                    }
+                    vistos[slot] = true;
+                    if (ids[slot] == null
+                            || (filtroCiudad != 0 && ciudades[slot] != filtroCiudad)
+                            || (filtroTipo != 0 && tipos[slot] != filtroTipo)) {
+                        continue;
+                    }
+                    int comunes = comunes(consulta, trigramas[slot]);
+                    if (comunes < requeridos) {
+                        continue;
+                    }
+                    double cobertura = (double) comunes / consulta.length;
+                    double parecido = 2.0 * comunes / (consulta.length + trigramas[slot].length);
+                    mejores.add(new ResultadoBusqueda(IndiceTexto.TipoDocumento.DIRECCION, ids[slot],
+                            0.75 * cobertura + 0.25 * parecido));
+                    if (mejores.size() > limite) {
+                        mejores.poll();
+                    }
+                }
+            }
+            List<ResultadoBusqueda> resultado = new ArrayList<>(mejores);
+            resultado.sort(Comparator.comparingDouble(ResultadoBusqueda::getPuntaje).reversed());
+            return resultado;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    // ==================== REPETIDAS ====================
+
+    /**
+     * @return Ids de las direcciones ya indexadas que son la misma que esta (sin contarla a ella)
+     */
+    public List<String> repetidasDe(Address direccion) {
+        Ficha ficha = new Ficha(direccion);
+        List<String> repetidas = new ArrayList<>();
+        if (ficha.bloque == null) {
+            return repetidas;
+        }
+        candado.readLock().lock();
+        try {
+            List<Integer> slots = porBloque.get(ficha.bloque);
+            if (slots != null) {
+                for (int slot : slots) {
+                    if (!ids[slot].equals(direccion.getId())
+                            && parecidas(ficha.trigramasCalle, ficha.trigramasInfo, ficha.numerosInfo, slot)) {
+                        repetidas.add(ids[slot]);
+                    }
+                }
+            }
+            return repetidas;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Agrupa las direcciones repetidas de cada ciudad (la relación es transitiva: si A
+     * se parece a B y B a C, las tres quedan juntas).
+     * @return Por ciudad, los grupos de dos o más ids; en cada grupo la primera es la más antigua
+     */
+    public Map<City, List<List<String>>> agruparRepetidas() {
+        Map<City, List<List<String>>> grupos = new EnumMap<>(City.class);
+        candado.readLock().lock();
+        try {
+            for (List<Integer> bloque : porBloque.values()) {
+                if (bloque.size() < 2) {
+                    continue;
+                }
+                int[] slots = bloque.stream().mapToInt(Integer::intValue).toArray();
+                int[] padres = new int[slots.length];
+                for (int i = 0; i < slots.length; i++) {
+                    padres[i] = i;
+                }
+                for (int i = 0; i < slots.length; i++) {
+                    for (int j = i + 1; j < slots.length; j++) {
+                        if (parecidas(trigramasCalle[slots[i]], trigramasInfo[slots[i]],
+                                numerosInfo[slots[i]], slots[j])) {
+                            padres[raiz(padres, i)] = raiz(padres, j);
+                        }
+                    }
+                }
+                Map<Integer, List<Integer>> porRaiz = new HashMap<>();
+                for (int i = 0; i < slots.length; i++) {
+                    porRaiz.computeIfAbsent(raiz(padres, i), r -> new ArrayList<>()).add(slots[i]);
+                }
+                for (List<Integer> grupo : porRaiz.values()) {
+                    if (grupo.size() < 2) {
+                        continue;
+                    }
+                    grupo.sort(Comparator.comparingLong(slot -> ordenes[slot]));
+                    List<String> idsGrupo = new ArrayList<>(grupo.size());
+                    for (int slot : grupo) {
+                        idsGrupo.add(ids[slot]);
+                    }
+                    City ciudad = City.values()[ciudades[grupo.get(0)] - 1];
+                    grupos.computeIfAbsent(ciudad, c -> new ArrayList<>()).add(idsGrupo);
+                }
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+        return grupos;
+    }
+
+    private static int raiz(int[] padres, int i) {
+        while (padres[i] != i) {
+            padres[i] = padres[padres[i]];
+            i = padres[i];
+        }
+        return i;
+    }
+
+    /**
+     * Mismo bloque ya comprobado: calles parecidas e información adicional ausente en
+     * ambas o parecida ("Torre 3" y "Torre 4" no son la misma dirección)
+     */
+    private boolean parecidas(int[] calle, int[] info, String numerosDeInfo, int slot) {
+        if (dice(calle, trigramasCalle[slot]) < PARECIDO_CALLE) {
+            return false;
+        }
+        int[] otraInfo = trigramasInfo[slot];
+        if (info.length == 0 || otraInfo.length == 0) {
+            return info.length == otraInfo.length;
+        }
+        return numerosDeInfo.equals(numerosInfo[slot]) && dice(info, otraInfo) >= PARECIDO_INFO;
+    }
+
+    private static double dice(int[] a, int[] b) {
+        if (a.length + b.length == 0) {
+            return 1;
+        }
+        return 2.0 * comunes(a, b) / (a.length + b.length);
+    }
+
+    private static int comunes(int[] a, int[] b) {
+        int i = 0;
+        int j = 0;
+        int comunes = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                comunes++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return comunes;
+    }
+
+    // ==================== NORMALIZACIÓN ====================
+
+    /**
+     * Lo indexado de una dirección, calculado fuera del candado
+     */
+    private static final class Ficha {
+        final byte ciudad;
+        final byte tipo;
+        final String bloque;
+        final int[] trigramas;
+        final int[] trigramasCalle;
+        final int[] trigramasInfo;
+        final String numerosInfo;
+
+        Ficha(Address direccion) {
+            String calle = normalizar(direccion.getStreet());
+            String info = normalizar(direccion.getAdditionalInfo());
+            String alias = normalizar(direccion.getAlias());
+            ciudad = direccion.getCity() != null ? (byte) (direccion.getCity().ordinal() + 1) : 0;
+            tipo = direccion.getType() != null ? (byte) (direccion.getType().ordinal() + 1) : 0;
+            trigramasCalle = trigramas(calle, true);
+            trigramasInfo = trigramas(info, true);
+            numerosInfo = numeros(info);
+            trigramas = unir(unir(trigramasCalle, trigramasInfo), trigramas(alias, true));
+            String numeracion = numeracion(calle);
+            bloque = numeracion.isEmpty() ? null : ciudad + "|" + tipo + "|" + numeracion;
+        }
+    }
+
+    /**
+     * @return El texto en minúsculas, sin tildes ni signos, con las abreviaturas expandidas
+     * y las palabras separadas por un espacio ("Cl 15A #20-45" -> "calle 15 a 20 45")
+     */
+    static String normalizar(String texto) {
+        String limpio = LETRA_DIGITO.matcher(Tokenizador.normalizar(texto)).replaceAll(" ");
+        StringBuilder normalizado = new StringBuilder(limpio.length());
+        for (String palabra : SEPARADORES.split(limpio)) {
+            if (palabra.isEmpty() || RELLENO.contains(palabra)) {
+                continue;
+            }
+            if (normalizado.length() > 0) {
+                normalizado.append(' ');
+            }
+            normalizado.append(ABREVIATURAS.getOrDefault(palabra, palabra));
+        }
+        return normalizado.toString();
+    }
+
+    /**
+     * @return Vía y numeración de una calle normalizada ("calle 15 a 20 45"), o "" si no
+     * tiene números. Las letras sueltas y la orientación que siguen a un número son parte
+     * de él (15A, 20 sur)
+     */
+    private static String numeracion(String calle) {
+        StringBuilder numeracion = new StringBuilder();
+        boolean trasNumero = false;
+        boolean conNumero = false;
+        String[] palabras = calle.isEmpty() ? new String[0] : calle.split(" ");
+        for (int i = 0; i < palabras.length; i++) {
+            String palabra = palabras[i];
+            boolean numero = Character.isDigit(palabra.charAt(0));
+            boolean sufijo = trasNumero && (palabra.length() == 1 || ORIENTACIONES.contains(palabra));
+            if (numero || sufijo || (i == 0 && VIAS.contains(palabra))) {
+                numeracion.append(palabra).append(' ');
+                conNumero |= numero;
+            }
+            trasNumero = numero || sufijo;
+        }
+        return conNumero ? numeracion.toString().trim() : "";
+    }
+
+    /**
+     * @return Los números de un texto normalizado ("torre 3 apartamento 501" -> "3 501")
+     */
+    private static String numeros(String normalizado) {
+        StringBuilder numeros = new StringBuilder();
+        for (String palabra : normalizado.split(" ")) {
+            if (!palabra.isEmpty() && Character.isDigit(palabra.charAt(0))) {
+                numeros.append(palabra).append(' ');
+            }
+        }
+        return numeros.toString();
+    }
+
+    /**
+     * Trigramas de un texto normalizado, con dos espacios al inicio para que pesen los
+     * comienzos de palabra. Lo que se está escribiendo no se cierra con espacio: su
+     * última palabra puede estar incompleta
+     * @return Trigramas codificados en base 37, ordenados y sin repetir
+     */
+    static int[] trigramas(String normalizado, boolean completo) {
+        if (normalizado.isEmpty()) {
+            return new int[0];
+        }
+        String texto = "  " + normalizado + (completo ? " " : "");
+        int[] codigos = new int[texto.length() - 2];
+        for (int i = 0; i < codigos.length; i++) {
+            codigos[i] = (simbolo(texto.charAt(i)) * 37 + simbolo(texto.charAt(i + 1))) * 37
+                    + simbolo(texto.charAt(i + 2));
+        }
+        Arrays.sort(codigos);
+        int unicos = 0;
+        for (int i = 0; i < codigos.length; i++) {
+            if (i == 0 || codigos[i] != codigos[i - 1]) {
+                codigos[unicos++] = codigos[i];
+            }
+        }
+        return Arrays.copyOf(codigos, unicos);
+    }
+
+    private static int simbolo(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 27;
+        }
+        return 0;
+    }
+
+    private static int[] unir(int[] a, int[] b) {
+        int[] union = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                union[n++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                union[n++] = b[j++];
+            } else {
+                union[n++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(union, n);
+    }
+}
@@ -0,0 +1,474 @@
+package co.edu.uniquindio.sameday.models.query;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.Admin;
+import co.edu.uniquindio.sameday.models.Client;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.Person;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido de texto sobre envíos, personas y direcciones, para buscar por
+ * fragmentos (nombre del destinatario, cédula, teléfono, contenido, calle, alias...).
+ *
+ * Cada documento es una entidad; sus campos se parten en términos (Tokenizador) y cada
+ * término suma el peso de su campo: un acierto en la cédula vale más que uno en el
+ * contenido. Las listas de cada término son de solo agregar: reindexar un documento le
+ * da un slot nuevo y marca el anterior como borrado; cuando los borrados superan a los
+ * vivos se compacta todo. Un documento cuyo texto no cambió no se reindexa. La calle,
+ * el alias y la ciudad de destino de un envío se toman cuando se indexa el envío.
+ *
+ * Buscar exige que estén todos los términos de la consulta; cada uno acepta también
+ * los términos que empiezan por él (búsqueda mientras se escribe) y los ids con ese
+ * prefijo (trie). El puntaje es BM25 con los pesos de campo.
+ */
+public class IndiceTexto {
+
+    public enum TipoDocumento { ENVIO, CLIENTE, REPARTIDOR, ADMIN, DIRECCION }
+
+    // Pesos por campo
+    private static final float PESO_ID = 8f;
+    private static final float PESO_DOCUMENTO = 6f;
+    private static final float PESO_TELEFONO = 5f;
+    private static final float PESO_NOMBRE = 4f;
+    private static final float PESO_CORREO = 3f;
+    private static final float PESO_DIRECCION = 2f;
+    private static final float PESO_CONTENIDO = 2f;
+    private static final float PESO_CIUDAD = 1f;
+
+    // Parámetros de BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Un término que solo es prefijo de otro puntúa menos que el término exacto
+    private static final double FACTOR_PREFIJO = 0.6;
+    private static final int MAX_EXPANSIONES = 64;
+    private static final int MAX_IDS_POR_PREFIJO = 1000;
+
+    private static final TipoDocumento[] TIPOS = TipoDocumento.values();
+
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    private final EnumMap<TipoDocumento, HashMap<String, Integer>> slotPorId = new EnumMap<>(TipoDocumento.class);
+    // Diccionario ordenado: las expansiones por prefijo son un subMap
+    private final TreeMap<String, Postings> terminos = new TreeMap<>();
+    private final TrieIds trie = new TrieIds();
+
+    // Por slot: tipo, id, cantidad de términos (para normalizar por longitud) y firma del texto
+    private byte[] tipos = new byte[1024];
+    private String[] ids = new String[1024];
+    private int[] longitudes = new int[1024];
+    private long[] firmas = new long[1024];
+    private final BitSet vivos = new BitSet();
+    private int siguienteSlot;
+    private int cantidadVivos;
+    private long sumaLongitudes;
+
+    public IndiceTexto() {
+        for (TipoDocumento tipo : TIPOS) {
+            slotPorId.put(tipo, new HashMap<>());
+        }
+    }
+
+    // ==================== DOCUMENTOS ====================
+
+    public void indexarEnvio(Envio envio) {
+        Documento documento = new Documento(TipoDocumento.ENVIO, envio.getId())
+                .campo(envio.getNombreDestinatario(), PESO_NOMBRE)
+                .numero(envio.getCedulaDestinatario(), PESO_DOCUMENTO)
+                .numero(envio.getTelefonoDestinatario(), PESO_TELEFONO)
+                .campo(envio.getContenido(), PESO_CONTENIDO);
+        if (envio.getDestino() != null) {
+            documento.campo(envio.getDestino().getStreet(), PESO_DIRECCION)
+                    .campo(envio.getDestino().getAlias(), PESO_DIRECCION)
+                    .campo(envio.getDestino().getCity() != null ? envio.getDestino().getCity().name() : null, PESO_CIUDAD);
+        }
+        indexar(documento);
+    }
+
+    public void indexarPersona(Person persona) {
+        TipoDocumento tipo = tipoDe(persona);
+        if (tipo == null) {
+            return;
+        }
+        Documento documento = new Documento(tipo, persona.getId())
+                .campo(persona.getNombre(), PESO_NOMBRE)
+                .numero(persona.getDocumento(), PESO_DOCUMENTO)
+                .numero(persona.getTelefono(), PESO_TELEFONO)
+                .campo(persona.getCorreo(), PESO_CORREO);
+        if (persona instanceof Client) {
+            documento.campo(((Client) persona).getDireccion(), PESO_DIRECCION);
+        }
+        indexar(documento);
+    }
+
+    public void indexarDireccion(Address direccion) {
+        indexar(new Documento(TipoDocumento.DIRECCION, direccion.getId())
+                .campo(direccion.getAlias(), PESO_NOMBRE)
+                .campo(direccion.getStreet(), PESO_DIRECCION)
+                .campo(direccion.getPlaceDescription(), PESO_CONTENIDO)
+                .campo(direccion.getAdditionalInfo(), PESO_CONTENIDO)
+                .campo(direccion.getCity() != null ? direccion.getCity().name() : null, PESO_CIUDAD));
+    }
+
+    public void retirarPersona(Person persona) {
+        TipoDocumento tipo = tipoDe(persona);
+        if (tipo != null) {
+            retirar(tipo, persona.getId());
+        }
+    }
+
+    public void retirar(TipoDocumento tipo, String id) {
+        candado.writeLock().lock();
+        try {
+            Integer slot = slotPorId.get(tipo).remove(id);
+            if (slot != null) {
+                matar(slot);
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private static TipoDocumento tipoDe(Person persona) {
+        if (persona instanceof Client) {
+            return TipoDocumento.CLIENTE;
+        }
+        if (persona instanceof Dealer) {
+            return TipoDocumento.REPARTIDOR;
+        }
+        if (persona instanceof Admin) {
+            return TipoDocumento.ADMIN;
+        }
+        return null;
+    }
+
+    private void indexar(Documento documento) {
+        if (documento.id == null) {
+            return;
+        }
+        candado.writeLock().lock();
+        try {
+            HashMap<String, Integer> porId = slotPorId.get(documento.tipo);
+            Integer anterior = porId.get(documento.id);
+            if (anterior != null) {
+                if (firmas[anterior] == documento.firma) {
+                    return;
+                }
+                matar(anterior);
+            }
+            int slot = siguienteSlot++;
+            asegurarCapacidad(slot);
+            tipos[slot] = (byte) documento.tipo.ordinal();
+            ids[slot] = documento.id;
+            longitudes[slot] = documento.longitud;
+            firmas[slot] = documento.firma;
+            vivos.set(slot);
+            cantidadVivos++;
+            sumaLongitudes += documento.longitud;
+            porId.put(documento.id, slot);
+            for (Map.Entry<String, Float> termino : documento.pesos.entrySet()) {
+                terminos.computeIfAbsent(termino.getKey(), t -> new Postings()).agregar(slot, termino.getValue());
+            }
+            trie.poner(Tokenizador.normalizar(documento.id), slot);
+            if (siguienteSlot - cantidadVivos > Math.max(1024, cantidadVivos)) {
+                compactar();
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private void matar(int slot) {
+        vivos.clear(slot);
+        cantidadVivos--;
+        sumaLongitudes -= longitudes[slot];
+        trie.quitar(Tokenizador.normalizar(ids[slot]), slot);
+    }
+
+    private void asegurarCapacidad(int slot) {
+        if (slot < ids.length) {
+            return;
+        }
+        int capacidad = Math.max(slot + 1, ids.length * 2);
+        tipos = Arrays.copyOf(tipos, capacidad);
+        ids = Arrays.copyOf(ids, capacidad);
+        longitudes = Arrays.copyOf(longitudes, capacidad);
+        firmas = Arrays.copyOf(firmas, capacidad);
+    }
+
+    /**
+     * Renumera los slots vivos de forma consecutiva y quita los borrados de las listas
+     */
+    private void compactar() {
+        int[] nuevoSlot = new int[siguienteSlot];
+        int siguiente = 0;
+        for (int slot = 0; slot < siguienteSlot; slot++) {
+            if (vivos.get(slot)) {
+                nuevoSlot[slot] = siguiente;
+                tipos[siguiente] = tipos[slot];
+                ids[siguiente] = ids[slot];
+                longitudes[siguiente] = longitudes[slot];
+                firmas[siguiente] = firmas[slot];
+                siguiente++;
+            } else {
+                nuevoSlot[slot] = -1;
+            }
+        }
+        Arrays.fill(ids, siguiente, siguienteSlot, null);
+        terminos.values().removeIf(postings -> postings.compactar(nuevoSlot) == 0);
+        for (HashMap<String, Integer> porId : slotPorId.values()) {
+            porId.replaceAll((id, slot) -> nuevoSlot[slot]);
+        }
+        trie.remapear(slot -> nuevoSlot[slot]);
+        vivos.clear();
+        vivos.set(0, siguiente);
+        siguienteSlot = siguiente;
+    }
+
+    // ==================== BÚSQUEDA ====================
+
+    /**
+     * @param texto Fragmentos a buscar ("calarca maria", "env00", "3105551234")
+     * @param tipos Tipos de documento aceptados (vacío = todos)
+     * @return Los documentos con todos los términos, de mayor a menor puntaje
+     */
+    public List<ResultadoBusqueda> buscar(String texto, int limite, TipoDocumento... tipos) {
+        Set<TipoDocumento> aceptados = tipos.length == 0 ? EnumSet.allOf(TipoDocumento.class) : EnumSet.of(tipos[0], tipos);
+        Set<String> consulta = new LinkedHashSet<>(Tokenizador.terminos(texto));
+        if (consulta.isEmpty() || limite <= 0) {
+            return new ArrayList<>();
+        }
+        candado.readLock().lock();
+        try {
+            List<Fuentes> porTermino = new ArrayList<>();
+            for (String termino : consulta) {
+                porTermino.add(fuentes(termino));
+            }
+            // Primero el término más raro: el resto solo puntúa a sus candidatos
+            porTermino.sort(Comparator.comparingLong(f -> f.frecuencia));
+
+            HashMap<Integer, Double> puntajes = null;
+            for (Fuentes fuentes : porTermino) {
+                HashMap<Integer, Double> delTermino = puntuar(fuentes, puntajes, aceptados);
+                if (puntajes == null) {
+                    puntajes = delTermino;
+                } else {
+                    puntajes.keySet().retainAll(delTermino.keySet());
+                    for (Map.Entry<Integer, Double> puntaje : puntajes.entrySet()) {
+                        puntaje.setValue(puntaje.getValue() + delTermino.get(puntaje.getKey()));
+                    }
+                }
+                if (puntajes.isEmpty()) {
+                    break;
+                }
+            }
+            return mejores(puntajes, limite);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Listas que aceptan un término de la consulta: el término exacto, los que empiezan
+     * por él y los ids con ese prefijo
+     */
+    private Fuentes fuentes(String termino) {
+        Fuentes fuentes = new Fuentes(termino);
+        Postings exacto = terminos.get(termino);
+        if (exacto != null) {
+            fuentes.listas.put(exacto, 1.0);
+            fuentes.frecuencia += exacto.tamano;
+        }
+        if (termino.length() >= 2) {
+            int expansiones = 0;
+            for (Postings postings : terminos.subMap(termino, false, termino + Character.MAX_VALUE, false).values()) {
+                if (expansiones++ == MAX_EXPANSIONES) {
+                    break;
+                }
+                fuentes.listas.put(postings, FACTOR_PREFIJO);
+                fuentes.frecuencia += postings.tamano;
+            }
+        }
+        return fuentes;
+    }
+
+    /**
+     * Puntaje del término en cada documento; si ya hay candidatos, solo en ellos
+     */
+    private HashMap<Integer, Double> puntuar(Fuentes fuentes, Map<Integer, Double> candidatos, Set<TipoDocumento> aceptados) {
+        HashMap<Integer, Double> puntajes = new HashMap<>();
+        double longitudMedia = cantidadVivos == 0 ? 1 : (double) sumaLongitudes / cantidadVivos;
+        for (Map.Entry<Postings, Double> lista : fuentes.listas.entrySet()) {
+            Postings postings = lista.getKey();
+            double idf = idf(postings.tamano);
+            for (int i = 0; i < postings.tamano; i++) {
+                int slot = postings.slots[i];
+                if (!vivos.get(slot) || !aceptados.contains(TIPOS[tipos[slot]])
+                        || (candidatos != null && !candidatos.containsKey(slot))) {
+                    continue;
+                }
+                double puntaje = lista.getValue() * bm25(idf, postings.pesos[i], longitudes[slot], longitudMedia);
+                // Entre expansiones del mismo término cuenta la mejor, no la suma
+                puntajes.merge(slot, puntaje, Math::max);
+            }
+        }
+        // Ids que empiezan por el término: más puntaje cuanto más del id cubre
+        trie.prefijo(fuentes.termino, MAX_IDS_POR_PREFIJO, (id, slot) -> {
+            if (aceptados.contains(TIPOS[tipos[slot]]) && (candidatos == null || candidatos.containsKey(slot))) {
+                double cobertura = (double) fuentes.termino.length() / id.length();
+                double puntaje = cobertura * bm25(idf(1), PESO_ID, longitudes[slot], longitudMedia);
+                puntajes.merge(slot, puntaje, Math::max);
+            }
+        });
+        return puntajes;
+    }
+
+    private double idf(int frecuencia) {
+        return Math.log(1 + (cantidadVivos - frecuencia + 0.5) / (frecuencia + 0.5));
+    }
+
+    private static double bm25(double idf, double peso, int longitud, double longitudMedia) {
+        return idf * peso * (K1 + 1) / (peso + K1 * (1 - B + B * longitud / longitudMedia));
+    }
+
+    private List<ResultadoBusqueda> mejores(Map<Integer, Double> puntajes, int limite) {
+        PriorityQueue<Map.Entry<Integer, Double>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Integer, Double> puntaje : puntajes.entrySet()) {
+            heap.offer(puntaje);
+            if (heap.size() > limite) {
+                heap.poll();
+            }
+        }
+        List<ResultadoBusqueda> resultado = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            Map.Entry<Integer, Double> mejor = heap.poll();
+            int slot = mejor.getKey();
+            resultado.add(new ResultadoBusqueda(TIPOS[tipos[slot]], ids[slot], mejor.getValue()));
+        }
+        Collections.reverse(resultado);
+        return resultado;
+    }
+
+    /**
+     * @return Documentos indexados (vivos)
+     */
+    public int tamano() {
+        candado.readLock().lock();
+        try {
+            return cantidadVivos;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Términos de un documento con el peso acumulado de sus campos
+     */
+    private static final class Documento {
+        private final TipoDocumento tipo;
+        private final String id;
+        private final Map<String, Float> pesos = new HashMap<>();
+        private int longitud;
+        private long firma = 1125899906842597L;
+
+        private Documento(TipoDocumento tipo, String id) {
+            this.tipo = tipo;
+            this.id = id;
+        }
+
+        private Documento campo(String texto, float peso) {
+            firmar(texto);
+            if (texto != null) {
+                for (String termino : Tokenizador.terminos(texto)) {
+                    pesos.merge(termino, peso, Float::sum);
+                    longitud++;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Campo numérico (cédula, teléfono): además de sus partes, todos sus dígitos juntos
+         */
+        private Documento numero(String texto, float peso) {
+            campo(texto, peso);
+            String digitos = Tokenizador.digitos(texto);
+            if (!digitos.isEmpty() && !pesos.containsKey(digitos)) {
+                // Cuenta como un término más, para que la longitud coincida con los términos
+                pesos.put(digitos, peso);
+                longitud++;
+            }
+            return this;
+        }
+
+        private void firmar(String texto) {
+            firma = 31 * firma + (texto == null ? 0 : texto.hashCode());
+        }
+    }
+
+    /**
+     * Lista de documentos de un término: slots crecientes con el peso del término en cada uno
+     */
+    private static final class Postings {
+        private int[] slots = new int[2];
+        private float[] pesos = new float[2];
+        private int tamano;
+
+        private void agregar(int slot, float peso) {
+            if (tamano == slots.length) {
+                slots = Arrays.copyOf(slots, tamano * 2);
+                pesos = Arrays.copyOf(pesos, tamano * 2);
+            }
+            slots[tamano] = slot;
+            pesos[tamano] = peso;
+            tamano++;
+        }
+
+        /**
+         * @return Cuántos quedan tras quitar los borrados (nuevoSlot = -1)
+         */
+        private int compactar(int[] nuevoSlot) {
+            int quedan = 0;
+            for (int i = 0; i < tamano; i++) {
+                int slot = nuevoSlot[slots[i]];
+                if (slot >= 0) {
+                    slots[quedan] = slot;
+                    pesos[quedan] = pesos[i];
+                    quedan++;
+                }
+            }
+            tamano = quedan;
+            return quedan;
+        }
+    }
+
+    /**
+     * Listas aceptadas para un término de la consulta, con su factor
+     */
+    private static final class Fuentes {
+        private final String termino;
+        private final Map<Postings, Double> listas = new LinkedHashMap<>();
+        private long frecuencia;
+
+        private Fuentes(String termino) {
+            this.termino = termino;
+        }
+    }
+}
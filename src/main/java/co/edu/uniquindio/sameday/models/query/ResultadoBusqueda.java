@@ -0,0 +1,37 @@
+package co.edu.uniquindio.sameday.models.query;
+
+/**
+ * Un acierto de la búsqueda de texto: qué documento es y con qué puntaje
+ */
+public class ResultadoBusqueda {
+
+    private final IndiceTexto.TipoDocumento tipo;
+    private final String id;
+    private final double puntaje;
+
+    public ResultadoBusqueda(IndiceTexto.TipoDocumento tipo, String id, double puntaje) {
+        this.tipo = tipo;
+        this.id = id;
+        this.puntaje = puntaje;
+    }
+
+    public IndiceTexto.TipoDocumento getTipo() {
+        return tipo;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return Relevancia (mayor es mejor); solo sirve para comparar resultados de una misma búsqueda
+     */
+    public double getPuntaje() {
+        return puntaje;
+    }
+
+    @Override
+    public String toString() {
+        return tipo + " " + id + String.format(" (%.2f)", puntaje);
+    }
+}
@@ -0,0 +1,65 @@
+package co.edu.uniquindio.sameday.models.query;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización y partición en términos para la búsqueda de texto.
+ *
+ * Se quitan tildes y diéresis (descomposición NFD sin marcas), así que "Calarcá",
+ * "CALARCA" y "calarca" dan el mismo término; la ñ queda como n. Los términos son
+ * tramos de letras y dígitos en minúsculas.
+ */
+public final class Tokenizador {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private Tokenizador() {
+    }
+
+    /**
+     * @return El texto en minúsculas y sin tildes ("" si es null)
+     */
+    public static String normalizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return MARCAS.matcher(descompuesto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return Los términos del texto, en orden y con repeticiones
+     */
+    public static List<String> terminos(String texto) {
+        List<String> terminos = new ArrayList<>();
+        for (String termino : SEPARADORES.split(normalizar(texto))) {
+            if (!termino.isEmpty()) {
+                terminos.add(termino);
+            }
+        }
+        return terminos;
+    }
+
+    /**
+     * @return Solo los dígitos del texto ("310 555 1234" -> "3105551234"), para
+     * teléfonos y documentos escritos con espacios, puntos o guiones
+     */
+    public static String digitos(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        StringBuilder digitos = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitos.append(c);
+            }
+        }
+        return digitos.toString();
+    }
+}
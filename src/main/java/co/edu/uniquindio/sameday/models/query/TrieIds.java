@@ -0,0 +1,151 @@
+package co.edu.uniquindio.sameday.models.query;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Trie de ids normalizados (minúsculas) para buscar por prefijo: "env00" devuelve
+ * ENV0001, ENV0002... en orden lexicográfico, sin recorrer todos los ids.
+ *
+ * Los hijos de cada nodo van en arreglos ordenados por carácter (los ids usan pocas
+ * letras y dígitos, así que son arreglos cortos). Un mismo id puede corresponder a
+ * varios documentos (un cliente y un repartidor con id "0001"), por eso cada nodo
+ * final guarda los slots de todos ellos. No es seguro entre hilos: lo protege IndiceTexto.
+ */
+class TrieIds {
+
+    private final Nodo raiz = new Nodo();
+
+    void poner(String id, int slot) {
+        Nodo nodo = raiz;
+        for (int i = 0; i < id.length(); i++) {
+            nodo = nodo.hijoCreando(id.charAt(i));
+        }
+        nodo.slots = agregar(nodo.slots, slot);
+    }
+
+    void quitar(String id, int slot) {
+        Nodo nodo = raiz;
+        for (int i = 0; i < id.length() && nodo != null; i++) {
+            nodo = nodo.hijo(id.charAt(i));
+        }
+        if (nodo != null && nodo.slots != null) {
+            nodo.slots = quitarDe(nodo.slots, slot);
+        }
+    }
+
+    /**
+     * Cambia todos los slots (tras compactar el índice)
+     */
+    void remapear(IntUnaryOperator mapa) {
+        remapear(raiz, mapa);
+    }
+
+    /**
+     * Recorre los slots de los ids que empiezan por el prefijo, en orden lexicográfico
+     * @return Cuántos se visitaron (como mucho limite)
+     */
+    int prefijo(String prefijo, int limite, VisitanteId visitante) {
+        Nodo nodo = raiz;
+        for (int i = 0; i < prefijo.length() && nodo != null; i++) {
+            nodo = nodo.hijo(prefijo.charAt(i));
+        }
+        if (nodo == null) {
+            return 0;
+        }
+        StringBuilder id = new StringBuilder(prefijo);
+        return recorrer(nodo, id, limite, 0, visitante);
+    }
+
+    interface VisitanteId {
+        void visitar(String id, int slot);
+    }
+
+    private int recorrer(Nodo nodo, StringBuilder id, int limite, int visitados, VisitanteId visitante) {
+        if (nodo.slots != null) {
+            for (int slot : nodo.slots) {
+                if (visitados == limite) {
+                    return visitados;
+                }
+                visitante.visitar(id.toString(), slot);
+                visitados++;
+            }
+        }
+        for (int i = 0; i < nodo.cantidad && visitados < limite; i++) {
+            id.append(nodo.caracteres[i]);
+            visitados = recorrer(nodo.hijos[i], id, limite, visitados, visitante);
+            id.setLength(id.length() - 1);
+        }
+        return visitados;
+    }
+
+    private static void remapear(Nodo nodo, IntUnaryOperator mapa) {
+        if (nodo.slots != null) {
+            for (int i = 0; i < nodo.slots.length; i++) {
+                nodo.slots[i] = mapa.applyAsInt(nodo.slots[i]);
+            }
+        }
+        for (int i = 0; i < nodo.cantidad; i++) {
+            remapear(nodo.hijos[i], mapa);
+        }
+    }
+
+    private static int[] agregar(int[] slots, int slot) {
+        if (slots == null) {
+            return new int[]{slot};
+        }
+        int[] nuevos = Arrays.copyOf(slots, slots.length + 1);
+        nuevos[slots.length] = slot;
+        return nuevos;
+    }
+
+    private static int[] quitarDe(int[] slots, int slot) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == slot) {
+                if (slots.length == 1) {
+                    return null;
+                }
+                int[] restantes = new int[slots.length - 1];
+                System.arraycopy(slots, 0, restantes, 0, i);
+                System.arraycopy(slots, i + 1, restantes, i, slots.length - i - 1);
+                return restantes;
+            }
+        }
+        return slots;
+    }
+
+    private static final class Nodo {
+        // Las hojas (la mayoría de nodos) comparten los arreglos vacíos
+        private static final char[] SIN_CARACTERES = new char[0];
+        private static final Nodo[] SIN_HIJOS = new Nodo[0];
+
+        private char[] caracteres = SIN_CARACTERES;
+        private Nodo[] hijos = SIN_HIJOS;
+        private int cantidad;
+        private int[] slots;
+
+        private Nodo hijo(char c) {
+            int i = Arrays.binarySearch(caracteres, 0, cantidad, c);
+            return i >= 0 ? hijos[i] : null;
+        }
+
+        private Nodo hijoCreando(char c) {
+            int i = Arrays.binarySearch(caracteres, 0, cantidad, c);
+            if (i >= 0) {
+                return hijos[i];
+            }
+            int posicion = -i - 1;
+            if (cantidad == caracteres.length) {
+                caracteres = Arrays.copyOf(caracteres, Math.max(2, cantidad * 2));
+                hijos = Arrays.copyOf(hijos, caracteres.length);
+            }
+            System.arraycopy(caracteres, posicion, caracteres, posicion + 1, cantidad - posicion);
+            System.arraycopy(hijos, posicion, hijos, posicion + 1, cantidad - posicion);
+            caracteres[posicion] = c;
+            Nodo nuevo = new Nodo();
+            hijos[posicion] = nuevo;
+            cantidad++;
+            return nuevo;
+        }
+    }
+}
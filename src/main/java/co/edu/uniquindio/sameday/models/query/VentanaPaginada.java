@@ -0,0 +1,82 @@
+package co.edu.uniquindio.sameday.models.query;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caché de páginas de una FuenteDatosPaginada para una tabla virtualizada.
+ *
+ * La tabla pide filas por índice; la ventana carga la página que las contiene y la
+ * siguiente o la anterior según hacia dónde se desplaza (margen de precarga), y
+ * descarta las páginas que quedan lejos. Así solo se guardan las filas visibles y
+ * unas pocas páginas alrededor, sin importar cuántas filas tenga la fuente.
+ *
+ * El número de filas se toma al crear la ventana; tras altas o bajas se crea otra.
+ * No es segura entre hilos: la usa el hilo de la interfaz.
+ * @param <T> Tipo de fila
+ */
+public class VentanaPaginada<T> {
+
+    public static final int TAMANO_PAGINA = 100;
+    public static final int PAGINAS_MARGEN = 2;
+
+    private final FuenteDatosPaginada<T> fuente;
+    private final int tamanoPagina;
+    private final int paginasMargen;
+    private final int tamano;
+    private final Map<Integer, List<T>> paginas = new HashMap<>();
+    private int ultimaPagina = -1;
+
+    public VentanaPaginada(FuenteDatosPaginada<T> fuente) {
+        this(fuente, TAMANO_PAGINA, PAGINAS_MARGEN);
+    }
+
+    public VentanaPaginada(FuenteDatosPaginada<T> fuente, int tamanoPagina, int paginasMargen) {
+        if (tamanoPagina < 1 || paginasMargen < 0) {
+            throw new IllegalArgumentException("Tamaño de página o margen inválido");
+        }
+        this.fuente = fuente;
+        this.tamanoPagina = tamanoPagina;
+        this.paginasMargen = paginasMargen;
+        this.tamano = fuente.contar();
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * @return La fila en la posición dada, o null si desapareció de la fuente
+     * después de contar las filas
+     */
+    public T obtener(int indice) {
+        if (indice < 0 || indice >= tamano) {
+            throw new IndexOutOfBoundsException("Fila " + indice + " de " + tamano);
+        }
+        int pagina = indice / tamanoPagina;
+        List<T> filas = cargar(pagina);
+        if (pagina != ultimaPagina) {
+            // Precarga en la dirección del desplazamiento y descarte de lo que quedó lejos
+            int siguiente = ultimaPagina < 0 || pagina > ultimaPagina ? pagina + 1 : pagina - 1;
+            ultimaPagina = pagina;
+            paginas.keySet().removeIf(p -> Math.abs(p - pagina) > paginasMargen);
+            if (siguiente >= 0 && siguiente * tamanoPagina < tamano) {
+                cargar(siguiente);
+            }
+        }
+        int posicion = indice - pagina * tamanoPagina;
+        return posicion < filas.size() ? filas.get(posicion) : null;
+    }
+
+    /**
+     * @return Páginas en memoria (para diagnóstico)
+     */
+    public int paginasCargadas() {
+        return paginas.size();
+    }
+
+    private List<T> cargar(int pagina) {
+        return paginas.computeIfAbsent(pagina, p -> fuente.leer(p * tamanoPagina, tamanoPagina));
+    }
+}
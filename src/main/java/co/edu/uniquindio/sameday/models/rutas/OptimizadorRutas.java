@@ -0,0 +1,485 @@
+package co.edu.uniquindio.sameday.models.rutas;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.City;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ordena las paradas de un repartidor: cada envío se recoge antes de entregarse y el
+ * recorrido, desde la ciudad del repartidor, es lo más corto posible.
+ *
+ * Las direcciones no tienen coordenadas, así que el tiempo entre dos paradas es el de
+ * TiemposViaje entre sus ciudades, MINUTOS_MISMA_CIUDAD entre direcciones distintas de
+ * la misma ciudad y 0 en la misma dirección.
+ *
+ * Con hasta EXACTO_MAXIMO paradas la ruta es la más corta posible: programación dinámica
+ * sobre subconjuntos (Held-Karp), O(2^m · m²). Con más, la ruta inicial sale del vecino
+ * más cercano (o de insertar las paradas nuevas en la ruta anterior al menor costo) y se
+ * mejora con 2-opt y Or-opt (mover tramos de 1 a 3 paradas) hasta que ningún cambio la
+ * acorta. Cada movimiento se evalúa en O(1) y solo los que acortan la ruta se revisan
+ * contra el orden recogida → entrega y el de las paradas conservadas.
+ *
+ * Nodos: 0 es la ciudad del repartidor, 1..m las paradas y m + 1 un final ficticio que
+ * no cuesta nada, así que todos los movimientos tienen vecinos a ambos lados.
+ */
+final class OptimizadorRutas {
+
+    static final int MINUTOS_MISMA_CIUDAD = 10;
+    // Ciudades sin camino entre sí: posible, pero lo último que se elige
+    private static final int MINUTOS_SIN_CAMINO = 24 * 60;
+    private static final int MAX_PASADAS = 50;
+    private static final int TRAMO_MAXIMO = 3;
+    // 2^12 · 12 estados: menos de un milisegundo por ruta
+    static final int EXACTO_MAXIMO = 12;
+
+    private final City inicio;
+    private final List<ParadaRuta> paradas;
+    private final int m;
+    private final int fin;
+    private final int[][] costo;
+    // Para una recogida, el nodo de su entrega; para una entrega, el de su recogida; o -1
+    private final int[] pareja;
+    private final boolean[] esEntrega;
+    // Paradas 1..conservadas de una ruta extendida: su orden relativo no cambia
+    private final int conservadas;
+
+    private OptimizadorRutas(City inicio, List<ParadaRuta> paradas, int conservadas) {
+        this.inicio = inicio;
+        this.paradas = paradas;
+        this.m = paradas.size();
+        this.fin = m + 1;
+        this.costo = new int[m + 2][m + 2];
+        this.pareja = new int[m + 2];
+        this.esEntrega = new boolean[m + 2];
+        this.conservadas = conservadas;
+        Arrays.fill(pareja, -1);
+
+        Map<String, Integer> recogidas = new HashMap<>();
+        for (int nodo = 1; nodo <= m; nodo++) {
+            ParadaRuta parada = parada(nodo);
+            if (parada.getTipo() == ParadaRuta.Tipo.RECOGIDA) {
+                recogidas.put(parada.getEnvio().getId(), nodo);
+            }
+        }
+        for (int nodo = 1; nodo <= m; nodo++) {
+            ParadaRuta parada = parada(nodo);
+            esEntrega[nodo] = parada.getTipo() == ParadaRuta.Tipo.ENTREGA;
+            Integer recogida = recogidas.get(parada.getEnvio().getId());
+            if (esEntrega[nodo] && recogida != null) {
+                pareja[nodo] = recogida;
+                pareja[recogida] = nodo;
+            }
+        }
+
+        for (int u = 0; u <= m; u++) {
+            for (int v = 1; v <= m; v++) {
+                costo[u][v] = u == 0 ? desdeInicio(parada(v).getDireccion())
+                        : minutos(parada(u).getDireccion(), parada(v).getDireccion());
+            }
+        }
+    }
+
+    /**
+     * Ruta nueva: vecino más cercano y mejora local
+     */
+    static Ruta calcular(City inicio, List<ParadaRuta> paradas) {
+        OptimizadorRutas optimizador = new OptimizadorRutas(inicio, paradas, 0);
+        if (optimizador.m <= EXACTO_MAXIMO) {
+            return optimizador.ruta(optimizador.exacto());
+        }
+        int[] orden = optimizador.vecinoMasCercano();
+        optimizador.mejorar(orden);
+        return optimizador.ruta(orden);
+    }
+
+    /**
+     * Ruta a partir de la anterior: las paradas conservadas siguen en su orden (el repartidor
+     * ya las conoce así) y las nuevas se intercalan donde menos alargan el recorrido
+     *
+     * @param conservadas Paradas de la ruta anterior que siguen pendientes, en orden
+     */
+    static Ruta extender(City inicio, List<ParadaRuta> conservadas, List<ParadaRuta> nuevas) {
+        List<ParadaRuta> todas = new ArrayList<>(conservadas);
+        todas.addAll(nuevas);
+        OptimizadorRutas optimizador = new OptimizadorRutas(inicio, todas, conservadas.size());
+        if (optimizador.m <= EXACTO_MAXIMO) {
+            return optimizador.ruta(optimizador.exacto());
+        }
+        int[] orden = new int[conservadas.size() + 2];
+        for (int i = 0; i < orden.length - 1; i++) {
+            orden[i] = i;
+        }
+        orden[orden.length - 1] = optimizador.fin;
+        boolean[] enRuta = new boolean[optimizador.m + 2];
+        Arrays.fill(enRuta, 0, conservadas.size() + 1, true);
+        for (int nodo = conservadas.size() + 1; nodo <= optimizador.m; nodo++) {
+            if (!enRuta[nodo]) {
+                orden = optimizador.insertar(orden, nodo, enRuta);
+            }
+        }
+        optimizador.mejorar(orden);
+        return optimizador.ruta(orden);
+    }
+
+    private ParadaRuta parada(int nodo) {
+        return paradas.get(nodo - 1);
+    }
+
+    private int desdeInicio(Address direccion) {
+        if (inicio == null || direccion.getCity() == null) {
+            return 0;
+        }
+        int minutos = TiemposViaje.minutos(inicio, direccion.getCity());
+        if (minutos == TiemposViaje.INALCANZABLE) {
+            return MINUTOS_SIN_CAMINO;
+        }
+        return minutos == 0 ? MINUTOS_MISMA_CIUDAD : minutos;
+    }
+
+    static int minutos(Address desde, Address hacia) {
+        if (desde == hacia || desde.equals(hacia)) {
+            return 0;
+        }
+        if (desde.getCity() == null || hacia.getCity() == null) {
+            return MINUTOS_SIN_CAMINO;
+        }
+        int minutos = TiemposViaje.minutos(desde.getCity(), hacia.getCity());
+        if (minutos == TiemposViaje.INALCANZABLE) {
+            return MINUTOS_SIN_CAMINO;
+        }
+        return minutos == 0 ? MINUTOS_MISMA_CIUDAD : minutos;
+    }
+
+    /**
+     * Orden más corto que respeta recogida → entrega y el de las conservadas: costo mínimo
+     * de visitar cada subconjunto de paradas terminando en cada una
+     */
+    private int[] exacto() {
+        int[] requisitos = new int[m + 1];
+        for (int nodo = 1; nodo <= m; nodo++) {
+            if (esEntrega[nodo] && pareja[nodo] >= 0) {
+                requisitos[nodo] |= 1 << (pareja[nodo] - 1);
+            }
+            if (nodo > 1 && nodo <= conservadas) {
+                requisitos[nodo] |= 1 << (nodo - 2);
+            }
+        }
+        int subconjuntos = 1 << m;
+        int[] minimo = new int[subconjuntos * m];
+        int[] anterior = new int[subconjuntos * m];
+        Arrays.fill(minimo, Integer.MAX_VALUE);
+        for (int v = 0; v < m; v++) {
+            if (requisitos[v + 1] == 0) {
+                minimo[(1 << v) * m + v] = costo[0][v + 1];
+            }
+        }
+        for (int visitadas = 1; visitadas < subconjuntos; visitadas++) {
+            for (int v = 0; v < m; v++) {
+                int hastaV = minimo[visitadas * m + v];
+                if (hastaV == Integer.MAX_VALUE) {
+                    continue;
+                }
+                for (int w = 0; w < m; w++) {
+                    if ((visitadas & (1 << w)) != 0 || (requisitos[w + 1] & ~visitadas) != 0) {
+                        continue;
+                    }
+                    int estado = (visitadas | (1 << w)) * m + w;
+                    int total = hastaV + costo[v + 1][w + 1];
+                    if (total < minimo[estado]) {
+                        minimo[estado] = total;
+                        anterior[estado] = v;
+                    }
+                }
+            }
+        }
+
+        int[] orden = new int[m + 2];
+        orden[m + 1] = fin;
+        if (m == 0) {
+            return orden;
+        }
+        int todas = subconjuntos - 1;
+        int ultima = 0;
+        for (int v = 1; v < m; v++) {
+            if (minimo[todas * m + v] < minimo[todas * m + ultima]) {
+                ultima = v;
+            }
+        }
+        for (int k = m, visitadas = todas; k >= 1; k--) {
+            orden[k] = ultima + 1;
+            int previa = anterior[visitadas * m + ultima];
+            visitadas &= ~(1 << ultima);
+            ultima = previa;
+        }
+        return orden;
+    }
+
+    private int[] vecinoMasCercano() {
+        int[] orden = new int[m + 2];
+        boolean[] visitado = new boolean[m + 2];
+        int actual = 0;
+        for (int i = 1; i <= m; i++) {
+            int mejor = -1;
+            for (int nodo = 1; nodo <= m; nodo++) {
+                boolean disponible = !esEntrega[nodo] || pareja[nodo] < 0 || visitado[pareja[nodo]];
+                if (!visitado[nodo] && disponible && (mejor < 0 || costo[actual][nodo] < costo[actual][mejor])) {
+                    mejor = nodo;
+                }
+            }
+            orden[i] = mejor;
+            visitado[mejor] = true;
+            actual = mejor;
+        }
+        orden[m + 1] = fin;
+        return orden;
+    }
+
+    /**
+     * Inserta la parada (y su pareja, si tampoco está en la ruta) donde menos alarga el
+     * recorrido, respetando recogida antes de entrega
+     */
+    private int[] insertar(int[] orden, int nodo, boolean[] enRuta) {
+        int otro = pareja[nodo];
+        int ultima = orden.length - 2;
+        if (otro >= 0 && !enRuta[otro]) {
+            int recogida = esEntrega[nodo] ? otro : nodo;
+            int entrega = esEntrega[nodo] ? nodo : otro;
+            int mejor = Integer.MAX_VALUE;
+            int mejorP = 0;
+            int mejorQ = 0;
+            for (int p = 0; p <= ultima; p++) {
+                int a = orden[p];
+                int b = orden[p + 1];
+                int juntas = costo[a][recogida] + costo[recogida][entrega] + costo[entrega][b] - costo[a][b];
+                if (juntas < mejor) {
+                    mejor = juntas;
+                    mejorP = p;
+                    mejorQ = p;
+                }
+                int conRecogida = costo[a][recogida] + costo[recogida][b] - costo[a][b];
+                for (int q = p + 1; q <= ultima; q++) {
+                    int c = orden[q];
+                    int d = orden[q + 1];
+                    int total = conRecogida + costo[c][entrega] + costo[entrega][d] - costo[c][d];
+                    if (total < mejor) {
+                        mejor = total;
+                        mejorP = p;
+                        mejorQ = q;
+                    }
+                }
+            }
+            enRuta[recogida] = true;
+            enRuta[entrega] = true;
+            if (mejorQ == mejorP) {
+                return insertarDespues(insertarDespues(orden, mejorP, recogida), mejorP + 1, entrega);
+            }
+            return insertarDespues(insertarDespues(orden, mejorQ, entrega), mejorP, recogida);
+        }
+
+        int desde = 0;
+        int hasta = ultima;
+        if (otro >= 0) {
+            int posicionOtro = 0;
+            while (orden[posicionOtro] != otro) {
+                posicionOtro++;
+            }
+            if (esEntrega[nodo]) {
+                desde = posicionOtro;
+            } else {
+                hasta = posicionOtro - 1;
+            }
+        }
+        int mejor = Integer.MAX_VALUE;
+        int mejorP = desde;
+        for (int p = desde; p <= hasta; p++) {
+            int a = orden[p];
+            int b = orden[p + 1];
+            int total = costo[a][nodo] + costo[nodo][b] - costo[a][b];
+            if (total < mejor) {
+                mejor = total;
+                mejorP = p;
+            }
+        }
+        enRuta[nodo] = true;
+        return insertarDespues(orden, mejorP, nodo);
+    }
+
+    private static int[] insertarDespues(int[] orden, int posicion, int nodo) {
+        int[] nuevo = new int[orden.length + 1];
+        System.arraycopy(orden, 0, nuevo, 0, posicion + 1);
+        nuevo[posicion + 1] = nodo;
+        System.arraycopy(orden, posicion + 1, nuevo, posicion + 2, orden.length - posicion - 1);
+        return nuevo;
+    }
+
+    private void mejorar(int[] orden) {
+        int[] posicion = new int[m + 2];
+        for (int pasada = 0; pasada < MAX_PASADAS; pasada++) {
+            boolean mejoro = dosOpt(orden, posicion);
+            mejoro |= orOpt(orden, posicion);
+            if (!mejoro) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Invierte el tramo i..j si acorta la ruta. Los costos entre paradas son simétricos,
+     * así que solo cambian los dos bordes del tramo.
+     */
+    private boolean dosOpt(int[] orden, int[] posicion) {
+        actualizarPosiciones(orden, posicion);
+        boolean mejoro = false;
+        for (int i = 1; i < m; i++) {
+            for (int j = i + 1; j <= m; j++) {
+                int a = orden[i - 1];
+                int b = orden[i];
+                int c = orden[j];
+                int d = orden[j + 1];
+                int delta = costo[a][c] + costo[b][d] - costo[a][b] - costo[c][d];
+                if (delta < 0 && puedeInvertir(orden, posicion, i, j)) {
+                    for (int izquierda = i, derecha = j; izquierda < derecha; izquierda++, derecha--) {
+                        int nodo = orden[izquierda];
+                        orden[izquierda] = orden[derecha];
+                        orden[derecha] = nodo;
+                    }
+                    for (int k = i; k <= j; k++) {
+                        posicion[orden[k]] = k;
+                    }
+                    mejoro = true;
+                }
+            }
+        }
+        return mejoro;
+    }
+
+    /**
+     * Al invertir, un envío con recogida y entrega dentro del tramo quedaría al revés, y
+     * también dos paradas conservadas
+     */
+    private boolean puedeInvertir(int[] orden, int[] posicion, int i, int j) {
+        int conservadasEnTramo = 0;
+        for (int k = i; k <= j; k++) {
+            int nodo = orden[k];
+            if (!esEntrega[nodo] && pareja[nodo] >= 0 && posicion[pareja[nodo]] <= j) {
+                return false;
+            }
+            if (esConservada(nodo) && ++conservadasEnTramo > 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean esConservada(int nodo) {
+        return nodo >= 1 && nodo <= conservadas;
+    }
+
+    /**
+     * Mueve tramos de 1 a TRAMO_MAXIMO paradas, sin invertirlos, a la posición donde más
+     * acortan la ruta
+     */
+    private boolean orOpt(int[] orden, int[] posicion) {
+        actualizarPosiciones(orden, posicion);
+        boolean mejoro = false;
+        for (int largo = 1; largo <= TRAMO_MAXIMO; largo++) {
+            for (int i = 1; i + largo - 1 <= m; i++) {
+                int e = i + largo - 1;
+                int previo = orden[i - 1];
+                int primero = orden[i];
+                int ultimo = orden[e];
+                int siguiente = orden[e + 1];
+                int ahorro = costo[previo][primero] + costo[ultimo][siguiente] - costo[previo][siguiente];
+                if (ahorro <= 0) {
+                    continue;
+                }
+                for (int p = 0; p <= m; p++) {
+                    if (p >= i - 1 && p <= e) {
+                        continue;
+                    }
+                    int a = orden[p];
+                    int b = orden[p + 1];
+                    int delta = costo[a][primero] + costo[ultimo][b] - costo[a][b] - ahorro;
+                    if (delta < 0 && puedeMover(orden, posicion, i, e, p)) {
+                        mover(orden, i, e, p);
+                        actualizarPosiciones(orden, posicion);
+                        mejoro = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return mejoro;
+    }
+
+    /**
+     * Hacia adelante, ninguna recogida del tramo puede pasar a su entrega; hacia atrás,
+     * ninguna entrega puede pasar a su recogida. Un tramo con paradas conservadas no puede
+     * pasar por encima de otra conservada.
+     */
+    private boolean puedeMover(int[] orden, int[] posicion, int i, int e, int p) {
+        if (conservadas > 0 && conservadaEntre(orden, i, e)
+                && (p > e ? conservadaEntre(orden, e + 1, p) : conservadaEntre(orden, p + 1, i - 1))) {
+            return false;
+        }
+        for (int k = i; k <= e; k++) {
+            int nodo = orden[k];
+            if (pareja[nodo] < 0) {
+                continue;
+            }
+            int posicionPareja = posicion[pareja[nodo]];
+            if (p > e && !esEntrega[nodo] && posicionPareja > e && posicionPareja <= p) {
+                return false;
+            }
+            if (p < i && esEntrega[nodo] && posicionPareja > p && posicionPareja < i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean conservadaEntre(int[] orden, int desde, int hasta) {
+        for (int k = desde; k <= hasta; k++) {
+            if (esConservada(orden[k])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lleva el tramo i..e a quedar justo después del nodo que está en la posición p
+     */
+    private static void mover(int[] orden, int i, int e, int p) {
+        int largo = e - i + 1;
+        int[] tramo = Arrays.copyOfRange(orden, i, e + 1);
+        if (p > e) {
+            System.arraycopy(orden, e + 1, orden, i, p - e);
+            System.arraycopy(tramo, 0, orden, p - largo + 1, largo);
+        } else {
+            System.arraycopy(orden, p + 1, orden, p + 1 + largo, i - 1 - p);
+            System.arraycopy(tramo, 0, orden, p + 1, largo);
+        }
+    }
+
+    private static void actualizarPosiciones(int[] orden, int[] posicion) {
+        for (int k = 0; k < orden.length; k++) {
+            posicion[orden[k]] = k;
+        }
+    }
+
+    private Ruta ruta(int[] orden) {
+        List<ParadaRuta> resultado = new ArrayList<>(m);
+        int minutos = 0;
+        for (int k = 1; k <= m; k++) {
+            resultado.add(parada(orden[k]));
+            minutos += costo[orden[k - 1]][orden[k]];
+        }
+        return new Ruta(inicio, resultado, minutos);
+    }
+}
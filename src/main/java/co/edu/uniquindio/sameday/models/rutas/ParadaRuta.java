@@ -0,0 +1,49 @@
+package co.edu.uniquindio.sameday.models.rutas;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.Envio;
+
+/**
+ * Una parada de la ruta de un repartidor: recoger un envío en su origen o entregarlo
+ * en su destino
+ */
+public final class ParadaRuta {
+
+    public enum Tipo {
+        RECOGIDA, ENTREGA
+    }
+
+    private final Envio envio;
+    private final Tipo tipo;
+    private final Address direccion;
+    // Identifica la parada entre dos cálculos de la misma ruta
+    private final String clave;
+
+    ParadaRuta(Envio envio, Tipo tipo) {
+        this.envio = envio;
+        this.tipo = tipo;
+        this.direccion = tipo == Tipo.RECOGIDA ? envio.getOrigen() : envio.getDestino();
+        this.clave = envio.getId() + ":" + tipo + ":" + direccion.getId() + ":" + direccion.getCity();
+    }
+
+    public Envio getEnvio() {
+        return envio;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public Address getDireccion() {
+        return direccion;
+    }
+
+    String getClave() {
+        return clave;
+    }
+
+    @Override
+    public String toString() {
+        return (tipo == Tipo.RECOGIDA ? "📦 Recoger " : "🏁 Entregar ") + envio.getId() + " en " + direccion.getCity();
+    }
+}
@@ -0,0 +1,55 @@
+package co.edu.uniquindio.sameday.models.rutas;
+
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Envio;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orden de paradas de un repartidor, con el tiempo estimado de recorrerlas
+ */
+public final class Ruta {
+
+    private final City inicio;
+    private final List<ParadaRuta> paradas;
+    private final int minutos;
+
+    Ruta(City inicio, List<ParadaRuta> paradas, int minutos) {
+        this.inicio = inicio;
+        this.paradas = Collections.unmodifiableList(paradas);
+        this.minutos = minutos;
+    }
+
+    City getInicio() {
+        return inicio;
+    }
+
+    public List<ParadaRuta> getParadas() {
+        return paradas;
+    }
+
+    /**
+     * @return Minutos estimados desde la ciudad del repartidor hasta la última parada
+     */
+    public int getMinutos() {
+        return minutos;
+    }
+
+    /**
+     * @return Los envíos de la ruta, en el orden de su primera parada
+     */
+    public List<Envio> getEnvios() {
+        Map<Envio, Boolean> vistos = new IdentityHashMap<>();
+        List<Envio> envios = new ArrayList<>();
+        for (ParadaRuta parada : paradas) {
+            if (vistos.put(parada.getEnvio(), Boolean.TRUE) == null) {
+                envios.add(parada.getEnvio());
+            }
+        }
+        return envios;
+    }
+}
@@ -0,0 +1,115 @@
+package co.edu.uniquindio.sameday.models.rutas;
+
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.EstadoEntrega;
+import co.edu.uniquindio.sameday.models.Envio;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Ruta del día de cada repartidor, guardada hasta que cambien sus paradas.
+ *
+ * Las paradas salen de los envíos activos del repartidor: un envío ASIGNADO necesita
+ * recogida y entrega; uno RECOGIDO o EN_RUTA, solo la entrega. Los entregados y los que
+ * tienen incidencia no están en la ruta.
+ *
+ * Al pedir la ruta se comparan las paradas actuales con las de la ruta guardada: si son
+ * las mismas se devuelve la guardada; si solo cambiaron algunas (un envío nuevo, uno
+ * recogido o entregado), las que siguen conservan su orden, las nuevas se insertan y se
+ * mejora desde ahí, sin recalcular desde cero.
+ */
+public class RutasRepartidores {
+
+    private final Function<Dealer, List<Envio>> enviosDe;
+    private final Map<String, Ruta> porRepartidor = new ConcurrentHashMap<>();
+
+    /**
+     * @param enviosDe Envíos asignados a un repartidor (SameDay los tiene indexados)
+     */
+    public RutasRepartidores(Function<Dealer, List<Envio>> enviosDe) {
+        this.enviosDe = enviosDe;
+    }
+
+    /**
+     * @return La ruta vigente del repartidor, calculada solo si sus paradas cambiaron
+     */
+    public Ruta rutaDe(Dealer repartidor) {
+        Map<String, ParadaRuta> paradas = paradasPendientes(enviosDe.apply(repartidor));
+        return porRepartidor.compute(repartidor.getId(),
+                (id, anterior) -> actualizar(repartidor.getCity(), anterior, paradas));
+    }
+
+    /**
+     * Descarta la ruta de un repartidor que sale del sistema
+     */
+    public void olvidar(Dealer repartidor) {
+        porRepartidor.remove(repartidor.getId());
+    }
+
+    private static Ruta actualizar(City inicio, Ruta anterior, Map<String, ParadaRuta> paradas) {
+        if (anterior == null || anterior.getInicio() != inicio) {
+            return OptimizadorRutas.calcular(inicio, new ArrayList<>(paradas.values()));
+        }
+        // Las que siguen, en el orden de la ruta anterior (con la instancia vigente del envío)
+        List<ParadaRuta> conservadas = new ArrayList<>();
+        Set<String> claves = new HashSet<>();
+        for (ParadaRuta parada : anterior.getParadas()) {
+            ParadaRuta vigente = paradas.get(parada.getClave());
+            if (vigente != null) {
+                conservadas.add(vigente);
+                claves.add(parada.getClave());
+            }
+        }
+        List<ParadaRuta> nuevas = new ArrayList<>();
+        for (ParadaRuta parada : paradas.values()) {
+            if (!claves.contains(parada.getClave())) {
+                nuevas.add(parada);
+            }
+        }
+        if (nuevas.isEmpty() && conservadas.size() == anterior.getParadas().size()) {
+            // Mismas paradas; si SameDay reemplazó la instancia de algún envío, se toma la nueva
+            return mismosEnvios(conservadas, anterior.getParadas())
+                    ? anterior : new Ruta(inicio, conservadas, anterior.getMinutos());
+        }
+        if (conservadas.isEmpty()) {
+            return OptimizadorRutas.calcular(inicio, nuevas);
+        }
+        return OptimizadorRutas.extender(inicio, conservadas, nuevas);
+    }
+
+    private static boolean mismosEnvios(List<ParadaRuta> vigentes, List<ParadaRuta> guardadas) {
+        for (int i = 0; i < vigentes.size(); i++) {
+            if (vigentes.get(i).getEnvio() != guardadas.get(i).getEnvio()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, ParadaRuta> paradasPendientes(List<Envio> envios) {
+        Map<String, ParadaRuta> paradas = new LinkedHashMap<>();
+        for (Envio envio : envios) {
+            EstadoEntrega estado = envio.getEstadoEntrega();
+            if (envio.getDestino() == null || estado == null
+                    || estado == EstadoEntrega.ENTREGADO || estado == EstadoEntrega.CON_INCIDENCIA) {
+                continue;
+            }
+            if (estado == EstadoEntrega.ASIGNADO && envio.getOrigen() != null) {
+                ParadaRuta recogida = new ParadaRuta(envio, ParadaRuta.Tipo.RECOGIDA);
+                paradas.put(recogida.getClave(), recogida);
+            }
+            ParadaRuta entrega = new ParadaRuta(envio, ParadaRuta.Tipo.ENTREGA);
+            paradas.put(entrega.getClave(), entrega);
+        }
+        return Collections.unmodifiableMap(paradas);
+    }
+}
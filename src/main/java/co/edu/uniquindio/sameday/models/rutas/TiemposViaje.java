@@ -0,0 +1,118 @@
+package co.edu.uniquindio.sameday.models.rutas;
+
+import co.edu.uniquindio.sameday.models.City;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Tiempos de viaje por carretera entre las ciudades de City, en minutos.
+ *
+ * La red vial (tramos directos entre municipios) está fija en esta clase; al cargarla se
+ * calculan todos los caminos más cortos (Floyd-Warshall) y quedan en un arreglo plano
+ * indexado por ordinal(), así que consultar un tiempo es leer una posición. También se
+ * guarda, para cada ciudad, la lista de ciudades ordenadas de la más cercana a la más
+ * lejana, para buscar repartidores hacia afuera sin ordenar en cada envío.
+ */
+public final class TiemposViaje {
+
+    /**
+     * Radio de asignación en minutos (-Dsameday.asignacion.radioMinutos=45)
+     */
+    public static final String PROPIEDAD_RADIO = "sameday.asignacion.radioMinutos";
+    public static final int RADIO_POR_DEFECTO = 60;
+    public static final int INALCANZABLE = Integer.MAX_VALUE;
+
+    private static final City[] CIUDADES = City.values();
+    private static final int N = CIUDADES.length;
+
+    // minutos[origen * N + destino]
+    private static final int[] MINUTOS = new int[N * N];
+    private static final List<List<City>> POR_CERCANIA;
+
+    static {
+        Arrays.fill(MINUTOS, INALCANZABLE);
+        for (int i = 0; i < N; i++) {
+            MINUTOS[i * N + i] = 0;
+        }
+        tramo(City.ARMENIA, City.CALARCA, 15);
+        tramo(City.ARMENIA, City.CIRCASIA, 20);
+        tramo(City.ARMENIA, City.LA_TEBAIDA, 25);
+        tramo(City.ARMENIA, City.MONTENEGRO, 30);
+        tramo(City.CALARCA, City.CORDOBA, 30);
+        tramo(City.CORDOBA, City.PIJAO, 25);
+        tramo(City.PIJAO, City.GENOVA, 50);
+        tramo(City.CIRCASIA, City.SALENTO, 25);
+        tramo(City.CIRCASIA, City.FILANDIA, 20);
+        tramo(City.CIRCASIA, City.MONTENEGRO, 25);
+        tramo(City.FILANDIA, City.QUIMBAYA, 25);
+        tramo(City.QUIMBAYA, City.MONTENEGRO, 15);
+        tramo(City.MONTENEGRO, City.LA_TEBAIDA, 30);
+
+        for (int k = 0; k < N; k++) {
+            for (int i = 0; i < N; i++) {
+                int ik = MINUTOS[i * N + k];
+                if (ik == INALCANZABLE) {
+                    continue;
+                }
+                for (int j = 0; j < N; j++) {
+                    int kj = MINUTOS[k * N + j];
+                    if (kj != INALCANZABLE && ik + kj < MINUTOS[i * N + j]) {
+                        MINUTOS[i * N + j] = ik + kj;
+                    }
+                }
+            }
+        }
+
+        List<List<City>> porCercania = new ArrayList<>(N);
+        for (City origen : CIUDADES) {
+            List<City> alcanzables = new ArrayList<>();
+            for (City destino : CIUDADES) {
+                if (minutos(origen, destino) != INALCANZABLE) {
+                    alcanzables.add(destino);
+                }
+            }
+            // A igual tiempo, en el orden de City
+            alcanzables.sort(Comparator.comparingInt(destino -> minutos(origen, destino)));
+            porCercania.add(Collections.unmodifiableList(alcanzables));
+        }
+        POR_CERCANIA = Collections.unmodifiableList(porCercania);
+    }
+
+    private TiemposViaje() {
+    }
+
+    private static void tramo(City a, City b, int minutos) {
+        MINUTOS[a.ordinal() * N + b.ordinal()] = minutos;
+        MINUTOS[b.ordinal() * N + a.ordinal()] = minutos;
+    }
+
+    /**
+     * @return Minutos del camino más corto entre las dos ciudades, o INALCANZABLE
+     */
+    public static int minutos(City origen, City destino) {
+        return MINUTOS[origen.ordinal() * N + destino.ordinal()];
+    }
+
+    public static boolean dentroDelRadio(City origen, City destino, int radioMinutos) {
+        return minutos(origen, destino) <= radioMinutos;
+    }
+
+    /**
+     * @return Ciudades alcanzables desde el origen, de la más cercana (el mismo origen) a la
+     * más lejana
+     */
+    public static List<City> porCercania(City origen) {
+        return POR_CERCANIA.get(origen.ordinal());
+    }
+
+    /**
+     * @return Radio configurado con PROPIEDAD_RADIO, o RADIO_POR_DEFECTO
+     */
+    public static int radioConfigurado() {
+        return Integer.getInteger(PROPIEDAD_RADIO, RADIO_POR_DEFECTO);
+    }
+}
@@ -5,6 +5,16 @@ package co.edu.uniquindio.sameday.models.structural.decorator;
  * Componente concreto que representa un envío básico sin servicios adicionales
  */
 public class EnvioBasico implements EnvioComponent {
+    public static final double TARIFA_BASE = 11000.0;
+
+    // Tramos de peso: por encima de cada límite (kg) se suma su recargo a la tarifa base
+    public static final double LIMITE_TRAMO_1 = 5.0;
+    public static final double RECARGO_TRAMO_1 = 5000.0;
+    public static final double LIMITE_TRAMO_2 = 20.0;
+    public static final double RECARGO_TRAMO_2 = 10000.0;
+    public static final double LIMITE_TRAMO_3 = 30.0;
+    public static final double RECARGO_TRAMO_3 = 15000.0;
+
     private double tarifaBase;
     private double peso;
 
@@ -13,19 +23,27 @@ public class EnvioBasico implements EnvioComponent {
         this.tarifaBase = calcularTarifaPorPeso(peso);
     }
 
+    /**
+     * @param tarifaBase Tarifa por peso ya calculada (la da la tabla de tarifas vigente)
+     */
+    public EnvioBasico(double peso, double tarifaBase) {
+        this.peso = peso;
+        this.tarifaBase = tarifaBase;
+    }
+
     /**
      * Calcula la tarifa base según el peso del paquete
      * Tarifa base: $11,000
      */
     private double calcularTarifaPorPeso(double peso) {
-        double tarifa = 11000.0; // Tarifa base
-
-        if (peso > 30) {
-            tarifa += 15000.0;
-        } else if (peso > 20) {
-            tarifa += 10000.0;
-        } else if (peso > 5) {
-            tarifa += 5000.0;
+        double tarifa = TARIFA_BASE; // Tarifa base
+
+        if (peso > LIMITE_TRAMO_3) {
+            tarifa += RECARGO_TRAMO_3;
+        } else if (peso > LIMITE_TRAMO_2) {
+            tarifa += RECARGO_TRAMO_2;
+        } else if (peso > LIMITE_TRAMO_1) {
+            tarifa += RECARGO_TRAMO_1;
         }
 
         return tarifa;
@@ -2,20 +2,32 @@ package co.edu.uniquindio.sameday.models.structural.decorator;
 
 /**
  * Decorador concreto que añade el servicio de FIRMA REQUERIDA al envío
- * Este servicio no tiene costo adicional
+ * Por defecto este servicio no tiene costo adicional
  */
 public class FirmaRequeridaDecorator extends ServicioDecorator {
+    public static final double COSTO_FIRMA = 0.0;
+
+    private final double costo;
+
     public FirmaRequeridaDecorator(EnvioComponent envio) {
+        this(envio, COSTO_FIRMA);
+    }
+
+    /**
+     * @param costo Costo del servicio según la tabla de tarifas vigente
+     */
+    public FirmaRequeridaDecorator(EnvioComponent envio, double costo) {
         super(envio);
+        this.costo = costo;
     }
 
     @Override
     public double calcularCosto() {
-        return envio.calcularCosto(); // No tiene costo adicional
+        return envio.calcularCosto() + costo;
     }
 
     @Override
     public String getDescripcion() {
-        return envio.getDescripcion() + "\n  + Firma Requerida (Gratis)";
+        return envio.getDescripcion() + lineaServicio("Firma Requerida", costo);
     }
 }
\ No newline at end of file
@@ -4,19 +4,29 @@ package co.edu.uniquindio.sameday.models.structural.decorator;
  * Decorador concreto que añade el servicio de FRÁGIL al envío
  */
 public class FragilDecorator extends ServicioDecorator {
-    private static final double COSTO_FRAGIL = 3000.0;
+    public static final double COSTO_FRAGIL = 3000.0;
+
+    private final double costo;
 
     public FragilDecorator(EnvioComponent envio) {
+        this(envio, COSTO_FRAGIL);
+    }
+
+    /**
+     * @param costo Costo del servicio según la tabla de tarifas vigente
+     */
+    public FragilDecorator(EnvioComponent envio, double costo) {
         super(envio);
+        this.costo = costo;
     }
 
     @Override
     public double calcularCosto() {
-        return envio.calcularCosto() + COSTO_FRAGIL;
+        return envio.calcularCosto() + costo;
     }
 
     @Override
     public String getDescripcion() {
-        return envio.getDescripcion() + "\n  + Frágil ($3,000)";
+        return envio.getDescripcion() + lineaServicio("Frágil", costo);
     }
 }
\ No newline at end of file
@@ -4,19 +4,29 @@ package co.edu.uniquindio.sameday.models.structural.decorator;
  * Decorador concreto que añade el servicio de PRIORIDAD al envío
  */
 public class PrioridadDecorator extends ServicioDecorator {
-    private static final double COSTO_PRIORIDAD = 8000.0;
+    public static final double COSTO_PRIORIDAD = 8000.0;
+
+    private final double costo;
 
     public PrioridadDecorator(EnvioComponent envio) {
+        this(envio, COSTO_PRIORIDAD);
+    }
+
+    /**
+     * @param costo Costo del servicio según la tabla de tarifas vigente
+     */
+    public PrioridadDecorator(EnvioComponent envio, double costo) {
         super(envio);
+        this.costo = costo;
     }
 
     @Override
     public double calcularCosto() {
-        return envio.calcularCosto() + COSTO_PRIORIDAD;
+        return envio.calcularCosto() + costo;
     }
 
     @Override
     public String getDescripcion() {
-        return envio.getDescripcion() + "\n  + Prioridad ($8,000)";
+        return envio.getDescripcion() + lineaServicio("Prioridad", costo);
     }
 }
\ No newline at end of file
@@ -4,19 +4,29 @@ package co.edu.uniquindio.sameday.models.structural.decorator;
  * Decorador concreto que añade el servicio de SEGURO al envío
  */
 public class SeguroDecorator extends ServicioDecorator {
-    private static final double COSTO_SEGURO = 5000.0;
+    public static final double COSTO_SEGURO = 5000.0;
+
+    private final double costo;
 
     public SeguroDecorator(EnvioComponent envio) {
+        this(envio, COSTO_SEGURO);
+    }
+
+    /**
+     * @param costo Costo del servicio según la tabla de tarifas vigente
+     */
+    public SeguroDecorator(EnvioComponent envio, double costo) {
         super(envio);
+        this.costo = costo;
     }
 
     @Override
     public double calcularCosto() {
-        return envio.calcularCosto() + COSTO_SEGURO;
+        return envio.calcularCosto() + costo;
     }
 
     @Override
     public String getDescripcion() {
-        return envio.getDescripcion() + "\n  + Seguro ($5,000)";
+        return envio.getDescripcion() + lineaServicio("Seguro", costo);
     }
 }
\ No newline at end of file
@@ -20,4 +20,12 @@ public abstract class ServicioDecorator implements EnvioComponent {
     public String getDescripcion() {
         return envio.getDescripcion();
     }
+
+    /**
+     * Línea del desglose para un servicio: "\n  + Seguro ($5,000)" o "(Gratis)" si no tiene costo
+     */
+    protected String lineaServicio(String nombre, double costo) {
+        String precio = costo == 0 ? "Gratis" : String.format("$%,.0f", costo);
+        return "\n  + " + nombre + " (" + precio + ")";
+    }
 }
\ No newline at end of file
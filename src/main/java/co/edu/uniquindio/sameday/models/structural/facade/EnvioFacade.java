@@ -3,10 +3,22 @@ package co.edu.uniquindio.sameday.models.structural.facade;
 import co.edu.uniquindio.sameday.models.*;
 import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
 import co.edu.uniquindio.sameday.models.creational.builder.EnvioBuilder;
-import co.edu.uniquindio.sameday.models.structural.decorator.*;
-
+import co.edu.uniquindio.sameday.models.importacion.ImportadorEnvios;
+import co.edu.uniquindio.sameday.models.importacion.ProgresoImportacion;
+import co.edu.uniquindio.sameday.models.importacion.ResultadoImportacion;
+import co.edu.uniquindio.sameday.models.query.FuenteConsultaEnvios;
+import co.edu.uniquindio.sameday.models.structural.decorator.EnvioComponent;
+import co.edu.uniquindio.sameday.models.tarifas.MotorTarifas;
+import co.edu.uniquindio.sameday.models.tarifas.TablaTarifas;
+import co.edu.uniquindio.sameday.models.validacion.ConjuntoReglas;
+import co.edu.uniquindio.sameday.models.validacion.ReglasEnvio;
+import co.edu.uniquindio.sameday.models.validacion.ResultadoValidacion;
+
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * PATRÓN ESTRUCTURAL: FACADE
@@ -14,7 +26,7 @@ import java.util.List;
  * Proporciona una interfaz simplificada para la gestión completa de envíos.
  * Coordina las operaciones entre múltiples subsistemas:
  * - Validación de datos
- * - Cálculo de costos (usando Decorator)
+ * - Cálculo de costos (tabla compilada de tarifas; desglose con Decorator)
  * - Gestión de envíos (usando Singleton)
  * - Generación de IDs
  * - Construcción de envíos (usando Builder) ✨ NUEVO
@@ -36,72 +48,55 @@ public class EnvioFacade {
                                                 String contenido, double peso,
                                                 String dimensiones, double volumen) {
 
-        // Validar dirección de origen
-        if (origen == null) {
-            return ResultadoOperacion.error("Debe seleccionar una dirección de origen");
-        }
-
-        // Validar dirección de destino
-        if (destino == null) {
-            return ResultadoOperacion.error("Debe seleccionar una dirección de destino");
-        }
-
-        // Validar que origen y destino no sean iguales
-        if (origen.getId().equals(destino.getId())) {
-            return ResultadoOperacion.error("La dirección de origen y destino no pueden ser la misma");
-        }
-
-        // Validar contenido
-        if (contenido == null || contenido.trim().isEmpty()) {
-            return ResultadoOperacion.error("Debe ingresar el contenido del paquete");
-        }
-
-        // Validar peso
-        if (peso <= 0) {
-            return ResultadoOperacion.error("El peso debe ser mayor a 0 kg");
-        }
-
-        if (peso > 100) {
-            return ResultadoOperacion.error("El peso no puede superar los 100 kg");
+        Envio candidato = new Envio();
+        candidato.setOrigen(origen);
+        candidato.setDestino(destino);
+        candidato.setContenido(contenido);
+        candidato.setPeso(peso);
+        candidato.setDimensiones(dimensiones);
+        candidato.setVolumen(volumen);
+
+        String error = ReglasEnvio.DATOS_PAQUETE.primerError(candidato);
+        if (error != null) {
+            return ResultadoOperacion.error(error);
         }
 
-        // Validar dimensiones
-        if (dimensiones == null || dimensiones.trim().isEmpty()) {
-            return ResultadoOperacion.error("Debe ingresar las dimensiones del paquete");
-        }
+        return ResultadoOperacion.exito("Datos validados correctamente");
+    }
 
-        // Validar volumen
-        if (volumen <= 0) {
-            return ResultadoOperacion.error("El volumen debe ser mayor a 0 cm³");
+    /**
+     * Valida un lote de envíos candidatos en una sola pasada
+     *
+     * @param detenerEnPrimerError true para detenerse en el primer envío inválido
+     * @return ResultadoOperacion con el ResultadoValidacion como dato; exitoso si todos son válidos
+     */
+    public ResultadoOperacion validarEnvios(List<Envio> candidatos, boolean detenerEnPrimerError) {
+        ResultadoValidacion validacion = ReglasEnvio.ENVIO.validarLote(candidatos, detenerEnPrimerError
+                ? ConjuntoReglas.Modo.PRIMER_ERROR : ConjuntoReglas.Modo.TODOS_LOS_ERRORES);
+        if (validacion.isValido()) {
+            return ResultadoOperacion.exitoConDato(
+                    String.format("Los %d envíos son válidos", candidatos.size()), validacion);
         }
-
-        return ResultadoOperacion.exito("Datos validados correctamente");
+        return new ResultadoOperacion(false, String.format("%d de %d envíos revisados tienen errores",
+                validacion.getCantidadInvalidos(), validacion.getRevisados()), validacion);
     }
 
     /**
      * Calcula el costo total del envío aplicando servicios adicionales
-     * Utiliza el patrón Decorator para agregar costos incrementales
+     * El costo sale de la tabla compilada del MotorTarifas; el desglose con el patrón
+     * Decorator solo se arma si se pide la descripción
      */
     public ResultadoOperacion calcularCostoEnvio(double peso,
                                                  List<ServicioAdicional> serviciosAdicionales) {
 
         try {
-            // Crear el envío básico
-            EnvioComponent envio = new EnvioBasico(peso);
-
-            // Aplicar decoradores para cada servicio adicional
-            if (serviciosAdicionales != null) {
-                for (ServicioAdicional servicio : serviciosAdicionales) {
-                    envio = aplicarServicioAdicional(envio, servicio);
-                }
-            }
+            TablaTarifas tabla = MotorTarifas.getInstance().getTabla();
+            int servicios = MotorTarifas.mascara(serviciosAdicionales);
+            double costoTotal = tabla.costo(peso, servicios);
 
-            // Calcular el costo total
-            double costoTotal = envio.calcularCosto();
-            String descripcion = envio.getDescripcion();
-
-            // Crear objeto de respuesta con el costo y descripción
-            CotizacionResult resultado = new CotizacionResult(costoTotal, descripcion);
+            // Crear objeto de respuesta con el costo y el desglose (con la misma tabla)
+            CotizacionResult resultado = new CotizacionResult(costoTotal,
+                    () -> tabla.desglose(peso, servicios));
 
             return ResultadoOperacion.exitoConDato(
                     String.format("Cotización calculada: $%,.0f", costoTotal),
@@ -113,6 +108,43 @@ public class EnvioFacade {
         }
     }
 
+    /**
+     * Cotiza muchos paquetes en una sola llamada (carritos, estibas). Los lotes grandes
+     * se reparten entre los núcleos.
+     * @param mascarasServicios Servicios de cada paquete, un bit por ServicioAdicional (ordinal)
+     * @return Resultado con el arreglo de costos (double[]) en el mismo orden; un peso
+     * negativo deja NaN en su posición
+     */
+    public ResultadoOperacion cotizarLote(double[] pesos, int[] mascarasServicios) {
+        if (pesos == null || mascarasServicios == null || pesos.length != mascarasServicios.length) {
+            return ResultadoOperacion.error("Cada paquete del lote debe tener peso y servicios");
+        }
+        double[] costos = MotorTarifas.getInstance().cotizarLote(pesos, mascarasServicios);
+        return ResultadoOperacion.exitoConDato(
+                String.format("Lote de %d paquetes cotizado", costos.length), costos);
+    }
+
+    /**
+     * Importa los envíos de un archivo CSV o JSON; las filas inválidas no detienen la
+     * importación y quedan en el ResultadoImportacion que acompaña al resultado
+     *
+     * @param progreso Avance después de cada bloque (puede ser null)
+     */
+    public ResultadoOperacion importarEnvios(Path archivo, ProgresoImportacion progreso) {
+        if (archivo == null) {
+            return ResultadoOperacion.error("Seleccione el archivo a importar");
+        }
+        try {
+            ResultadoImportacion resultado = new ImportadorEnvios(sameDay).importar(archivo, progreso);
+            if (!resultado.isCompleta()) {
+                return new ResultadoOperacion(false, resultado.toString(), resultado);
+            }
+            return ResultadoOperacion.exitoConDato(resultado.toString(), resultado);
+        } catch (IOException e) {
+            return ResultadoOperacion.error("No se pudo leer el archivo: " + e.getMessage());
+        }
+    }
+
     /**
      * Crea un nuevo envío completo en el sistema
      * AHORA USA BUILDER para construcción fluida y validada ✨
@@ -181,8 +213,12 @@ public class EnvioFacade {
     /**
      * Actualiza un envío existente
      * AHORA USA BUILDER para construcción fluida y validada ✨
+     * Control optimista: si el envío cambió desde que se leyó (otra versión), no se
+     * sobrescribe y se retorna un resultado de conflicto
+     * @param versionEsperada Versión del envío cuando el usuario lo seleccionó
      */
-    public ResultadoOperacion actualizarEnvio(String envioId, Address origen, Address destino,
+    public ResultadoOperacion actualizarEnvio(String envioId, long versionEsperada,
+                                              Address origen, Address destino,
                                               String contenido, double peso,
                                               String dimensiones, double volumen,
                                               List<ServicioAdicional> serviciosAdicionales,
@@ -221,15 +257,16 @@ public class EnvioFacade {
                     .observaciones(envioExistente.getObservaciones())
                     .build();
 
-            // 4. Copiar datos
-            copiarDatosEnvio(envioActualizado, envioExistente);
-
-            // 5. Guardar cambios
-            sameDay.updateEnvio(envioExistente);
+            // 4. Copiar datos y guardar, solo si nadie lo modificó entretanto
+            boolean aplicado = sameDay.actualizarEnvioSiVersion(envioId, versionEsperada,
+                    envio -> copiarDatosEnvio(envioActualizado, envio));
+            if (!aplicado) {
+                return conflictoEnvio(envioId);
+            }
 
             return ResultadoOperacion.exitoConDato(
                     String.format("Envío %s actualizado exitosamente", envioId),
-                    envioExistente
+                    buscarEnvioPorId(envioId)
             );
 
         } catch (IllegalStateException e) {
@@ -239,6 +276,79 @@ public class EnvioFacade {
         }
     }
 
+    /**
+     * Cambia el estado de entrega de un envío (flujo del repartidor)
+     * Usa el mismo control optimista que actualizarEnvio
+     * @param versionEsperada Versión del envío cuando el repartidor lo seleccionó
+     */
+    public ResultadoOperacion actualizarEstadoEntrega(String envioId, long versionEsperada,
+                                                      EstadoEntrega nuevoEstado, String observaciones) {
+        if (buscarEnvioPorId(envioId) == null) {
+            return ResultadoOperacion.error("Envío no encontrado: " + envioId);
+        }
+
+        boolean aplicado = sameDay.actualizarEnvioSiVersion(envioId, versionEsperada, envio -> {
+            envio.setEstadoEntrega(nuevoEstado);
+            envio.setObservaciones(observaciones);
+        });
+        if (!aplicado) {
+            return conflictoEnvio(envioId);
+        }
+
+        return ResultadoOperacion.exitoConDato(
+                "Estado del envío actualizado a: " + nuevoEstado.getDisplayName(),
+                buscarEnvioPorId(envioId)
+        );
+    }
+
+    /**
+     * Asigna un repartidor a un envío (asignación manual del administrador)
+     * Usa el mismo control optimista que actualizarEnvio
+     * @param versionEsperada Versión del envío cuando el administrador lo seleccionó
+     */
+    public ResultadoOperacion asignarRepartidor(String envioId, long versionEsperada, Dealer repartidor) {
+        if (buscarEnvioPorId(envioId) == null) {
+            return ResultadoOperacion.error("Envío no encontrado: " + envioId);
+        }
+
+        boolean aplicado = sameDay.actualizarEnvioSiVersion(envioId, versionEsperada, envio -> {
+            envio.setRepartidorAsignado(repartidor);
+            envio.setEstadoEntrega(EstadoEntrega.ASIGNADO);
+        });
+        if (!aplicado) {
+            return conflictoEnvio(envioId);
+        }
+
+        return ResultadoOperacion.exitoConDato(
+                "Envío asignado a " + repartidor.getNombre(),
+                buscarEnvioPorId(envioId)
+        );
+    }
+
+    /**
+     * Libera el repartidor de un envío y lo deja de nuevo pendiente de asignación
+     * Usa el mismo control optimista que actualizarEnvio
+     * @param versionEsperada Versión del envío cuando el administrador lo seleccionó
+     */
+    public ResultadoOperacion desasignarRepartidor(String envioId, long versionEsperada) {
+        if (buscarEnvioPorId(envioId) == null) {
+            return ResultadoOperacion.error("Envío no encontrado: " + envioId);
+        }
+
+        boolean aplicado = sameDay.actualizarEnvioSiVersion(envioId, versionEsperada, envio -> {
+            envio.setRepartidorAsignado(null);
+            envio.setEstadoEntrega(null);
+        });
+        if (!aplicado) {
+            return conflictoEnvio(envioId);
+        }
+
+        return ResultadoOperacion.exitoConDato(
+                "Envío " + envioId + " sin repartidor asignado",
+                buscarEnvioPorId(envioId)
+        );
+    }
+
     /**
      * Elimina un envío del sistema
      */
@@ -250,7 +360,7 @@ public class EnvioFacade {
         }
 
         // No permitir eliminar envíos ya pagados
-        if ("PAGADO".equals(envio.getEstado())) {
+        if (envio.isPagado()) {
             return ResultadoOperacion.error("No se puede eliminar un envío que ya fue pagado");
         }
 
@@ -269,45 +379,51 @@ public class EnvioFacade {
         return sameDay.getListEnvios();
     }
 
+    /**
+     * Todos los envíos para mostrarlos por páginas, sin copiar la lista completa
+     */
+    public FuenteConsultaEnvios obtenerFuenteEnvios() {
+        return new FuenteConsultaEnvios(sameDay.consultarEnvios());
+    }
+
+    /**
+     * Busca envíos por fragmentos: destinatario, cédula, teléfono, contenido,
+     * dirección de destino o prefijo del número de rastreo
+     */
+    public List<Envio> buscarEnvios(String texto, int limite) {
+        return sameDay.buscarEnviosPorTexto(texto, limite);
+    }
+
     /**
      * Genera un ID único para un nuevo envío
      */
     public String generarIdEnvio() {
-        int count = sameDay.getListEnvios().size();
-        return String.format("ENV%04d", count + 1);
+        return sameDay.generarIdEnvio();
+    }
+
+    /**
+     * ID que probablemente recibirá el próximo envío (solo para mostrarlo; no lo reserva)
+     */
+    public String previsualizarIdEnvio() {
+        return sameDay.previsualizarIdEnvio();
     }
 
     // ==================== MÉTODOS PRIVADOS AUXILIARES ====================
 
     /**
-     * Aplica un servicio adicional usando el patrón Decorator
+     * Resultado para un envío que otro usuario modificó mientras se editaba (control optimista)
      */
-    private EnvioComponent aplicarServicioAdicional(EnvioComponent envio,
-                                                    ServicioAdicional servicio) {
-        switch (servicio) {
-            case SEGURO:
-                return new SeguroDecorator(envio);
-            case FRAGIL:
-                return new FragilDecorator(envio);
-            case FIRMA_REQUERIDA:
-                return new FirmaRequeridaDecorator(envio);
-            case PRIORIDAD:
-                return new PrioridadDecorator(envio);
-            default:
-                return envio;
-        }
+    private ResultadoOperacion conflictoEnvio(String envioId) {
+        return ResultadoOperacion.conflicto(String.format(
+                "El envío %s fue modificado por otro usuario mientras lo editaba. " +
+                        "Recargue los datos e intente de nuevo", envioId));
     }
 
     /**
      * Busca un envío por su ID
      */
     private Envio buscarEnvioPorId(String envioId) {
-        for (Envio envio : sameDay.getListEnvios()) {
-            if (envio.getId().equals(envioId)) {
-                return envio;
-            }
-        }
-        return null;
+        return sameDay.buscarEnvioPorId(envioId);
     }
 
     /**
@@ -338,17 +454,29 @@ public class EnvioFacade {
     public static class CotizacionResult {
         private double costoTotal;
         private String descripcion;
+        private Supplier<EnvioComponent> desglose;
 
         public CotizacionResult(double costoTotal, String descripcion) {
             this.costoTotal = costoTotal;
             this.descripcion = descripcion;
         }
 
+        /**
+         * @param desglose Arma el desglose la primera vez que se pide la descripción
+         */
+        public CotizacionResult(double costoTotal, Supplier<EnvioComponent> desglose) {
+            this.costoTotal = costoTotal;
+            this.desglose = desglose;
+        }
+
         public double getCostoTotal() {
             return costoTotal;
         }
 
         public String getDescripcion() {
+            if (descripcion == null && desglose != null) {
+                descripcion = desglose.get().getDescripcion();
+            }
             return descripcion;
         }
     }
@@ -8,6 +8,7 @@ public class ResultadoOperacion {
     private boolean exitoso;
     private String mensaje;
     private Object dato;
+    private boolean conflicto; // Otro usuario modificó el dato entretanto
 
     public ResultadoOperacion(boolean exitoso, String mensaje) {
         this.exitoso = exitoso;
@@ -32,6 +33,10 @@ public class ResultadoOperacion {
         return dato;
     }
 
+    public boolean isConflicto() {
+        return conflicto;
+    }
+
     public static ResultadoOperacion exito(String mensaje) {
         return new ResultadoOperacion(true, mensaje);
     }
@@ -43,4 +48,10 @@ public class ResultadoOperacion {
     public static ResultadoOperacion error(String mensaje) {
         return new ResultadoOperacion(false, mensaje);
     }
+
+    public static ResultadoOperacion conflicto(String mensaje) {
+        ResultadoOperacion resultado = new ResultadoOperacion(false, mensaje);
+        resultado.conflicto = true;
+        return resultado;
+    }
 }
\ No newline at end of file
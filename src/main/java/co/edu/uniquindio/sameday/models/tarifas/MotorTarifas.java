@@ -0,0 +1,218 @@
+package co.edu.uniquindio.sameday.models.tarifas;
+
+import co.edu.uniquindio.sameday.models.ServicioAdicional;
+import co.edu.uniquindio.sameday.models.structural.decorator.EnvioComponent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.RandomAccess;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Motor de tarifas: cotiza con la tabla compilada vigente en lugar de armar una
+ * cadena de decoradores por cotización.
+ *
+ * Sin archivo de configuración usa las tarifas de EnvioBasico y los decoradores. Con
+ * -Dsameday.tarifas=/ruta/tarifas.properties lee las tarifas del archivo y lo vuelve a
+ * leer cuando cambia, sin reiniciar; si el archivo nuevo es inválido se conserva la
+ * tabla anterior. Las cotizaciones en curso usan la tabla que leyeron al empezar.
+ */
+public class MotorTarifas {
+
+    /**
+     * Propiedad del sistema con la ruta del archivo de tarifas
+     */
+    public static final String PROPIEDAD_TARIFAS = "sameday.tarifas";
+
+    private static final long REVISION_SEGUNDOS = 5;
+    // Lotes desde este tamaño se reparten entre los núcleos, en bloques de BLOQUE_PARALELO
+    private static final int UMBRAL_PARALELO = 1 << 16;
+    private static final int BLOQUE_PARALELO = 1 << 14;
+
+    private final Path archivo;
+    private volatile TablaTarifas tabla;
+    private FileTime ultimaModificacion;
+
+    private static class Holder {
+        private static final MotorTarifas INSTANCE = crear();
+    }
+
+    public static MotorTarifas getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private static MotorTarifas crear() {
+        String ruta = System.getProperty(PROPIEDAD_TARIFAS);
+        MotorTarifas motor = new MotorTarifas(ruta != null ? Paths.get(ruta) : null);
+        if (motor.archivo != null) {
+            ScheduledExecutorService revision = Executors.newSingleThreadScheduledExecutor(tarea -> {
+                Thread hilo = new Thread(tarea, "sameday-tarifas");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            revision.scheduleWithFixedDelay(motor::recargarSiCambio,
+                    REVISION_SEGUNDOS, REVISION_SEGUNDOS, TimeUnit.SECONDS);
+        }
+        return motor;
+    }
+
+    /**
+     * @param archivo Archivo de tarifas, o null para las tarifas por defecto
+     */
+    public MotorTarifas(Path archivo) {
+        this.archivo = archivo;
+        this.tabla = TablaTarifas.porDefecto();
+        if (archivo != null) {
+            recargar();
+        }
+    }
+
+    public TablaTarifas getTabla() {
+        return tabla;
+    }
+
+    /**
+     * Costo de un envío, sin crear objetos
+     * @param mascaraServicios Un bit por ServicioAdicional (ordinal)
+     */
+    public double cotizar(double peso, int mascaraServicios) {
+        return tabla.costo(peso, mascaraServicios);
+    }
+
+    public double cotizar(double peso, Collection<ServicioAdicional> servicios) {
+        return tabla.costo(peso, mascara(servicios));
+    }
+
+    /**
+     * Desglose legible con la misma tabla con que se cotiza
+     */
+    public EnvioComponent desglose(double peso, Collection<ServicioAdicional> servicios) {
+        return tabla.desglose(peso, mascara(servicios));
+    }
+
+    // ==================== COTIZACIÓN POR LOTES ====================
+
+    /**
+     * Cotiza un lote completo con una misma tabla (una recarga a mitad de lote no lo
+     * mezcla). Un peso negativo o NaN da NaN en su posición.
+     * @param mascaras Servicios de cada paquete, un bit por ServicioAdicional (ordinal)
+     * @param costos Arreglo de salida, del mismo tamaño que pesos (puede reutilizarse entre lotes)
+     */
+    public void cotizarLote(double[] pesos, int[] mascaras, double[] costos) {
+        if (pesos.length != mascaras.length || pesos.length != costos.length) {
+            throw new IllegalArgumentException("Los arreglos del lote deben tener el mismo tamaño");
+        }
+        TablaTarifas vigente = tabla;
+        int cantidad = pesos.length;
+        if (cantidad < UMBRAL_PARALELO) {
+            vigente.costos(pesos, mascaras, costos, 0, cantidad);
+            return;
+        }
+        int bloques = (cantidad + BLOQUE_PARALELO - 1) / BLOQUE_PARALELO;
+        IntStream.range(0, bloques).parallel().forEach(bloque -> {
+            int desde = bloque * BLOQUE_PARALELO;
+            vigente.costos(pesos, mascaras, costos, desde, Math.min(cantidad, desde + BLOQUE_PARALELO));
+        });
+    }
+
+    public double[] cotizarLote(double[] pesos, int[] mascaras) {
+        double[] costos = new double[pesos.length];
+        cotizarLote(pesos, mascaras, costos);
+        return costos;
+    }
+
+    /**
+     * Cotiza los paquetes en el orden en que llegan. La tabla actual no distingue rutas:
+     * origen y destino viajan con la solicitud pero no cambian el costo.
+     * @return Costos en el orden de las solicitudes
+     */
+    public double[] cotizarLote(Stream<SolicitudCotizacion> solicitudes) {
+        double[] pesos = new double[1024];
+        int[] mascaras = new int[1024];
+        int cantidad = 0;
+        Iterator<SolicitudCotizacion> iterador = solicitudes.sequential().iterator();
+        while (iterador.hasNext()) {
+            SolicitudCotizacion solicitud = iterador.next();
+            if (cantidad == pesos.length) {
+                pesos = Arrays.copyOf(pesos, cantidad * 2);
+                mascaras = Arrays.copyOf(mascaras, cantidad * 2);
+            }
+            pesos[cantidad] = solicitud.getPeso();
+            mascaras[cantidad] = solicitud.getMascaraServicios();
+            cantidad++;
+        }
+        return cotizarLote(Arrays.copyOf(pesos, cantidad), Arrays.copyOf(mascaras, cantidad));
+    }
+
+    public static int mascara(Collection<ServicioAdicional> servicios) {
+        int mascara = 0;
+        if (servicios == null) {
+            return mascara;
+        }
+        if (servicios instanceof List && servicios instanceof RandomAccess) {
+            List<ServicioAdicional> lista = (List<ServicioAdicional>) servicios;
+            for (int i = 0; i < lista.size(); i++) {
+                mascara |= 1 << lista.get(i).ordinal();
+            }
+            return mascara;
+        }
+        for (ServicioAdicional servicio : servicios) {
+            mascara |= 1 << servicio.ordinal();
+        }
+        return mascara;
+    }
+
+    /**
+     * Lee el archivo de tarifas y publica la tabla nueva
+     * @return true si se cargó; false si no hay archivo o es inválido (se conserva la tabla anterior)
+     */
+    public final synchronized boolean recargar() {
+        if (archivo == null) {
+            return false;
+        }
+        try {
+            FileTime modificacion = Files.getLastModifiedTime(archivo);
+            Properties propiedades = new Properties();
+            try (InputStream entrada = Files.newInputStream(archivo)) {
+                propiedades.load(entrada);
+            }
+            TablaTarifas nueva = TablaTarifas.desdePropiedades(propiedades);
+            tabla = nueva;
+            ultimaModificacion = modificacion;
+            System.out.println("💲 Tarifas cargadas de " + archivo + ": " + nueva);
+            return true;
+        } catch (NoSuchFileException e) {
+            System.err.println("❌ No existe el archivo de tarifas " + archivo + "; se usan las tarifas vigentes");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("❌ Archivo de tarifas inválido (" + e.getMessage() + "); se usan las tarifas vigentes");
+        }
+        return false;
+    }
+
+    private synchronized void recargarSiCambio() {
+        try {
+            FileTime modificacion = Files.getLastModifiedTime(archivo);
+            if (!modificacion.equals(ultimaModificacion)) {
+                // Aunque sea inválido, no se vuelve a intentar hasta el próximo cambio
+                ultimaModificacion = modificacion;
+                recargar();
+            }
+        } catch (IOException e) {
+            // El archivo no está (se está reemplazando): se revisa en la próxima vuelta
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package co.edu.uniquindio.sameday.models.tarifas;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.ServicioAdicional;
+
+import java.util.Collection;
+
+/**
+ * Un paquete de una cotización por lotes: peso, servicios y ruta
+ */
+public class SolicitudCotizacion {
+
+    private final double peso;
+    private final int mascaraServicios;
+    private final Address origen;
+    private final Address destino;
+
+    public SolicitudCotizacion(double peso, Collection<ServicioAdicional> servicios,
+                               Address origen, Address destino) {
+        this(peso, MotorTarifas.mascara(servicios), origen, destino);
+    }
+
+    /**
+     * @param mascaraServicios Un bit por ServicioAdicional (ordinal)
+     */
+    public SolicitudCotizacion(double peso, int mascaraServicios, Address origen, Address destino) {
+        this.peso = peso;
+        this.mascaraServicios = mascaraServicios;
+        this.origen = origen;
+        this.destino = destino;
+    }
+
+    public double getPeso() {
+        return peso;
+    }
+
+    public int getMascaraServicios() {
+        return mascaraServicios;
+    }
+
+    public Address getOrigen() {
+        return origen;
+    }
+
+    public Address getDestino() {
+        return destino;
+    }
+}
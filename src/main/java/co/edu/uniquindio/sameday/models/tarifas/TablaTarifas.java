@@ -0,0 +1,199 @@
+package co.edu.uniquindio.sameday.models.tarifas;
+
+import co.edu.uniquindio.sameday.models.ServicioAdicional;
+import co.edu.uniquindio.sameday.models.structural.decorator.EnvioBasico;
+import co.edu.uniquindio.sameday.models.structural.decorator.EnvioComponent;
+import co.edu.uniquindio.sameday.models.structural.decorator.FirmaRequeridaDecorator;
+import co.edu.uniquindio.sameday.models.structural.decorator.FragilDecorator;
+import co.edu.uniquindio.sameday.models.structural.decorator.PrioridadDecorator;
+import co.edu.uniquindio.sameday.models.structural.decorator.SeguroDecorator;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Tarifas compiladas: el costo de cada combinación de tramo de peso y servicios,
+ * precalculado en un arreglo plano indexado por tramo × máscara de servicios.
+ *
+ * Formato del archivo (valores en pesos; los tramos se leen desde 1 hasta el primero
+ * que falte, y cada uno aplica a pesos mayores que su "desde"):
+ *
+ *   tarifa.base=11000
+ *   tramo.1.desde=5
+ *   tramo.1.recargo=5000
+ *   tramo.2.desde=20
+ *   tramo.2.recargo=10000
+ *   servicio.SEGURO=5000
+ *   servicio.FRAGIL=3000
+ *
+ * Inmutable: una recarga compila una tabla nueva y la publica completa.
+ */
+public final class TablaTarifas {
+
+    private static final int SERVICIOS = ServicioAdicional.values().length;
+    private static final int COMBINACIONES = 1 << SERVICIOS;
+
+    private final double tarifaBase;
+    // Límites inferiores (exclusivos) de los tramos, crecientes; el tramo 0 no tiene límite
+    private final double[] limites;
+    private final double[] recargosTramo;
+    private final double[] recargosServicio;
+    // costos[tramo * COMBINACIONES + máscara]
+    private final double[] costos;
+
+    TablaTarifas(double tarifaBase, double[] limites, double[] recargosTramo, double[] recargosServicio) {
+        for (int i = 1; i < limites.length; i++) {
+            if (!(limites[i] > limites[i - 1])) {
+                throw new IllegalArgumentException("Los tramos de peso deben ser crecientes");
+            }
+        }
+        this.tarifaBase = tarifaBase;
+        this.limites = limites.clone();
+        this.recargosTramo = recargosTramo.clone();
+        this.recargosServicio = recargosServicio.clone();
+        this.costos = new double[(limites.length + 1) * COMBINACIONES];
+        for (int tramo = 0; tramo <= limites.length; tramo++) {
+            double base = tarifaBase + (tramo > 0 ? recargosTramo[tramo - 1] : 0);
+            for (int mascara = 0; mascara < COMBINACIONES; mascara++) {
+                double costo = base;
+                for (int servicio = 0; servicio < SERVICIOS; servicio++) {
+                    if ((mascara & (1 << servicio)) != 0) {
+                        costo += recargosServicio[servicio];
+                    }
+                }
+                costos[tramo * COMBINACIONES + mascara] = costo;
+            }
+        }
+    }
+
+    /**
+     * Las tarifas de EnvioBasico y de los decoradores de servicios
+     */
+    static TablaTarifas porDefecto() {
+        double[] servicios = new double[SERVICIOS];
+        servicios[ServicioAdicional.SEGURO.ordinal()] = SeguroDecorator.COSTO_SEGURO;
+        servicios[ServicioAdicional.FRAGIL.ordinal()] = FragilDecorator.COSTO_FRAGIL;
+        servicios[ServicioAdicional.FIRMA_REQUERIDA.ordinal()] = FirmaRequeridaDecorator.COSTO_FIRMA;
+        servicios[ServicioAdicional.PRIORIDAD.ordinal()] = PrioridadDecorator.COSTO_PRIORIDAD;
+        return new TablaTarifas(EnvioBasico.TARIFA_BASE,
+                new double[]{EnvioBasico.LIMITE_TRAMO_1, EnvioBasico.LIMITE_TRAMO_2, EnvioBasico.LIMITE_TRAMO_3},
+                new double[]{EnvioBasico.RECARGO_TRAMO_1, EnvioBasico.RECARGO_TRAMO_2, EnvioBasico.RECARGO_TRAMO_3},
+                servicios);
+    }
+
+    /**
+     * @throws IllegalArgumentException Si falta la tarifa base o un valor no es un número válido
+     */
+    static TablaTarifas desdePropiedades(Properties propiedades) {
+        double base = numero(propiedades, "tarifa.base", null);
+        int tramos = 0;
+        while (propiedades.getProperty("tramo." + (tramos + 1) + ".desde") != null) {
+            tramos++;
+        }
+        double[] limites = new double[tramos];
+        double[] recargos = new double[tramos];
+        for (int i = 0; i < tramos; i++) {
+            limites[i] = numero(propiedades, "tramo." + (i + 1) + ".desde", null);
+            recargos[i] = numero(propiedades, "tramo." + (i + 1) + ".recargo", null);
+        }
+        double[] servicios = new double[SERVICIOS];
+        for (ServicioAdicional servicio : ServicioAdicional.values()) {
+            servicios[servicio.ordinal()] = numero(propiedades, "servicio." + servicio.name(), 0.0);
+        }
+        return new TablaTarifas(base, limites, recargos, servicios);
+    }
+
+    private static double numero(Properties propiedades, String clave, Double porDefecto) {
+        String texto = propiedades.getProperty(clave);
+        if (texto == null) {
+            if (porDefecto == null) {
+                throw new IllegalArgumentException("Falta la tarifa '" + clave + "'");
+            }
+            return porDefecto;
+        }
+        try {
+            double valor = Double.parseDouble(texto.trim());
+            if (Double.isNaN(valor) || Double.isInfinite(valor) || valor < 0) {
+                throw new IllegalArgumentException("Tarifa inválida en '" + clave + "': " + texto);
+            }
+            return valor;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Tarifa inválida en '" + clave + "': " + texto);
+        }
+    }
+
+    /**
+     * Costo de un envío: un recorrido por los límites de tramo y una lectura del arreglo
+     * @param mascaraServicios Un bit por ServicioAdicional (ordinal)
+     */
+    public double costo(double peso, int mascaraServicios) {
+        return costos[tramo(peso) * COMBINACIONES + (mascaraServicios & (COMBINACIONES - 1))];
+    }
+
+    /**
+     * Cotiza los paquetes [desde, hasta) en costos; un peso negativo o NaN da NaN
+     */
+    void costos(double[] pesos, int[] mascaras, double[] costos, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            double peso = pesos[i];
+            costos[i] = peso >= 0 ? costo(peso, mascaras[i]) : Double.NaN;
+        }
+    }
+
+    int tramo(double peso) {
+        int tramo = 0;
+        while (tramo < limites.length && peso > limites[tramo]) {
+            tramo++;
+        }
+        return tramo;
+    }
+
+    /**
+     * @return Tarifa por peso (base más el recargo del tramo), sin servicios
+     */
+    public double tarifaPorPeso(double peso) {
+        return costos[tramo(peso) * COMBINACIONES];
+    }
+
+    public double recargoServicio(ServicioAdicional servicio) {
+        return recargosServicio[servicio.ordinal()];
+    }
+
+    /**
+     * Desglose legible del costo con los componentes del patrón Decorator, armado con
+     * los valores de esta tabla (solo se construye cuando se quiere mostrar)
+     */
+    public EnvioComponent desglose(double peso, int mascaraServicios) {
+        EnvioComponent envio = new EnvioBasico(peso, tarifaPorPeso(peso));
+        for (ServicioAdicional servicio : ServicioAdicional.values()) {
+            if ((mascaraServicios & (1 << servicio.ordinal())) == 0) {
+                continue;
+            }
+            double recargo = recargoServicio(servicio);
+            switch (servicio) {
+                case SEGURO:
+                    envio = new SeguroDecorator(envio, recargo);
+                    break;
+                case FRAGIL:
+                    envio = new FragilDecorator(envio, recargo);
+                    break;
+                case FIRMA_REQUERIDA:
+                    envio = new FirmaRequeridaDecorator(envio, recargo);
+                    break;
+                case PRIORIDAD:
+                    envio = new PrioridadDecorator(envio, recargo);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return envio;
+    }
+
+    @Override
+    public String toString() {
+        return "TablaTarifas{base=" + tarifaBase + ", tramos=" + Arrays.toString(limites)
+                + ", recargos=" + Arrays.toString(recargosTramo)
+                + ", servicios=" + Arrays.toString(recargosServicio) + '}';
+    }
+}
@@ -0,0 +1,113 @@
+package co.edu.uniquindio.sameday.models.validacion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reglas que se revisan en orden. Es inmutable: se arma una vez (ver ReglasEnvio) y se
+ * usa desde cualquier hilo, para un candidato o para un lote completo.
+ */
+public final class ConjuntoReglas<T> {
+
+    public enum Modo {
+        /** Revisa todo el lote y junta todos los errores de cada candidato */
+        TODOS_LOS_ERRORES,
+        /** Se detiene en el primer error del lote */
+        PRIMER_ERROR
+    }
+
+    private final Regla<? super T>[] reglas;
+
+    private ConjuntoReglas(Regla<? super T>[] reglas) {
+        this.reglas = reglas;
+    }
+
+    // Las reglas se copian una por una: el arreglo varargs nunca sale del método, así
+    // que @SafeVarargs es cierto y javac no advierte contaminación del heap
+    @SafeVarargs
+    public static <T> ConjuntoReglas<T> de(Regla<? super T>... reglas) {
+        Regla<? super T>[] copia = nuevoArreglo(reglas.length);
+        for (int i = 0; i < reglas.length; i++) {
+            copia[i] = reglas[i];
+        }
+        return new ConjuntoReglas<>(copia);
+    }
+
+    /**
+     * @return Un conjunto nuevo con estas reglas y luego las dadas
+     */
+    @SafeVarargs
+    public final ConjuntoReglas<T> con(Regla<? super T>... otras) {
+        Regla<? super T>[] todas = Arrays.copyOf(reglas, reglas.length + otras.length);
+        for (int i = 0; i < otras.length; i++) {
+            todas[reglas.length + i] = otras[i];
+        }
+        return new ConjuntoReglas<>(todas);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Regla<? super T>[] nuevoArreglo(int tamano) {
+        return (Regla<? super T>[]) new Regla<?>[tamano];
+    }
+
+    /**
+     * @return Todos los errores del candidato, en el orden de las reglas (vacío si es válido)
+     */
+    public List<String> validar(T candidato) {
+        List<String> errores = null;
+        for (Regla<? super T> regla : reglas) {
+            String error = regla.revisar(candidato);
+            if (error != null) {
+                if (errores == null) {
+                    errores = new ArrayList<>(4);
+                }
+                errores.add(error);
+            }
+        }
+        return errores != null ? errores : Collections.emptyList();
+    }
+
+    /**
+     * @return El primer error del candidato, o null si es válido
+     */
+    public String primerError(T candidato) {
+        for (Regla<? super T> regla : reglas) {
+            String error = regla.revisar(candidato);
+            if (error != null) {
+                return error;
+            }
+        }
+        return null;
+    }
+
+    public boolean esValido(T candidato) {
+        return primerError(candidato) == null;
+    }
+
+    /**
+     * Valida el lote en una sola pasada
+     */
+    public ResultadoValidacion validarLote(List<? extends T> candidatos, Modo modo) {
+        List<Integer> invalidos = new ArrayList<>();
+        List<List<String>> errores = new ArrayList<>();
+        for (int i = 0; i < candidatos.size(); i++) {
+            if (modo == Modo.PRIMER_ERROR) {
+                String error = primerError(candidatos.get(i));
+                if (error != null) {
+                    invalidos.add(i);
+                    errores.add(Collections.singletonList(error));
+                    return new ResultadoValidacion(i + 1, invalidos, errores);
+                }
+            } else {
+                List<String> delCandidato = validar(candidatos.get(i));
+                if (!delCandidato.isEmpty()) {
+                    invalidos.add(i);
+                    errores.add(delCandidato);
+                }
+            }
+        }
+        return new ResultadoValidacion(candidatos.size(), invalidos, errores);
+    }
+}
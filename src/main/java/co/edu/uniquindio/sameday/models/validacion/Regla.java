@@ -0,0 +1,23 @@
+package co.edu.uniquindio.sameday.models.validacion;
+
+import java.util.function.Predicate;
+
+/**
+ * Una condición que debe cumplir un candidato. Las reglas no guardan estado, así que
+ * un mismo ConjuntoReglas se comparte entre hilos.
+ */
+@FunctionalInterface
+public interface Regla<T> {
+
+    /**
+     * @return El mensaje de error, o null si el candidato cumple
+     */
+    String revisar(T candidato);
+
+    /**
+     * Regla que falla con el mensaje dado cuando la condición no se cumple
+     */
+    static <T> Regla<T> exige(Predicate<? super T> condicion, String mensaje) {
+        return candidato -> condicion.test(candidato) ? null : mensaje;
+    }
+}
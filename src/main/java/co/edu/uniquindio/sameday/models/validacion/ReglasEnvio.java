@@ -0,0 +1,102 @@
+package co.edu.uniquindio.sameday.models.validacion;
+
+import co.edu.uniquindio.sameday.models.Envio;
+
+import java.util.regex.Pattern;
+
+import static co.edu.uniquindio.sameday.models.validacion.Regla.exige;
+
+/**
+ * Reglas de validación de envíos, armadas una sola vez y compartidas por EnvioBuilder,
+ * EnvioFacade y la importación masiva. Los patrones se compilan al cargar la clase
+ * (String.matches los compilaba en cada llamada).
+ */
+public final class ReglasEnvio {
+
+    public static final double PESO_MAXIMO_KG = 100;
+
+    private static final Pattern SOLO_DIGITOS = Pattern.compile("\\d+");
+    private static final Pattern TELEFONO = Pattern.compile("\\d{10}");
+
+    /**
+     * Todo lo que debe cumplir un envío para registrarse (EnvioBuilder.build)
+     */
+    public static final ConjuntoReglas<Envio> ENVIO = ConjuntoReglas.<Envio>de(
+            exige(ReglasEnvio::tieneOrigen, "La dirección de origen es obligatoria"),
+            exige(ReglasEnvio::tieneDestino, "La dirección de destino es obligatoria"),
+            exige(ReglasEnvio::origenDistintoDeDestino, "La dirección de origen y destino no pueden ser la misma"),
+            exige(ReglasEnvio::pesoPositivo, "El peso debe ser mayor a 0 kg"),
+            exige(ReglasEnvio::pesoPermitido, "El peso no puede superar los 100 kg"),
+            exige(ReglasEnvio::volumenPositivo, "El volumen debe ser mayor a 0 cm³"),
+            exige(envio -> !vacio(envio.getContenido()), "La descripción del contenido es obligatoria"),
+            exige(envio -> !vacio(envio.getNombreDestinatario()), "El nombre del destinatario es obligatorio"),
+            exige(envio -> !vacio(envio.getCedulaDestinatario()), "La cédula del destinatario es obligatoria"),
+            exige(envio -> vacio(envio.getCedulaDestinatario())
+                    || SOLO_DIGITOS.matcher(envio.getCedulaDestinatario()).matches(),
+                    "La cédula debe contener solo números"),
+            exige(envio -> !vacio(envio.getTelefonoDestinatario()), "El teléfono del destinatario es obligatorio"),
+            exige(envio -> vacio(envio.getTelefonoDestinatario())
+                    || TELEFONO.matcher(envio.getTelefonoDestinatario()).matches(),
+                    "El teléfono debe tener 10 dígitos"),
+            exige(envio -> envio.getCostoTotal() > 0, "El costo total debe ser mayor a 0"));
+
+    /**
+     * Datos del paquete en el formulario, antes de cotizar (EnvioFacade.validarDatosEnvio)
+     */
+    public static final ConjuntoReglas<Envio> DATOS_PAQUETE = ConjuntoReglas.<Envio>de(
+            exige(ReglasEnvio::tieneOrigen, "Debe seleccionar una dirección de origen"),
+            exige(ReglasEnvio::tieneDestino, "Debe seleccionar una dirección de destino"),
+            exige(ReglasEnvio::origenDistintoDeDestino, "La dirección de origen y destino no pueden ser la misma"),
+            exige(envio -> !vacio(envio.getContenido()), "Debe ingresar el contenido del paquete"),
+            exige(ReglasEnvio::pesoPositivo, "El peso debe ser mayor a 0 kg"),
+            exige(ReglasEnvio::pesoPermitido, "El peso no puede superar los 100 kg"),
+            exige(envio -> envio.getLargoCm() >= 0 || !vacio(envio.getDimensiones()),
+                    "Debe ingresar las dimensiones del paquete"),
+            exige(ReglasEnvio::volumenPositivo, "El volumen debe ser mayor a 0 cm³"));
+
+    private ReglasEnvio() {
+    }
+
+    private static boolean tieneOrigen(Envio envio) {
+        return envio.getOrigen() != null;
+    }
+
+    private static boolean tieneDestino(Envio envio) {
+        return envio.getDestino() != null;
+    }
+
+    /**
+     * Si falta alguna de las dos, la regla de obligatoria ya lo informa
+     */
+    private static boolean origenDistintoDeDestino(Envio envio) {
+        return envio.getOrigen() == null || envio.getDestino() == null
+                || !envio.getOrigen().getId().equals(envio.getDestino().getId());
+    }
+
+    private static boolean pesoPositivo(Envio envio) {
+        return envio.getPeso() > 0;
+    }
+
+    private static boolean pesoPermitido(Envio envio) {
+        return !(envio.getPeso() > PESO_MAXIMO_KG);
+    }
+
+    private static boolean volumenPositivo(Envio envio) {
+        return envio.getVolumen() > 0;
+    }
+
+    /**
+     * Igual que trim().isEmpty(), sin crear el texto recortado
+     */
+    static boolean vacio(String texto) {
+        if (texto == null) {
+            return true;
+        }
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
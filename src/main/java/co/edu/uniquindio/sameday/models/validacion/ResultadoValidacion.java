@@ -0,0 +1,71 @@
+package co.edu.uniquindio.sameday.models.validacion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de validar un lote: los errores de cada candidato inválido, por su
+ * posición en el lote
+ */
+public class ResultadoValidacion {
+
+    private final int revisados;
+    // Posiciones inválidas en orden creciente, con sus errores en la misma posición
+    private final int[] invalidos;
+    private final List<List<String>> errores;
+
+    ResultadoValidacion(int revisados, List<Integer> invalidos, List<List<String>> errores) {
+        this.revisados = revisados;
+        this.invalidos = new int[invalidos.size()];
+        for (int i = 0; i < this.invalidos.length; i++) {
+            this.invalidos[i] = invalidos.get(i);
+        }
+        this.errores = errores;
+    }
+
+    /**
+     * @return true si todos los candidatos revisados son válidos
+     */
+    public boolean isValido() {
+        return invalidos.length == 0;
+    }
+
+    /**
+     * @return Candidatos revisados; al fallar rápido, hasta el primero inválido inclusive
+     */
+    public int getRevisados() {
+        return revisados;
+    }
+
+    public int getCantidadInvalidos() {
+        return invalidos.length;
+    }
+
+    /**
+     * @return Posiciones de los candidatos inválidos, en orden
+     */
+    public int[] getInvalidos() {
+        return invalidos.clone();
+    }
+
+    /**
+     * @return Los errores del candidato en esa posición (vacío si es válido o no se revisó)
+     */
+    public List<String> erroresDe(int posicion) {
+        int i = Arrays.binarySearch(invalidos, posicion);
+        return i >= 0 ? Collections.unmodifiableList(errores.get(i)) : Collections.emptyList();
+    }
+
+    /**
+     * @return Los errores de todos los candidatos inválidos, uno por línea
+     */
+    public List<String> getMensajes() {
+        List<String> mensajes = new ArrayList<>();
+        for (int i = 0; i < invalidos.length; i++) {
+            mensajes.add("Candidato " + invalidos[i] + ": " + String.join("; ", errores.get(i)));
+        }
+        return mensajes;
+    }
+}
@@ -0,0 +1,97 @@
+package co.edu.uniquindio.sameday.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * La representación compacta de Envio debe comportarse como los campos que reemplaza
+ */
+class EnvioTest {
+
+    @Test
+    void losServiciosConservanElOrdenEnQueSeAgregaron() {
+        Envio envio = new Envio();
+        envio.getServiciosAdicionales().add(ServicioAdicional.PRIORIDAD);
+        envio.getServiciosAdicionales().add(ServicioAdicional.SEGURO);
+        envio.getServiciosAdicionales().add(ServicioAdicional.PRIORIDAD);
+        envio.addServicioAdicional(ServicioAdicional.FRAGIL);
+
+        assertEquals(List.of(ServicioAdicional.PRIORIDAD, ServicioAdicional.SEGURO, ServicioAdicional.FRAGIL),
+                envio.getServiciosAdicionales());
+        assertEquals("Prioridad, Seguro, Frágil", envio.getServiciosAdicionalesString());
+
+        envio.getServiciosAdicionales().remove(ServicioAdicional.SEGURO);
+        envio.getServiciosAdicionales().add(0, ServicioAdicional.FIRMA_REQUERIDA);
+        assertEquals(List.of(ServicioAdicional.FIRMA_REQUERIDA, ServicioAdicional.PRIORIDAD, ServicioAdicional.FRAGIL),
+                envio.copiar().getServiciosAdicionales());
+        assertFalse(envio.tieneServicio(ServicioAdicional.SEGURO));
+
+        envio.setServiciosAdicionales(List.of(ServicioAdicional.FRAGIL, ServicioAdicional.SEGURO));
+        assertEquals(List.of(ServicioAdicional.FRAGIL, ServicioAdicional.SEGURO), envio.getServiciosAdicionales());
+        // La vista se crea una sola vez por envío
+        assertSame(envio.getServiciosAdicionales(), envio.getServiciosAdicionales());
+    }
+
+    @Test
+    void unServicioRepetidoEnUnaPosicionNoCambiaLaLista() {
+        Envio envio = new Envio();
+        List<ServicioAdicional> servicios = envio.getServiciosAdicionales();
+        servicios.add(ServicioAdicional.PRIORIDAD);
+        servicios.add(ServicioAdicional.SEGURO);
+        servicios.add(ServicioAdicional.FRAGIL);
+
+        assertThrows(IllegalArgumentException.class, () -> servicios.set(0, ServicioAdicional.FRAGIL));
+        assertThrows(IllegalArgumentException.class, () -> servicios.add(1, ServicioAdicional.SEGURO));
+        assertFalse(servicios.add(ServicioAdicional.PRIORIDAD));
+        assertEquals(List.of(ServicioAdicional.PRIORIDAD, ServicioAdicional.SEGURO, ServicioAdicional.FRAGIL),
+                envio.getServiciosAdicionales());
+
+        // Reemplazar por el mismo servicio, o por uno que no está, sigue funcionando
+        assertEquals(ServicioAdicional.SEGURO, servicios.set(1, ServicioAdicional.SEGURO));
+        assertEquals(ServicioAdicional.SEGURO, servicios.set(1, ServicioAdicional.FIRMA_REQUERIDA));
+        assertEquals(List.of(ServicioAdicional.PRIORIDAD, ServicioAdicional.FIRMA_REQUERIDA, ServicioAdicional.FRAGIL),
+                envio.getServiciosAdicionales());
+        assertFalse(envio.tieneServicio(ServicioAdicional.SEGURO));
+    }
+
+    @Test
+    void setEstadoAceptaCualquierTexto() {
+        Envio envio = new Envio();
+        envio.setEstado("PAGADO");
+        assertTrue(envio.isPagado());
+        assertEquals(EstadoPago.PAGADO, envio.getEstadoPago());
+
+        envio.setEstado("EN_REVISION");
+        assertEquals("EN_REVISION", envio.getEstado());
+        assertNull(envio.getEstadoPago());
+        assertFalse(envio.isPagado());
+        assertEquals("EN_REVISION", envio.copiar().getEstado());
+
+        envio.setEstado(null);
+        assertNull(envio.getEstado());
+    }
+
+    @Test
+    void fechasYDimensionesSeLeenComoSeEscribieron() {
+        Envio envio = new Envio();
+        LocalDateTime fecha = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 123_000_000);
+        envio.setFechaCreacion(fecha);
+        assertEquals(fecha, envio.getFechaCreacion());
+
+        envio.setDimensiones("30x20x10 cm");
+        assertEquals("30x20x10 cm", envio.getDimensiones());
+        assertEquals(30, envio.getLargoCm());
+        envio.setDimensiones("caja mediana");
+        assertEquals("caja mediana", envio.getDimensiones());
+        assertEquals(-1, envio.getLargoCm());
+    }
+}
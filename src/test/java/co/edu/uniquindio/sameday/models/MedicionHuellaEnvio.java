@@ -0,0 +1,157 @@
+package co.edu.uniquindio.sameday.models;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mide los bytes de heap por envío de la representación compacta de Envio frente a la
+ * anterior (lista de servicios, estado en texto, fechas LocalDateTime y dimensiones en
+ * texto), que se reproduce en EnvioSinCompactar con los mismos datos.
+ *
+ * No es una prueba unitaria: se ejecuta a mano, con un heap fijo para que el GC no
+ * cambie de tamaño entre mediciones, por ejemplo
+ *   java -Xms2g -Xmx2g -XX:+UseSerialGC -cp target/classes:target/test-classes \
+ *        co.edu.uniquindio.sameday.models.MedicionHuellaEnvio 1000000
+ *
+ * La cifra incluye el String del id (~56 B), que es igual en las dos representaciones.
+ */
+public class MedicionHuellaEnvio {
+
+    public static void main(String[] args) {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        // Cada medición crea su propio arreglo, que se libera al volver de medir()
+        double bytesAnterior = medir(cantidad, MedicionHuellaEnvio::crearSinCompactar);
+        double bytesCompacto = medir(cantidad, MedicionHuellaEnvio::crearCompacto);
+
+        System.out.printf("📏 %,d envíos%n", cantidad);
+        System.out.printf("   Antes (sin compactar): %.1f bytes/envío%n", bytesAnterior);
+        System.out.printf("   Ahora (compacto):      %.1f bytes/envío%n", bytesCompacto);
+    }
+
+    private interface Fabrica {
+        Object crear(int indice);
+    }
+
+    private static double medir(int cantidad, Fabrica fabrica) {
+        long antes = memoriaUsada();
+        Object[] envios = new Object[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            envios[i] = fabrica.crear(i);
+        }
+        long despues = memoriaUsada();
+        // Los envíos siguen vivos hasta aquí, después de medir
+        if (envios[cantidad - 1] == null) {
+            throw new IllegalStateException();
+        }
+        return (despues - antes) / (double) cantidad;
+    }
+
+    // Mismos datos para las dos representaciones: la semilla depende solo del índice
+    private static final Address[] DIRECCIONES = new Address[200];
+    private static final ServicioAdicional[] SERVICIOS = ServicioAdicional.values();
+
+    static {
+        City[] ciudades = City.values();
+        for (int i = 0; i < DIRECCIONES.length; i++) {
+            DIRECCIONES[i] = new Address("DIR" + i, "Dirección " + i, "Calle " + i,
+                    ciudades[i % ciudades.length], AddressType.values()[0], "Casa");
+        }
+    }
+
+    private static Envio crearCompacto(int indice) {
+        Random azar = new Random(indice);
+        Envio envio = new Envio(String.format("ENV%07d", indice),
+                DIRECCIONES[azar.nextInt(DIRECCIONES.length)], DIRECCIONES[azar.nextInt(DIRECCIONES.length)],
+                1 + azar.nextInt(20), dimensiones(azar), 1000, "Contenido");
+        envio.setNombreDestinatario("Nombre");
+        envio.setTelefonoDestinatario("3100000000");
+        envio.setCedulaDestinatario("1094000000");
+        int servicios = azar.nextInt(4);
+        for (int j = 0; j < servicios; j++) {
+            envio.getServiciosAdicionales().add(SERVICIOS[azar.nextInt(SERVICIOS.length)]);
+        }
+        envio.setFechaCreacion(fecha(azar));
+        if (azar.nextBoolean()) {
+            envio.setEstado("PAGADO");
+        }
+        return envio;
+    }
+
+    private static EnvioSinCompactar crearSinCompactar(int indice) {
+        Random azar = new Random(indice);
+        EnvioSinCompactar envio = new EnvioSinCompactar();
+        envio.id = String.format("ENV%07d", indice);
+        envio.origen = DIRECCIONES[azar.nextInt(DIRECCIONES.length)];
+        envio.destino = DIRECCIONES[azar.nextInt(DIRECCIONES.length)];
+        envio.peso = 1 + azar.nextInt(20);
+        envio.dimensiones = dimensiones(azar);
+        envio.volumen = 1000;
+        envio.contenido = "Contenido";
+        envio.nombreDestinatario = "Nombre";
+        envio.telefonoDestinatario = "3100000000";
+        envio.cedulaDestinatario = "1094000000";
+        int servicios = azar.nextInt(4);
+        for (int j = 0; j < servicios; j++) {
+            ServicioAdicional servicio = SERVICIOS[azar.nextInt(SERVICIOS.length)];
+            if (!envio.serviciosAdicionales.contains(servicio)) {
+                envio.serviciosAdicionales.add(servicio);
+            }
+        }
+        envio.fechaCreacion = fecha(azar);
+        if (azar.nextBoolean()) {
+            envio.estado = "PAGADO";
+        }
+        return envio;
+    }
+
+    private static String dimensiones(Random azar) {
+        return (10 + azar.nextInt(60)) + "x" + (10 + azar.nextInt(60)) + "x" + (5 + azar.nextInt(40)) + " cm";
+    }
+
+    private static LocalDateTime fecha(Random azar) {
+        return LocalDateTime.of(2025, 1, 1, 0, 0).plusSeconds(azar.nextInt(30_000_000));
+    }
+
+    private static long memoriaUsada() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Los campos de Envio antes de la representación compacta
+     */
+    @SuppressWarnings("unused")
+    private static final class EnvioSinCompactar {
+        String id;
+        Address origen;
+        Address destino;
+        double peso;
+        String dimensiones;
+        double volumen;
+        String contenido;
+        String nombreDestinatario;
+        String telefonoDestinatario;
+        String cedulaDestinatario;
+        List<ServicioAdicional> serviciosAdicionales = new ArrayList<>();
+        double costoTotal;
+        LocalDateTime fechaCreacion = LocalDateTime.now();
+        String estado = "SOLICITADO";
+        Dealer repartidorAsignado;
+        EstadoEntrega estadoEntrega;
+        String observaciones = "";
+        LocalDateTime fechaActualizacionEstado;
+        Object observer;
+        long version;
+    }
+}
@@ -0,0 +1,91 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountMinSketchTest {
+
+    @Test
+    void nuncaSubestimaYSobreestimaDentroDeLaCota() {
+        Random azar = new Random(7);
+        CountMinSketch sketch = new CountMinSketch();
+        Map<String, Long> reales = new HashMap<>();
+        int total = 200_000;
+        for (int i = 0; i < total; i++) {
+            String valor = "CIU-" + zipf(azar, 5_000);
+            sketch.agregar(valor);
+            reales.merge(valor, 1L, Long::sum);
+        }
+        assertEquals(total, sketch.getTotal());
+
+        // Cota: (e / ancho) * total, con probabilidad 1 - e^-profundidad (~98 %)
+        double cota = Math.E / CountMinSketch.ANCHO_POR_DEFECTO * total;
+        int fueraDeCota = 0;
+        for (Map.Entry<String, Long> real : reales.entrySet()) {
+            long estimado = sketch.estimar(real.getKey());
+            assertTrue(estimado >= real.getValue(), "Subestimó " + real.getKey());
+            if (estimado - real.getValue() > cota) {
+                fueraDeCota++;
+            }
+        }
+        double probabilidadFallo = Math.exp(-CountMinSketch.PROFUNDIDAD_POR_DEFECTO);
+        assertTrue(fueraDeCota <= probabilidadFallo * reales.size(),
+                fueraDeCota + " de " + reales.size() + " valores superaron la cota");
+    }
+
+    @Test
+    void combinarEsIgualAVerLaUnion() throws IOException {
+        Random azar = new Random(11);
+        CountMinSketch a = new CountMinSketch(256, 3);
+        CountMinSketch b = new CountMinSketch(256, 3);
+        CountMinSketch union = new CountMinSketch(256, 3);
+        for (int i = 0; i < 50_000; i++) {
+            String valor = "REP-" + zipf(azar, 1_000);
+            (i % 3 == 0 ? a : b).agregar(valor);
+            union.agregar(valor);
+        }
+        a.combinar(b);
+
+        assertTrue(Arrays.equals(bytes(union), bytes(a)), "Las celdas deben coincidir");
+        assertEquals(union.estimar("REP-1"), a.estimar("REP-1"));
+    }
+
+    @Test
+    void sobreviveALaSerializacion() throws IOException {
+        CountMinSketch sketch = new CountMinSketch(64, 5);
+        for (int i = 0; i < 2_000; i++) {
+            sketch.agregar("ENV-" + (i % 37));
+        }
+        byte[] serializado = bytes(sketch);
+        CountMinSketch leido = CountMinSketch.leer(new DataInputStream(new ByteArrayInputStream(serializado)));
+
+        assertEquals(sketch.getTotal(), leido.getTotal());
+        assertEquals(sketch.estimar("ENV-3"), leido.estimar("ENV-3"));
+        assertTrue(Arrays.equals(serializado, bytes(leido)));
+    }
+
+    /**
+     * Valor entre 1 y n con probabilidad aproximadamente proporcional a 1 / valor
+     */
+    static int zipf(Random azar, int n) {
+        return (int) Math.min(n, Math.floor(Math.exp(azar.nextDouble() * Math.log(n + 1))));
+    }
+
+    private static byte[] bytes(CountMinSketch sketch) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        sketch.escribir(new DataOutputStream(salida));
+        return salida.toByteArray();
+    }
+}
@@ -0,0 +1,90 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    // Error típico con la precisión por defecto: 1,04 / sqrt(2^12)
+    private static final double ERROR_TIPICO = 1.04 / Math.sqrt(1 << HyperLogLog.PRECISION_POR_DEFECTO);
+
+    @Test
+    void elErrorQuedaDentroDeLoPrometido() {
+        Random azar = new Random(42);
+        double sumaErrores = 0;
+        int pruebas = 20;
+        for (int prueba = 0; prueba < pruebas; prueba++) {
+            int distintos = 10_000 + azar.nextInt(190_000);
+            HyperLogLog sketch = new HyperLogLog();
+            long semilla = azar.nextLong();
+            for (int i = 0; i < distintos; i++) {
+                String valor = "CLI-" + semilla + "-" + i;
+                // Los repetidos no deben contar
+                sketch.agregar(valor);
+                sketch.agregar(valor);
+            }
+            double error = Math.abs(sketch.estimar() - distintos) / (double) distintos;
+            assertTrue(error < 4 * ERROR_TIPICO, "Error de " + error + " con " + distintos + " distintos");
+            sumaErrores += error;
+        }
+        assertTrue(sumaErrores / pruebas < 1.5 * ERROR_TIPICO, "Error medio de " + sumaErrores / pruebas);
+    }
+
+    @Test
+    void conPocosValoresElConteoEsCasiExacto() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 500; i++) {
+            sketch.agregar("DIR-" + i);
+        }
+        assertEquals(500, sketch.estimar(), 5);
+    }
+
+    @Test
+    void combinarEsIgualAVerLaUnion() throws IOException {
+        HyperLogLog a = new HyperLogLog();
+        HyperLogLog b = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        for (int i = 0; i < 60_000; i++) {
+            a.agregar("ENV-" + i);
+            union.agregar("ENV-" + i);
+        }
+        for (int i = 40_000; i < 100_000; i++) {
+            b.agregar("ENV-" + i);
+            union.agregar("ENV-" + i);
+        }
+        a.combinar(b);
+
+        assertTrue(Arrays.equals(bytes(union), bytes(a)), "Los registros deben coincidir");
+        assertEquals(union.estimar(), a.estimar());
+    }
+
+    @Test
+    void sobreviveALaSerializacion() throws IOException {
+        HyperLogLog sketch = new HyperLogLog(10);
+        for (int i = 0; i < 5_000; i++) {
+            sketch.agregar("REP-" + i);
+        }
+        byte[] serializado = bytes(sketch);
+        HyperLogLog leido = HyperLogLog.leer(new DataInputStream(new ByteArrayInputStream(serializado)));
+
+        assertEquals(sketch.estimar(), leido.estimar());
+        assertTrue(Arrays.equals(serializado, bytes(leido)));
+        assertTrue(Arrays.equals(serializado, bytes(sketch.copiar())));
+    }
+
+    private static byte[] bytes(HyperLogLog sketch) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        sketch.escribir(new DataOutputStream(salida));
+        return salida.toByteArray();
+    }
+}
@@ -0,0 +1,105 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+
+    private static final int CAPACIDAD = 32;
+
+    @Test
+    void losFrecuentesEstanYSuConteoRespetaLaCota() {
+        Random azar = new Random(3);
+        SpaceSaving resumen = new SpaceSaving(CAPACIDAD);
+        Map<String, Long> reales = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            String valor = "CLI-" + CountMinSketchTest.zipf(azar, 2_000);
+            resumen.agregar(valor);
+            reales.merge(valor, 1L, Long::sum);
+        }
+        verificarCota(resumen, reales);
+    }
+
+    @Test
+    void combinarRespetaLaCotaDeLaUnion() {
+        Random azar = new Random(5);
+        SpaceSaving a = new SpaceSaving(CAPACIDAD);
+        SpaceSaving b = new SpaceSaving(CAPACIDAD);
+        Map<String, Long> reales = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            // Las dos mitades ven distribuciones distintas, con frecuentes propios
+            String valor = i % 2 == 0
+                    ? "CLI-" + CountMinSketchTest.zipf(azar, 2_000)
+                    : "CLI-" + (3_000 - CountMinSketchTest.zipf(azar, 2_000));
+            (i % 2 == 0 ? a : b).agregar(valor);
+            reales.merge(valor, 1L, Long::sum);
+        }
+        a.combinar(b);
+        verificarCota(a, reales);
+    }
+
+    @Test
+    void sinLlenarseCombinarEsIgualAVerLaUnion() {
+        SpaceSaving a = new SpaceSaving(CAPACIDAD);
+        SpaceSaving b = new SpaceSaving(CAPACIDAD);
+        SpaceSaving union = new SpaceSaving(CAPACIDAD);
+        for (int i = 0; i < 1_000; i++) {
+            String valor = "CIU-" + (i % 20);
+            (i < 600 ? a : b).agregar(valor);
+            union.agregar(valor);
+        }
+        a.combinar(b);
+        assertEquals(union.top(CAPACIDAD), a.top(CAPACIDAD));
+        assertEquals(union.getTotal(), a.getTotal());
+    }
+
+    @Test
+    void sobreviveALaSerializacion() throws IOException {
+        Random azar = new Random(9);
+        SpaceSaving resumen = new SpaceSaving(CAPACIDAD);
+        for (int i = 0; i < 10_000; i++) {
+            resumen.agregar("REP-" + CountMinSketchTest.zipf(azar, 500));
+        }
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        resumen.escribir(new DataOutputStream(salida));
+        SpaceSaving leido = SpaceSaving.leer(new DataInputStream(new ByteArrayInputStream(salida.toByteArray())));
+
+        assertEquals(resumen.getTotal(), leido.getTotal());
+        assertEquals(resumen.top(CAPACIDAD), leido.top(CAPACIDAD));
+        assertEquals(resumen.top(CAPACIDAD), resumen.copiar().top(CAPACIDAD));
+    }
+
+    /**
+     * Todo valor con frecuencia mayor que total / capacidad debe aparecer, sin
+     * subestimarse y sobreestimado como mucho en total / capacidad
+     */
+    private static void verificarCota(SpaceSaving resumen, Map<String, Long> reales) {
+        long total = resumen.getTotal();
+        long cota = total / CAPACIDAD;
+        LinkedHashMap<String, Long> top = resumen.top(CAPACIDAD);
+        assertEquals(reales.values().stream().mapToLong(Long::longValue).sum(), total);
+        for (Map.Entry<String, Long> real : reales.entrySet()) {
+            if (real.getValue() > cota) {
+                assertTrue(top.containsKey(real.getKey()), "Falta el frecuente " + real.getKey());
+            }
+        }
+        for (Map.Entry<String, Long> estimado : top.entrySet()) {
+            long real = reales.getOrDefault(estimado.getKey(), 0L);
+            assertTrue(estimado.getValue() >= real, "Subestimó " + estimado.getKey());
+            assertTrue(estimado.getValue() - real <= cota,
+                    estimado.getKey() + " sobreestimado en " + (estimado.getValue() - real));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package co.edu.uniquindio.sameday.models.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TDigestTest {
+
+    private static final double[] CUANTILES = {0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999};
+
+    @Test
+    void losPercentilesQuedanCercaDelRangoReal() {
+        Random azar = new Random(21);
+        double[] valores = new double[100_000];
+        TDigest digest = new TDigest();
+        for (int i = 0; i < valores.length; i++) {
+            // Costos con cola larga, como los de los envíos
+            valores[i] = Math.exp(azar.nextGaussian() * 0.8 + 10);
+            digest.agregar(valores[i]);
+        }
+        Arrays.sort(valores);
+
+        assertEquals(valores.length, digest.getTotal(), 0.0);
+        assertEquals(valores[0], digest.cuantil(0), 0.0);
+        assertEquals(valores[valores.length - 1], digest.cuantil(1), 0.0);
+        for (double q : CUANTILES) {
+            verificarRango(valores, q, digest.cuantil(q));
+        }
+    }
+
+    @Test
+    void combinarSeComportaComoVerLaUnion() {
+        Random azar = new Random(33);
+        double[] valores = new double[80_000];
+        TDigest a = new TDigest();
+        TDigest b = new TDigest();
+        TDigest union = new TDigest();
+        for (int i = 0; i < valores.length; i++) {
+            // Cada mitad con una distribución distinta
+            valores[i] = i % 2 == 0 ? azar.nextGaussian() * 5 + 20 : azar.nextDouble() * 100;
+            (i % 2 == 0 ? a : b).agregar(valores[i]);
+            union.agregar(valores[i]);
+        }
+        Arrays.sort(valores);
+        a.combinar(b);
+
+        assertEquals(union.getTotal(), a.getTotal(), 0.0);
+        assertEquals(union.cuantil(0), a.cuantil(0), 0.0);
+        assertEquals(union.cuantil(1), a.cuantil(1), 0.0);
+        for (double q : CUANTILES) {
+            verificarRango(valores, q, a.cuantil(q));
+            verificarRango(valores, q, union.cuantil(q));
+        }
+    }
+
+    @Test
+    void sobreviveALaSerializacion() throws IOException {
+        Random azar = new Random(45);
+        TDigest digest = new TDigest(100);
+        for (int i = 0; i < 20_000; i++) {
+            digest.agregar(azar.nextDouble() * 1_000);
+        }
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        digest.escribir(new DataOutputStream(salida));
+        TDigest leido = TDigest.leer(new DataInputStream(new ByteArrayInputStream(salida.toByteArray())));
+        TDigest copia = digest.copiar();
+
+        assertEquals(digest.getTotal(), leido.getTotal(), 0.0);
+        for (double q : CUANTILES) {
+            assertEquals(digest.cuantil(q), leido.cuantil(q), 1e-9);
+            assertEquals(digest.cuantil(q), copia.cuantil(q), 1e-9);
+        }
+    }
+
+    /**
+     * El valor estimado debe caer en un rango cercano a q; el margen es más estrecho
+     * en las colas, que es lo que promete la escala k1
+     */
+    private static void verificarRango(double[] ordenados, double q, double estimado) {
+        int posicion = Arrays.binarySearch(ordenados, estimado);
+        double rango = (posicion >= 0 ? posicion : -posicion - 1) / (double) ordenados.length;
+        double margen = q < 0.01 || q > 0.99 ? 0.001 : 0.005;
+        assertTrue(Math.abs(rango - q) <= margen, "q=" + q + " quedó en el rango " + rango);
+    }
+}
@@ -0,0 +1,211 @@
+package co.edu.uniquindio.sameday.models.behavioral.strategy;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.AddressType;
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.ServicioAdicional;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * La asignación por flujo de costo mínimo debe dar el mismo costo que probar todas
+ * las asignaciones posibles, sin pasarse de la capacidad ni salir de la ciudad
+ */
+class AsignacionOptimaPorCiudadTest {
+
+    private static final City[] CIUDADES = {City.ARMENIA, City.CALARCA, City.SALENTO};
+    private static final long PESO_PRIORIDAD = 3;
+    private static final long PESO_NORMAL = 1;
+
+    @Test
+    void coincideConLaBusquedaExhaustivaEnInstanciasPequenas() {
+        Random azar = new Random(2024);
+        for (int instancia = 0; instancia < 300; instancia++) {
+            int capacidad = 1 + azar.nextInt(3);
+            List<Dealer> repartidores = new ArrayList<>();
+            Map<Dealer, Integer> cargas = new IdentityHashMap<>();
+            int cantidadRepartidores = 1 + azar.nextInt(4);
+            for (int r = 0; r < cantidadRepartidores; r++) {
+                Dealer repartidor = repartidor("REP-" + r, CIUDADES[azar.nextInt(CIUDADES.length)]);
+                repartidor.setDisponibleManual(azar.nextInt(6) != 0);
+                repartidores.add(repartidor);
+                cargas.put(repartidor, azar.nextInt(capacidad + 1));
+            }
+            List<Envio> envios = new ArrayList<>();
+            int cantidadEnvios = 1 + azar.nextInt(6);
+            for (int e = 0; e < cantidadEnvios; e++) {
+                envios.add(envio("ENV-" + e, CIUDADES[azar.nextInt(CIUDADES.length)], azar.nextInt(3) == 0, e));
+            }
+            String contexto = "instancia " + instancia;
+
+            Map<Envio, Dealer> asignaciones = new AsignacionOptimaPorCiudad(capacidad, cargas::get)
+                    .asignarLote(envios, repartidores);
+
+            verificarFactible(asignaciones, cargas, capacidad, contexto);
+            verificarPrioridades(envios, asignaciones, cargas, contexto);
+            long optimo = mejorCosto(envios, repartidores, cargas, capacidad, 0, new HashMap<>());
+            assertEquals(optimo, costo(asignaciones, cargas, capacidad), contexto);
+        }
+    }
+
+    @Test
+    void sinCuposQuedanSinAsignarLosNormalesMasRecientes() {
+        Dealer uno = repartidor("REP-1", City.ARMENIA);
+        Dealer dos = repartidor("REP-2", City.ARMENIA);
+        Map<Dealer, Integer> cargas = new IdentityHashMap<>();
+        cargas.put(uno, 0);
+        cargas.put(dos, 1);
+        // Tres cupos (REP-1 en los niveles 0 y 1, REP-2 en el 1) para cuatro envíos
+        Envio antiguo = envio("ENV-1", City.ARMENIA, false, 0);
+        Envio medio = envio("ENV-2", City.ARMENIA, false, 3);
+        Envio reciente = envio("ENV-3", City.ARMENIA, false, 5);
+        Envio prioritario = envio("ENV-4", City.ARMENIA, true, 9);
+
+        Map<Envio, Dealer> asignaciones = new AsignacionOptimaPorCiudad(2, cargas::get)
+                .asignarLote(List.of(reciente, prioritario, medio, antiguo), List.of(uno, dos));
+
+        assertEquals(3, asignaciones.size());
+        assertEquals(uno, asignaciones.get(prioritario));
+        assertTrue(asignaciones.containsKey(antiguo));
+        assertTrue(asignaciones.containsKey(medio));
+        assertFalse(asignaciones.containsKey(reciente), "El normal más reciente debía quedar sin cupo");
+    }
+
+    // ==================== VERIFICACIONES ====================
+
+    private static void verificarFactible(Map<Envio, Dealer> asignaciones, Map<Dealer, Integer> cargas,
+                                          int capacidad, String contexto) {
+        Map<Dealer, Integer> recibidos = new IdentityHashMap<>();
+        for (Map.Entry<Envio, Dealer> asignacion : asignaciones.entrySet()) {
+            Dealer repartidor = asignacion.getValue();
+            assertEquals(asignacion.getKey().getDestino().getCity(), repartidor.getCity(), contexto);
+            assertTrue(repartidor.isDisponibleManual(), contexto + ": repartidor no disponible");
+            recibidos.merge(repartidor, 1, Integer::sum);
+        }
+        for (Map.Entry<Dealer, Integer> recibido : recibidos.entrySet()) {
+            assertTrue(cargas.get(recibido.getKey()) + recibido.getValue() <= capacidad,
+                    contexto + ": " + recibido.getKey().getId() + " supera la capacidad");
+        }
+    }
+
+    /**
+     * En cada ciudad, ningún normal ocupa un nivel de carga menor que un prioritario, y no
+     * queda un prioritario sin asignar mientras se asigna un normal
+     */
+    private static void verificarPrioridades(List<Envio> envios, Map<Envio, Dealer> asignaciones,
+                                             Map<Dealer, Integer> cargas, String contexto) {
+        Map<Envio, Integer> niveles = niveles(asignaciones, cargas);
+        for (Envio prioritario : envios) {
+            if (!esPrioritario(prioritario)) {
+                continue;
+            }
+            for (Envio normal : envios) {
+                if (esPrioritario(normal) || normal.getDestino().getCity() != prioritario.getDestino().getCity()
+                        || !asignaciones.containsKey(normal)) {
+                    continue;
+                }
+                assertTrue(asignaciones.containsKey(prioritario),
+                        contexto + ": " + prioritario.getId() + " sin asignar y " + normal.getId() + " asignado");
+                assertTrue(niveles.get(prioritario) <= niveles.get(normal),
+                        contexto + ": " + prioritario.getId() + " quedó en un nivel más alto que " + normal.getId());
+            }
+        }
+    }
+
+    /**
+     * Nivel de carga en que queda cada envío: los de cada repartidor ocupan cupos seguidos
+     * desde su carga, los prioritarios primero
+     */
+    private static Map<Envio, Integer> niveles(Map<Envio, Dealer> asignaciones, Map<Dealer, Integer> cargas) {
+        Map<Dealer, List<Envio>> porRepartidor = new IdentityHashMap<>();
+        for (Map.Entry<Envio, Dealer> asignacion : asignaciones.entrySet()) {
+            porRepartidor.computeIfAbsent(asignacion.getValue(), r -> new ArrayList<>()).add(asignacion.getKey());
+        }
+        Map<Envio, Integer> niveles = new IdentityHashMap<>();
+        for (Map.Entry<Dealer, List<Envio>> recibidos : porRepartidor.entrySet()) {
+            List<Envio> ordenados = new ArrayList<>(recibidos.getValue());
+            ordenados.sort((a, b) -> Boolean.compare(esPrioritario(b), esPrioritario(a)));
+            int nivel = cargas.get(recibidos.getKey());
+            for (Envio envio : ordenados) {
+                niveles.put(envio, nivel++);
+            }
+        }
+        return niveles;
+    }
+
+    // ==================== BÚSQUEDA EXHAUSTIVA ====================
+
+    /**
+     * Costo de la estrategia: un envío en el cupo k cuesta peso × (k - capacidad)
+     */
+    private static long costo(Map<Envio, Dealer> asignaciones, Map<Dealer, Integer> cargas, int capacidad) {
+        long total = 0;
+        for (Map.Entry<Envio, Integer> nivel : niveles(asignaciones, cargas).entrySet()) {
+            total += peso(nivel.getKey()) * (nivel.getValue() - capacidad);
+        }
+        return total;
+    }
+
+    /**
+     * Prueba, para cada envío desde el indicado, dejarlo sin asignar o dárselo a cada
+     * repartidor con cupo
+     */
+    private static long mejorCosto(List<Envio> envios, List<Dealer> repartidores, Map<Dealer, Integer> cargas,
+                                   int capacidad, int indice, Map<Envio, Dealer> parcial) {
+        if (indice == envios.size()) {
+            return costo(parcial, cargas, capacidad);
+        }
+        Envio envio = envios.get(indice);
+        long mejor = mejorCosto(envios, repartidores, cargas, capacidad, indice + 1, parcial);
+        for (Dealer repartidor : repartidores) {
+            if (!repartidor.isDisponibleManual() || repartidor.getCity() != envio.getDestino().getCity()) {
+                continue;
+            }
+            long recibidos = parcial.values().stream().filter(r -> r == repartidor).count();
+            if (cargas.get(repartidor) + recibidos >= capacidad) {
+                continue;
+            }
+            parcial.put(envio, repartidor);
+            mejor = Math.min(mejor, mejorCosto(envios, repartidores, cargas, capacidad, indice + 1, parcial));
+            parcial.remove(envio);
+        }
+        return mejor;
+    }
+
+    // ==================== DATOS ====================
+
+    private static boolean esPrioritario(Envio envio) {
+        return envio.tieneServicio(ServicioAdicional.PRIORIDAD);
+    }
+
+    private static long peso(Envio envio) {
+        return esPrioritario(envio) ? PESO_PRIORIDAD : PESO_NORMAL;
+    }
+
+    private static Envio envio(String id, City ciudad, boolean prioritario, int minutos) {
+        Address destino = new Address("DIR-" + id, "Destino", "Calle 1", ciudad, AddressType.DESTINATARIO, "");
+        Envio envio = new Envio(id, null, destino, 1.0, "10x10x10 cm", 1000.0, "Libros");
+        envio.setFechaCreacion(LocalDateTime.of(2026, 1, 1, 8, 0).plusMinutes(minutos));
+        if (prioritario) {
+            envio.addServicioAdicional(ServicioAdicional.PRIORIDAD);
+        }
+        return envio;
+    }
+
+    private static Dealer repartidor(String id, City ciudad) {
+        return new Dealer(id, "1094" + id, "Repartidor " + id, id + "@sameday.co", "300", null, true, ciudad);
+    }
+}
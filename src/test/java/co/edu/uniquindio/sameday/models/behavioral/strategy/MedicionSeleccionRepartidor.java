@@ -0,0 +1,172 @@
+package co.edu.uniquindio.sameday.models.behavioral.strategy;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compara la selección del repartidor menos cargado con el montículo por ciudad
+ * (AsignacionPorMenorCarga con IndiceCargaRepartidores) frente al recorrido anterior de
+ * todos los repartidores, con entregas y cambios de disponibilidad entre asignaciones,
+ * y revisa que elijan el mismo repartidor. Luego compara un lote con la asignación
+ * voraz uno por uno.
+ *
+ * No es una prueba unitaria: se ejecuta a mano, por ejemplo
+ *   java -cp target/classes:target/test-classes \
+ *        co.edu.uniquindio.sameday.models.behavioral.strategy.MedicionSeleccionRepartidor 1000 1000000
+ *
+ * La carga se lleva en un mapa propio en lugar de SameDay, así que mide solo la selección.
+ */
+public class MedicionSeleccionRepartidor {
+
+    private static final int RONDAS = 2;
+    // Envíos activos a la vez; por encima se entregan los más antiguos
+    private static final int ACTIVOS_MAXIMOS = 600;
+    private static final City[] CIUDADES = City.values();
+
+    public static void main(String[] args) {
+        int repartidores = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int envios = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        for (int ronda = 1; ronda <= RONDAS; ronda++) {
+            medirUnoPorUno(repartidores, envios, ronda);
+        }
+        medirLote(repartidores, 20_000);
+    }
+
+    private static void medirUnoPorUno(int cantidadRepartidores, int cantidadEnvios, int ronda) {
+        Random azar = new Random(7);
+        List<Dealer> repartidores = new ArrayList<>(cantidadRepartidores);
+        for (int i = 0; i < cantidadRepartidores; i++) {
+            Dealer repartidor = repartidor(i, CIUDADES[azar.nextInt(CIUDADES.length)], true);
+            repartidor.setDisponibleManual(azar.nextInt(20) != 0);
+            repartidores.add(repartidor);
+        }
+        Map<Dealer, Integer> carga = new IdentityHashMap<>();
+        for (Dealer repartidor : repartidores) {
+            carga.put(repartidor, 0);
+        }
+        IndiceCargaRepartidores indice = new IndiceCargaRepartidores(carga::get);
+        for (Dealer repartidor : repartidores) {
+            indice.actualizar(repartidor);
+        }
+        AsignacionPorMenorCarga estrategia = new AsignacionPorMenorCarga(indice);
+        Deque<Dealer> activos = new ArrayDeque<>();
+
+        long nanosRecorrido = 0;
+        long nanosMonticulo = 0;
+        int distintos = 0;
+        int asignados = 0;
+        for (int i = 0; i < cantidadEnvios; i++) {
+            Envio envio = envioHacia(CIUDADES[azar.nextInt(CIUDADES.length)]);
+
+            long inicio = System.nanoTime();
+            Dealer anterior = seleccionAnterior(envio, repartidores, carga);
+            long finRecorrido = System.nanoTime();
+            Dealer elegido = estrategia.seleccionarRepartidor(envio, repartidores);
+            long finMonticulo = System.nanoTime();
+            nanosRecorrido += finRecorrido - inicio;
+            nanosMonticulo += finMonticulo - finRecorrido;
+
+            if (anterior != elegido) {
+                distintos++;
+            }
+            if (elegido != null) {
+                asignados++;
+                carga.merge(elegido, 1, Integer::sum);
+                indice.actualizarCarga(elegido);
+                activos.add(elegido);
+            }
+            while (activos.size() > ACTIVOS_MAXIMOS || (!activos.isEmpty() && azar.nextInt(3) == 0)) {
+                Dealer entrega = activos.poll();
+                carga.merge(entrega, -1, Integer::sum);
+                indice.actualizarCarga(entrega);
+            }
+            if (azar.nextInt(5_000) == 0) {
+                Dealer repartidor = repartidores.get(azar.nextInt(repartidores.size()));
+                repartidor.setDisponibleManual(!repartidor.isDisponibleManual());
+                indice.actualizar(repartidor);
+            }
+        }
+        System.out.printf("⏱️ Ronda %d: %,d repartidores × %,d envíos, %,d asignados | recorrido %.0f ns, " +
+                        "montículo %.0f ns por envío | elecciones distintas: %d%n",
+                ronda, cantidadRepartidores, cantidadEnvios, asignados,
+                nanosRecorrido / (double) cantidadEnvios, nanosMonticulo / (double) cantidadEnvios, distintos);
+    }
+
+    private static void medirLote(int cantidadRepartidores, int cantidadEnvios) {
+        Random azar = new Random(3);
+        List<Dealer> repartidores = new ArrayList<>(cantidadRepartidores);
+        Map<Dealer, Integer> carga = new IdentityHashMap<>();
+        for (int i = 0; i < cantidadRepartidores; i++) {
+            Dealer repartidor = repartidor(i, CIUDADES[azar.nextInt(CIUDADES.length)], azar.nextInt(10) > 0);
+            repartidores.add(repartidor);
+            carga.put(repartidor, azar.nextInt(3) == 0 ? 1 : 0);
+        }
+        IndiceCargaRepartidores indice = new IndiceCargaRepartidores(carga::get);
+        for (Dealer repartidor : repartidores) {
+            indice.actualizar(repartidor);
+        }
+        // Solo una parte de los repartidores son candidatos, como en la pantalla de asignación
+        List<Dealer> candidatos = new ArrayList<>(repartidores.subList(0, cantidadRepartidores * 4 / 5));
+        List<Envio> envios = new ArrayList<>(cantidadEnvios);
+        for (int i = 0; i < cantidadEnvios; i++) {
+            envios.add(envioHacia(CIUDADES[azar.nextInt(CIUDADES.length)]));
+        }
+
+        long inicio = System.nanoTime();
+        Map<Envio, Dealer> lote = new AsignacionPorMenorCarga(indice).asignarLote(envios, candidatos);
+        double milisegundos = (System.nanoTime() - inicio) / 1e6;
+
+        // Referencia: cada envío toma el primer candidato libre de su ciudad, en orden de lista
+        Map<Envio, Dealer> voraz = new LinkedHashMap<>();
+        List<Dealer> libres = new ArrayList<>(candidatos);
+        for (Envio envio : envios) {
+            for (Dealer repartidor : libres) {
+                if (repartidor.getCity() == envio.getDestino().getCity()
+                        && repartidor.isDisponibleManual() && carga.get(repartidor) == 0) {
+                    voraz.put(envio, repartidor);
+                    libres.remove(repartidor);
+                    break;
+                }
+            }
+        }
+        System.out.printf("📦 Lote de %,d envíos: %,d asignados en %.1f ms; igual a uno por uno: %b%n",
+                cantidadEnvios, lote.size(), milisegundos, lote.equals(voraz));
+    }
+
+    /**
+     * La selección antes del montículo: recorre todos los repartidores de la lista
+     */
+    private static Dealer seleccionAnterior(Envio envio, List<Dealer> repartidores, Map<Dealer, Integer> carga) {
+        return repartidores.stream()
+                .filter(dealer -> dealer.getCity() == envio.getDestino().getCity())
+                .filter(dealer -> dealer.isDisponibleManual() && carga.get(dealer) == 0)
+                .min(Comparator.comparingInt(carga::get))
+                .orElse(null);
+    }
+
+    private static Dealer repartidor(int indice, City ciudad, boolean disponible) {
+        return new Dealer("R" + indice, "1", "Repartidor " + indice, "r" + indice + "@sameday.com",
+                "3000000000", null, disponible, ciudad);
+    }
+
+    private static Envio envioHacia(City ciudad) {
+        Envio envio = new Envio();
+        Address destino = new Address();
+        destino.setCity(ciudad);
+        envio.setDestino(destino);
+        return envio;
+    }
+}
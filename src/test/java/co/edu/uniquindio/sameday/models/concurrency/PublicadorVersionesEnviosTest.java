@@ -0,0 +1,100 @@
+package co.edu.uniquindio.sameday.models.concurrency;
+
+import co.edu.uniquindio.sameday.models.Envio;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PublicadorVersionesEnviosTest {
+
+    @Test
+    void publicacionesConcurrentesDeEnviosDistintosNoSePierden() throws Exception {
+        PublicadorVersionesEnvios publicador = new PublicadorVersionesEnvios();
+        int hilos = 8;
+        int cambios = 1_000;
+        List<Thread> escritores = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            Envio envio = envio("ENV-" + h);
+            publicador.publicar(envio);
+            escritores.add(new Thread(() -> {
+                for (int i = 1; i <= cambios; i++) {
+                    envio.setPeso(i);
+                    publicador.publicar(envio);
+                }
+            }));
+        }
+        escritores.forEach(Thread::start);
+        for (Thread escritor : escritores) {
+            escritor.join();
+        }
+
+        VersionEnvios version = publicador.getActual();
+        assertEquals(hilos, version.contarEnvios());
+        version.stream().forEach(envio -> assertEquals(cambios, envio.getPeso(), 0.0));
+        assertEquals(hilos + (long) hilos * cambios, version.getNumero());
+    }
+
+    @Test
+    void unLectorVeElLoteCompletoONada() throws Exception {
+        PublicadorVersionesEnvios publicador = new PublicadorVersionesEnvios();
+        List<Envio> lote = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            lote.add(envio("LOTE-" + i));
+        }
+        publicador.publicarLote(lote);
+
+        AtomicBoolean terminar = new AtomicBoolean();
+        AtomicReference<String> error = new AtomicReference<>();
+        Thread lector = new Thread(() -> {
+            while (!terminar.get()) {
+                double[] pesos = publicador.getActual().stream().mapToDouble(Envio::getPeso).distinct().toArray();
+                if (pesos.length != 1) {
+                    error.set("Lote a medias: " + pesos.length + " pesos distintos");
+                }
+            }
+        });
+        lector.start();
+        for (int ronda = 1; ronda <= 2_000; ronda++) {
+            for (Envio envio : lote) {
+                envio.setPeso(ronda);
+            }
+            publicador.publicarLote(lote);
+        }
+        terminar.set(true);
+        lector.join();
+
+        assertNull(error.get());
+        assertEquals(50, publicador.getActual().contarEnvios());
+    }
+
+    @Test
+    void retirarCompactaSinPerderEnvios() {
+        PublicadorVersionesEnvios publicador = new PublicadorVersionesEnvios();
+        for (int i = 0; i < 200; i++) {
+            publicador.publicar(envio("ENV-" + i));
+        }
+        for (int i = 0; i < 150; i++) {
+            publicador.retirar("ENV-" + i);
+        }
+        Envio restante = envio("ENV-199");
+        restante.setPeso(7);
+        publicador.publicar(restante);
+
+        VersionEnvios version = publicador.getActual();
+        assertEquals(50, version.contarEnvios());
+        assertEquals(50, version.getEnvios().size());
+        assertEquals(7, version.stream().filter(e -> e.getId().equals("ENV-199")).findFirst().orElseThrow().getPeso(), 0.0);
+    }
+
+    private static Envio envio(String id) {
+        Envio envio = new Envio();
+        envio.setId(id);
+        return envio;
+    }
+}
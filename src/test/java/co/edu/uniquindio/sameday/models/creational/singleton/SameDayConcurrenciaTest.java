@@ -0,0 +1,210 @@
+package co.edu.uniquindio.sameday.models.creational.singleton;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.EstadoEntrega;
+import co.edu.uniquindio.sameday.models.TypeUser;
+import co.edu.uniquindio.sameday.models.UserAccount;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de estrés del núcleo de SameDay: varios hilos escriben a la vez sobre los
+ * mismos envíos y al final no debe faltar ningún cambio ni descuadrarse ningún índice
+ */
+class SameDayConcurrenciaTest {
+
+    private static final int HILOS = 8;
+    private static final int CAMBIOS_POR_HILO = 2_000;
+
+    private final SameDay sameDay = SameDay.getInstance();
+
+    @Test
+    void noSePierdenActualizacionesDelMismoEnvio() throws Exception {
+        Envio envio = nuevoEnvio();
+        sameDay.addEnvio(envio);
+        long versionInicial = envio.getVersion();
+
+        ejecutarEnParalelo(hilo -> {
+            for (int i = 0; i < CAMBIOS_POR_HILO; i++) {
+                sameDay.actualizarEnvio(envio.getId(), e -> e.setPeso(e.getPeso() + 1));
+            }
+        });
+
+        Envio resultado = sameDay.buscarEnvioPorId(envio.getId());
+        assertEquals(HILOS * CAMBIOS_POR_HILO, resultado.getPeso(), 0.0);
+        assertEquals(versionInicial + HILOS * CAMBIOS_POR_HILO, resultado.getVersion());
+    }
+
+    @Test
+    void noSePierdenAltasConcurrentes() throws Exception {
+        int altasPorHilo = 500;
+        int antes = sameDay.contarEnvios();
+        List<List<String>> idsPorHilo = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            idsPorHilo.add(new ArrayList<>());
+        }
+
+        ejecutarEnParalelo(hilo -> {
+            for (int i = 0; i < altasPorHilo; i++) {
+                Envio envio = nuevoEnvio();
+                sameDay.addEnvio(envio);
+                idsPorHilo.get(hilo).add(envio.getId());
+            }
+        });
+
+        Set<String> ids = new HashSet<>();
+        for (List<String> delHilo : idsPorHilo) {
+            ids.addAll(delHilo);
+        }
+        assertEquals(HILOS * altasPorHilo, ids.size(), "Se repitió un id de envío");
+        assertEquals(antes + HILOS * altasPorHilo, sameDay.contarEnvios());
+        for (String id : ids) {
+            assertNotNull(sameDay.buscarEnvioPorId(id));
+        }
+    }
+
+    @Test
+    void laCargaPorRepartidorCuadraConCambiosSimultaneos() throws Exception {
+        List<Dealer> repartidores = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            repartidores.add(nuevoRepartidor());
+        }
+        List<Envio> propios = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Envio envio = nuevoEnvio();
+            sameDay.addEnvio(envio);
+            propios.add(envio);
+        }
+        EstadoEntrega[] estados = EstadoEntrega.values();
+
+        // Los setters cambian el campo antes de que SameDay tome el candado del envío:
+        // es el caso en que el valor anterior del aviso puede llegar desactualizado.
+        // La mitad de los cambios va por actualizarEnvio, que no atiende los avisos y
+        // registra el envío al terminar.
+        ejecutarEnParalelo(hilo -> {
+            Random azar = new Random(hilo);
+            for (int i = 0; i < CAMBIOS_POR_HILO; i++) {
+                Envio envio = propios.get(azar.nextInt(propios.size()));
+                Dealer repartidor = repartidores.get(azar.nextInt(repartidores.size()));
+                EstadoEntrega estado = estados[azar.nextInt(estados.length)];
+                boolean cambiaRepartidor = azar.nextBoolean();
+                if (hilo % 2 == 0) {
+                    sameDay.actualizarEnvio(envio.getId(), e -> {
+                        if (cambiaRepartidor) {
+                            e.setRepartidorAsignado(repartidor);
+                        } else {
+                            e.setEstadoEntrega(estado);
+                        }
+                    });
+                } else if (cambiaRepartidor) {
+                    envio.setRepartidorAsignado(repartidor);
+                } else {
+                    envio.setEstadoEntrega(estado);
+                }
+            }
+        });
+
+        verificarCarga(repartidores);
+    }
+
+    @Test
+    void asignarEnLoteRegistraCadaEnvioUnaVez() {
+        Dealer repartidor = nuevoRepartidor();
+        Map<Envio, Dealer> asignaciones = new LinkedHashMap<>();
+        Map<Envio, Long> versiones = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            Envio envio = nuevoEnvio();
+            sameDay.addEnvio(envio);
+            asignaciones.put(envio, repartidor);
+            versiones.put(envio, envio.getVersion());
+        }
+
+        assertTrue(sameDay.asignarEnvios(asignaciones));
+
+        // Los dos setters de cada envío no cuentan como cambios aparte
+        for (Envio envio : asignaciones.keySet()) {
+            assertEquals(versiones.get(envio) + 1, sameDay.buscarEnvioPorId(envio.getId()).getVersion());
+        }
+        assertEquals(10, sameDay.contarEnviosActivos(repartidor), "Carga del lote");
+        verificarCarga(List.of(repartidor));
+    }
+
+    private void verificarCarga(List<Dealer> repartidores) {
+        List<Envio> todos = sameDay.getListEnvios();
+        for (Dealer repartidor : repartidores) {
+            int activos = 0;
+            Set<Envio> asignados = new HashSet<>();
+            for (Envio envio : todos) {
+                if (envio.getRepartidorAsignado() == repartidor) {
+                    asignados.add(envio);
+                    if (envio.getEstadoEntrega() != null && envio.getEstadoEntrega() != EstadoEntrega.ENTREGADO) {
+                        activos++;
+                    }
+                }
+            }
+            assertEquals(activos, sameDay.contarEnviosActivos(repartidor),
+                    "Carga activa descuadrada para " + repartidor.getId());
+            assertEquals(asignados, new HashSet<>(sameDay.getEnviosPorRepartidor(repartidor)),
+                    "Envíos descuadrados para " + repartidor.getId());
+        }
+    }
+
+    private Dealer nuevoRepartidor() {
+        String id = sameDay.generarIdRepartidor();
+        Dealer repartidor = new Dealer(id, id, "Repartidor " + id, id + "@sameday.co", "3000000000",
+                new UserAccount("prueba-" + id, "1234", null, TypeUser.DEALER), true, City.ARMENIA);
+        sameDay.agregarPersona(repartidor);
+        return repartidor;
+    }
+
+    private Envio nuevoEnvio() {
+        List<Address> direcciones = sameDay.getListAddresses();
+        return new Envio(sameDay.generarIdEnvio(), direcciones.get(0), direcciones.get(1 % direcciones.size()),
+                0, "10x10x10 cm", 1, "Prueba de concurrencia");
+    }
+
+    /**
+     * Arranca todos los hilos a la vez y propaga la primera falla de cualquiera
+     */
+    private static void ejecutarEnParalelo(IntConsumer tarea) throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        try {
+            List<Future<?>> resultados = new ArrayList<>();
+            for (int i = 0; i < HILOS; i++) {
+                int hilo = i;
+                resultados.add(hilos.submit(() -> {
+                    salida.await();
+                    tarea.accept(hilo);
+                    return null;
+                }));
+            }
+            salida.countDown();
+            for (Future<?> resultado : resultados) {
+                resultado.get();
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+}
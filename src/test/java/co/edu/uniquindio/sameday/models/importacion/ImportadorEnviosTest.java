@@ -0,0 +1,74 @@
+package co.edu.uniquindio.sameday.models.importacion;
+
+import co.edu.uniquindio.sameday.models.ServicioAdicional;
+import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
+import co.edu.uniquindio.sameday.models.tarifas.MotorTarifas;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Una fila problemática no debe detener la importación, y un archivo mal cortado no debe
+ * leerse entero a memoria
+ */
+class ImportadorEnviosTest {
+
+    private static final String ENCABEZADO = "origen,destino,peso,dimensiones,contenido,"
+            + "nombreDestinatario,cedulaDestinatario,telefonoDestinatario\n";
+
+    private final SameDay sameDay = SameDay.getInstance();
+
+    @Test
+    void unaFallaInesperadaEnUnaFilaQuedaComoErrorDeEsaFila() throws Exception {
+        // Un motor que falla con un peso puntual, como lo haría un error de programa
+        MotorTarifas tarifas = new MotorTarifas(null) {
+            @Override
+            public double cotizar(double peso, Collection<ServicioAdicional> servicios) {
+                if (peso == 13) {
+                    throw new IllegalStateException("falla de prueba");
+                }
+                return super.cotizar(peso, servicios);
+            }
+        };
+        String csv = ENCABEZADO
+                + fila(2) + fila(13) + fila(4);
+
+        ResultadoImportacion resultado = new ImportadorEnvios(sameDay, tarifas, 2)
+                .importar(new StringReader(csv), ImportadorEnvios.Formato.CSV, null);
+
+        assertNull(resultado.getErrorGeneral());
+        assertEquals(3L, resultado.getLeidas());
+        assertEquals(2L, resultado.getImportadas());
+        assertEquals(1, resultado.getErrores().size(), "errores");
+        assertEquals(2L, resultado.getErrores().get(0).getFila());
+        assertTrue(resultado.getErrores().get(0).getMensaje().contains("falla de prueba"));
+    }
+
+    @Test
+    void unaComillaSinCerrarNoLeeElRestoDelArchivoComoUnaFila() throws Exception {
+        StringBuilder csv = new StringBuilder(ENCABEZADO)
+                .append(fila(2))
+                .append("DIR001,DIR003,3,\"10x10x10 cm,Libros,Ana,1094000000,3100000000\n");
+        String resto = fila(5);
+        while (csv.length() < 2 * LectorManifiesto.MAXIMO_REGISTRO) {
+            csv.append(resto);
+        }
+
+        ResultadoImportacion resultado = new ImportadorEnvios(sameDay, MotorTarifas.getInstance(), 1)
+                .importar(new StringReader(csv.toString()), ImportadorEnvios.Formato.CSV, null);
+
+        assertNotNull(resultado.getErrorGeneral());
+        assertTrue(resultado.getErrorGeneral().contains("Registro de más de"), resultado.getErrorGeneral());
+        assertEquals(1L, resultado.getImportadas());
+    }
+
+    private static String fila(double peso) {
+        return "DIR001,DIR003," + peso + ",10x10x10 cm,Libros,Ana,1094000000,3100000000\n";
+    }
+}
@@ -0,0 +1,124 @@
+package co.edu.uniquindio.sameday.models.persistence;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.AddressType;
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recuperación tras una caída: snapshot + cola del diario, con la última trama
+ * cortada a mitad de escritura
+ */
+class AlmacenDurableTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void laRecuperacionSeDetieneEnLaTramaCortadaSinPerderLasAnteriores() throws IOException {
+        // Primera ejecución: dos direcciones que terminan compactadas en un snapshot
+        try (AlmacenDurable almacen = new AlmacenDurable(directorio, true)) {
+            almacen.recuperar(new Receptor());
+            almacen.registrarDireccion(direccion("DIR-1", "Calle 1"));
+            almacen.registrarDireccion(direccion("DIR-2", "Calle 2"));
+        }
+        new CompactadorSnapshots(directorio).compactar(null);
+        CompactadorSnapshots compactador = new CompactadorSnapshots(directorio);
+        assertNotNull(compactador.buscarUltimoSnapshot(), "snapshot");
+        assertTrue(compactador.listarSegmentos().isEmpty(), "El snapshot debía cubrir el segmento");
+
+        // Segunda ejecución: la cola del diario modifica una y agrega dos más
+        try (AlmacenDurable almacen = new AlmacenDurable(directorio, true)) {
+            Receptor receptor = new Receptor();
+            almacen.recuperar(receptor);
+            assertEquals(List.of("DIR-1", "DIR-2"), new ArrayList<>(receptor.direcciones.keySet()));
+            almacen.registrarDireccion(direccion("DIR-1", "Calle 1 modificada"));
+            almacen.registrarDireccion(direccion("DIR-3", "Calle 3"));
+            almacen.registrarDireccion(direccion("DIR-4", "Calle 4"));
+        }
+
+        // La caída deja la última trama a medio escribir
+        List<Path> segmentos = compactador.listarSegmentos();
+        assertEquals(1, segmentos.size());
+        try (FileChannel canal = FileChannel.open(segmentos.get(0), StandardOpenOption.WRITE)) {
+            canal.truncate(canal.size() - 3);
+        }
+
+        Receptor recuperado = new Receptor();
+        try (AlmacenDurable almacen = new AlmacenDurable(directorio, true)) {
+            almacen.recuperar(recuperado);
+            // Lo que se escriba después sigue la secuencia y no pisa el segmento cortado
+            almacen.registrarDireccion(direccion("DIR-5", "Calle 5"));
+        }
+        assertEquals(List.of("DIR-1", "DIR-2", "DIR-3"), new ArrayList<>(recuperado.direcciones.keySet()));
+        assertEquals("Calle 1 modificada", recuperado.direcciones.get("DIR-1").getStreet());
+
+        Receptor tercera = new Receptor();
+        try (AlmacenDurable almacen = new AlmacenDurable(directorio, true)) {
+            almacen.recuperar(tercera);
+        }
+        assertEquals(List.of("DIR-1", "DIR-2", "DIR-3", "DIR-5"), new ArrayList<>(tercera.direcciones.keySet()));
+    }
+
+    private static Address direccion(String id, String calle) {
+        return new Address(id, "Casa", calle, City.ARMENIA, AddressType.DESTINATARIO, "Frente al parque");
+    }
+
+    private static class Receptor implements ReceptorRecuperacion {
+
+        private final Map<String, Address> direcciones = new LinkedHashMap<>();
+
+        @Override
+        public void aplicarPersona(Person persona) {
+        }
+
+        @Override
+        public void eliminarPersona(String clave) {
+        }
+
+        @Override
+        public void aplicarDireccion(Address direccion) {
+            direcciones.put(direccion.getId(), direccion);
+        }
+
+        @Override
+        public void eliminarDireccion(String id) {
+            direcciones.remove(id);
+        }
+
+        @Override
+        public void aplicarEnvio(Envio envio) {
+        }
+
+        @Override
+        public void eliminarEnvio(String id) {
+        }
+
+        @Override
+        public Address buscarDireccionPorId(String id) {
+            return direcciones.get(id);
+        }
+
+        @Override
+        public Dealer buscarDealerPorId(String id) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package co.edu.uniquindio.sameday.models.persistence;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.AddressType;
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.EstadoEntrega;
+import co.edu.uniquindio.sameday.models.EstadoPago;
+import co.edu.uniquindio.sameday.models.ServicioAdicional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lo que se escribe en el archivo mapeado debe leerse igual después de reabrirlo,
+ * incluidos los casos que deja una caída a medias
+ */
+class AlmacenEnviosMapeadoTest {
+
+    @TempDir
+    Path directorio;
+
+    private final Map<String, Address> direcciones = new HashMap<>();
+    private final Map<String, Dealer> repartidores = new HashMap<>();
+
+    @Test
+    void cadaCampoSobreviveAlReabrirIncluidosLosTextosLargos() throws IOException {
+        Address origen = direccion("DIR-1");
+        Address destino = direccion("DIR-2");
+        Dealer repartidor = repartidor("REP-1");
+        String contenidoLargo = "Repuestos ".repeat(40);
+        String observacionesLargas = "Entregar en portería, preguntar por Ana. ".repeat(30);
+
+        Envio envio = new Envio("ENV-1", origen, destino, 12.5, "30x20x10 cm", 6000.0, contenidoLargo);
+        envio.setFechaCreacion(LocalDateTime.of(2026, 3, 14, 9, 26, 53, 589_000_000));
+        envio.setCostoTotal(48_250.75);
+        envio.setEstadoPago(EstadoPago.PAGADO);
+        envio.setNombreDestinatario("María José Pérez");
+        envio.setTelefonoDestinatario("3101234567");
+        envio.setCedulaDestinatario("1094123456");
+        envio.setObservaciones(observacionesLargas);
+        envio.getServiciosAdicionales().add(ServicioAdicional.SEGURO);
+        envio.getServiciosAdicionales().add(ServicioAdicional.PRIORIDAD);
+        envio.getServiciosAdicionales().add(ServicioAdicional.FRAGIL);
+        envio.setRepartidorAsignado(repartidor);
+        envio.setEstadoEntrega(EstadoEntrega.EN_RUTA);
+        envio.setFechaActualizacionEstado(LocalDateTime.of(2026, 3, 14, 11, 0, 0, 250_000_000));
+        envio.setVersion(9);
+
+        Path archivo = directorio.resolve("envios.dat");
+        try (AlmacenEnviosMapeado almacen = abrir(archivo)) {
+            almacen.escribir(envio);
+        }
+        assertTrue(Files.size(archivo.resolveSibling("envios.dat.textos")) > 0, "Los textos largos van aparte");
+
+        try (AlmacenEnviosMapeado almacen = abrir(archivo)) {
+            Envio leido = almacen.leer("ENV-1");
+            assertEquals("ENV-1", leido.getId());
+            assertSame(origen, leido.getOrigen());
+            assertSame(destino, leido.getDestino());
+            assertSame(repartidor, leido.getRepartidorAsignado());
+            assertEquals(12.5, leido.getPeso(), 0.0);
+            assertEquals(6000.0, leido.getVolumen(), 0.0);
+            assertEquals(48_250.75, leido.getCostoTotal(), 0.0);
+            assertEquals("30x20x10 cm", leido.getDimensiones());
+            assertEquals(contenidoLargo, leido.getContenido());
+            assertEquals(observacionesLargas, leido.getObservaciones());
+            assertEquals("María José Pérez", leido.getNombreDestinatario());
+            assertEquals("3101234567", leido.getTelefonoDestinatario());
+            assertEquals("1094123456", leido.getCedulaDestinatario());
+            assertEquals("PAGADO", leido.getEstado());
+            assertEquals(EstadoEntrega.EN_RUTA, leido.getEstadoEntrega());
+            assertEquals(envio.getFechaCreacion(), leido.getFechaCreacion());
+            assertEquals(envio.getFechaActualizacionEstado(), leido.getFechaActualizacionEstado());
+            assertEquals(List.of(ServicioAdicional.SEGURO, ServicioAdicional.PRIORIDAD, ServicioAdicional.FRAGIL),
+                    leido.getServiciosAdicionales());
+            assertEquals(9L, leido.getVersion());
+            assertEquals(List.of("ENV-1"), almacen.getIdsPorRepartidor("REP-1"));
+
+            // Un texto largo que no cambia se reutiliza; uno nuevo se agrega al final
+            long textosAntes = Files.size(archivo.resolveSibling("envios.dat.textos"));
+            leido.setPeso(13);
+            almacen.escribir(leido);
+            assertEquals(textosAntes, Files.size(archivo.resolveSibling("envios.dat.textos")));
+            leido.setContenido(null);
+            leido.setObservaciones(observacionesLargas + "Tocar dos veces.");
+            almacen.escribir(leido);
+        }
+
+        try (AlmacenEnviosMapeado almacen = abrir(archivo)) {
+            Envio leido = almacen.leer("ENV-1");
+            assertEquals(1, almacen.tamano());
+            assertEquals(13.0, leido.getPeso(), 0.0);
+            assertNull(leido.getContenido());
+            assertEquals(observacionesLargas + "Tocar dos veces.", leido.getObservaciones());
+        }
+    }
+
+    @Test
+    void conDosRegistrosDelMismoEnvioSeQuedaElDeVersionMayor() throws IOException {
+        Path archivo = directorio.resolve("envios.dat");
+        try (AlmacenEnviosMapeado almacen = abrir(archivo)) {
+            // Posición 0: v1 (queda libre); posición 1: v2
+            almacen.escribir(envio("ENV-A", 1, "REP-1"));
+            almacen.escribir(envio("ENV-A", 2, "REP-2"));
+        }
+        // Se simula la caída entre escribir la versión nueva y soltar la anterior
+        marcarOcupado(archivo, 0);
+        try (AlmacenEnviosMapeado almacen = abrir(archivo)) {
+            // La versión mayor está en la posición posterior
+            assertEquals(1, almacen.tamano());
+            assertEquals(2L, almacen.leer("ENV-A").getVersion());
+            assertEquals(List.of("ENV-A"), almacen.getIdsPorRepartidor("REP-2"));
+            assertEquals(List.of(), almacen.getIdsPorRepartidor("REP-1"));
+
+            // Posición 0: v5 y luego v7; posición 2: v4 (queda libre)
+            almacen.escribir(envio("ENV-B", 5, "REP-1"));
+            almacen.escribir(envio("ENV-B", 4, "REP-2"));
+            almacen.escribir(envio("ENV-B", 7, "REP-1"));
+        }
+        marcarOcupado(archivo, 2);
+        try (AlmacenEnviosMapeado almacen = abrir(archivo)) {
+            // Ahora la posición posterior es la de versión menor
+            assertEquals(2, almacen.tamano());
+            assertEquals(7L, almacen.leer("ENV-B").getVersion());
+            assertEquals(List.of("ENV-B"), almacen.getIdsPorRepartidor("REP-1"));
+            assertEquals(List.of("ENV-A"), almacen.getIdsPorRepartidor("REP-2"));
+            // La posición descartada vuelve a estar libre: el siguiente envío la ocupa
+            almacen.escribir(envio("ENV-C", 1, null));
+            assertEquals(List.of("ENV-B", "ENV-A", "ENV-C"), almacen.getIds());
+        }
+    }
+
+    @Test
+    void creceMasAllaDeUnSegmentoYSeReabreCompleto() throws IOException {
+        Path archivo = directorio.resolve("envios.dat");
+        int cantidad = AlmacenEnviosMapeado.REGISTROS_POR_SEGMENTO + 100;
+        try (AlmacenEnviosMapeado almacen = abrir(archivo)) {
+            for (int i = 0; i < cantidad; i++) {
+                Envio envio = envio("ENV-" + i, 1, i % 2 == 0 ? "REP-1" : null);
+                envio.setPeso(i);
+                almacen.escribir(envio);
+            }
+        }
+        // Un archivo de la versión 2 se abre igual y queda marcado como versión 3
+        escribirEntero(archivo, 4, 2);
+
+        try (AlmacenEnviosMapeado almacen = abrir(archivo)) {
+            assertEquals(cantidad, almacen.tamano());
+            assertEquals(cantidad / 2, almacen.getIdsPorRepartidor("REP-1").size());
+            assertEquals(cantidad - 1.0, almacen.leer("ENV-" + (cantidad - 1)).getPeso(), 0.0);
+            assertEquals(0.0, almacen.leer("ENV-0").getPeso(), 0.0);
+            almacen.escribir(envio("ENV-" + (cantidad - 1), 2, "REP-1"));
+        }
+        assertEquals(3, leerEntero(archivo, 4));
+
+        try (AlmacenEnviosMapeado almacen = abrir(archivo)) {
+            assertEquals(cantidad, almacen.tamano());
+            assertEquals(2L, almacen.leer("ENV-" + (cantidad - 1)).getVersion());
+            List<String> ids = new ArrayList<>(almacen.getIds());
+            assertEquals(cantidad, ids.size());
+            assertEquals("ENV-" + (cantidad - 1), ids.get(ids.size() - 1));
+        }
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private AlmacenEnviosMapeado abrir(Path archivo) throws IOException {
+        return new AlmacenEnviosMapeado(archivo, direcciones::get, repartidores::get);
+    }
+
+    private Envio envio(String id, long version, String repartidorId) {
+        Envio envio = new Envio(id, direccion("DIR-1"), direccion("DIR-2"), 1.0, "10x10x10 cm", 1000.0, "Libros");
+        if (repartidorId != null) {
+            envio.setRepartidorAsignado(repartidor(repartidorId));
+        }
+        envio.setVersion(version);
+        return envio;
+    }
+
+    private Address direccion(String id) {
+        return direcciones.computeIfAbsent(id, clave ->
+                new Address(clave, "Casa", "Calle " + clave, City.ARMENIA, AddressType.DESTINATARIO, "Portón verde"));
+    }
+
+    private Dealer repartidor(String id) {
+        return repartidores.computeIfAbsent(id, clave ->
+                new Dealer(clave, "1094", "Repartidor " + clave, "rep@sameday.co", "300", null, true, City.ARMENIA));
+    }
+
+    private static void marcarOcupado(Path archivo, int posicion) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.wrap(new byte[]{1}),
+                    AlmacenEnviosMapeado.TAMANO_CABECERA + (long) posicion * AlmacenEnviosMapeado.TAMANO_REGISTRO);
+        }
+    }
+
+    private static void escribirEntero(Path archivo, long posicion, int valor) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.allocate(4).putInt(0, valor), posicion);
+        }
+    }
+
+    private static int leerEntero(Path archivo, long posicion) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            canal.read(buffer, posicion);
+            return buffer.getInt(0);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package co.edu.uniquindio.sameday.models.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * La compactación solo puede borrar los segmentos cuyo contenido ya quedó en el snapshot
+ */
+class CompactadorSnapshotsTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void borraSoloLosSegmentosCubiertosPorElSnapshot() throws IOException {
+        Path primero = escribirSegmento(1, registro(Registro.DIRECCION_PUT, 1, "DIR-1"),
+                registro(Registro.DIRECCION_PUT, 2, "DIR-2"));
+        Path segundo = escribirSegmento(3, registro(Registro.DIRECCION_DEL, 3, "DIR-1"),
+                registro(Registro.ENVIO_PUT, 4, "ENV-1"));
+        Path activo = escribirSegmento(5, registro(Registro.ENVIO_PUT, 5, "ENV-2"));
+
+        CompactadorSnapshots compactador = new CompactadorSnapshots(directorio);
+        compactador.compactar(activo);
+
+        assertFalse(Files.exists(primero));
+        assertFalse(Files.exists(segundo));
+        assertTrue(Files.exists(activo), "El segmento activo no está cubierto por el snapshot");
+        assertEquals(List.of(activo), compactador.listarSegmentos());
+
+        Path snapshot = compactador.buscarUltimoSnapshot();
+        List<String> claves = new ArrayList<>();
+        long ultimaSecuencia = compactador.recorrerSnapshot(snapshot,
+                registro -> claves.add(RegistroCodec.leerClave(registro.getPayload())));
+        assertEquals(4L, ultimaSecuencia);
+        assertEquals(List.of("DIR-2", "ENV-1"), claves);
+
+        // Una segunda compactación reemplaza el snapshot anterior y respeta el nuevo activo
+        Path siguiente = escribirSegmento(6, registro(Registro.ENVIO_PUT, 6, "ENV-3"));
+        compactador.compactar(siguiente);
+
+        assertFalse(Files.exists(snapshot));
+        assertFalse(Files.exists(activo));
+        assertEquals(List.of(siguiente), compactador.listarSegmentos());
+        claves.clear();
+        assertEquals(5L, compactador.recorrerSnapshot(compactador.buscarUltimoSnapshot(),
+                registro -> claves.add(RegistroCodec.leerClave(registro.getPayload()))));
+        assertEquals(List.of("DIR-2", "ENV-1", "ENV-2"), claves);
+    }
+
+    private Path escribirSegmento(long primeraSecuencia, Registro... registros) throws IOException {
+        Path ruta = DiarioEscritura.rutaSegmento(directorio, primeraSecuencia);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(ruta)))) {
+            for (Registro registro : registros) {
+                registro.escribir(out);
+            }
+        }
+        return ruta;
+    }
+
+    private static Registro registro(byte tipo, long secuencia, String clave) {
+        return new Registro(tipo, secuencia, RegistroCodec.codificarClave(clave));
+    }
+}
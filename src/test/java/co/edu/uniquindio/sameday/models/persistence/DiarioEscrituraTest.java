@@ -0,0 +1,45 @@
+package co.edu.uniquindio.sameday.models.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiarioEscrituraTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void unaFallaDelEscritorRechazaLosRegistrosSiguientes() throws Exception {
+        Path segmentos = Files.createDirectory(directorio.resolve("diario"));
+        DiarioEscritura diario = new DiarioEscritura(segmentos, 1, null);
+        diario.esperarDurabilidad(diario.registrar(Registro.ENVIO_PUT, RegistroCodec.codificarClave("ENV-1")));
+
+        // Sin directorio, la rotación no puede abrir el segmento siguiente
+        Files.delete(diario.getSegmentoActivo());
+        Files.delete(segmentos);
+        diario.solicitarRotacion();
+
+        boolean rechazado = false;
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!rechazado && System.currentTimeMillis() < limite) {
+            try {
+                diario.registrar(Registro.ENVIO_PUT, RegistroCodec.codificarClave("ENV-2"));
+                Thread.sleep(10);
+            } catch (UncheckedIOException e) {
+                rechazado = true;
+            }
+        }
+        assertTrue(rechazado, "El diario siguió aceptando registros sin escritor");
+        assertThrows(UncheckedIOException.class,
+                () -> diario.registrar(Registro.ENVIO_PUT, RegistroCodec.codificarClave("ENV-3")));
+        diario.close();
+    }
+}
@@ -0,0 +1,212 @@
+package co.edu.uniquindio.sameday.models.rutas;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.AddressType;
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.EstadoEntrega;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Las rutas deben recoger cada envío antes de entregarlo, ser las más cortas en casos
+ * pequeños y, al extenderse, conservar el orden de las paradas que siguen pendientes
+ */
+class OptimizadorRutasTest {
+
+    private static final City[] CIUDADES = {
+            City.ARMENIA, City.CALARCA, City.CIRCASIA, City.SALENTO, City.MONTENEGRO, City.QUIMBAYA, City.CORDOBA
+    };
+
+    @Test
+    void calcularRecogeAntesDeEntregar() {
+        Random azar = new Random(7);
+        for (int instancia = 0; instancia < 500; instancia++) {
+            City inicio = CIUDADES[azar.nextInt(CIUDADES.length)];
+            List<ParadaRuta> paradas = paradas(azar, 1 + azar.nextInt(10), "ENV-" + instancia + "-");
+
+            Ruta ruta = OptimizadorRutas.calcular(inicio, paradas);
+
+            verificarRuta(inicio, paradas, ruta, "instancia " + instancia);
+        }
+    }
+
+    @Test
+    void extenderRecogeAntesDeEntregarYConservaElOrden() {
+        Random azar = new Random(11);
+        for (int instancia = 0; instancia < 500; instancia++) {
+            City inicio = CIUDADES[azar.nextInt(CIUDADES.length)];
+            List<ParadaRuta> anteriores = paradas(azar, 1 + azar.nextInt(6), "ENV-" + instancia + "-A");
+            List<ParadaRuta> nuevas = paradas(azar, 1 + azar.nextInt(6), "ENV-" + instancia + "-N");
+            // Las conservadas salen de una ruta ya calculada, sin alguna de sus paradas
+            List<ParadaRuta> conservadas = new ArrayList<>(OptimizadorRutas.calcular(inicio, anteriores).getParadas());
+            conservadas.removeIf(parada -> parada.getTipo() == ParadaRuta.Tipo.RECOGIDA && azar.nextInt(3) == 0);
+            List<ParadaRuta> todas = new ArrayList<>(conservadas);
+            todas.addAll(nuevas);
+            String contexto = "instancia " + instancia;
+
+            Ruta ruta = OptimizadorRutas.extender(inicio, conservadas, nuevas);
+
+            verificarRuta(inicio, todas, ruta, contexto);
+            List<ParadaRuta> enLaRuta = new ArrayList<>(ruta.getParadas());
+            enLaRuta.retainAll(conservadas);
+            assertEquals(conservadas, enLaRuta, contexto);
+        }
+    }
+
+    @Test
+    void calcularCoincideConLaBusquedaExhaustivaHastaCuatroEnvios() {
+        Random azar = new Random(2024);
+        for (int instancia = 0; instancia < 400; instancia++) {
+            City inicio = CIUDADES[azar.nextInt(CIUDADES.length)];
+            List<ParadaRuta> paradas = paradas(azar, 1 + azar.nextInt(4), "ENV-" + instancia + "-");
+
+            Ruta ruta = OptimizadorRutas.calcular(inicio, paradas);
+
+            int optimo = mejorMinutos(inicio, paradas, new ArrayList<>(), new boolean[paradas.size()]);
+            assertEquals(optimo, ruta.getMinutos(), "instancia " + instancia + ": " + ruta.getParadas());
+        }
+    }
+
+    @Test
+    void alRecogerseUnEnvioLasDemasParadasConservanSuOrden() {
+        List<Envio> envios = new ArrayList<>();
+        Dealer repartidor = new Dealer("REP-1", "1094REP-1", "Repartidor", "rep@sameday.co", "300",
+                null, true, City.ARMENIA);
+        RutasRepartidores rutas = new RutasRepartidores(dealer -> envios);
+        Random azar = new Random(3);
+        for (int i = 0; i < 6; i++) {
+            envios.add(envio(azar, "ENV-" + i, EstadoEntrega.ASIGNADO));
+        }
+        Ruta primera = rutas.rutaDe(repartidor);
+        assertSame(primera, rutas.rutaDe(repartidor));
+
+        // Se recoge el primer envío de la ruta, se entrega otro y llega uno nuevo
+        Envio recogido = primera.getParadas().get(0).getEnvio();
+        recogido.setEstadoEntrega(EstadoEntrega.RECOGIDO);
+        Envio entregado = envios.get(envios.get(0) == recogido ? 1 : 0);
+        entregado.setEstadoEntrega(EstadoEntrega.ENTREGADO);
+        envios.add(envio(azar, "ENV-NUEVO", EstadoEntrega.ASIGNADO));
+        Ruta segunda = rutas.rutaDe(repartidor);
+
+        List<String> esperadas = new ArrayList<>();
+        for (ParadaRuta parada : primera.getParadas()) {
+            if (parada.getEnvio() != entregado
+                    && !(parada.getEnvio() == recogido && parada.getTipo() == ParadaRuta.Tipo.RECOGIDA)) {
+                esperadas.add(parada.getClave());
+            }
+        }
+        List<String> conservadas = new ArrayList<>();
+        for (ParadaRuta parada : segunda.getParadas()) {
+            if (!parada.getEnvio().getId().equals("ENV-NUEVO")) {
+                conservadas.add(parada.getClave());
+            }
+        }
+        assertEquals(esperadas, conservadas);
+        assertEquals(esperadas.size() + 2, segunda.getParadas().size());
+    }
+
+    private static void verificarRuta(City inicio, List<ParadaRuta> paradas, Ruta ruta, String contexto) {
+        assertEquals(paradas.size(), ruta.getParadas().size(), contexto);
+        assertTrue(ruta.getParadas().containsAll(paradas), contexto);
+        Set<Envio> recogidos = new HashSet<>();
+        Set<Envio> conRecogida = new HashSet<>();
+        for (ParadaRuta parada : paradas) {
+            if (parada.getTipo() == ParadaRuta.Tipo.RECOGIDA) {
+                conRecogida.add(parada.getEnvio());
+            }
+        }
+        for (ParadaRuta parada : ruta.getParadas()) {
+            if (parada.getTipo() == ParadaRuta.Tipo.RECOGIDA) {
+                recogidos.add(parada.getEnvio());
+            } else if (conRecogida.contains(parada.getEnvio())) {
+                assertTrue(recogidos.contains(parada.getEnvio()),
+                        contexto + ": " + parada.getEnvio().getId() + " se entrega antes de recogerse");
+            }
+        }
+        assertEquals(minutos(inicio, ruta.getParadas()), ruta.getMinutos(), contexto);
+    }
+
+    private static int mejorMinutos(City inicio, List<ParadaRuta> paradas, List<ParadaRuta> parcial, boolean[] usada) {
+        if (parcial.size() == paradas.size()) {
+            return minutos(inicio, parcial);
+        }
+        int mejor = Integer.MAX_VALUE;
+        for (int i = 0; i < paradas.size(); i++) {
+            ParadaRuta parada = paradas.get(i);
+            if (usada[i] || (parada.getTipo() == ParadaRuta.Tipo.ENTREGA && faltaRecogida(paradas, usada, parada))) {
+                continue;
+            }
+            usada[i] = true;
+            parcial.add(parada);
+            mejor = Math.min(mejor, mejorMinutos(inicio, paradas, parcial, usada));
+            parcial.remove(parcial.size() - 1);
+            usada[i] = false;
+        }
+        return mejor;
+    }
+
+    private static boolean faltaRecogida(List<ParadaRuta> paradas, boolean[] usada, ParadaRuta entrega) {
+        for (int i = 0; i < paradas.size(); i++) {
+            ParadaRuta parada = paradas.get(i);
+            if (!usada[i] && parada.getEnvio() == entrega.getEnvio() && parada.getTipo() == ParadaRuta.Tipo.RECOGIDA) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Mismo modelo de tiempos que OptimizadorRutas: todas las ciudades de prueba se alcanzan
+    private static int minutos(City inicio, List<ParadaRuta> orden) {
+        int total = 0;
+        Address actual = null;
+        for (ParadaRuta parada : orden) {
+            if (actual == null) {
+                int desdeInicio = TiemposViaje.minutos(inicio, parada.getDireccion().getCity());
+                total += desdeInicio == 0 ? OptimizadorRutas.MINUTOS_MISMA_CIUDAD : desdeInicio;
+            } else {
+                total += OptimizadorRutas.minutos(actual, parada.getDireccion());
+            }
+            actual = parada.getDireccion();
+        }
+        return total;
+    }
+
+    private static List<ParadaRuta> paradas(Random azar, int cantidad, String prefijo) {
+        List<ParadaRuta> paradas = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            // Dos de cada tres envíos aún por recoger; el resto solo por entregar
+            Envio envio = envio(azar, prefijo + i,
+                    azar.nextInt(3) == 0 ? EstadoEntrega.EN_RUTA : EstadoEntrega.ASIGNADO);
+            if (envio.getEstadoEntrega() == EstadoEntrega.ASIGNADO) {
+                paradas.add(new ParadaRuta(envio, ParadaRuta.Tipo.RECOGIDA));
+            }
+            paradas.add(new ParadaRuta(envio, ParadaRuta.Tipo.ENTREGA));
+        }
+        return paradas;
+    }
+
+    private static Envio envio(Random azar, String id, EstadoEntrega estado) {
+        Envio envio = new Envio(id, direccion(azar), direccion(azar), 1.0, "10x10x10 cm", 1000.0, "Libros");
+        envio.setEstadoEntrega(estado);
+        return envio;
+    }
+
+    // Pocas direcciones por ciudad, para que se repitan paradas en la misma dirección
+    private static Address direccion(Random azar) {
+        City ciudad = CIUDADES[azar.nextInt(CIUDADES.length)];
+        int numero = azar.nextInt(2);
+        return new Address("DIR-" + ciudad + "-" + numero, "Dirección", "Calle " + numero, ciudad,
+                AddressType.DESTINATARIO, "");
+    }
+}
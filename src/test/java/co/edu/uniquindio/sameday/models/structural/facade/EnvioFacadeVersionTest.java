@@ -0,0 +1,65 @@
+package co.edu.uniquindio.sameday.models.structural.facade;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.Dealer;
+import co.edu.uniquindio.sameday.models.Envio;
+import co.edu.uniquindio.sameday.models.EstadoEntrega;
+import co.edu.uniquindio.sameday.models.creational.singleton.SameDay;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Asignación manual con control optimista: un cambio hecho con una versión vieja no
+ * pisa el del otro usuario
+ */
+class EnvioFacadeVersionTest {
+
+    private final SameDay sameDay = SameDay.getInstance();
+    private final EnvioFacade facade = new EnvioFacade();
+
+    @Test
+    void asignarYDesasignarConLaVersionVigente() {
+        Envio envio = nuevoEnvio();
+        Dealer repartidor = sameDay.getListDealers().get(0);
+
+        ResultadoOperacion asignado = facade.asignarRepartidor(envio.getId(), envio.getVersion(), repartidor);
+        assertTrue(asignado.isExitoso(), asignado.getMensaje());
+        assertEquals(repartidor, envio.getRepartidorAsignado());
+        assertEquals(EstadoEntrega.ASIGNADO, envio.getEstadoEntrega());
+
+        ResultadoOperacion liberado = facade.desasignarRepartidor(envio.getId(), envio.getVersion());
+        assertTrue(liberado.isExitoso(), liberado.getMensaje());
+        assertNull(envio.getRepartidorAsignado());
+        assertNull(envio.getEstadoEntrega());
+    }
+
+    @Test
+    void unaVersionViejaDaConflictoSinCambiarElEnvio() {
+        Envio envio = nuevoEnvio();
+        Dealer repartidor = sameDay.getListDealers().get(0);
+        long versionLeida = envio.getVersion();
+
+        // Otro usuario modifica el envío mientras el primero tiene abierto el diálogo
+        sameDay.actualizarEnvio(envio.getId(), e -> e.setObservaciones("Cambio de otro usuario"));
+
+        ResultadoOperacion resultado = facade.asignarRepartidor(envio.getId(), versionLeida, repartidor);
+        assertFalse(resultado.isExitoso());
+        assertTrue(resultado.isConflicto());
+        assertNull(envio.getRepartidorAsignado());
+        assertEquals("Cambio de otro usuario", envio.getObservaciones());
+    }
+
+    private Envio nuevoEnvio() {
+        List<Address> direcciones = sameDay.getListAddresses();
+        Envio envio = new Envio(sameDay.generarIdEnvio(), direcciones.get(0), direcciones.get(1 % direcciones.size()),
+                1, "10x10x10 cm", 1, "Prueba de versiones");
+        sameDay.addEnvio(envio);
+        return envio;
+    }
+}
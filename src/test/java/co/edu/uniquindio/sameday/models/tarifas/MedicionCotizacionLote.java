@@ -0,0 +1,78 @@
+package co.edu.uniquindio.sameday.models.tarifas;
+
+import co.edu.uniquindio.sameday.models.ServicioAdicional;
+import co.edu.uniquindio.sameday.models.structural.facade.EnvioFacade;
+import co.edu.uniquindio.sameday.models.structural.facade.ResultadoOperacion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compara el tiempo de cotizar paquete por paquete con calcularCostoEnvio frente a
+ * cotizar el lote completo sobre arreglos (en la fachada y en el motor, con un arreglo
+ * de salida reutilizado).
+ *
+ * No es una prueba unitaria: se ejecuta a mano, por ejemplo
+ *   java -cp target/classes:target/test-classes \
+ *        co.edu.uniquindio.sameday.models.tarifas.MedicionCotizacionLote 1000000
+ *
+ * Hace varias rondas; las primeras calientan el JIT y la que cuenta es la última.
+ */
+public class MedicionCotizacionLote {
+
+    private static final int RONDAS = 4;
+
+    public static void main(String[] args) {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        ServicioAdicional[] todos = ServicioAdicional.values();
+        Random azar = new Random(4);
+        double[] pesos = new double[cantidad];
+        int[] mascaras = new int[cantidad];
+        List<List<ServicioAdicional>> servicios = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            pesos[i] = azar.nextDouble() * 40;
+            mascaras[i] = azar.nextInt(1 << todos.length);
+            List<ServicioAdicional> lista = new ArrayList<>();
+            for (ServicioAdicional servicio : todos) {
+                if ((mascaras[i] >> servicio.ordinal() & 1) != 0) {
+                    lista.add(servicio);
+                }
+            }
+            servicios.add(lista);
+        }
+
+        EnvioFacade facade = new EnvioFacade();
+        MotorTarifas motor = MotorTarifas.getInstance();
+        double[] costos = new double[cantidad];
+
+        for (int ronda = 1; ronda <= RONDAS; ronda++) {
+            long inicio = System.nanoTime();
+            double totalPorPaquete = 0;
+            for (int i = 0; i < cantidad; i++) {
+                ResultadoOperacion resultado = facade.calcularCostoEnvio(pesos[i], servicios.get(i));
+                totalPorPaquete += ((EnvioFacade.CotizacionResult) resultado.getDato()).getCostoTotal();
+            }
+            long finPorPaquete = System.nanoTime();
+
+            double[] lote = (double[]) facade.cotizarLote(pesos, mascaras).getDato();
+            long finFachada = System.nanoTime();
+
+            motor.cotizarLote(pesos, mascaras, costos);
+            long finMotor = System.nanoTime();
+
+            double totalLote = 0;
+            for (double costo : lote) {
+                totalLote += costo;
+            }
+            System.out.printf("⏱️ Ronda %d: por paquete %.1f ns | lote en la fachada %.1f ns | " +
+                            "lote en el motor %.1f ns (por paquete); totales iguales: %b%n",
+                    ronda,
+                    (finPorPaquete - inicio) / (double) cantidad,
+                    (finFachada - finPorPaquete) / (double) cantidad,
+                    (finMotor - finFachada) / (double) cantidad,
+                    totalPorPaquete == totalLote);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package co.edu.uniquindio.sameday.models.validacion;
+
+import co.edu.uniquindio.sameday.models.Address;
+import co.edu.uniquindio.sameday.models.AddressType;
+import co.edu.uniquindio.sameday.models.City;
+import co.edu.uniquindio.sameday.models.Envio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compara ReglasEnvio.ENVIO (por envío y por lote) con el validador anterior del
+ * builder, que se reproduce en validarAnterior(), y revisa que den los mismos mensajes.
+ *
+ * No es una prueba unitaria: se ejecuta a mano, por ejemplo
+ *   java -cp target/classes:target/test-classes \
+ *        co.edu.uniquindio.sameday.models.validacion.MedicionValidacionEnvios 100000
+ *
+ * Hace varias rondas; las primeras calientan el JIT y la que cuenta es la última.
+ */
+public class MedicionValidacionEnvios {
+
+    private static final int RONDAS = 5;
+
+    public static void main(String[] args) {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        List<Envio> validos = validos(cantidad);
+        List<Envio> mezclados = mezclados(cantidad);
+
+        int distintos = 0;
+        for (Envio envio : mezclados) {
+            if (!validarAnterior(envio).equals(validarNuevo(envio))) {
+                distintos++;
+            }
+        }
+        System.out.println("🔎 Mensajes distintos del validador anterior: " + distintos + " de " + cantidad);
+
+        for (int ronda = 1; ronda <= RONDAS; ronda++) {
+            // La suma evita que el JIT descarte las validaciones
+            int suma = 0;
+            long inicio = System.nanoTime();
+            for (Envio envio : validos) {
+                suma += validarAnterior(envio).length();
+            }
+            long finAnterior = System.nanoTime();
+            for (Envio envio : validos) {
+                suma += ReglasEnvio.ENVIO.validar(envio).size();
+            }
+            long finNuevo = System.nanoTime();
+            suma += ReglasEnvio.ENVIO.validarLote(validos, ConjuntoReglas.Modo.TODOS_LOS_ERRORES)
+                    .getCantidadInvalidos();
+            long finLote = System.nanoTime();
+            for (Envio envio : mezclados) {
+                suma += validarAnterior(envio).length();
+            }
+            long finMezcladosAnterior = System.nanoTime();
+            ResultadoValidacion resultado = ReglasEnvio.ENVIO.validarLote(mezclados,
+                    ConjuntoReglas.Modo.TODOS_LOS_ERRORES);
+            long finMezcladosLote = System.nanoTime();
+
+            System.out.printf("⏱️ Ronda %d (ns por envío) válidos: anterior %.0f, reglas %.0f, lote %.0f | " +
+                            "mezclados (%d inválidos): anterior %.0f, lote %.0f [%d]%n",
+                    ronda,
+                    (finAnterior - inicio) / (double) cantidad,
+                    (finNuevo - finAnterior) / (double) cantidad,
+                    (finLote - finNuevo) / (double) cantidad,
+                    resultado.getCantidadInvalidos(),
+                    (finMezcladosAnterior - finLote) / (double) cantidad,
+                    (finMezcladosLote - finMezcladosAnterior) / (double) cantidad,
+                    suma & 1);
+        }
+    }
+
+    private static final Address ORIGEN = new Address("D1", "Origen", "Calle 1",
+            City.ARMENIA, AddressType.REMITENTE, "", "");
+    private static final Address DESTINO = new Address("D2", "Destino", "Calle 2",
+            City.PIJAO, AddressType.DESTINATARIO, "", "");
+
+    private static List<Envio> validos(int cantidad) {
+        List<Envio> envios = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Envio envio = new Envio();
+            envio.setOrigen(ORIGEN);
+            envio.setDestino(DESTINO);
+            envio.setPeso(5);
+            envio.setVolumen(10);
+            envio.setContenido("Libros");
+            envio.setNombreDestinatario("Ana");
+            envio.setCedulaDestinatario(String.valueOf(1_000_000 + i));
+            envio.setTelefonoDestinatario("3" + (100_000_000 + i));
+            envio.setCostoTotal(9000);
+            envios.add(envio);
+        }
+        return envios;
+    }
+
+    /**
+     * Candidatos al azar: la mayoría tiene al menos un error
+     */
+    private static List<Envio> mezclados(int cantidad) {
+        Random azar = new Random(1);
+        Address[] direcciones = {ORIGEN, DESTINO, null};
+        String[] cedulas = {"1094", "", "  ", "12a", null, "000"};
+        String[] telefonos = {"3001234567", "300", "", null, "30012345678", "300123456x"};
+        List<Envio> envios = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Envio envio = new Envio();
+            envio.setOrigen(direcciones[azar.nextInt(direcciones.length)]);
+            envio.setDestino(direcciones[azar.nextInt(direcciones.length)]);
+            envio.setPeso(azar.nextInt(120) - 5);
+            envio.setVolumen(azar.nextInt(10) - 2);
+            envio.setContenido(azar.nextInt(10) == 0 ? " " : "Libros");
+            envio.setNombreDestinatario(azar.nextInt(10) == 0 ? null : "Ana");
+            envio.setCedulaDestinatario(cedulas[azar.nextInt(cedulas.length)]);
+            envio.setTelefonoDestinatario(telefonos[azar.nextInt(telefonos.length)]);
+            envio.setCostoTotal(azar.nextInt(10) - 1);
+            envios.add(envio);
+        }
+        return envios;
+    }
+
+    private static String validarNuevo(Envio envio) {
+        StringBuilder errores = new StringBuilder();
+        for (String error : ReglasEnvio.ENVIO.validar(envio)) {
+            errores.append("• ").append(error).append('\n');
+        }
+        return errores.toString();
+    }
+
+    /**
+     * El cuerpo de EnvioBuilder.validar() antes de ReglasEnvio
+     */
+    private static String validarAnterior(Envio envio) {
+        StringBuilder errores = new StringBuilder();
+        Address origen = envio.getOrigen();
+        Address destino = envio.getDestino();
+        double peso = envio.getPeso();
+        double volumen = envio.getVolumen();
+        String contenido = envio.getContenido();
+        String nombreDestinatario = envio.getNombreDestinatario();
+        String cedulaDestinatario = envio.getCedulaDestinatario();
+        String telefonoDestinatario = envio.getTelefonoDestinatario();
+
+        if (origen == null) {
+            errores.append("• La dirección de origen es obligatoria\n");
+        }
+        if (destino == null) {
+            errores.append("• La dirección de destino es obligatoria\n");
+        }
+        if (origen != null && destino != null && origen.getId().equals(destino.getId())) {
+            errores.append("• La dirección de origen y destino no pueden ser la misma\n");
+        }
+        if (peso <= 0) {
+            errores.append("• El peso debe ser mayor a 0 kg\n");
+        }
+        if (peso > 100) {
+            errores.append("• El peso no puede superar los 100 kg\n");
+        }
+        if (volumen <= 0) {
+            errores.append("• El volumen debe ser mayor a 0 cm³\n");
+        }
+        if (contenido == null || contenido.trim().isEmpty()) {
+            errores.append("• La descripción del contenido es obligatoria\n");
+        }
+        if (nombreDestinatario == null || nombreDestinatario.trim().isEmpty()) {
+            errores.append("• El nombre del destinatario es obligatorio\n");
+        }
+        if (cedulaDestinatario == null || cedulaDestinatario.trim().isEmpty()) {
+            errores.append("• La cédula del destinatario es obligatoria\n");
+        } else if (!cedulaDestinatario.matches("\\d+")) {
+            errores.append("• La cédula debe contener solo números\n");
+        }
+        if (telefonoDestinatario == null || telefonoDestinatario.trim().isEmpty()) {
+            errores.append("• El teléfono del destinatario es obligatorio\n");
+        } else if (!telefonoDestinatario.matches("\\d{10}")) {
+            errores.append("• El teléfono debe tener 10 dígitos\n");
+        }
+        if (envio.getCostoTotal() <= 0) {
+            errores.append("• El costo total debe ser mayor a 0\n");
+        }
+        return errores.toString();
+    }
+}